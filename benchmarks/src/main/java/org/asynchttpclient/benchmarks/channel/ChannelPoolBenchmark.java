@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.channel;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.netty.channel.DefaultChannelPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link DefaultChannelPool} with {@link LegacyChannelPool} under offer/poll churn, and the cost of a cleaner tick on a large pool where
+ * nothing is due, which is the common case. Ticks that do expire channels are measured by {@link ChannelPoolExpiryBenchmark}.
+ *
+ * The pools are driven by a {@link ManualTimer} so that the cleaner only runs when the benchmark invokes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChannelPoolBenchmark {
+
+    @Param({ "default", "legacy" })
+    public String pool;
+
+    @Param({ "1000" })
+    public int partitionCount;
+
+    @Param({ "20" })
+    public int channelsPerPartition;
+
+    private ManualTimer timer;
+    private ChannelPool channelPool;
+    private String[] partitionKeys;
+    private Channel[] channels;
+
+    @Setup
+    public void setUp() {
+        timer = new ManualTimer();
+        // long idle timeout: nothing expires during the benchmark
+        channelPool = pool.equals("default") ? new DefaultChannelPool(60000, -1, timer, 1000) : new LegacyChannelPool(60000, -1, timer, 1000);
+
+        partitionKeys = new String[partitionCount];
+        channels = new Channel[partitionCount * channelsPerPartition];
+        for (int i = 0; i < partitionCount; i++) {
+            partitionKeys[i] = "http://host" + i + ":80";
+            for (int j = 0; j < channelsPerPartition; j++) {
+                Channel channel = new EmbeddedChannel();
+                channels[i * channelsPerPartition + j] = channel;
+                channelPool.offer(channel, partitionKeys[i]);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        channelPool.destroy();
+        for (Channel channel : channels)
+            channel.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Channel pollAndOffer() {
+        String partitionKey = partitionKeys[ThreadLocalRandom.current().nextInt(partitionCount)];
+        Channel channel = channelPool.poll(partitionKey);
+        if (channel != null)
+            channelPool.offer(channel, partitionKey);
+        return channel;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void cleanerTick() throws Exception {
+        timer.runPendingTask();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.channel;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.netty.channel.DefaultChannelPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of a cleaner tick of {@link DefaultChannelPool} and {@link LegacyChannelPool} when a steady stream of idle channels
+ * expires.
+ *
+ * Time is compressed: each invocation starts on a new cleaner period and offers a batch of fresh channels, so that in steady state the pools
+ * hold the batches of the last {@link #IDLE_TIMEOUT} ms and each tick expires the one that was offered an idle timeout ago.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ChannelPoolExpiryBenchmark {
+
+    private static final int IDLE_TIMEOUT = 50;
+    private static final int CLEANER_PERIOD = 5;
+
+    @Param({ "default", "legacy" })
+    public String pool;
+
+    @Param({ "1000" })
+    public int partitionCount;
+
+    @Param({ "100" })
+    public int expiredPerTick;
+
+    private ManualTimer timer;
+    private ChannelPool channelPool;
+    private String[] partitionKeys;
+
+    @Setup
+    public void setUp() {
+        timer = new ManualTimer();
+        channelPool = pool.equals("default") ? new DefaultChannelPool(IDLE_TIMEOUT, -1, timer, CLEANER_PERIOD) : new LegacyChannelPool(IDLE_TIMEOUT, -1, timer,
+                CLEANER_PERIOD);
+
+        partitionKeys = new String[partitionCount];
+        for (int i = 0; i < partitionCount; i++)
+            partitionKeys[i] = "http://host" + i + ":80";
+    }
+
+    @Setup(Level.Invocation)
+    public void offerBatch() throws InterruptedException {
+        // one cleaner period per invocation, so that a tick expires a single batch
+        long tick = System.currentTimeMillis() / CLEANER_PERIOD;
+        long now;
+        while ((now = System.currentTimeMillis()) / CLEANER_PERIOD == tick)
+            Thread.sleep(CLEANER_PERIOD - now % CLEANER_PERIOD);
+
+        for (int i = 0; i < expiredPerTick; i++)
+            channelPool.offer(new EmbeddedChannel(), partitionKeys[ThreadLocalRandom.current().nextInt(partitionCount)]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channelPool.destroy();
+    }
+
+    @Benchmark
+    public void expiringCleanerTick() throws Exception {
+        timer.runPendingTask();
+    }
+}
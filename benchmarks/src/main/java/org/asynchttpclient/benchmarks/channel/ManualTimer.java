@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.channel;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Timer} holding a single pending task, which only runs when the benchmark invokes {@link #runPendingTask()}.
+ */
+final class ManualTimer implements Timer {
+
+    private volatile ManualTimeout pending;
+
+    void runPendingTask() throws Exception {
+        ManualTimeout timeout = pending;
+        if (timeout != null) {
+            pending = null;
+            timeout.task.run(timeout);
+        }
+    }
+
+    @Override
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        ManualTimeout timeout = new ManualTimeout(this, task);
+        pending = timeout;
+        return timeout;
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        return Collections.emptySet();
+    }
+
+    private static final class ManualTimeout implements Timeout {
+
+        private final Timer timer;
+        private final TimerTask task;
+
+        ManualTimeout(Timer timer, TimerTask task) {
+            this.timer = timer;
+            this.task = task;
+        }
+
+        @Override
+        public Timer timer() {
+            return timer;
+        }
+
+        @Override
+        public TimerTask task() {
+            return task;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean cancel() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.cookie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.cookie.Cookie;
+import org.asynchttpclient.cookie.CookieDecoder;
+import org.asynchttpclient.cookie.CookieEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the decoding of Set-Cookie response headers and the encoding of the Cookie request header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CookieBenchmark {
+
+    private static final String SIMPLE_SET_COOKIE = "JSESSIONID=0123456789ABCDEF0123456789ABCDEF";
+    private static final String FULL_SET_COOKIE = "id=a3fWa; Domain=example.com; Path=/docs; Expires=Wed, 21 Oct 2026 07:28:00 GMT; Max-Age=3600; Secure; HttpOnly";
+
+    @Param({ "1", "10" })
+    public int cookieCount;
+
+    private List<Cookie> cookies;
+
+    @Setup
+    public void setUp() {
+        cookies = new ArrayList<>(cookieCount);
+        for (int i = 0; i < cookieCount; i++)
+            cookies.add(new Cookie("cookie" + i, "value" + i, false, "example.com", i % 2 == 0 ? "/" : "/docs", -1L, false, false));
+    }
+
+    @Benchmark
+    public Cookie decodeSimple() {
+        return CookieDecoder.decode(SIMPLE_SET_COOKIE);
+    }
+
+    @Benchmark
+    public Cookie decodeWithAttributes() {
+        return CookieDecoder.decode(FULL_SET_COOKIE);
+    }
+
+    @Benchmark
+    public String encode() {
+        return CookieEncoder.encode(cookies);
+    }
+}
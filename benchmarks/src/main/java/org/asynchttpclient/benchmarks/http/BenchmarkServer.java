@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.http;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Minimal in-process HTTP server answering every request with the same body, so that the end-to-end benchmarks measure the client rather
+ * than the server.
+ */
+public final class BenchmarkServer implements AutoCloseable {
+
+    private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+    private final ByteBuf content;
+    private final Channel serverChannel;
+
+    public BenchmarkServer(int responseSize) throws InterruptedException {
+        byte[] bytes = new byte[responseSize];
+        for (int i = 0; i < responseSize; i++)
+            bytes[i] = (byte) ('a' + i % 26);
+        content = Unpooled.unreleasableBuffer(Unpooled.directBuffer(responseSize).writeBytes(bytes));
+
+        ResponseHandler handler = new ResponseHandler();
+        serverChannel = new ServerBootstrap()//
+                .group(eventLoopGroup)//
+                .channel(NioServerSocketChannel.class)//
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline()//
+                                .addLast(new HttpServerCodec())//
+                                .addLast(new HttpObjectAggregator(Integer.MAX_VALUE))//
+                                .addLast(handler);
+                    }
+                })//
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+    }
+
+    public int getPort() {
+        return InetSocketAddress.class.cast(serverChannel.localAddress()).getPort();
+    }
+
+    @Override
+    public void close() {
+        serverChannel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Sharable
+    private final class ResponseHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content.duplicate());
+            response.headers().set(HttpHeaders.Names.CONTENT_TYPE, "text/plain");
+            HttpHeaders.setContentLength(response, content.readableBytes());
+
+            if (HttpHeaders.isKeepAlive(request)) {
+                response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+                ctx.writeAndFlush(response);
+            } else {
+                ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.http;
+
+import static org.asynchttpclient.Dsl.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sends requests to an in-process {@link BenchmarkServer} over the loopback, from several threads sharing one client.
+ *
+ * Run with <code>-bm thrpt</code> for the throughput, or with <code>-bm sample</code> for the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@Threads(16)
+public class ClientBenchmark {
+
+    @Param({ "100", "65536" })
+    public int responseSize;
+
+    @Param({ "true", "false" })
+    public boolean keepAlive;
+
+    private BenchmarkServer server;
+    private AsyncHttpClient client;
+    private String url;
+    private byte[] requestBody;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new BenchmarkServer(responseSize);
+        client = asyncHttpClient(config().setKeepAlive(keepAlive));
+        url = "http://127.0.0.1:" + server.getPort() + "/benchmark";
+        requestBody = new byte[1024];
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Response get() throws Exception {
+        return client.prepareGet(url).execute().get();
+    }
+
+    @Benchmark
+    public Response post() throws Exception {
+        return client.preparePost(url).setBody(requestBody).execute().get();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.request;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.request.body.Body.BodyState;
+import org.asynchttpclient.request.body.multipart.ByteArrayPart;
+import org.asynchttpclient.request.body.multipart.MultipartBody;
+import org.asynchttpclient.request.body.multipart.MultipartUtils;
+import org.asynchttpclient.request.body.multipart.Part;
+import org.asynchttpclient.request.body.multipart.StringPart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the transfer of a whole multipart body, made of a few form fields and a file, either chunk by chunk into a {@link ByteBuf} as with
+ * the chunked writes, or into a {@link WritableByteChannel} as with the zero-copy writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MultipartBodyBenchmark {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    @Param({ "1024", "1048576" })
+    public int fileSize;
+
+    private List<Part> parts;
+    private HttpHeaders headers;
+    private ByteBuf chunk;
+    private DiscardingChannel channel;
+
+    @Setup
+    public void setUp() {
+        parts = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            parts.add(new StringPart("field" + i, "value" + i));
+        parts.add(new ByteArrayPart("file", new byte[fileSize], "application/octet-stream", null, "file.bin"));
+        headers = new DefaultHttpHeaders();
+        chunk = ByteBufAllocator.DEFAULT.directBuffer(CHUNK_SIZE);
+        channel = new DiscardingChannel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        chunk.release();
+    }
+
+    @Benchmark
+    public long transferToByteBuf() throws IOException {
+        long transferred = 0;
+        try (MultipartBody body = MultipartUtils.newMultipartBody(parts, headers)) {
+            BodyState state;
+            do {
+                chunk.clear();
+                state = body.transferTo(chunk);
+                transferred += chunk.readableBytes();
+            } while (state == BodyState.CONTINUE);
+        }
+        return transferred;
+    }
+
+    @Benchmark
+    public long transferToChannel() throws IOException {
+        long transferred = 0;
+        try (MultipartBody body = MultipartUtils.newMultipartBody(parts, headers)) {
+            long written;
+            while ((written = body.transferTo(channel)) != -1L)
+                transferred += written;
+        }
+        return transferred;
+    }
+
+    private static final class DiscardingChannel implements WritableByteChannel {
+
+        @Override
+        public int write(ByteBuffer src) {
+            int written = Math.min(src.remaining(), CHUNK_SIZE);
+            src.position(src.position() + written);
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
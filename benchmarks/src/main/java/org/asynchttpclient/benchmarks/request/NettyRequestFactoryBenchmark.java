@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.request;
+
+import static org.asynchttpclient.Dsl.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.cookie.Cookie;
+import org.asynchttpclient.netty.request.NettyRequest;
+import org.asynchttpclient.netty.request.NettyRequestFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the translation of a {@link Request} into a Netty request: uri encoding, default headers, cookies and body wrapping, which happens
+ * for every request, retry and redirect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NettyRequestFactoryBenchmark {
+
+    private NettyRequestFactory requestFactory;
+    private Request simpleGet;
+    private Request getWithQueryParams;
+    private Request postForm;
+    private Request postBytes;
+
+    @Setup
+    public void setUp() {
+        DefaultAsyncHttpClientConfig config = config().build();
+        requestFactory = new NettyRequestFactory(config);
+
+        simpleGet = get("http://localhost:8080/foo/bar?baz=qux").build();
+        getWithQueryParams = get("http://localhost:8080/search")//
+                .addQueryParam("q", "async http client")//
+                .addQueryParam("lang", "en")//
+                .addQueryParam("page", "2")//
+                .addHeader("Accept", "application/json")//
+                .addCookie(new Cookie("session", "0123456789abcdef", false, null, "/", -1L, false, true))//
+                .build();
+        postForm = post("http://localhost:8080/form")//
+                .addFormParam("name", "John Doe")//
+                .addFormParam("email", "john.doe@example.com")//
+                .addFormParam("comment", "été à l'hôtel")//
+                .build();
+        postBytes = post("http://localhost:8080/upload")//
+                .setHeader("Content-Type", "application/octet-stream")//
+                .setBody(new byte[4 * 1024])//
+                .build();
+    }
+
+    private NettyRequest newNettyRequest(Request request) {
+        return requestFactory.newNettyRequest(request, false, null, null, null);
+    }
+
+    @Benchmark
+    public NettyRequest simpleGet() {
+        return newNettyRequest(simpleGet);
+    }
+
+    @Benchmark
+    public NettyRequest getWithQueryParams() {
+        return newNettyRequest(getWithQueryParams);
+    }
+
+    @Benchmark
+    public NettyRequest postForm() {
+        return newNettyRequest(postForm);
+    }
+
+    @Benchmark
+    public NettyRequest postBytes() {
+        return newNettyRequest(postBytes);
+    }
+}
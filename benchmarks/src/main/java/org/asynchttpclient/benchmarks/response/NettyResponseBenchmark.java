@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.response;
+
+import static org.asynchttpclient.Dsl.config;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.netty.NettyResponse;
+import org.asynchttpclient.netty.NettyResponseStatus;
+import org.asynchttpclient.uri.Uri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the accumulation of the network buffers into body parts, as done for each chunk by the response handler, followed by the assembly
+ * of the body by {@link NettyResponse}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NettyResponseBenchmark {
+
+    @Param({ "EAGER", "LAZY", "RETAINED" })
+    public ResponseBodyPartFactory bodyPartFactory;
+
+    @Param({ "1", "64" })
+    public int chunkCount;
+
+    @Param({ "8192" })
+    public int chunkSize;
+
+    private NettyResponseStatus status;
+    private HttpResponseHeaders headers;
+    private ByteBuf[] chunks;
+
+    @Setup
+    public void setUp() {
+        status = new NettyResponseStatus(Uri.create("http://localhost:8080/foo"), config().build(), new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                HttpResponseStatus.OK), null);
+        HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.set(HttpHeaders.Names.CONTENT_TYPE, "text/plain; charset=utf-8");
+        headers = new HttpResponseHeaders(httpHeaders);
+
+        chunks = new ByteBuf[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = ByteBufAllocator.DEFAULT.directBuffer(chunkSize);
+            for (int j = 0; j < chunkSize; j++)
+                chunks[i].writeByte('a' + j % 26);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (ByteBuf chunk : chunks)
+            chunk.release();
+    }
+
+    private NettyResponse newResponse() {
+        List<HttpResponseBodyPart> bodyParts = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++)
+            bodyParts.add(bodyPartFactory.newResponseBodyPart(chunks[i].duplicate(), i == chunkCount - 1));
+        return new NettyResponse(status, headers, bodyParts);
+    }
+
+    @Benchmark
+    public byte[] getResponseBodyAsBytes() {
+        NettyResponse response = newResponse();
+        try {
+            return response.getResponseBodyAsBytes();
+        } finally {
+            response.release();
+        }
+    }
+
+    @Benchmark
+    public String getResponseBody() {
+        NettyResponse response = newResponse();
+        try {
+            return response.getResponseBody();
+        } finally {
+            response.release();
+        }
+    }
+
+    @Benchmark
+    public int getResponseBodyAsByteBuf() {
+        NettyResponse response = newResponse();
+        try {
+            return response.getResponseBodyAsByteBuf().readableBytes();
+        } finally {
+            response.release();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.benchmarks.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.uri.Uri;
+import org.asynchttpclient.util.UriEncoder;
+import org.asynchttpclient.util.Utf8UrlEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Utf8UrlEncoder} on plain, reserved and non ASCII input, and {@link UriEncoder} fixing a whole uri with query params.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UriEncoderBenchmark {
+
+    @Param({ "ascii", "reserved", "unicode" })
+    public String input;
+
+    private String value;
+    private String path;
+    private Uri uri;
+    private List<org.asynchttpclient.Param> queryParams;
+
+    @Setup
+    public void setUp() {
+        switch (input) {
+        case "ascii":
+            value = "asynchttpclient";
+            break;
+        case "reserved":
+            value = "a b&c=d/e?f#g+h";
+            break;
+        default:
+            value = "été à l'hôtel";
+        }
+        path = "/api/v1/" + value + "/resources/" + value;
+        uri = Uri.create("http://localhost:8080/api/v1/resources?sort=asc&filter=" + value);
+        queryParams = Arrays.asList(new org.asynchttpclient.Param("q", value), new org.asynchttpclient.Param("page", "2"));
+    }
+
+    @Benchmark
+    public String encodeQueryElement() {
+        return Utf8UrlEncoder.encodeQueryElement(value);
+    }
+
+    @Benchmark
+    public String encodePath() {
+        return Utf8UrlEncoder.encodePath(path);
+    }
+
+    @Benchmark
+    public StringBuilder encodeFormElement() {
+        return Utf8UrlEncoder.encodeAndAppendFormElement(new StringBuilder(32), value);
+    }
+
+    @Benchmark
+    public Uri fixUri() {
+        return UriEncoder.FIXING.encode(uri, queryParams);
+    }
+}
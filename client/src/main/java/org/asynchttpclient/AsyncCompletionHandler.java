@@ -69,6 +69,8 @@ public abstract class AsyncCompletionHandler<T> implements AsyncHandler<T>, Prog
      */
     public void onThrowable(Throwable t) {
         LOGGER.debug(t.getMessage(), t);
+        // don't leak the body parts received before the failure
+        builder.reset();
     }
 
     /**
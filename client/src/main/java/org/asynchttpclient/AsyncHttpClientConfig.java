@@ -25,14 +25,21 @@ import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 
 import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.channel.ChannelPoolListener;
+import org.asynchttpclient.channel.CircuitBreaker;
+import org.asynchttpclient.channel.ConcurrencyLimiter;
 import org.asynchttpclient.channel.KeepAliveStrategy;
 import org.asynchttpclient.filter.IOExceptionFilter;
+import org.asynchttpclient.filter.AsyncRequestFilter;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.filter.ResponseFilter;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.netty.EagerResponseBodyPart;
 import org.asynchttpclient.netty.LazyResponseBodyPart;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.proxy.ProxyServerSelector;
+import org.asynchttpclient.retry.RetryPolicy;
 
 public interface AsyncHttpClientConfig {
 
@@ -62,6 +69,32 @@ public interface AsyncHttpClientConfig {
      */
     int getMaxConnectionsPerHost();
 
+    /**
+     * @return the minimum number of idle connections kept in the pool for each partition that was pre-warmed, 0 to let partitions drain
+     */
+    int getMinIdleConnectionsPerHost();
+
+    /**
+     * @return the time in ms after which a pre-warmed partition that didn't lease any connection stops being topped up with
+     *         {@link #getMinIdleConnectionsPerHost()} idle connections, -1 to keep topping it up for as long as the client is open
+     */
+    int getMinIdleConnectionsTimeout();
+
+    /**
+     * Return the maximum number of requests that can wait for a free connection of a given host when
+     * {@link #getMaxConnections()} or {@link #getMaxConnectionsPerHost()} is reached, instead of failing immediately.
+     *
+     * @return the maximum number of pending requests per host, 0 (default) means requests fail fast
+     */
+    int getPendingAcquireQueueSize();
+
+    /**
+     * Return the maximum time in millisecond a request can wait for a free connection when queued.
+     *
+     * @return the maximum time in millisecond a request can wait for a free connection
+     */
+    int getPendingAcquireTimeout();
+
     /**
      * Return the maximum time in millisecond an {@link AsyncHttpClient} can wait when connecting to a remote host
      *
@@ -69,6 +102,14 @@ public interface AsyncHttpClientConfig {
      */
     int getConnectTimeout();
 
+    /**
+     * Return the delay in millisecond after which, when a host resolves to several addresses, a connection attempt to the next address is started
+     * in parallel if the previous attempts didn't complete yet, as in RFC 8305 (Happy Eyeballs). A value &lt;= 0 makes attempts sequential.
+     *
+     * @return the delay in millisecond between connection attempts
+     */
+    int getConnectionAttemptDelay();
+
     /**
      * Return the maximum time in millisecond an {@link AsyncHttpClient} can stay idle.
      *
@@ -166,6 +207,13 @@ public interface AsyncHttpClientConfig {
      */
     List<RequestFilter> getRequestFilters();
 
+    /**
+     * Return the list of {@link AsyncRequestFilter}, applied after the {@link RequestFilter}s
+     *
+     * @return Unmodifiable list of {@link AsyncRequestFilter}
+     */
+    List<AsyncRequestFilter> getAsyncRequestFilters();
+
     /**
      * Return the list of {@link ResponseFilter}
      *
@@ -207,6 +255,11 @@ public interface AsyncHttpClientConfig {
      */
     int getConnectionTtl();
 
+    /**
+     * @return true if the pool keeps idle connections per event loop and prefers the ones bound to the caller's event loop
+     */
+    boolean isUseEventLoopAffinePool();
+
     boolean isUseOpenSsl();
 
     boolean isAcceptAnyCertificate();
@@ -261,6 +314,17 @@ public interface AsyncHttpClientConfig {
 
     boolean isUseNativeTransport();
 
+    /**
+     * @return true if hostnames should be resolved asynchronously with one caching {@link io.netty.resolver.dns.DnsNameResolver} per event loop,
+     * instead of a blocking {@link java.net.InetAddress} lookup. Only applies to requests that don't set their own {@link io.netty.resolver.NameResolver}.
+     */
+    boolean isUseDnsNameResolver();
+
+    /**
+     * @return the timeout in ms of a DNS query sent by the resolver, see {@link #isUseDnsNameResolver()}
+     */
+    int getDnsQueryTimeout();
+
     AdditionalChannelInitializer getHttpAdditionalChannelInitializer();
 
     AdditionalChannelInitializer getWsAdditionalChannelInitializer();
@@ -269,6 +333,31 @@ public interface AsyncHttpClientConfig {
 
     ChannelPool getChannelPool();
 
+    /**
+     * @return the listener notified of the connection pool events, such as channels being opened, leased or expired, or null
+     */
+    ChannelPoolListener getChannelPoolListener();
+
+    /**
+     * @return the limiter of the number of in-flight requests per partition, or null if they're only bounded by the connection limits
+     */
+    ConcurrencyLimiter getConcurrencyLimiter();
+
+    /**
+     * @return the circuit breaker rejecting requests to partitions that keep failing, or null if requests are always sent
+     */
+    CircuitBreaker getCircuitBreaker();
+
+    /**
+     * @return the policy deciding which requests get hedged, or null if requests are never hedged
+     */
+    HedgingPolicy getHedgingPolicy();
+
+    /**
+     * @return the policy deciding which failed requests get retried and when, or null if requests are only retried up to {@link #getMaxRequestRetry()} times when their connection fails
+     */
+    RetryPolicy getRetryPolicy();
+
     Timer getNettyTimer();
 
     KeepAliveStrategy getKeepAliveStrategy();
@@ -307,6 +396,19 @@ public interface AsyncHttpClientConfig {
             public HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last) {
                 return new LazyResponseBodyPart(buf, last);
             }
+        },
+
+        /**
+         * Body parts retain the network buffers, so that the response body can be read from them without being copied, see
+         * {@link Response#getResponseBodyAsByteBuf()}. The buffers are only returned to the pool once released: {@link AsyncCompletionHandler}s have
+         * to {@link Response#release()} the response, and other handlers the {@link RetainedResponseBodyPart}s they're passed.
+         */
+        RETAINED {
+
+            @Override
+            public HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last) {
+                return new RetainedResponseBodyPart(buf, last);
+            }
         };
 
         public abstract HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last);
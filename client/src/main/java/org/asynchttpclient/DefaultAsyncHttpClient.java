@@ -21,15 +21,22 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timer;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.filter.AsyncRequestFilter;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.FilterException;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.handler.resumable.ResumableAsyncHandler;
 import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.netty.channel.ChannelPoolMetrics;
 import org.asynchttpclient.netty.request.NettyRequestSender;
+import org.asynchttpclient.ws.ManagedWebSocket;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -180,7 +187,7 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
     @Override
     public <T> ListenableFuture<T> executeRequest(Request request, AsyncHandler<T> handler) {
 
-        if (config.getRequestFilters().isEmpty()) {
+        if (config.getRequestFilters().isEmpty() && config.getAsyncRequestFilters().isEmpty()) {
             return execute(request, handler);
 
         } else {
@@ -192,7 +199,52 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
                 return new ListenableFuture.CompletedFailure<>("preProcessRequest failed", e);
             }
 
-            return execute(fc.getRequest(), fc.getAsyncHandler());
+            if (config.getAsyncRequestFilters().isEmpty())
+                return execute(fc.getRequest(), fc.getAsyncHandler());
+
+            DeferredListenableFuture<T> future = new DeferredListenableFuture<>();
+            applyAsyncRequestFilters(fc, 0, future);
+            // no need for the indirection if no filter deferred the request
+            ListenableFuture<T> delegate = future.getDelegate();
+            return delegate != null ? delegate : future;
+        }
+    }
+
+    /**
+     * Apply the {@link AsyncRequestFilter}s from <code>index</code> on, then execute the request unless the future was cancelled meanwhile.
+     * Whichever way it ends, the handler of the latest {@link FilterContext} is the one that gets notified, so that the filters that
+     * admitted the request can release their permits.
+     */
+    private <T> void applyAsyncRequestFilters(FilterContext<T> fc, int index, DeferredListenableFuture<T> future) {
+        List<AsyncRequestFilter> asyncRequestFilters = config.getAsyncRequestFilters();
+
+        if (future.isDone()) {
+            // cancelled or aborted while being filtered
+            fc.getAsyncHandler().onThrowable(future.getFailure());
+
+        } else if (index == asyncRequestFilters.size()) {
+            future.bind(execute(fc.getRequest(), fc.getAsyncHandler()));
+
+        } else {
+            CompletableFuture<FilterContext<T>> stage;
+            try {
+                stage = asyncRequestFilters.get(index).filter(fc, nettyTimer);
+            } catch (Exception e) {
+                stage = new CompletableFuture<>();
+                stage.completeExceptionally(e);
+            }
+            future.setPendingStage(stage);
+
+            stage.whenComplete((filtered, t) -> {
+                if (t != null) {
+                    Throwable cause = future.isDone() ? future.getFailure() : t instanceof CompletionException && t.getCause() != null ? t
+                            .getCause() : t;
+                    fc.getAsyncHandler().onThrowable(cause);
+                    future.fail(cause);
+                } else {
+                    applyAsyncRequestFilters(assertNotNull(filtered, "filterContext"), index + 1, future);
+                }
+            });
         }
     }
 
@@ -251,10 +303,49 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         return channelManager.getChannelPool();
     }
 
+    public ChannelPoolMetrics getChannelPoolMetrics() {
+        return channelManager.getChannelPoolMetrics();
+    }
+
     public EventLoopGroup getEventLoopGroup() {
         return channelManager.getEventLoopGroup();
     }
 
+    /**
+     * Open connections to a host before sending it requests, so that they don't pay for the TCP and TLS handshakes. The partition is then kept
+     * topped up with {@link AsyncHttpClientConfig#getMinIdleConnectionsPerHost()} idle connections, if set.
+     *
+     * @param url the url of the host
+     * @param connections the number of connections to open, within the max connections limits
+     * @return a future that completes with the number of connections that were pooled, or exceptionally if none could be opened
+     */
+    public CompletableFuture<Integer> prewarm(String url, int connections) {
+        return prewarm(requestBuilder("GET", url).build(), connections);
+    }
+
+    /**
+     * Open connections to the partition of a request before sending it requests, see {@link #prewarm(String, int)}
+     *
+     * @param request a request whose uri, virtual host, proxy, address, local address, name resolver and partitioning are the ones of the
+     *            future requests
+     * @param connections the number of connections to open, within the max connections limits
+     * @return a future that completes with the number of connections that were pooled, or exceptionally if none could be opened
+     */
+    public CompletableFuture<Integer> prewarm(Request request, int connections) {
+        return requestSender.prewarm(request, connections);
+    }
+
+    /**
+     * Prepare a WebSocket that reconnects whenever the connection is lost, see {@link ManagedWebSocket}
+     *
+     * @param request the upgrade request
+     * @param upgradeHandler the handler whose listeners and options, such as keep-alive, are used for each connection
+     * @return a {@link ManagedWebSocket.Builder}, whose reconnections are scheduled on this client's timer
+     */
+    public ManagedWebSocket.Builder prepareManagedWebSocket(Request request, WebSocketUpgradeHandler upgradeHandler) {
+        return new ManagedWebSocket.Builder(this, nettyTimer, request, upgradeHandler);
+    }
+
     protected BoundRequestBuilder requestBuilder(String method, String url) {
         return new BoundRequestBuilder(this, method, config.isDisableUrlEncodingForBoundRequests()).setUrl(url).setSignatureCalculator(signatureCalculator);
     }
@@ -20,13 +20,19 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.Timer;
 import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.channel.ChannelPoolListener;
+import org.asynchttpclient.channel.CircuitBreaker;
+import org.asynchttpclient.channel.ConcurrencyLimiter;
 import org.asynchttpclient.channel.DefaultKeepAliveStrategy;
 import org.asynchttpclient.channel.KeepAliveStrategy;
 import org.asynchttpclient.filter.IOExceptionFilter;
+import org.asynchttpclient.filter.AsyncRequestFilter;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.filter.ResponseFilter;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.proxy.ProxyServerSelector;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.util.ProxyUtils;
 
 import java.io.IOException;
@@ -73,6 +79,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
     // timeouts
     private final int connectTimeout;
+    private final int connectionAttemptDelay;
     private final int requestTimeout;
     private final int readTimeout;
     private final int shutdownQuietPeriod;
@@ -83,9 +90,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
     private final int pooledConnectionIdleTimeout;
     private final int connectionPoolCleanerPeriod;
     private final int connectionTtl;
+    private final boolean useEventLoopAffinePool;
     private final int maxConnections;
     private final int maxConnectionsPerHost;
+    private final int minIdleConnectionsPerHost;
+    private final int minIdleConnectionsTimeout;
+    private final int pendingAcquireQueueSize;
+    private final int pendingAcquireTimeout;
     private final ChannelPool channelPool;
+    private final ChannelPoolListener channelPoolListener;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgingPolicy hedgingPolicy;
+    private final RetryPolicy retryPolicy;
     private final KeepAliveStrategy keepAliveStrategy;
 
     // ssl
@@ -101,6 +118,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
     // filters
     private final List<RequestFilter> requestFilters;
+    private final List<AsyncRequestFilter> asyncRequestFilters;
     private final List<ResponseFilter> responseFilters;
     private final List<IOExceptionFilter> ioExceptionFilters;
 
@@ -115,6 +133,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
     private final Map<ChannelOption<Object>, Object> channelOptions;
     private final EventLoopGroup eventLoopGroup;
     private final boolean useNativeTransport;
+    private final boolean useDnsNameResolver;
+    private final int dnsQueryTimeout;
     private final boolean usePooledMemory;
     private final boolean tcpNoDelay;
     private final boolean soReuseAddress;
@@ -144,6 +164,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
             // timeouts
             int connectTimeout,//
+            int connectionAttemptDelay,//
             int requestTimeout,//
             int readTimeout,//
             int shutdownQuietPeriod,//
@@ -154,9 +175,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             int pooledConnectionIdleTimeout,//
             int connectionPoolCleanerPeriod,//
             int connectionTtl,//
+            boolean useEventLoopAffinePool,//
             int maxConnections,//
             int maxConnectionsPerHost,//
+            int minIdleConnectionsPerHost,//
+            int minIdleConnectionsTimeout,//
+            int pendingAcquireQueueSize,//
+            int pendingAcquireTimeout,//
             ChannelPool channelPool,//
+            ChannelPoolListener channelPoolListener,//
+            ConcurrencyLimiter concurrencyLimiter,//
+            CircuitBreaker circuitBreaker,//
+            HedgingPolicy hedgingPolicy,//
+            RetryPolicy retryPolicy,//
             KeepAliveStrategy keepAliveStrategy,//
 
             // ssl
@@ -172,6 +203,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
             // filters
             List<RequestFilter> requestFilters,//
+            List<AsyncRequestFilter> asyncRequestFilters,//
             List<ResponseFilter> responseFilters,//
             List<IOExceptionFilter> ioExceptionFilters,//
 
@@ -193,6 +225,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             Map<ChannelOption<Object>, Object> channelOptions,//
             EventLoopGroup eventLoopGroup,//
             boolean useNativeTransport,//
+            boolean useDnsNameResolver,//
+            int dnsQueryTimeout,//
             boolean usePooledMemory,//
             Timer nettyTimer,//
             ThreadFactory threadFactory,//
@@ -216,6 +250,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // timeouts
         this.connectTimeout = connectTimeout;
+        this.connectionAttemptDelay = connectionAttemptDelay;
         this.requestTimeout = requestTimeout;
         this.readTimeout = readTimeout;
         this.shutdownQuietPeriod = shutdownQuietPeriod;
@@ -226,9 +261,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         this.pooledConnectionIdleTimeout = pooledConnectionIdleTimeout;
         this.connectionPoolCleanerPeriod = connectionPoolCleanerPeriod;
         this.connectionTtl = connectionTtl;
+        this.useEventLoopAffinePool = useEventLoopAffinePool;
         this.maxConnections = maxConnections;
         this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.minIdleConnectionsPerHost = minIdleConnectionsPerHost;
+        this.minIdleConnectionsTimeout = minIdleConnectionsTimeout;
+        this.pendingAcquireQueueSize = pendingAcquireQueueSize;
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
         this.channelPool = channelPool;
+        this.channelPoolListener = channelPoolListener;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgingPolicy = hedgingPolicy;
+        this.retryPolicy = retryPolicy;
         this.keepAliveStrategy = keepAliveStrategy;
 
         // ssl
@@ -244,6 +289,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // filters
         this.requestFilters = requestFilters;
+        this.asyncRequestFilters = asyncRequestFilters;
         this.responseFilters = responseFilters;
         this.ioExceptionFilters = ioExceptionFilters;
 
@@ -265,6 +311,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         this.channelOptions = channelOptions;
         this.eventLoopGroup = eventLoopGroup;
         this.useNativeTransport = useNativeTransport;
+        this.useDnsNameResolver = useDnsNameResolver;
+        this.dnsQueryTimeout = dnsQueryTimeout;
         this.usePooledMemory = usePooledMemory;
         this.nettyTimer = nettyTimer;
         this.threadFactory = threadFactory;
@@ -341,6 +389,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return connectTimeout;
     }
 
+    @Override
+    public int getConnectionAttemptDelay() {
+        return connectionAttemptDelay;
+    }
+
     @Override
     public int getRequestTimeout() {
         return requestTimeout;
@@ -382,6 +435,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return connectionTtl;
     }
 
+    @Override
+    public boolean isUseEventLoopAffinePool() {
+        return useEventLoopAffinePool;
+    }
+
     @Override
     public int getMaxConnections() {
         return maxConnections;
@@ -392,11 +450,56 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return maxConnectionsPerHost;
     }
 
+    @Override
+    public int getMinIdleConnectionsPerHost() {
+        return minIdleConnectionsPerHost;
+    }
+
+    @Override
+    public int getMinIdleConnectionsTimeout() {
+        return minIdleConnectionsTimeout;
+    }
+
+    @Override
+    public int getPendingAcquireQueueSize() {
+        return pendingAcquireQueueSize;
+    }
+
+    @Override
+    public int getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
     @Override
     public ChannelPool getChannelPool() {
         return channelPool;
     }
 
+    @Override
+    public ChannelPoolListener getChannelPoolListener() {
+        return channelPoolListener;
+    }
+
+    @Override
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    @Override
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
     @Override
     public KeepAliveStrategy getKeepAliveStrategy() {
         return keepAliveStrategy;
@@ -459,6 +562,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return requestFilters;
     }
 
+    @Override
+    public List<AsyncRequestFilter> getAsyncRequestFilters() {
+        return asyncRequestFilters;
+    }
+
     @Override
     public List<ResponseFilter> getResponseFilters() {
         return responseFilters;
@@ -546,6 +654,16 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return useNativeTransport;
     }
 
+    @Override
+    public boolean isUseDnsNameResolver() {
+        return useDnsNameResolver;
+    }
+
+    @Override
+    public int getDnsQueryTimeout() {
+        return dnsQueryTimeout;
+    }
+
     @Override
     public boolean isUsePooledMemory() {
         return usePooledMemory;
@@ -599,6 +717,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // timeouts
         private int connectTimeout = defaultConnectTimeout();
+        private int connectionAttemptDelay = defaultConnectionAttemptDelay();
         private int requestTimeout = defaultRequestTimeout();
         private int readTimeout = defaultReadTimeout();
         private int shutdownQuietPeriod = defaultShutdownQuietPeriod();
@@ -609,9 +728,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         private int pooledConnectionIdleTimeout = defaultPooledConnectionIdleTimeout();
         private int connectionPoolCleanerPeriod = defaultConnectionPoolCleanerPeriod();
         private int connectionTtl = defaultConnectionTtl();
+        private boolean useEventLoopAffinePool = defaultUseEventLoopAffinePool();
         private int maxConnections = defaultMaxConnections();
         private int maxConnectionsPerHost = defaultMaxConnectionsPerHost();
+        private int minIdleConnectionsPerHost = defaultMinIdleConnectionsPerHost();
+        private int minIdleConnectionsTimeout = defaultMinIdleConnectionsTimeout();
+        private int pendingAcquireQueueSize = defaultPendingAcquireQueueSize();
+        private int pendingAcquireTimeout = defaultPendingAcquireTimeout();
         private ChannelPool channelPool;
+        private ChannelPoolListener channelPoolListener;
+        private ConcurrencyLimiter concurrencyLimiter;
+        private CircuitBreaker circuitBreaker;
+        private HedgingPolicy hedgingPolicy;
+        private RetryPolicy retryPolicy;
         private KeepAliveStrategy keepAliveStrategy = new DefaultKeepAliveStrategy();
 
         // ssl
@@ -627,6 +756,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // filters
         private final List<RequestFilter> requestFilters = new LinkedList<>();
+        private final List<AsyncRequestFilter> asyncRequestFilters = new LinkedList<>();
         private final List<ResponseFilter> responseFilters = new LinkedList<>();
         private final List<IOExceptionFilter> ioExceptionFilters = new LinkedList<>();
 
@@ -646,6 +776,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         private int webSocketMaxBufferSize = defaultWebSocketMaxBufferSize();
         private int webSocketMaxFrameSize = defaultWebSocketMaxFrameSize();
         private boolean useNativeTransport = defaultUseNativeTransport();
+        private boolean useDnsNameResolver = defaultUseDnsNameResolver();
+        private int dnsQueryTimeout = defaultDnsQueryTimeout();
         private boolean usePooledMemory = defaultUsePooledMemory();
         private Map<ChannelOption<Object>, Object> channelOptions = new HashMap<>();
         private EventLoopGroup eventLoopGroup;
@@ -674,6 +806,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
             // timeouts
             connectTimeout = config.getConnectTimeout();
+            connectionAttemptDelay = config.getConnectionAttemptDelay();
             requestTimeout = config.getRequestTimeout();
             readTimeout = config.getReadTimeout();
             shutdownQuietPeriod = config.getShutdownQuietPeriod();
@@ -683,9 +816,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             keepAlive = config.isKeepAlive();
             pooledConnectionIdleTimeout = config.getPooledConnectionIdleTimeout();
             connectionTtl = config.getConnectionTtl();
+            useEventLoopAffinePool = config.isUseEventLoopAffinePool();
             maxConnections = config.getMaxConnections();
             maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+            minIdleConnectionsPerHost = config.getMinIdleConnectionsPerHost();
+            minIdleConnectionsTimeout = config.getMinIdleConnectionsTimeout();
+            pendingAcquireQueueSize = config.getPendingAcquireQueueSize();
+            pendingAcquireTimeout = config.getPendingAcquireTimeout();
             channelPool = config.getChannelPool();
+            channelPoolListener = config.getChannelPoolListener();
+            concurrencyLimiter = config.getConcurrencyLimiter();
+            circuitBreaker = config.getCircuitBreaker();
+            hedgingPolicy = config.getHedgingPolicy();
+            retryPolicy = config.getRetryPolicy();
             keepAliveStrategy = config.getKeepAliveStrategy();
 
             // ssl
@@ -700,6 +843,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
             // filters
             requestFilters.addAll(config.getRequestFilters());
+            asyncRequestFilters.addAll(config.getAsyncRequestFilters());
             responseFilters.addAll(config.getResponseFilters());
             ioExceptionFilters.addAll(config.getIoExceptionFilters());
 
@@ -721,6 +865,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             channelOptions.putAll(config.getChannelOptions());
             eventLoopGroup = config.getEventLoopGroup();
             useNativeTransport = config.isUseNativeTransport();
+            useDnsNameResolver = config.isUseDnsNameResolver();
+            dnsQueryTimeout = config.getDnsQueryTimeout();
             usePooledMemory = config.isUsePooledMemory();
             nettyTimer = config.getNettyTimer();
             threadFactory = config.getThreadFactory();
@@ -820,6 +966,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setConnectionAttemptDelay(int connectionAttemptDelay) {
+            this.connectionAttemptDelay = connectionAttemptDelay;
+            return this;
+        }
+
         public Builder setRequestTimeout(int requestTimeout) {
             this.requestTimeout = requestTimeout;
             return this;
@@ -856,6 +1007,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setUseEventLoopAffinePool(boolean useEventLoopAffinePool) {
+            this.useEventLoopAffinePool = useEventLoopAffinePool;
+            return this;
+        }
+
         public Builder setMaxConnections(int maxConnections) {
             this.maxConnections = maxConnections;
             return this;
@@ -866,11 +1022,56 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setMinIdleConnectionsPerHost(int minIdleConnectionsPerHost) {
+            this.minIdleConnectionsPerHost = minIdleConnectionsPerHost;
+            return this;
+        }
+
+        public Builder setMinIdleConnectionsTimeout(int minIdleConnectionsTimeout) {
+            this.minIdleConnectionsTimeout = minIdleConnectionsTimeout;
+            return this;
+        }
+
+        public Builder setPendingAcquireQueueSize(int pendingAcquireQueueSize) {
+            this.pendingAcquireQueueSize = pendingAcquireQueueSize;
+            return this;
+        }
+
+        public Builder setPendingAcquireTimeout(int pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+            return this;
+        }
+
         public Builder setChannelPool(ChannelPool channelPool) {
             this.channelPool = channelPool;
             return this;
         }
 
+        public Builder setChannelPoolListener(ChannelPoolListener channelPoolListener) {
+            this.channelPoolListener = channelPoolListener;
+            return this;
+        }
+
+        public Builder setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        public Builder setCircuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
         public Builder setKeepAliveStrategy(KeepAliveStrategy keepAliveStrategy) {
             this.keepAliveStrategy = keepAliveStrategy;
             return this;
@@ -933,6 +1134,16 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder addAsyncRequestFilter(AsyncRequestFilter asyncRequestFilter) {
+            asyncRequestFilters.add(asyncRequestFilter);
+            return this;
+        }
+
+        public Builder removeAsyncRequestFilter(AsyncRequestFilter asyncRequestFilter) {
+            asyncRequestFilters.remove(asyncRequestFilter);
+            return this;
+        }
+
         public Builder addResponseFilter(ResponseFilter responseFilter) {
             responseFilters.add(responseFilter);
             return this;
@@ -1031,6 +1242,16 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setUseDnsNameResolver(boolean useDnsNameResolver) {
+            this.useDnsNameResolver = useDnsNameResolver;
+            return this;
+        }
+
+        public Builder setDnsQueryTimeout(int dnsQueryTimeout) {
+            this.dnsQueryTimeout = dnsQueryTimeout;
+            return this;
+        }
+
         public Builder setUsePooledMemory(boolean usePooledMemory) {
             this.usePooledMemory = usePooledMemory;
             return this;
@@ -1090,6 +1311,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     resolveProxyServerSelector(), //
                     validateResponseHeaders, //
                     connectTimeout, //
+                    connectionAttemptDelay, //
                     requestTimeout, //
                     readTimeout, //
                     shutdownQuietPeriod, //
@@ -1098,9 +1320,19 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     pooledConnectionIdleTimeout, //
                     connectionPoolCleanerPeriod, //
                     connectionTtl, //
+                    useEventLoopAffinePool, //
                     maxConnections, //
                     maxConnectionsPerHost, //
+                    minIdleConnectionsPerHost, //
+                    minIdleConnectionsTimeout, //
+                    pendingAcquireQueueSize, //
+                    pendingAcquireTimeout, //
                     channelPool, //
+                    channelPoolListener, //
+                    concurrencyLimiter, //
+                    circuitBreaker, //
+                    hedgingPolicy, //
+                    retryPolicy, //
                     keepAliveStrategy, //
                     useOpenSsl, //
                     acceptAnyCertificate, //
@@ -1112,6 +1344,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     sslContext, //
                     sslEngineFactory, //
                     requestFilters.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(requestFilters), //
+                    asyncRequestFilters.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(asyncRequestFilters), //
                     responseFilters.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(responseFilters),//
                     ioExceptionFilters.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(ioExceptionFilters),//
                     tcpNoDelay, //
@@ -1129,6 +1362,8 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     channelOptions.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(channelOptions),//
                     eventLoopGroup, //
                     useNativeTransport, //
+                    useDnsNameResolver, //
+                    dnsQueryTimeout, //
                     usePooledMemory, //
                     nettyTimer, //
                     threadFactory, //
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future of a request whose execution was deferred by an {@link org.asynchttpclient.filter.AsyncRequestFilter}. It's bound to the actual
+ * request's future once the request is executed.
+ */
+class DeferredListenableFuture<V> implements ListenableFuture<V> {
+
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+    private volatile ListenableFuture<V> delegate;
+    private volatile CompletableFuture<?> pendingStage;
+    private volatile Throwable failure;
+
+    ListenableFuture<V> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @param pendingStage the filter stage the request is waiting for, cancelled along with this future
+     */
+    void setPendingStage(CompletableFuture<?> pendingStage) {
+        this.pendingStage = pendingStage;
+        if (result.isDone())
+            // raced with cancel or abort
+            pendingStage.cancel(false);
+    }
+
+    void bind(ListenableFuture<V> delegate) {
+        this.delegate = delegate;
+        delegate.toCompletableFuture().whenComplete((value, t) -> {
+            if (t != null)
+                result.completeExceptionally(t);
+            else
+                result.complete(value);
+        });
+        if (result.isDone() && !delegate.isDone())
+            // raced with cancel or abort
+            delegate.abort(getFailure());
+    }
+
+    void fail(Throwable t) {
+        failure = t;
+        result.completeExceptionally(t);
+    }
+
+    /**
+     * @return why this future was cancelled or aborted before being bound
+     */
+    Throwable getFailure() {
+        Throwable failure = this.failure;
+        return failure != null ? failure : new CancellationException();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        ListenableFuture<V> delegate = this.delegate;
+        if (delegate != null)
+            return delegate.cancel(mayInterruptIfRunning);
+
+        boolean cancelled = result.cancel(mayInterruptIfRunning);
+        cancelPendingStage();
+        return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        ListenableFuture<V> delegate = this.delegate;
+        return result.isCancelled() || (delegate != null && delegate.isCancelled());
+    }
+
+    @Override
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+        ListenableFuture<V> delegate = this.delegate;
+        if (delegate != null)
+            delegate.done();
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        ListenableFuture<V> delegate = this.delegate;
+        if (delegate != null) {
+            delegate.abort(t);
+        } else {
+            failure = t;
+            result.completeExceptionally(t);
+            cancelPendingStage();
+        }
+    }
+
+    private void cancelPendingStage() {
+        CompletableFuture<?> pendingStage = this.pendingStage;
+        if (pendingStage != null)
+            // the filtering chain notifies the handler
+            pendingStage.cancel(false);
+    }
+
+    @Override
+    public void touch() {
+        ListenableFuture<V> delegate = this.delegate;
+        if (delegate != null)
+            delegate.touch();
+    }
+
+    @Override
+    public ListenableFuture<V> addListener(Runnable listener, Executor exec) {
+        result.whenComplete((value, t) -> {
+            if (exec != null)
+                exec.execute(listener);
+            else
+                listener.run();
+        });
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<V> toCompletableFuture() {
+        return result;
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.asynchttpclient;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.InputStream;
@@ -27,6 +29,7 @@ import java.util.List;
 
 import org.asynchttpclient.cookie.Cookie;
 import org.asynchttpclient.netty.NettyResponse;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
 import org.asynchttpclient.uri.Uri;
 
 /**
@@ -61,6 +64,23 @@ public interface Response {
      */
     ByteBuffer getResponseBodyAsByteBuffer();
 
+    /**
+     * Return the entire response body as a ByteBuf. With {@link AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED} body parts, it's a view over
+     * the network buffers that's only valid until the response is {@link #release() released}.
+     * 
+     * @return the entire response body as a ByteBuf.
+     */
+    default ByteBuf getResponseBodyAsByteBuf() {
+        return Unpooled.wrappedBuffer(getResponseBodyAsByteBuffer());
+    }
+
+    /**
+     * Release the network buffers retained by {@link AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED} body parts, a no-op with the other
+     * factories. The body can't be read anymore afterwards.
+     */
+    default void release() {
+    }
+
     /**
      * Returns an input stream for the response body. Note that you should not try to get this more than once, and that you should not close the stream.
      * 
@@ -170,7 +190,8 @@ public interface Response {
     SocketAddress getLocalAddress();
 
     class ResponseBuilder {
-        private final List<HttpResponseBodyPart> bodyParts = new ArrayList<>(1);
+        private List<HttpResponseBodyPart> bodyParts = new ArrayList<>(1);
+        private boolean retainedBodyParts;
         private HttpResponseStatus status;
         private HttpResponseHeaders headers;
 
@@ -189,27 +210,48 @@ public interface Response {
          * @return this
          */
         public ResponseBuilder accumulate(HttpResponseBodyPart bodyPart) {
-            if (bodyPart.length() > 0)
+            if (bodyPart.length() > 0) {
                 bodyParts.add(bodyPart);
+                retainedBodyParts |= bodyPart instanceof RetainedResponseBodyPart;
+            } else {
+                release(bodyPart);
+            }
             return this;
         }
 
         /**
-         * Build a {@link Response} instance
+         * Build a {@link Response} instance. If {@link AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED} body parts were accumulated, the
+         * response takes them over, so that their buffers are only released once, and the next response built only has the parts accumulated
+         * afterwards.
          * 
          * @return a {@link Response} instance
          */
         public Response build() {
-            return status == null ? null : new NettyResponse(status, headers, bodyParts);
+            if (status == null)
+                return null;
+            Response response = new NettyResponse(status, headers, bodyParts);
+            if (retainedBodyParts) {
+                bodyParts = new ArrayList<>(1);
+                retainedBodyParts = false;
+            }
+            return response;
         }
 
         /**
-         * Reset the internal state of this builder.
+         * Reset the internal state of this builder, releasing the retained body parts that weren't handed over to a {@link Response}.
          */
         public void reset() {
+            for (HttpResponseBodyPart bodyPart : bodyParts)
+                release(bodyPart);
             bodyParts.clear();
+            retainedBodyParts = false;
             status = null;
             headers = null;
         }
+
+        private static void release(HttpResponseBodyPart bodyPart) {
+            if (bodyPart instanceof RetainedResponseBodyPart)
+                RetainedResponseBodyPart.class.cast(bodyPart).release();
+        }
     }
 }
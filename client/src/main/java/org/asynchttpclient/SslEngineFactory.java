@@ -13,6 +13,8 @@
  */
 package org.asynchttpclient;
 
+import io.netty.buffer.ByteBufAllocator;
+
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 
@@ -28,6 +30,22 @@ public interface SslEngineFactory {
      */
     SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort);
 
+    /**
+     * Creates new {@link SSLEngine} for a given channel. Defaults to {@link #newSslEngine(AsyncHttpClientConfig, String, int)}.
+     *
+     * Engines created from the same context for the same peer host and port can resume each other's TLS sessions, saving a round trip and the
+     * key exchange on reconnections.
+     *
+     * @param config the client config
+     * @param peerHost the peer hostname
+     * @param peerPort the peer port
+     * @param allocator the channel's allocator, for implementations that allocate buffers
+     * @return new engine
+     */
+    default SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort, ByteBufAllocator allocator) {
+        return newSslEngine(config, peerHost, peerPort);
+    }
+
     /**
      * Perform any necessary one-time configuration. This will be called just once before {@code newSslEngine} is called
      * for the first time.
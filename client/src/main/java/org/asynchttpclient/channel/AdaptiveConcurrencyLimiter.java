@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ConcurrencyLimiter} that adapts each partition's limit to the latency it observes, with an additive increase, multiplicative
+ * decrease (AIMD) scheme.
+ * <br>
+ * The no-load latency of a partition is estimated as the lowest latency observed over the last two windows of samples. A response that takes
+ * longer than <code>latencyTolerance</code> times this estimate, or a request that's dropped, is a congestion signal that shrinks the limit by
+ * <code>backoffRatio</code>. Otherwise, the limit grows by one for each limit's worth of responses, as long as it's actually being used.
+ * Just like with TCP, the limit is decreased at most once per round trip: requests that were already in flight when it last decreased don't
+ * decrease it again.
+ * <br>
+ * Partitions are never evicted, just like the connection permits of {@link org.asynchttpclient.AsyncHttpClientConfig#getMaxConnectionsPerHost()}.
+ */
+public class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    /**
+     * Number of samples after which the no-load latency estimate is renewed, so that it follows the remote peer's baseline.
+     */
+    public static final int LATENCY_WINDOW = 100;
+
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_LATENCY_TOLERANCE, DEFAULT_BACKOFF_RATIO);
+    }
+
+    /**
+     * @param initialLimit the limit of a partition until its first responses are received
+     * @param minLimit the lowest limit a partition can shrink to
+     * @param maxLimit the highest limit a partition can grow to
+     * @param latencyTolerance the ratio to the no-load latency above which a response is considered as a congestion signal
+     * @param backoffRatio the ratio the limit is multiplied by on congestion
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance, double backoffRatio) {
+        if (minLimit <= 0 || initialLimit < minLimit || maxLimit < initialLimit)
+            throw new IllegalArgumentException("Limits must satisfy 0 < minLimit <= initialLimit <= maxLimit");
+        if (latencyTolerance < 1.0)
+            throw new IllegalArgumentException("latencyTolerance must be at least 1");
+        if (backoffRatio <= 0.0 || backoffRatio >= 1.0)
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1 excluded");
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    public Permit tryAcquire(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        if (partition == null)
+            partition = partitions.computeIfAbsent(partitionKey, pk -> new Partition());
+        return partition.tryAcquire();
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the current limit of the partition
+     */
+    public int getLimit(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.limit : initialLimit;
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the number of permits currently acquired on the partition
+     */
+    public int getInFlight(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.inFlight.get() : 0;
+    }
+
+    private final class Partition {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int limit = initialLimit;
+
+        // guarded by this
+        private double estimatedLimit = initialLimit;
+        private long lastDecreaseNanos = System.nanoTime();
+        private long windowMinLatency = Long.MAX_VALUE;
+        private long previousWindowMinLatency = Long.MAX_VALUE;
+        private int windowSamples;
+
+        Permit tryAcquire() {
+            for (;;) {
+                int current = inFlight.get();
+                if (current >= limit)
+                    return null;
+                if (inFlight.compareAndSet(current, current + 1))
+                    return new PartitionPermit(this, System.nanoTime());
+            }
+        }
+
+        void release(long startNanos, boolean dropped) {
+            long latency = System.nanoTime() - startNanos;
+            int inFlightBeforeRelease = inFlight.getAndDecrement();
+
+            synchronized (this) {
+                boolean congested = dropped;
+                if (!dropped) {
+                    windowMinLatency = Math.min(windowMinLatency, latency);
+                    long noLoadLatency = Math.min(windowMinLatency, previousWindowMinLatency);
+                    if (++windowSamples == LATENCY_WINDOW) {
+                        previousWindowMinLatency = windowMinLatency;
+                        windowMinLatency = Long.MAX_VALUE;
+                        windowSamples = 0;
+                    }
+                    congested = latency > noLoadLatency * latencyTolerance;
+                }
+
+                if (congested) {
+                    if (startNanos - lastDecreaseNanos >= 0) {
+                        estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                        lastDecreaseNanos = System.nanoTime();
+                    }
+                } else if (inFlightBeforeRelease * 2 >= estimatedLimit) {
+                    // don't grow a limit that's not being used
+                    estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+                }
+                limit = (int) estimatedLimit;
+            }
+        }
+    }
+
+    private static final class PartitionPermit implements Permit {
+
+        private final Partition partition;
+        private final long startNanos;
+
+        PartitionPermit(Partition partition, long startNanos) {
+            this.partition = partition;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onSuccess() {
+            partition.release(startNanos, false);
+        }
+
+        @Override
+        public void onDropped() {
+            partition.release(startNanos, true);
+        }
+
+        @Override
+        public void onIgnore() {
+            partition.inFlight.decrementAndGet();
+        }
+    }
+}
@@ -70,4 +70,14 @@ public interface ChannelPool {
      * @param selector the selector
      */
     void flushPartitions(ChannelPoolPartitionSelector selector);
+
+    /**
+     * Count the idle channels of a partition, meant for monitoring, not for the request path.
+     *
+     * @param partitionKey the partition
+     * @return the number of idle channels in the partition, or -1 if this pool doesn't support it
+     */
+    default int getIdleChannelCount(Object partitionKey) {
+        return -1;
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+/**
+ * Notified of the connection pool events, typically to bridge them to a metrics library.
+ *
+ * Callbacks are invoked on I/O and timer threads, so implementations must be thread safe, fast and non blocking.
+ */
+public interface ChannelPoolListener {
+
+    enum ExpirationReason {
+        /**
+         * The channel stayed idle in the pool longer than the pooled connection idle timeout
+         */
+        IDLE,
+        /**
+         * The channel reached the connection TTL
+         */
+        TTL,
+        /**
+         * The channel was closed by the remote peer while idle in the pool
+         */
+        REMOTELY_CLOSED
+    }
+
+    /**
+     * Notify that a new connection was established.
+     *
+     * @param partitionKey the partition of the channel
+     * @param connectTimeNanos the time it took to connect, excluding name resolution and TLS handshake
+     */
+    default void onChannelConnected(Object partitionKey, long connectTimeNanos) {
+    }
+
+    /**
+     * Notify that a new connection couldn't be established.
+     *
+     * @param partitionKey the partition of the channel
+     * @param connectTimeNanos the time spent trying to connect
+     */
+    default void onChannelConnectFailed(Object partitionKey, long connectTimeNanos) {
+    }
+
+    /**
+     * Notify that the TLS handshake of a new connection succeeded.
+     *
+     * @param partitionKey the partition of the channel
+     * @param resumed true if a cached session was resumed, false if a full handshake was performed
+     */
+    default void onTlsHandshakeSuccess(Object partitionKey, boolean resumed) {
+    }
+
+    /**
+     * Notify that a channel that was established was closed.
+     *
+     * @param partitionKey the partition of the channel
+     */
+    default void onChannelClosed(Object partitionKey) {
+    }
+
+    /**
+     * Notify that a channel was offered to the pool.
+     *
+     * @param partitionKey the partition of the channel
+     */
+    default void onChannelOffered(Object partitionKey) {
+    }
+
+    /**
+     * Notify that a channel was leased from the pool.
+     *
+     * @param partitionKey the partition of the channel
+     */
+    default void onChannelLeased(Object partitionKey) {
+    }
+
+    /**
+     * Notify that an idle channel was evicted from the pool.
+     *
+     * @param partitionKey the partition of the channel
+     * @param reason why the channel was evicted
+     */
+    default void onChannelExpired(Object partitionKey, ExpirationReason reason) {
+    }
+
+    /**
+     * Notify that a partition was flushed from the pool, its idle channels being closed.
+     *
+     * @param partitionKey the partition
+     */
+    default void onPartitionFlushed(Object partitionKey) {
+    }
+}
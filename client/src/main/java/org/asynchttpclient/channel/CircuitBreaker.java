@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+/**
+ * Stops sending requests to partitions, as computed by the request's {@link ChannelPoolPartitioning}, that keep failing.
+ *
+ * A permit is acquired before a request is sent, and settled exactly once: with the status of the first response, or when the future
+ * completes if no response was received. Requests that can't acquire a permit fail fast, before a connection is even polled or opened, or the
+ * hostname resolved.
+ *
+ * Methods are invoked on the caller and I/O threads, so implementations must be thread safe, fast and non blocking.
+ */
+public interface CircuitBreaker {
+
+    /**
+     * @param partitionKey the partition of the request
+     * @return a permit, or null if requests to the partition are currently rejected
+     */
+    Permit tryAcquire(Object partitionKey);
+
+    interface Permit {
+
+        /**
+         * A response was received, with a status lower than 500.
+         */
+        void onSuccess();
+
+        /**
+         * The remote peer looks unhealthy: the connection failed, the request timed out, or the response status is 5xx.
+         */
+        void onFailure();
+
+        /**
+         * The request was cancelled, or failed for a reason unrelated to the remote peer's health.
+         */
+        void onIgnore();
+    }
+}
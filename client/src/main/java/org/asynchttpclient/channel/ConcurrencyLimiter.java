@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+/**
+ * Bounds the number of in-flight requests per partition, as computed by the request's {@link ChannelPoolPartitioning}.
+ *
+ * A permit is acquired before a request is sent, and released exactly once when its future completes, whatever the number of redirects and
+ * retries in-between. Requests that can't acquire a permit fail fast, before a connection is even polled or opened.
+ *
+ * Methods are invoked on the caller and I/O threads, so implementations must be thread safe, fast and non blocking.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * @param partitionKey the partition of the request
+     * @return a permit, or null if the partition already reached its limit
+     */
+    Permit tryAcquire(Object partitionKey);
+
+    interface Permit {
+
+        /**
+         * The response was received, the latency being measured from the permit acquisition.
+         */
+        void onSuccess();
+
+        /**
+         * The request failed in a way that suggests that the remote peer is overloaded, such as a timeout or a refused connection.
+         */
+        void onDropped();
+
+        /**
+         * The request was cancelled, or failed for a reason unrelated to the remote peer's load.
+         */
+        void onIgnore();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link CircuitBreaker} that opens a partition's circuit after a number of consecutive failures.
+ * <br>
+ * While a circuit is open, requests are rejected. Once <code>openDuration</code> has elapsed, the circuit becomes half-open and admits up to
+ * <code>maxProbes</code> concurrent requests: the first probe to succeed closes the circuit, the first one to fail opens it again.
+ * Outcomes of requests that were admitted before the circuit last changed state are ignored, so that requests that were in flight when a
+ * partition went down don't extend its penalty.
+ * <br>
+ * Partitions are never evicted, just like the connection permits of {@link org.asynchttpclient.AsyncHttpClientConfig#getMaxConnectionsPerHost()}.
+ */
+public class DefaultCircuitBreaker implements CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION = 10000;
+    public static final int DEFAULT_MAX_PROBES = 1;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final ConcurrentHashMap<Object, Circuit> circuits = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int maxProbes;
+
+    public DefaultCircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_MAX_PROBES);
+    }
+
+    /**
+     * @param failureThreshold the number of consecutive failures that opens a circuit
+     * @param openDuration the time in ms a circuit stays open before admitting probes
+     * @param maxProbes the max number of concurrent requests admitted while a circuit is half-open
+     */
+    public DefaultCircuitBreaker(int failureThreshold, long openDuration, int maxProbes) {
+        if (failureThreshold <= 0 || openDuration < 0 || maxProbes <= 0)
+            throw new IllegalArgumentException("failureThreshold and maxProbes must be positive, and openDuration positive or zero");
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.maxProbes = maxProbes;
+    }
+
+    @Override
+    public Permit tryAcquire(Object partitionKey) {
+        Circuit circuit = circuits.get(partitionKey);
+        if (circuit == null)
+            circuit = circuits.computeIfAbsent(partitionKey, pk -> new Circuit());
+        return circuit.tryAcquire();
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the state of the partition's circuit, an open circuit being reported as such until a probe is admitted
+     */
+    public State getState(Object partitionKey) {
+        Circuit circuit = circuits.get(partitionKey);
+        return circuit != null ? circuit.state : State.CLOSED;
+    }
+
+    private final class Circuit {
+
+        // only modified while holding the lock, read without it on the fast path
+        private volatile State state = State.CLOSED;
+        private volatile long generation;
+        private volatile int consecutiveFailures;
+
+        // guarded by this
+        private long openedAtNanos;
+        private int probes;
+
+        Permit tryAcquire() {
+            if (state == State.CLOSED)
+                return new CircuitPermit(this, generation, false);
+
+            synchronized (this) {
+                switch (state) {
+                case CLOSED:
+                    return new CircuitPermit(this, generation, false);
+                case OPEN:
+                    if (System.nanoTime() - openedAtNanos < openDurationNanos)
+                        return null;
+                    state = State.HALF_OPEN;
+                    probes = 0;
+                    // fall through
+                default:
+                    if (probes >= maxProbes)
+                        return null;
+                    probes++;
+                    return new CircuitPermit(this, generation, true);
+                }
+            }
+        }
+
+        void onSuccess(CircuitPermit permit) {
+            if (!permit.probe && consecutiveFailures == 0)
+                return;
+
+            synchronized (this) {
+                if (permit.generation != generation)
+                    return;
+                if (permit.probe)
+                    transition(State.CLOSED);
+                else
+                    consecutiveFailures = 0;
+            }
+        }
+
+        synchronized void onFailure(CircuitPermit permit) {
+            if (permit.generation != generation)
+                return;
+            if (permit.probe || ++consecutiveFailures >= failureThreshold)
+                transition(State.OPEN);
+        }
+
+        synchronized void onIgnore(CircuitPermit permit) {
+            if (permit.probe && permit.generation == generation)
+                probes--;
+        }
+
+        private void transition(State newState) {
+            if (newState == State.OPEN)
+                openedAtNanos = System.nanoTime();
+            consecutiveFailures = 0;
+            generation++;
+            state = newState;
+        }
+    }
+
+    private static final class CircuitPermit implements Permit {
+
+        private final Circuit circuit;
+        private final long generation;
+        private final boolean probe;
+
+        CircuitPermit(Circuit circuit, long generation, boolean probe) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        @Override
+        public void onSuccess() {
+            circuit.onSuccess(this);
+        }
+
+        @Override
+        public void onFailure() {
+            circuit.onFailure(this);
+        }
+
+        @Override
+        public void onIgnore() {
+            circuit.onIgnore(this);
+        }
+    }
+}
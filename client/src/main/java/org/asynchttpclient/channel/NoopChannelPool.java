@@ -50,4 +50,9 @@ public enum NoopChannelPool implements ChannelPool {
     @Override
     public void flushPartitions(ChannelPoolPartitionSelector selector) {
     }
+
+    @Override
+    public int getIdleChannelCount(Object partitionKey) {
+        return 0;
+    }
 }
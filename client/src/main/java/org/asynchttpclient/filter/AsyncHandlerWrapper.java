@@ -15,17 +15,29 @@ public class AsyncHandlerWrapper<T> implements AsyncHandler<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(AsyncHandlerWrapper.class);
     private final AsyncHandler<T> asyncHandler;
     private final Semaphore available;
+    private final Runnable releasePermit;
     private final AtomicBoolean complete = new AtomicBoolean(false);
 
     public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler, Semaphore available) {
         this.asyncHandler = asyncHandler;
         this.available = available;
+        releasePermit = available::release;
+    }
+
+    /**
+     * @param asyncHandler the wrapped handler
+     * @param releasePermit invoked once when the request completes, successfully or not
+     */
+    public AsyncHandlerWrapper(AsyncHandler<T> asyncHandler, Runnable releasePermit) {
+        this.asyncHandler = asyncHandler;
+        this.available = null;
+        this.releasePermit = releasePermit;
     }
 
     private void complete() {
         if (complete.compareAndSet(false, true))
-            available.release();
-        if (LOGGER.isDebugEnabled())
+            releasePermit.run();
+        if (LOGGER.isDebugEnabled() && available != null)
             LOGGER.debug("Current Throttling Status after onThrowable {}", available.availablePermits());
     }
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.filter;
+
+import io.netty.util.Timer;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A filter that gets invoked before making an actual request, and that can defer it without blocking the calling thread.
+ */
+public interface AsyncRequestFilter {
+
+    /**
+     * An {@link org.asynchttpclient.AsyncHttpClient} will invoke {@link AsyncRequestFilter#filter} and will continue the request processing
+     * with the {@link FilterContext#getRequest()} and {@link FilterContext#getAsyncHandler()} of the returned future's result once it
+     * completes, or abort it if it completes exceptionally.
+     * <br>
+     * The client might cancel the returned future, typically when the request's own future is cancelled, in which case the filter should
+     * give up on the request.
+     *
+     * @param ctx a {@link FilterContext}
+     * @param timer the client's timer, to schedule deferred work on
+     * @param <T> the handler result type
+     * @return a future of the {@link FilterContext}, an already completed one if the request can proceed right away
+     */
+    <T> CompletableFuture<FilterContext<T>> filter(FilterContext<T> ctx, Timer timer);
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.filter;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link AsyncRequestFilter} that throttles requests without blocking: the requests that can't be executed right away are queued, and
+ * executed once a permit is available.
+ * <br>
+ * Requests are admitted while there are less than <code>maxConcurrentRequests</code> in flight, and optionally at a maximum rate, with
+ * bursts of <code>maxBurst</code> requests. Permits are released when the response completes, and the rate's tokens are tracked with
+ * the generic cell rate algorithm, so that neither requires a lock nor a thread: queued requests are admitted by the completion of the
+ * previous ones, or from the client's {@link Timer} when waiting for a token.
+ * <br>
+ * Requests that can't be admitted within <code>maxWait</code> ms fail with a {@link FilterException}.
+ */
+public class AsyncThrottleRequestFilter implements AsyncRequestFilter {
+
+    private final int maxWait;
+    private final AtomicInteger available;
+    // 0 if the rate isn't limited
+    private final long emissionInterval;
+    private final long burstTolerance;
+    // when the next request would be admitted if requests were perfectly spaced, in System.nanoTime() terms
+    private final AtomicLong theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+    // might contain waiters that were cancelled or timed out, they're skipped when draining
+    private final Queue<Waiter<?>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    public AsyncThrottleRequestFilter(int maxConcurrentRequests) {
+        this(maxConcurrentRequests, Integer.MAX_VALUE);
+    }
+
+    public AsyncThrottleRequestFilter(int maxConcurrentRequests, int maxWait) {
+        this(maxConcurrentRequests, maxWait, 0, 1);
+    }
+
+    /**
+     * @param maxConcurrentRequests the maximum number of requests in flight
+     * @param maxWait the maximum time in ms a request can be queued, {@link Integer#MAX_VALUE} meaning forever
+     * @param permitsPerSecond the maximum rate of requests, 0 meaning unlimited
+     * @param maxBurst the number of requests that can be executed at once, ignoring the rate, after a quiet period
+     */
+    public AsyncThrottleRequestFilter(int maxConcurrentRequests, int maxWait, double permitsPerSecond, int maxBurst) {
+        if (maxConcurrentRequests <= 0)
+            throw new IllegalArgumentException("maxConcurrentRequests must be positive");
+        if (maxWait < 0)
+            throw new IllegalArgumentException("maxWait can't be negative");
+        if (permitsPerSecond < 0)
+            throw new IllegalArgumentException("permitsPerSecond can't be negative");
+        if (maxBurst <= 0)
+            throw new IllegalArgumentException("maxBurst must be positive");
+
+        this.maxWait = maxWait;
+        available = new AtomicInteger(maxConcurrentRequests);
+        emissionInterval = permitsPerSecond > 0 ? Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond)) : 0L;
+        burstTolerance = emissionInterval * (maxBurst - 1);
+    }
+
+    @Override
+    public <T> CompletableFuture<FilterContext<T>> filter(FilterContext<T> ctx, Timer timer) {
+        if (waiters.isEmpty() && tryAcquire(timer))
+            return CompletableFuture.completedFuture(admitted(ctx, timer));
+
+        Waiter<T> waiter = new Waiter<>(ctx, timer);
+        if (maxWait != Integer.MAX_VALUE)
+            waiter.timeout = timer.newTimeout(timeout -> waiter.completeExceptionally(new FilterException(String.format(
+                    "No slot available for processing Request %s with AsyncHandler %s", ctx.getRequest(), ctx.getAsyncHandler()))), maxWait,
+                    TimeUnit.MILLISECONDS);
+        waiters.offer(waiter);
+        drain(timer);
+        return waiter;
+    }
+
+    /**
+     * @return the number of requests that can still be executed concurrently
+     */
+    public int availablePermits() {
+        return available.get();
+    }
+
+    private <T> FilterContext<T> admitted(FilterContext<T> ctx, Timer timer) {
+        return new FilterContext.FilterContextBuilder<>(ctx).asyncHandler(new AsyncHandlerWrapper<>(ctx.getAsyncHandler(), () -> release(timer)))
+                .build();
+    }
+
+    private boolean tryAcquire(Timer timer) {
+        for (;;) {
+            int permits = available.get();
+            if (permits == 0)
+                return false;
+            if (available.compareAndSet(permits, permits - 1))
+                break;
+        }
+
+        if (emissionInterval != 0L) {
+            long wait = tryAcquireToken();
+            if (wait > 0L) {
+                available.incrementAndGet();
+                scheduleDrain(timer, wait);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 0 if a token was acquired, otherwise the time to wait for the next one in ns
+     */
+    private long tryAcquireToken() {
+        for (;;) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalTime.get();
+            long base = tat - now > 0L ? tat : now;
+            long wait = base - burstTolerance - now;
+            if (wait > 0L)
+                return wait;
+            if (theoreticalArrivalTime.compareAndSet(tat, base + emissionInterval))
+                return 0L;
+        }
+    }
+
+    private void release(Timer timer) {
+        available.incrementAndGet();
+        drain(timer);
+    }
+
+    private void drain(Timer timer) {
+        // whoever releases a permit re-checks the queue after that, so a waiter can't be missed.
+        // Admitting a waiter might execute its request and, if it fails right away, release its permit from the same stack, so only one
+        // thread drains at a time, and the other calls, re-entrant ones included, make it loop once more instead of recursing.
+        if (drainRequests.getAndIncrement() != 0)
+            return;
+
+        int missed = 1;
+        do {
+            Waiter<?> waiter;
+            while ((waiter = waiters.peek()) != null) {
+                if (waiter.isDone()) {
+                    // cancelled or timed out, don't waste a token on it
+                    waiters.poll();
+                } else if (tryAcquire(timer)) {
+                    // only the draining thread removes waiters, so it's still the head
+                    waiters.poll();
+                    if (!waiter.admit())
+                        available.incrementAndGet();
+                } else {
+                    break;
+                }
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void scheduleDrain(Timer timer, long delay) {
+        if (drainScheduled.compareAndSet(false, true)) {
+            timer.newTimeout(timeout -> {
+                drainScheduled.set(false);
+                drain(timer);
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final class Waiter<T> extends CompletableFuture<FilterContext<T>> {
+
+        private final FilterContext<T> ctx;
+        private final Timer timer;
+        private volatile Timeout timeout;
+
+        Waiter(FilterContext<T> ctx, Timer timer) {
+            this.ctx = ctx;
+            this.timer = timer;
+        }
+
+        /**
+         * @return false if the waiter was already cancelled or timed out
+         */
+        boolean admit() {
+            if (!complete(admitted(ctx, timer)))
+                return false;
+            Timeout timeout = this.timeout;
+            if (timeout != null)
+                timeout.cancel();
+            return true;
+        }
+    }
+}
@@ -17,6 +17,8 @@ import io.netty.channel.Channel;
 import java.net.InetSocketAddress;
 import java.util.List;
 
+import javax.net.ssl.SSLSession;
+
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.netty.request.NettyRequest;
 
@@ -92,6 +94,16 @@ public interface AsyncHandlerExtensions {
      */
     void onTlsHandshakeSuccess();
 
+    /**
+     * Notify the callback after the TLS was successful. Defaults to {@link #onTlsHandshakeSuccess()}.
+     *
+     * @param session the negotiated session
+     * @param resumed true if a cached session was resumed, so that the handshake was abbreviated
+     */
+    default void onTlsHandshakeSuccess(SSLSession session, boolean resumed) {
+        onTlsHandshakeSuccess();
+    }
+
     /**
      * Notify the callback after the TLS failed
      * 
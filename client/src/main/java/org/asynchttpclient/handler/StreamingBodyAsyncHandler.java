@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * An AsyncHandler that exposes the response body as an {@link InputStream} that's fed while it's being read, so that arbitrarily large bodies can
+ * be consumed with a constant memory footprint.
+ * <br>
+ * At most <code>maxBufferedParts</code> body parts are buffered: the channel stops reading from the socket until the stream consumer catches up.
+ * With {@link org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED} body parts, the stream reads straight from the network
+ * buffers. {@link org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory#LAZY} body parts aren't supported.
+ * <br>
+ * <pre>
+ *     StreamingBodyAsyncHandler handler = new StreamingBodyAsyncHandler();
+ *     Future&lt;Response&gt; f = client.prepareGet(&quot;http://foo.com/aresource&quot;).execute(handler);
+ *     // blocks until the status and the headers are available
+ *     Response response = handler.getResponse();
+ *     try (InputStream is = handler.getInputStream()) {
+ *      // consume the body, closing the stream early discards the rest of it
+ *     }
+ * </pre>
+ * The future only completes once the whole body has been received, which won't happen if the stream isn't consumed, so it mustn't be waited on
+ * before reading the stream.
+ */
+public class StreamingBodyAsyncHandler implements StreamedAsyncHandler<Response> {
+
+    public static final int DEFAULT_MAX_BUFFERED_PARTS = 16;
+
+    private static final Object END_OF_BODY = new Object();
+
+    private final Response.ResponseBuilder responseBuilder = new Response.ResponseBuilder();
+    private final CountDownLatch headersArrived = new CountDownLatch(1);
+    private final BodyInputStream inputStream;
+    private volatile Response response;
+    private volatile Throwable throwable;
+    private volatile boolean streamed;
+
+    public StreamingBodyAsyncHandler() {
+        this(DEFAULT_MAX_BUFFERED_PARTS);
+    }
+
+    public StreamingBodyAsyncHandler(int maxBufferedParts) {
+        if (maxBufferedParts <= 0)
+            throw new IllegalArgumentException("maxBufferedParts must be positive");
+        inputStream = new BodyInputStream(maxBufferedParts);
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+        responseBuilder.reset();
+        responseBuilder.accumulate(responseStatus);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+        responseBuilder.accumulate(headers);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onStream(Publisher<HttpResponseBodyPart> publisher) {
+        publishResponse();
+        streamed = true;
+        publisher.subscribe(inputStream);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        // body parts are published to the stream instead
+        return State.CONTINUE;
+    }
+
+    @Override
+    public Response onCompleted() throws Exception {
+        publishResponse();
+        if (!streamed)
+            // no body, otherwise the end is signaled by the publisher once it has published the parts it might still buffer
+            inputStream.offer(END_OF_BODY);
+        return response;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        throwable = t;
+        inputStream.offer(t);
+        headersArrived.countDown();
+    }
+
+    private void publishResponse() {
+        if (response == null) {
+            response = responseBuilder.build();
+            headersArrived.countDown();
+        }
+    }
+
+    /**
+     * Block until the status and the headers have been received
+     *
+     * @return a {@link Response} without body, might be null if the request failed
+     * @throws InterruptedException if the latch is interrupted
+     * @throws IOException if the handler completed with an exception before receiving the headers
+     */
+    public Response getResponse() throws InterruptedException, IOException {
+        headersArrived.await();
+        Response response = this.response;
+        if (response == null && throwable != null)
+            throw new IOException(throwable.getMessage(), throwable);
+        return response;
+    }
+
+    /**
+     * @return the body stream, which fails with an {@link IOException} if the request fails while it's being read
+     */
+    public InputStream getInputStream() {
+        return inputStream;
+    }
+
+    private static final class BodyInputStream extends InputStream implements Subscriber<HttpResponseBodyPart> {
+
+        private final int maxBufferedParts;
+        // bounded by the demand: parts, followed by either END_OF_BODY or a Throwable
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private volatile Subscription subscription;
+        private volatile boolean closed;
+
+        // only accessed by the reader
+        private ByteBuf current;
+        private boolean done;
+
+        BodyInputStream(int maxBufferedParts) {
+            this.maxBufferedParts = maxBufferedParts;
+        }
+
+        void offer(Object element) {
+            queue.offer(element);
+            if (closed)
+                // raced with close
+                releaseQueued();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (closed)
+                subscription.cancel();
+            else
+                subscription.request(maxBufferedParts);
+        }
+
+        @Override
+        public void onNext(HttpResponseBodyPart bodyPart) {
+            ByteBuf buf = bodyPart instanceof RetainedResponseBodyPart ? RetainedResponseBodyPart.class.cast(bodyPart).getBuf() : Unpooled
+                    .wrappedBuffer(bodyPart.getBodyPartBytes());
+            offer(buf);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            offer(t);
+        }
+
+        @Override
+        public void onComplete() {
+            offer(END_OF_BODY);
+        }
+
+        private boolean nextPart() throws IOException {
+            if (closed)
+                throw new IOException("Stream closed");
+
+            while (current == null || !current.isReadable()) {
+                if (current != null) {
+                    current.release();
+                    current = null;
+                    // make room for the next part
+                    subscription.request(1);
+                }
+
+                if (done)
+                    return false;
+
+                Object next;
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+
+                if (next == END_OF_BODY) {
+                    done = true;
+                    return false;
+                } else if (next instanceof Throwable) {
+                    done = true;
+                    Throwable t = (Throwable) next;
+                    throw new IOException(t.getMessage(), t);
+                }
+                current = (ByteBuf) next;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return nextPart() ? current.readByte() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!nextPart())
+                return -1;
+            int read = Math.min(len, current.readableBytes());
+            current.readBytes(b, off, read);
+            return read;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current != null && !closed ? current.readableBytes() : 0;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (current != null) {
+                    current.release();
+                    current = null;
+                }
+                Subscription subscription = this.subscription;
+                if (subscription != null && !done)
+                    // discard the rest of the body
+                    subscription.cancel();
+                releaseQueued();
+            }
+        }
+
+        private void releaseQueued() {
+            Object element;
+            while ((element = queue.poll()) != null) {
+                if (element instanceof ByteBuf)
+                    ByteBuf.class.cast(element).release();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.hedging;
+
+import org.asynchttpclient.Request;
+
+/**
+ * Decides which requests get hedged: if the response status of such a request isn't received within the hedge delay, a copy of the request is
+ * sent, typically on another connection, and whichever copy receives its response status first wins, the other one being cancelled.
+ * <br>
+ * Only idempotent requests should be hedged. Requests whose handler is notified of connection events
+ * ({@link org.asynchttpclient.handler.AsyncHandlerExtensions}) and websocket upgrades are never hedged.
+ * <br>
+ * Methods are invoked on the caller, I/O and timer threads, so implementations must be thread safe, fast and non blocking.
+ */
+public interface HedgingPolicy {
+
+    /**
+     * @param request the request about to be sent
+     * @return the delay in ms after which a copy of the request is sent if no response status was received, or a negative value not to hedge the
+     *         request
+     */
+    long getHedgeDelay(Request request);
+
+    /**
+     * Notify that a hedged request received its response status, from either copy.
+     *
+     * @param request the request
+     * @param latencyNanos the time elapsed between the original request being sent and the winning response status being received
+     */
+    default void onStatusReceived(Request request, long latencyNanos) {
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.hedging;
+
+import static org.asynchttpclient.util.HttpUtils.getBaseUrl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.Request;
+
+/**
+ * A {@link HedgingPolicy} that hedges GET and HEAD requests once they take longer than a percentile of the latencies recently observed for the
+ * same base url, so that only the slowest requests get a second chance.
+ * <br>
+ * The percentile is computed over the last {@link #WINDOW_SIZE} latencies of each base url. Until enough of them were observed, requests are
+ * only hedged after the max delay.
+ */
+public class LatencyPercentileHedgingPolicy implements HedgingPolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final long DEFAULT_MIN_DELAY = 5;
+    public static final long DEFAULT_MAX_DELAY = 1000;
+
+    public static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 64;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final ConcurrentHashMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final double percentile;
+    private final long minDelay;
+    private final long maxDelay;
+
+    public LatencyPercentileHedgingPolicy() {
+        this(DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * @param percentile the percentile of the recent latencies after which requests are hedged, between 0 and 1 excluded
+     * @param minDelay the min hedge delay in ms, so that very fast backends don't get hedged on jitter
+     * @param maxDelay the max hedge delay in ms
+     */
+    public LatencyPercentileHedgingPolicy(double percentile, long minDelay, long maxDelay) {
+        if (percentile <= 0.0 || percentile >= 1.0)
+            throw new IllegalArgumentException("percentile must be between 0 and 1 excluded");
+        if (minDelay < 0 || maxDelay < minDelay)
+            throw new IllegalArgumentException("Delays must satisfy 0 <= minDelay <= maxDelay");
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public long getHedgeDelay(Request request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method))
+            return -1L;
+
+        LatencyWindow window = windows.get(getBaseUrl(request.getUri()));
+        return window != null ? window.delay : maxDelay;
+    }
+
+    @Override
+    public void onStatusReceived(Request request, long latencyNanos) {
+        String baseUrl = getBaseUrl(request.getUri());
+        LatencyWindow window = windows.get(baseUrl);
+        if (window == null)
+            window = windows.computeIfAbsent(baseUrl, key -> new LatencyWindow());
+        window.add(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+    }
+
+    private final class LatencyWindow {
+
+        private volatile long delay = maxDelay;
+
+        // guarded by this
+        private final long[] latencies = new long[WINDOW_SIZE];
+        private int count;
+
+        synchronized void add(long latency) {
+            latencies[count++ % WINDOW_SIZE] = latency;
+            if (count == 2 * WINDOW_SIZE)
+                // keep the index from overflowing
+                count = WINDOW_SIZE;
+
+            if (count >= MIN_SAMPLES && count % RECOMPUTE_INTERVAL == 0) {
+                int size = Math.min(count, WINDOW_SIZE);
+                long[] sorted = Arrays.copyOf(latencies, size);
+                Arrays.sort(sorted);
+                long latencyAtPercentile = sorted[(int) Math.ceil(percentile * size) - 1];
+                delay = Math.max(minDelay, Math.min(maxDelay, latencyAtPercentile));
+            }
+        }
+    }
+}
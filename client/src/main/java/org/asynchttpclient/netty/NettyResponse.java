@@ -16,6 +16,9 @@ package org.asynchttpclient.netty;
 import static io.netty.handler.codec.http.HttpHeaders.Names.*;
 import static org.asynchttpclient.util.HttpUtils.*;
 import static org.asynchttpclient.util.MiscUtils.isNonEmpty;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.ByteArrayInputStream;
@@ -45,6 +48,9 @@ public class NettyResponse implements Response {
     private final HttpResponseHeaders headers;
     private final HttpResponseStatus status;
     private List<Cookie> cookies;
+    // only set with RETAINED body parts, and then owns their buffers
+    private ByteBuf retainedBody;
+    private boolean released;
 
     public NettyResponse(HttpResponseStatus status,//
             HttpResponseHeaders headers,//
@@ -176,13 +182,51 @@ public class NettyResponse implements Response {
             length += part.length();
 
         ByteBuffer target = ByteBuffer.wrap(new byte[length]);
+        // copy straight from the parts' bytes or buffers
         for (HttpResponseBodyPart part : bodyParts)
-            target.put(part.getBodyPartBytes());
+            target.put(part.getBodyByteBuffer());
 
         target.flip();
         return target;
     }
 
+    @Override
+    public ByteBuf getResponseBodyAsByteBuf() {
+        ByteBuf retainedBody = retainedBody();
+        return retainedBody != null ? retainedBody.duplicate() : Unpooled.wrappedBuffer(getResponseBodyAsByteBuffer());
+    }
+
+    private boolean hasRetainedBodyParts() {
+        return isNonEmpty(bodyParts) && bodyParts.get(0) instanceof RetainedResponseBodyPart;
+    }
+
+    private ByteBuf retainedBody() {
+        if (retainedBody == null && hasRetainedBodyParts()) {
+            if (released)
+                throw new IllegalStateException("Response was released");
+
+            ByteBuf[] bufs = new ByteBuf[bodyParts.size()];
+            for (int i = 0; i < bufs.length; i++)
+                bufs[i] = RetainedResponseBodyPart.class.cast(bodyParts.get(i)).getBuf();
+            // zero-copy view, the parts' buffers are released along with it
+            retainedBody = Unpooled.wrappedBuffer(bufs.length, bufs);
+        }
+        return retainedBody;
+    }
+
+    @Override
+    public void release() {
+        if (!released) {
+            released = true;
+            if (retainedBody != null) {
+                retainedBody.release();
+            } else if (hasRetainedBodyParts()) {
+                for (HttpResponseBodyPart part : bodyParts)
+                    RetainedResponseBodyPart.class.cast(part).release();
+            }
+        }
+    }
+
     @Override
     public String getResponseBody() {
         return getResponseBody(null);
@@ -201,12 +245,14 @@ public class NettyResponse implements Response {
 
     @Override
     public String getResponseBody(Charset charset) {
-        return new String(getResponseBodyAsBytes(), computeCharset(charset));
+        ByteBuf retainedBody = retainedBody();
+        return retainedBody != null ? retainedBody.toString(computeCharset(charset)) : new String(getResponseBodyAsBytes(), computeCharset(charset));
     }
 
     @Override
     public InputStream getResponseBodyAsStream() {
-        return new ByteArrayInputStream(getResponseBodyAsBytes());
+        ByteBuf retainedBody = retainedBody();
+        return retainedBody != null ? new ByteBufInputStream(retainedBody.duplicate()) : new ByteArrayInputStream(getResponseBodyAsBytes());
     }
 
     @Override
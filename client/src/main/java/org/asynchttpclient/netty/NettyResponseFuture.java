@@ -18,6 +18,8 @@ import static org.asynchttpclient.util.MiscUtils.getCause;
 import static io.netty.util.internal.PlatformDependent.*;
 import io.netty.channel.Channel;
 
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
@@ -34,11 +36,12 @@ import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.channel.CircuitBreaker;
+import org.asynchttpclient.channel.ConcurrencyLimiter;
 import org.asynchttpclient.future.AbstractListenableFuture;
 import org.asynchttpclient.netty.channel.ChannelState;
 import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.request.NettyRequest;
-import org.asynchttpclient.netty.timeout.TimeoutsHolder;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
@@ -55,12 +58,17 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
 
     private static final AtomicIntegerFieldUpdater<NettyResponseFuture<?>> REDIRECT_COUNT_UPDATER = newAtomicIntegerFieldUpdater(NettyResponseFuture.class, "redirectCount");
     private static final AtomicIntegerFieldUpdater<NettyResponseFuture<?>> CURRENT_RETRY_UPDATER = newAtomicIntegerFieldUpdater(NettyResponseFuture.class, "currentRetry");
+    private static final AtomicIntegerFieldUpdater<NettyResponseFuture<?>> TIMEOUTS_SCHEDULED_UPDATER = newAtomicIntegerFieldUpdater(NettyResponseFuture.class, "timeoutsScheduled");
     @SuppressWarnings("rawtypes")
     // FIXME see https://github.com/netty/netty/pull/4669
     private static final AtomicReferenceFieldUpdater<NettyResponseFuture, Object> CONTENT_UPDATER = newAtomicReferenceFieldUpdater(NettyResponseFuture.class, "content");
     @SuppressWarnings("rawtypes")
     // FIXME see https://github.com/netty/netty/pull/4669
     private static final AtomicReferenceFieldUpdater<NettyResponseFuture, ExecutionException> EX_EX_UPDATER = newAtomicReferenceFieldUpdater(NettyResponseFuture.class, "exEx");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<NettyResponseFuture, ConcurrencyLimiter.Permit> CONCURRENCY_PERMIT_UPDATER = newAtomicReferenceFieldUpdater(NettyResponseFuture.class, "concurrencyPermit");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<NettyResponseFuture, CircuitBreaker.Permit> CIRCUIT_BREAKER_PERMIT_UPDATER = newAtomicReferenceFieldUpdater(NettyResponseFuture.class, "circuitBreakerPermit");
 
     private final long start = unpreciseMillisTime();
     private final ChannelPoolPartitioning connectionPoolPartitioning;
@@ -83,10 +91,17 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
     private volatile int currentRetry = 0;
     private volatile V content;
     private volatile ExecutionException exEx;
+    private volatile int timeoutsScheduled;
+    private volatile ConcurrencyLimiter.Permit concurrencyPermit;
+    private volatile CircuitBreaker.Permit circuitBreakerPermit;
 
     // volatile where we don't need CAS ops
     private volatile long touch = unpreciseMillisTime();
-    private volatile TimeoutsHolder timeoutsHolder;
+    private volatile boolean timeoutsArmed;
+    private volatile int requestTimeout = -1;
+    private volatile long requestTimeoutDeadline = -1L;
+    private volatile int readTimeout = -1;
+    private volatile InetSocketAddress remoteAddress;
     private volatile ChannelState channelState = ChannelState.NEW;
 
     // state mutated only inside the event loop
@@ -105,6 +120,9 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
     private Realm proxyRealm;
     public Throwable pendingException;
 
+    // only accessed by the TimeoutScheduler
+    private NettyResponseFuture<?> nextScheduled;
+
     public NettyResponseFuture(Request originalRequest,//
             AsyncHandler<V> asyncHandler,//
             NettyRequest nettyRequest,//
@@ -152,6 +170,8 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
                 LOGGER.warn("cancel", t);
             }
         }
+        releaseConcurrencyPermit();
+        releaseCircuitBreakerPermit();
         latch.countDown();
         runListeners();
         return true;
@@ -228,6 +248,8 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
             EX_EX_UPDATER.compareAndSet(this, null, new ExecutionException(getCause(t)));
 
         } finally {
+            releaseConcurrencyPermit();
+            releaseCircuitBreakerPermit();
             latch.countDown();
         }
 
@@ -248,6 +270,8 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
                 LOGGER.debug("asyncHandler.onThrowable", te);
             }
         }
+        releaseConcurrencyPermit();
+        releaseCircuitBreakerPermit();
         latch.countDown();
         runListeners();
     }
@@ -283,6 +307,88 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
 
     // INTERNAL
 
+    /**
+     * Hold a permit until the future completes, whatever the redirects and retries, released right away if it's already done
+     *
+     * @param concurrencyPermit the permit acquired for the request
+     */
+    public void setConcurrencyPermit(ConcurrencyLimiter.Permit concurrencyPermit) {
+        this.concurrencyPermit = concurrencyPermit;
+        if (isDone())
+            releaseConcurrencyPermit();
+    }
+
+    private void releaseConcurrencyPermit() {
+        ConcurrencyLimiter.Permit permit = CONCURRENCY_PERMIT_UPDATER.getAndSet(this, null);
+        if (permit == null)
+            return;
+
+        try {
+            ExecutionException e = EX_EX_UPDATER.get(this);
+            if (isCancelled())
+                permit.onIgnore();
+            else if (e == null)
+                permit.onSuccess();
+            else if (e.getCause() instanceof TimeoutException || e.getCause() instanceof ConnectException)
+                permit.onDropped();
+            else
+                permit.onIgnore();
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to release concurrency permit", t);
+        }
+    }
+
+    /**
+     * Hold a permit until a response is received or the future completes, released right away if it's already done
+     *
+     * @param circuitBreakerPermit the permit acquired for the request
+     */
+    public void setCircuitBreakerPermit(CircuitBreaker.Permit circuitBreakerPermit) {
+        this.circuitBreakerPermit = circuitBreakerPermit;
+        if (isDone())
+            releaseCircuitBreakerPermit();
+    }
+
+    /**
+     * Settle the circuit breaker permit with the status of the first response, subsequent ones being the result of redirects or retries
+     *
+     * @param statusCode the response status code
+     */
+    public void onResponseStatus(int statusCode) {
+        CircuitBreaker.Permit permit = CIRCUIT_BREAKER_PERMIT_UPDATER.getAndSet(this, null);
+        if (permit == null)
+            return;
+
+        try {
+            if (statusCode >= 500)
+                permit.onFailure();
+            else
+                permit.onSuccess();
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to release circuit breaker permit", t);
+        }
+    }
+
+    private void releaseCircuitBreakerPermit() {
+        CircuitBreaker.Permit permit = CIRCUIT_BREAKER_PERMIT_UPDATER.getAndSet(this, null);
+        if (permit == null)
+            return;
+
+        try {
+            ExecutionException e = EX_EX_UPDATER.get(this);
+            if (isCancelled())
+                permit.onIgnore();
+            else if (e == null)
+                permit.onSuccess();
+            else if (e.getCause() instanceof TimeoutException || e.getCause() instanceof ConnectException)
+                permit.onFailure();
+            else
+                permit.onIgnore();
+        } catch (Throwable t) {
+            LOGGER.warn("Failed to release circuit breaker permit", t);
+        }
+    }
+
     public Uri getUri() {
         return targetRequest.getUri();
     }
@@ -300,10 +406,70 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
     }
 
     public void cancelTimeouts() {
-        if (timeoutsHolder != null) {
-            timeoutsHolder.cancel();
-            timeoutsHolder = null;
-        }
+        timeoutsArmed = false;
+    }
+
+    /**
+     * Arm the timeouts, the read timeout being only started later on with {@link #startReadTimeout(int)}
+     *
+     * @param requestTimeout the request timeout in ms, -1 for none
+     */
+    public void armTimeouts(int requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        requestTimeoutDeadline = requestTimeout != -1 ? unpreciseMillisTime() + requestTimeout : -1L;
+        readTimeout = -1;
+        timeoutsArmed = true;
+    }
+
+    public void startReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public boolean isTimeoutsArmed() {
+        return timeoutsArmed;
+    }
+
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    public long getRequestTimeoutDeadline() {
+        return requestTimeoutDeadline;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @return true if the future wasn't already scheduled for timeouts, and now is
+     */
+    public boolean markTimeoutsScheduled() {
+        return TIMEOUTS_SCHEDULED_UPDATER.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * @return true if the future is no longer scheduled for timeouts, false if they've been re-armed concurrently and it still has to be
+     */
+    public boolean unmarkTimeoutsScheduled() {
+        timeoutsScheduled = 0;
+        return !(timeoutsArmed && markTimeoutsScheduled());
+    }
+
+    public NettyResponseFuture<?> getNextScheduled() {
+        return nextScheduled;
+    }
+
+    public void setNextScheduled(NettyResponseFuture<?> nextScheduled) {
+        this.nextScheduled = nextScheduled;
+    }
+
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public void setRemoteAddress(InetSocketAddress remoteAddress) {
+        this.remoteAddress = remoteAddress;
     }
 
     public final Request getTargetRequest() {
@@ -338,14 +504,6 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
         return REDIRECT_COUNT_UPDATER.incrementAndGet(this);
     }
 
-    public void setTimeoutsHolder(TimeoutsHolder timeoutsHolder) {
-        this.timeoutsHolder = timeoutsHolder;
-    }
-
-    public TimeoutsHolder getTimeoutsHolder() {
-        return timeoutsHolder;
-    }
-
     public AtomicBoolean getInAuth() {
         return inAuth;
     }
@@ -429,6 +587,19 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
         return maxRetry > 0 && CURRENT_RETRY_UPDATER.incrementAndGet(this) <= maxRetry;
     }
 
+    public int getCurrentRetry() {
+        return currentRetry;
+    }
+
+    /**
+     * Count a retry decided by a {@link org.asynchttpclient.retry.RetryPolicy}, regardless of the max number of retries
+     *
+     * @return the number of retries so far, including this one
+     */
+    public int incrementAndGetRetry() {
+        return CURRENT_RETRY_UPDATER.incrementAndGet(this);
+    }
+
     public void setTargetRequest(Request targetRequest) {
         this.targetRequest = targetRequest;
     }
@@ -484,7 +655,7 @@ public final class NettyResponseFuture<V> extends AbstractListenableFuture<V> {
                 ",\n\tkeepAlive=" + keepAlive + //
                 ",\n\texEx=" + exEx + //
                 ",\n\tredirectCount=" + redirectCount + //
-                ",\n\ttimeoutsHolder=" + timeoutsHolder + //
+                ",\n\ttimeoutsArmed=" + timeoutsArmed + //
                 ",\n\tinAuth=" + inAuth + //
                 ",\n\tstatusReceived=" + statusReceived + //
                 ",\n\ttouch=" + touch + //
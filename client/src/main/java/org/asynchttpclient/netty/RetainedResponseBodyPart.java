@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.netty.util.ByteBufUtils;
+
+/**
+ * A body part that retains the network buffer it was read into, so it stays valid after the callback without being copied.
+ *
+ * Whoever ends up holding the part has to {@link #release()} it, see {@link org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED}.
+ */
+public class RetainedResponseBodyPart extends HttpResponseBodyPart {
+
+    private final ByteBuf buf;
+
+    public RetainedResponseBodyPart(ByteBuf buf, boolean last) {
+        super(last);
+        // own indexes, shared reference count
+        this.buf = buf.retain().duplicate();
+    }
+
+    /**
+     * @return the retained buffer, only valid until the part is released
+     */
+    public ByteBuf getBuf() {
+        return buf;
+    }
+
+    /**
+     * Release the network buffer
+     *
+     * @return true if the buffer was deallocated
+     */
+    public boolean release() {
+        return buf.release();
+    }
+
+    @Override
+    public int length() {
+        return buf.readableBytes();
+    }
+
+    @Override
+    public byte[] getBodyPartBytes() {
+        return ByteBufUtils.byteBuf2Bytes(buf.duplicate());
+    }
+
+    @Override
+    public ByteBuffer getBodyByteBuffer() {
+        return buf.nioBuffer();
+    }
+}
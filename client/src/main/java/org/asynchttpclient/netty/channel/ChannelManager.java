@@ -16,17 +16,20 @@ package org.asynchttpclient.netty.channel;
 import static org.asynchttpclient.util.MiscUtils.trimStackTrace;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ChannelFactory;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.oio.OioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.websocketx.WebSocket08FrameDecoder;
@@ -36,22 +39,28 @@ import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.resolver.NameResolver;
 import io.netty.util.Timer;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.RequestBuilderBase;
 import org.asynchttpclient.SslEngineFactory;
 import org.asynchttpclient.channel.ChannelPool;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
@@ -67,7 +76,11 @@ import org.asynchttpclient.netty.handler.HttpHandler;
 import org.asynchttpclient.netty.handler.WebSocketHandler;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.netty.ssl.DefaultSslEngineFactory;
+import org.asynchttpclient.netty.ws.BinaryStreamingFrameAggregator;
+import org.asynchttpclient.netty.ws.PerMessageDeflate;
+import org.asynchttpclient.netty.ws.WebSocketExtensionFrameDecoder;
 import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.resolver.DnsNameResolverGroup;
 import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,6 +97,8 @@ public class ChannelManager {
     public static final String WS_DECODER_HANDLER = "ws-decoder";
     public static final String WS_FRAME_AGGREGATOR = "ws-aggregator";
     public static final String WS_ENCODER_HANDLER = "ws-encoder";
+    public static final String WS_DEFLATER_HANDLER = "ws-deflater";
+    public static final String WS_INFLATER_HANDLER = "ws-inflater";
     public static final String AHC_HTTP_HANDLER = "ahc-http";
     public static final String AHC_WS_HANDLER = "ahc-ws";
     public static final String LOGGING_HANDLER = "logging";
@@ -105,12 +120,19 @@ public class ChannelManager {
     private final boolean maxConnectionsPerHostEnabled;
     private final ConcurrentHashMap<Object, Semaphore> freeChannelsPerHost = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Channel, Object> channelId2PartitionKey = new ConcurrentHashMap<>();
+    private final Timer nettyTimer;
+    private final int pendingAcquireQueueSize;
+    private final int pendingAcquireTimeout;
+    private final ConcurrentHashMap<Object, PendingAcquireQueue> pendingAcquires = new ConcurrentHashMap<>();
+    private final ChannelPoolMetrics channelPoolMetrics;
+    private final DnsNameResolverGroup dnsNameResolverGroup;
 
     private AsyncHttpClientHandler wsHandler;
 
     public ChannelManager(final AsyncHttpClientConfig config, Timer nettyTimer) {
 
         this.config = config;
+        this.nettyTimer = nettyTimer;
         this.sslEngineFactory = config.getSslEngineFactory() != null ? config.getSslEngineFactory() : new DefaultSslEngineFactory();
         try {
             this.sslEngineFactory.init(config);
@@ -118,10 +140,12 @@ public class ChannelManager {
             throw new RuntimeException("Could not initialize sslEngineFactory", e);
         }
 
+        channelPoolMetrics = new ChannelPoolMetrics(this, config.getChannelPoolListener(), nettyTimer, ChannelPoolMetrics.DEFAULT_PARTITION_STATS_EXPIRY);
+
         ChannelPool channelPool = config.getChannelPool();
         if (channelPool == null) {
             if (config.isKeepAlive()) {
-                channelPool = new DefaultChannelPool(config, nettyTimer);
+                channelPool = new DefaultChannelPool(config, nettyTimer, channelPoolMetrics);
             } else {
                 channelPool = NoopChannelPool.INSTANCE;
             }
@@ -132,6 +156,8 @@ public class ChannelManager {
         tooManyConnectionsPerHost = trimStackTrace(new TooManyConnectionsPerHostException(config.getMaxConnectionsPerHost()));
         maxTotalConnectionsEnabled = config.getMaxConnections() > 0;
         maxConnectionsPerHostEnabled = config.getMaxConnectionsPerHost() > 0;
+        pendingAcquireQueueSize = maxTotalConnectionsEnabled || maxConnectionsPerHostEnabled ? config.getPendingAcquireQueueSize() : 0;
+        pendingAcquireTimeout = config.getPendingAcquireTimeout();
 
         if (maxTotalConnectionsEnabled || maxConnectionsPerHostEnabled) {
             openChannels = new DefaultChannelGroup("asyncHttpClient", GlobalEventExecutor.INSTANCE) {
@@ -141,14 +167,16 @@ public class ChannelManager {
                     if (removed) {
                         if (maxTotalConnectionsEnabled)
                             freeChannels.release();
+                        Object partitionKey = null;
                         if (maxConnectionsPerHostEnabled) {
-                            Object partitionKey = channelId2PartitionKey.remove(Channel.class.cast(o));
+                            partitionKey = channelId2PartitionKey.remove(Channel.class.cast(o));
                             if (partitionKey != null) {
                                 Semaphore hostFreeChannels = freeChannelsPerHost.get(partitionKey);
                                 if (hostFreeChannels != null)
                                     hostFreeChannels.release();
                             }
                         }
+                        onPermitsReleased(partitionKey);
                     }
                     return removed;
                 }
@@ -165,14 +193,17 @@ public class ChannelManager {
         ThreadFactory threadFactory = config.getThreadFactory() != null ? config.getThreadFactory() : new DefaultThreadFactory(config.getThreadPoolName());
         allowReleaseEventLoopGroup = config.getEventLoopGroup() == null;
         ChannelFactory<? extends Channel> channelFactory;
+        ChannelFactory<? extends DatagramChannel> datagramChannelFactory;
         if (allowReleaseEventLoopGroup) {
             if (config.isUseNativeTransport()) {
                 eventLoopGroup = newEpollEventLoopGroup(threadFactory);
                 channelFactory = getEpollSocketChannelFactory();
+                datagramChannelFactory = getEpollDatagramChannelFactory();
 
             } else {
                 eventLoopGroup = new NioEventLoopGroup(0, threadFactory);
                 channelFactory = NioSocketChannelFactory.INSTANCE;
+                datagramChannelFactory = NioDatagramChannelFactory.INSTANCE;
             }
 
         } else {
@@ -182,11 +213,15 @@ public class ChannelManager {
 
             if (eventLoopGroup instanceof NioEventLoopGroup) {
                 channelFactory = NioSocketChannelFactory.INSTANCE;
+                datagramChannelFactory = NioDatagramChannelFactory.INSTANCE;
             } else {
                 channelFactory = getEpollSocketChannelFactory();
+                datagramChannelFactory = getEpollDatagramChannelFactory();
             }
         }
 
+        dnsNameResolverGroup = config.isUseDnsNameResolver() ? new DnsNameResolverGroup(config, eventLoopGroup, datagramChannelFactory) : null;
+
         httpBootstrap = newBootstrap(channelFactory, eventLoopGroup, config);
         wsBootstrap = newBootstrap(channelFactory, eventLoopGroup, config);
 
@@ -244,6 +279,15 @@ public class ChannelManager {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private ChannelFactory<? extends DatagramChannel> getEpollDatagramChannelFactory() {
+        try {
+            return (ChannelFactory<? extends DatagramChannel>) Class.forName("org.asynchttpclient.netty.channel.EpollDatagramChannelFactory").newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     public void configureBootstraps(NettyRequestSender requestSender) {
 
         final AsyncHttpClientHandler httpHandler = new HttpHandler(config, this, requestSender);
@@ -308,7 +352,10 @@ public class ChannelManager {
             Channels.setDiscard(channel);
             if (asyncHandler instanceof AsyncHandlerExtensions)
                 AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionOffer(channel);
-            if (channelPool.offer(channel, partitionKey)) {
+            if (handOverToPendingAcquire(channel, partitionKey)) {
+                LOGGER.debug("Channel {} handed over to a pending request instead of being pooled", channel);
+            } else if (channelPool.offer(channel, partitionKey)) {
+                channelPoolMetrics.onChannelOffered(partitionKey);
                 if (maxConnectionsPerHostEnabled)
                     channelId2PartitionKey.putIfAbsent(channel, partitionKey);
             } else {
@@ -323,7 +370,10 @@ public class ChannelManager {
 
     public Channel poll(Uri uri, String virtualHost, ProxyServer proxy, ChannelPoolPartitioning connectionPoolPartitioning) {
         Object partitionKey = connectionPoolPartitioning.getPartitionKey(uri, virtualHost, proxy);
-        return channelPool.poll(partitionKey);
+        Channel channel = channelPool.poll(partitionKey);
+        if (channel != null)
+            channelPoolMetrics.onChannelLeased(partitionKey);
+        return channel;
     }
 
     public boolean removeAll(Channel connection) {
@@ -342,6 +392,24 @@ public class ChannelManager {
         return !maxConnectionsPerHostEnabled || getFreeConnectionsForHost(partitionKey).tryAcquire();
     }
 
+    private boolean tryAcquire(Object partitionKey) {
+        if (!tryAcquireGlobal())
+            return false;
+        if (!tryAcquirePerHost(partitionKey)) {
+            if (maxTotalConnectionsEnabled)
+                freeChannels.release();
+            return false;
+        }
+        return true;
+    }
+
+    private void releasePermits(Object partitionKey) {
+        if (maxTotalConnectionsEnabled)
+            freeChannels.release();
+        if (maxConnectionsPerHostEnabled)
+            getFreeConnectionsForHost(partitionKey).release();
+    }
+
     public void preemptChannel(Object partitionKey) throws IOException {
         if (!channelPool.isOpen())
             throw PoolAlreadyClosedException.INSTANCE;
@@ -355,12 +423,126 @@ public class ChannelManager {
         }
     }
 
+    /**
+     * Queue a request that failed to preempt a channel so that it gets the next channel released for its partition, either handed over by
+     * {@link #tryToOfferChannelToPool} or opened with the permits of a closed channel.
+     *
+     * @param pendingAcquire the waiting request
+     * @return false if queueing is disabled or the partition's queue is full, in which case the caller is expected to fail fast
+     */
+    public boolean offerPendingAcquire(PendingAcquire pendingAcquire) {
+        if (pendingAcquireQueueSize <= 0 || !channelPool.isOpen())
+            return false;
+
+        Object partitionKey = pendingAcquire.getPartitionKey();
+        PendingAcquireQueue queue = pendingAcquires.computeIfAbsent(partitionKey, pk -> new PendingAcquireQueue());
+        if (queue.size.incrementAndGet() > pendingAcquireQueueSize) {
+            queue.size.decrementAndGet();
+            return false;
+        }
+
+        LOGGER.debug("Queueing request for key {} until a channel becomes available", partitionKey);
+        queue.waiters.offer(pendingAcquire);
+
+        // the request timeout is only armed once the request gets a channel, so it also caps the time spent in the queue
+        int requestTimeout = requestTimeout(pendingAcquire.getFuture());
+        if (requestTimeout != -1 && (pendingAcquireTimeout <= 0 || requestTimeout < pendingAcquireTimeout)) {
+            TimeoutException cause = new TimeoutException("Request timeout to not-connected after " + requestTimeout + " ms");
+            pendingAcquire.setTimeout(nettyTimer.newTimeout(timeout -> expirePendingAcquire(queue, pendingAcquire, cause), requestTimeout, TimeUnit.MILLISECONDS));
+        } else if (pendingAcquireTimeout > 0) {
+            pendingAcquire.setTimeout(nettyTimer.newTimeout(timeout -> expirePendingAcquire(queue, pendingAcquire, pendingAcquire.getCause()), pendingAcquireTimeout, TimeUnit.MILLISECONDS));
+        }
+
+        // permits might have been released before the request was queued
+        grantPermits(partitionKey, queue);
+        return true;
+    }
+
+    private int requestTimeout(NettyResponseFuture<?> future) {
+        int requestTimeout = future.getTargetRequest().getRequestTimeout();
+        return requestTimeout != 0 ? requestTimeout : config.getRequestTimeout();
+    }
+
+    private void expirePendingAcquire(PendingAcquireQueue queue, PendingAcquire pendingAcquire, Throwable cause) {
+        if (queue.waiters.remove(pendingAcquire))
+            queue.size.decrementAndGet();
+        if (pendingAcquire.claim()) {
+            LOGGER.debug("Pending request for key {} timed out", pendingAcquire.getPartitionKey());
+            pendingAcquire.abort(cause);
+        }
+    }
+
+    private PendingAcquire pollPendingAcquire(PendingAcquireQueue queue) {
+        PendingAcquire pendingAcquire;
+        while ((pendingAcquire = queue.waiters.poll()) != null) {
+            queue.size.decrementAndGet();
+            // skip requests that timed out or were cancelled in the meantime
+            if (pendingAcquire.claim() && !pendingAcquire.getFuture().isDone())
+                return pendingAcquire;
+        }
+        return null;
+    }
+
+    private boolean handOverToPendingAcquire(Channel channel, Object partitionKey) {
+        PendingAcquireQueue queue = pendingAcquires.get(partitionKey);
+        if (queue == null)
+            return false;
+
+        PendingAcquire pendingAcquire = pollPendingAcquire(queue);
+        if (pendingAcquire == null)
+            return false;
+
+        // let the current response complete before writing the next request
+        channel.eventLoop().execute(() -> pendingAcquire.onChannel(channel));
+        return true;
+    }
+
+    private void grantPermits(Object partitionKey, PendingAcquireQueue queue) {
+        while (!queue.waiters.isEmpty() && tryAcquire(partitionKey)) {
+            PendingAcquire pendingAcquire = pollPendingAcquire(queue);
+            if (pendingAcquire == null)
+                // loop again in case a request was queued while we were holding the permits
+                releasePermits(partitionKey);
+            else
+                pendingAcquire.onPermitsAcquired();
+        }
+    }
+
+    private void onPermitsReleased(Object partitionKey) {
+        if (pendingAcquires.isEmpty())
+            return;
+
+        if (partitionKey != null) {
+            PendingAcquireQueue queue = pendingAcquires.get(partitionKey);
+            if (queue != null)
+                grantPermits(partitionKey, queue);
+        }
+
+        if (maxTotalConnectionsEnabled) {
+            // global permit, any partition can use it
+            for (Entry<Object, PendingAcquireQueue> entry : pendingAcquires.entrySet())
+                grantPermits(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void abortPendingAcquires() {
+        for (PendingAcquireQueue queue : pendingAcquires.values()) {
+            PendingAcquire pendingAcquire;
+            while ((pendingAcquire = pollPendingAcquire(queue)) != null)
+                pendingAcquire.abort(PoolAlreadyClosedException.INSTANCE);
+        }
+    }
+
     private void doClose() {
         openChannels.close();
         channelPool.destroy();
+        abortPendingAcquires();
     }
 
     public void close() {
+        if (dnsNameResolverGroup != null)
+            // while the event loops still accept the close tasks
+            dnsNameResolverGroup.close();
         if (allowReleaseEventLoopGroup) {
             eventLoopGroup.shutdownGracefully(config.getShutdownQuietPeriod(), config.getShutdownTimeout(), TimeUnit.MILLISECONDS)//
                     .addListener(future -> doClose());
@@ -377,10 +559,24 @@ public class ChannelManager {
     }
 
     public void abortChannelPreemption(Object partitionKey) {
-        if (maxTotalConnectionsEnabled)
-            freeChannels.release();
-        if (maxConnectionsPerHostEnabled)
-            getFreeConnectionsForHost(partitionKey).release();
+        releasePermits(partitionKey);
+        onPermitsReleased(partitionKey);
+    }
+
+    public void onChannelConnected(Channel channel, Object partitionKey, long connectTimeNanos) {
+        channelPoolMetrics.onChannelConnected(partitionKey, connectTimeNanos);
+        channel.closeFuture().addListener(future -> channelPoolMetrics.onChannelClosed(partitionKey));
+    }
+
+    int getAvailablePermits() {
+        return maxTotalConnectionsEnabled ? freeChannels.availablePermits() : -1;
+    }
+
+    int getAvailablePermits(Object partitionKey) {
+        if (!maxConnectionsPerHostEnabled)
+            return -1;
+        Semaphore hostFreeChannels = freeChannelsPerHost.get(partitionKey);
+        return hostFreeChannels != null ? hostFreeChannels.availablePermits() : config.getMaxConnectionsPerHost();
     }
 
     public void registerOpenChannel(Channel channel, Object partitionKey) {
@@ -399,8 +595,8 @@ public class ChannelManager {
                 config.isValidateResponseHeaders());
     }
 
-    private SslHandler createSslHandler(String peerHost, int peerPort) {
-        SSLEngine sslEngine = sslEngineFactory.newSslEngine(config, peerHost, peerPort);
+    private SslHandler createSslHandler(String peerHost, int peerPort, ByteBufAllocator allocator) {
+        SSLEngine sslEngine = sslEngineFactory.newSslEngine(config, peerHost, peerPort, allocator);
         SslHandler sslHandler = new SslHandler(sslEngine);
         if (handshakeTimeout > 0)
             sslHandler.setHandshakeTimeoutMillis(handshakeTimeout);
@@ -411,7 +607,7 @@ public class ChannelManager {
         return pipeline.get(SSL_HANDLER) != null;
     }
 
-    public void upgradeProtocol(ChannelPipeline pipeline, Uri requestUri) throws SSLException {
+    public void upgradeProtocol(ChannelPipeline pipeline, Uri requestUri, Object partitionKey) throws SSLException {
         if (pipeline.get(HTTP_CLIENT_CODEC) != null)
             pipeline.remove(HTTP_CLIENT_CODEC);
 
@@ -420,7 +616,13 @@ public class ChannelManager {
                 pipeline.addAfter(SSL_HANDLER, HTTP_CLIENT_CODEC, newHttpClientCodec());
             } else {
                 pipeline.addAfter(PINNED_ENTRY, HTTP_CLIENT_CODEC, newHttpClientCodec());
-                pipeline.addAfter(PINNED_ENTRY, SSL_HANDLER, createSslHandler(requestUri.getHost(), requestUri.getExplicitPort()));
+                long handshakeStartMillis = System.currentTimeMillis();
+                SslHandler sslHandler = createSslHandler(requestUri.getHost(), requestUri.getExplicitPort(), pipeline.channel().alloc());
+                pipeline.addAfter(PINNED_ENTRY, SSL_HANDLER, sslHandler);
+                sslHandler.handshakeFuture().addListener(future -> {
+                    if (future.isSuccess())
+                        onTlsHandshakeSuccess(sslHandler, partitionKey, handshakeStartMillis);
+                });
             }
 
         else
@@ -451,19 +653,53 @@ public class ChannelManager {
             peerPort = uri.getExplicitPort();
         }
 
-        SslHandler sslHandler = createSslHandler(peerHost, peerPort);
+        SslHandler sslHandler = createSslHandler(peerHost, peerPort, pipeline.channel().alloc());
         pipeline.addFirst(ChannelManager.SSL_HANDLER, sslHandler);
         return sslHandler;
     }
 
+    /**
+     * Record a successful TLS handshake in the pool metrics
+     *
+     * @param sslHandler the handler whose handshake succeeded
+     * @param partitionKey the partition of the channel
+     * @param handshakeStartMillis the time the handshake started, as returned by {@link System#currentTimeMillis()}
+     * @return true if a cached session was resumed
+     */
+    public boolean onTlsHandshakeSuccess(SslHandler sslHandler, Object partitionKey, long handshakeStartMillis) {
+        // a resumed session was created by an earlier handshake
+        boolean resumed = sslHandler.engine().getSession().getCreationTime() < handshakeStartMillis;
+        channelPoolMetrics.onTlsHandshakeSuccess(partitionKey, resumed);
+        return resumed;
+    }
+
     public Bootstrap getBootstrap(Uri uri, ProxyServer proxy) {
         return uri.isWebSocket() && proxy == null ? wsBootstrap : httpBootstrap;
     }
 
     public void upgradePipelineForWebSockets(ChannelPipeline pipeline) {
+        upgradePipelineForWebSockets(pipeline, null, false);
+    }
+
+    /**
+     * @param pipeline the pipeline
+     * @param perMessageDeflate the negotiated compression, null if none
+     * @param streamBinaryFragments true to pass the frames of the binary messages as they arrive instead of aggregating them
+     */
+    public void upgradePipelineForWebSockets(ChannelPipeline pipeline, PerMessageDeflate perMessageDeflate, boolean streamBinaryFragments) {
+        int maxBufferSize = config.getWebSocketMaxBufferSize();
+        WebSocketFrameAggregator aggregator = streamBinaryFragments ? new BinaryStreamingFrameAggregator(maxBufferSize) : new WebSocketFrameAggregator(maxBufferSize);
+
         pipeline.addAfter(HTTP_CLIENT_CODEC, WS_ENCODER_HANDLER, new WebSocket08FrameEncoder(true));
-        pipeline.addBefore(AHC_WS_HANDLER, WS_DECODER_HANDLER, new WebSocket08FrameDecoder(false, false, config.getWebSocketMaxFrameSize()));
-        pipeline.addAfter(WS_DECODER_HANDLER, WS_FRAME_AGGREGATOR, new WebSocketFrameAggregator(config.getWebSocketMaxBufferSize()));
+        if (perMessageDeflate == null) {
+            pipeline.addBefore(AHC_WS_HANDLER, WS_DECODER_HANDLER, new WebSocket08FrameDecoder(false, false, config.getWebSocketMaxFrameSize()));
+            pipeline.addAfter(WS_DECODER_HANDLER, WS_FRAME_AGGREGATOR, aggregator);
+        } else {
+            pipeline.addAfter(WS_ENCODER_HANDLER, WS_DEFLATER_HANDLER, perMessageDeflate.newEncoder());
+            pipeline.addBefore(AHC_WS_HANDLER, WS_DECODER_HANDLER, new WebSocketExtensionFrameDecoder(config.getWebSocketMaxFrameSize(), PerMessageDeflate.RSV1));
+            pipeline.addAfter(WS_DECODER_HANDLER, WS_INFLATER_HANDLER, perMessageDeflate.newDecoder(maxBufferSize, streamBinaryFragments));
+            pipeline.addAfter(WS_INFLATER_HANDLER, WS_FRAME_AGGREGATOR, aggregator);
+        }
         pipeline.remove(HTTP_CLIENT_CODEC);
     }
 
@@ -488,7 +724,38 @@ public class ChannelManager {
         return channelPool;
     }
 
+    /**
+     * @param idleChannelsReplenisher a task to run periodically to top up the pool, ignored if the pool isn't a {@link DefaultChannelPool}
+     * @see DefaultChannelPool#setIdleChannelsReplenisher(Runnable)
+     */
+    public void setIdleChannelsReplenisher(Runnable idleChannelsReplenisher) {
+        if (channelPool instanceof DefaultChannelPool)
+            DefaultChannelPool.class.cast(channelPool).setIdleChannelsReplenisher(idleChannelsReplenisher);
+    }
+
+    public ChannelPoolMetrics getChannelPoolMetrics() {
+        return channelPoolMetrics;
+    }
+
     public EventLoopGroup getEventLoopGroup() {
         return eventLoopGroup;
     }
+
+    public Timer getNettyTimer() {
+        return nettyTimer;
+    }
+
+    /**
+     * @param eventLoop the event loop to resolve on, ideally the one the connection will be registered on
+     * @return the resolver for the requests that don't set their own
+     */
+    public NameResolver<InetAddress> getDefaultNameResolver(EventLoop eventLoop) {
+        return dnsNameResolverGroup != null ? dnsNameResolverGroup.get(eventLoop) : RequestBuilderBase.DEFAULT_NAME_RESOLVER;
+    }
+
+    private static final class PendingAcquireQueue {
+        private final ConcurrentLinkedQueue<PendingAcquire> waiters = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue::size is O(n)
+        private final AtomicInteger size = new AtomicInteger();
+    }
 }
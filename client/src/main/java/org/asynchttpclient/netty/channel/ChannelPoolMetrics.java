@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.asynchttpclient.channel.ChannelPoolListener;
+
+/**
+ * Connection pool metrics, both for the whole client and per partition.
+ *
+ * Recording doesn't allocate once a partition has been seen. Counters are cumulative since the client was created, rates are expected to be
+ * computed by sampling them, typically from a {@link ChannelPoolListener} bridge or a metrics library gauge. Events are forwarded to the listener
+ * configured with {@link org.asynchttpclient.AsyncHttpClientConfig#getChannelPoolListener()}, if any.
+ *
+ * The stats of a partition are dropped when the partition is flushed from the pool while none of its channels is open, or once it has had no
+ * open channel for {@link #DEFAULT_PARTITION_STATS_EXPIRY} milliseconds, so that clients talking to many hosts don't retain them forever. They start from zero
+ * again if the partition is used afterwards.
+ */
+public final class ChannelPoolMetrics implements ChannelPoolListener {
+
+    /**
+     * Number of buckets of the connect time histograms
+     */
+    public static final int CONNECT_TIME_HISTOGRAM_SIZE = 32;
+
+    /**
+     * How long, in milliseconds, the stats of a partition without any open channel are retained
+     */
+    public static final long DEFAULT_PARTITION_STATS_EXPIRY = 60000;
+
+    private final ChannelManager channelManager;
+    private final ChannelPoolListener listener;
+    private final Timer nettyTimer;
+    private final long partitionStatsExpiry;
+    private final Stats totalStats = new Stats();
+    private final ConcurrentHashMap<Object, Stats> partitionStats = new ConcurrentHashMap<>();
+
+    ChannelPoolMetrics(ChannelManager channelManager, ChannelPoolListener listener, Timer nettyTimer, long partitionStatsExpiry) {
+        this.channelManager = channelManager;
+        this.listener = listener;
+        this.nettyTimer = nettyTimer;
+        this.partitionStatsExpiry = partitionStatsExpiry;
+    }
+
+    public Stats getTotalStats() {
+        return totalStats;
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the stats of the partition, or null if no channel was opened for it since it was flushed or its stats expired
+     */
+    public Stats getPartitionStats(Object partitionKey) {
+        return partitionStats.get(partitionKey);
+    }
+
+    /**
+     * @return a live view of the partitions that have stats
+     */
+    public Set<Object> getPartitionKeys() {
+        return partitionStats.keySet();
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the number of idle channels in the partition, or -1 if the channel pool doesn't support it
+     */
+    public int getIdleChannelCount(Object partitionKey) {
+        return channelManager.getChannelPool().getIdleChannelCount(partitionKey);
+    }
+
+    /**
+     * @return the number of connections that can still be opened, or -1 if the total number of connections isn't limited
+     */
+    public int getAvailablePermits() {
+        return channelManager.getAvailablePermits();
+    }
+
+    /**
+     * @param partitionKey the partition
+     * @return the number of connections that can still be opened for the partition, or -1 if the number of connections per host isn't limited
+     */
+    public int getAvailablePermits(Object partitionKey) {
+        return channelManager.getAvailablePermits(partitionKey);
+    }
+
+    private Stats stats(Object partitionKey) {
+        Stats stats = partitionStats.get(partitionKey);
+        if (stats == null)
+            stats = partitionStats.computeIfAbsent(partitionKey, pk -> new Stats());
+        return stats;
+    }
+
+    private void scheduleExpiry(Object partitionKey, Stats stats) {
+        if (stats.getActiveCount() <= 0 && stats.expiryScheduled.compareAndSet(false, true)) {
+            long activity = stats.activity();
+            try {
+                nettyTimer.newTimeout(timeout -> expire(partitionKey, stats, activity), partitionStatsExpiry, TimeUnit.MILLISECONDS);
+            } catch (IllegalStateException e) {
+                // timer was stopped, client is being closed
+                stats.expiryScheduled.set(false);
+            }
+        }
+    }
+
+    private void expire(Object partitionKey, Stats stats, long activity) {
+        if (stats.getActiveCount() <= 0 && stats.activity() == activity) {
+            partitionStats.remove(partitionKey, stats);
+        } else {
+            stats.expiryScheduled.set(false);
+            // a channel might have been closed while the expiry was still pending
+            scheduleExpiry(partitionKey, stats);
+        }
+    }
+
+    @Override
+    public void onChannelConnected(Object partitionKey, long connectTimeNanos) {
+        totalStats.recordConnected(connectTimeNanos);
+        stats(partitionKey).recordConnected(connectTimeNanos);
+        if (listener != null)
+            listener.onChannelConnected(partitionKey, connectTimeNanos);
+    }
+
+    @Override
+    public void onChannelConnectFailed(Object partitionKey, long connectTimeNanos) {
+        totalStats.connectFailed.increment();
+        Stats stats = stats(partitionKey);
+        stats.connectFailed.increment();
+        scheduleExpiry(partitionKey, stats);
+        if (listener != null)
+            listener.onChannelConnectFailed(partitionKey, connectTimeNanos);
+    }
+
+    @Override
+    public void onTlsHandshakeSuccess(Object partitionKey, boolean resumed) {
+        totalStats.recordTlsHandshake(resumed);
+        stats(partitionKey).recordTlsHandshake(resumed);
+        if (listener != null)
+            listener.onTlsHandshakeSuccess(partitionKey, resumed);
+    }
+
+    @Override
+    public void onChannelClosed(Object partitionKey) {
+        totalStats.closed.increment();
+        Stats stats = stats(partitionKey);
+        stats.closed.increment();
+        scheduleExpiry(partitionKey, stats);
+        if (listener != null)
+            listener.onChannelClosed(partitionKey);
+    }
+
+    @Override
+    public void onChannelOffered(Object partitionKey) {
+        totalStats.offered.increment();
+        stats(partitionKey).offered.increment();
+        if (listener != null)
+            listener.onChannelOffered(partitionKey);
+    }
+
+    @Override
+    public void onChannelLeased(Object partitionKey) {
+        totalStats.leased.increment();
+        stats(partitionKey).leased.increment();
+        if (listener != null)
+            listener.onChannelLeased(partitionKey);
+    }
+
+    @Override
+    public void onChannelExpired(Object partitionKey, ExpirationReason reason) {
+        totalStats.expired[reason.ordinal()].increment();
+        stats(partitionKey).expired[reason.ordinal()].increment();
+        if (listener != null)
+            listener.onChannelExpired(partitionKey, reason);
+    }
+
+    @Override
+    public void onPartitionFlushed(Object partitionKey) {
+        Stats stats = partitionStats.get(partitionKey);
+        // leased channels would otherwise recreate the stats when they close, with a negative active count: those are left to the expiry
+        if (stats != null && stats.getActiveCount() <= 0)
+            partitionStats.remove(partitionKey, stats);
+        if (listener != null)
+            listener.onPartitionFlushed(partitionKey);
+    }
+
+    public static final class Stats {
+
+        private final LongAdder connected = new LongAdder();
+        private final LongAdder connectFailed = new LongAdder();
+        private final LongAdder fullTlsHandshakes = new LongAdder();
+        private final LongAdder resumedTlsHandshakes = new LongAdder();
+        private final LongAdder closed = new LongAdder();
+        private final LongAdder offered = new LongAdder();
+        private final LongAdder leased = new LongAdder();
+        private final LongAdder[] expired = new LongAdder[ExpirationReason.values().length];
+        private final AtomicLongArray connectTimeHistogram = new AtomicLongArray(CONNECT_TIME_HISTOGRAM_SIZE);
+        private final AtomicBoolean expiryScheduled = new AtomicBoolean();
+
+        private Stats() {
+            for (int i = 0; i < expired.length; i++)
+                expired[i] = new LongAdder();
+        }
+
+        private void recordConnected(long connectTimeNanos) {
+            connected.increment();
+            long micros = TimeUnit.NANOSECONDS.toMicros(connectTimeNanos);
+            int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), CONNECT_TIME_HISTOGRAM_SIZE - 1);
+            connectTimeHistogram.incrementAndGet(bucket);
+        }
+
+        private long activity() {
+            return connected.sum() + connectFailed.sum();
+        }
+
+        public long getConnectedCount() {
+            return connected.sum();
+        }
+
+        public long getConnectFailedCount() {
+            return connectFailed.sum();
+        }
+
+        private void recordTlsHandshake(boolean resumed) {
+            if (resumed)
+                resumedTlsHandshakes.increment();
+            else
+                fullTlsHandshakes.increment();
+        }
+
+        public long getFullTlsHandshakeCount() {
+            return fullTlsHandshakes.sum();
+        }
+
+        /**
+         * @return the number of TLS handshakes that resumed a cached session, to be compared with {@link #getFullTlsHandshakeCount()}
+         */
+        public long getResumedTlsHandshakeCount() {
+            return resumedTlsHandshakes.sum();
+        }
+
+        public long getClosedCount() {
+            return closed.sum();
+        }
+
+        /**
+         * @return the number of open channels, either idle in the pool or in use
+         */
+        public long getActiveCount() {
+            return connected.sum() - closed.sum();
+        }
+
+        public long getOfferedCount() {
+            return offered.sum();
+        }
+
+        public long getLeasedCount() {
+            return leased.sum();
+        }
+
+        public long getExpiredCount(ExpirationReason reason) {
+            return expired[reason.ordinal()].sum();
+        }
+
+        /**
+         * Bucket 0 counts the connections established in less than a microsecond, and bucket i &gt; 0 the ones established in [2^(i-1), 2^i)
+         * microseconds. The last bucket also counts all the slower ones.
+         *
+         * @param bucket the bucket index, between 0 and {@link ChannelPoolMetrics#CONNECT_TIME_HISTOGRAM_SIZE} excluded
+         * @return the number of connections in the bucket
+         */
+        public long getConnectTimeCount(int bucket) {
+            return connectTimeHistogram.get(bucket);
+        }
+    }
+}
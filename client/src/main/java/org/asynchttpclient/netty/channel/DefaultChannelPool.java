@@ -17,6 +17,8 @@ import static org.asynchttpclient.util.Assertions.assertNotNull;
 import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
+import io.netty.util.AttributeKey;
 import io.netty.util.Timeout;
 import io.netty.util.Timer;
 import io.netty.util.TimerTask;
@@ -24,23 +26,39 @@ import io.netty.util.TimerTask;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.channel.ChannelPoolListener;
+import org.asynchttpclient.channel.ChannelPoolListener.ExpirationReason;
 import org.asynchttpclient.channel.ChannelPoolPartitionSelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A simple implementation of {@link ChannelPool} based on a {@link java.util.concurrent.ConcurrentHashMap}
+ *
+ * Channels are offered at the head of their partition, so each partition is ordered from the most to the least recently offered channel. Partitions
+ * holding idle channels are registered in a timing wheel keyed on the deadline of their tail, so that the cleaner only visits the partitions that are
+ * due and only walks the channels that actually expire, instead of every pooled channel on every run.
+ *
+ * When event loop affinity is enabled, each partition is split per event loop and {@link #poll(Object)} first looks for a channel bound to the
+ * caller's event loop, so that the request is written without hopping threads, before stealing one from another event loop.
  */
 public final class DefaultChannelPool implements ChannelPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultChannelPool.class);
+    private static final AttributeKey<IdleChannel> IDLE_CHANNEL_ATTRIBUTE = AttributeKey.valueOf("idleChannel");
+    private static final int MAX_WHEEL_SIZE = 1024;
+    private static final ChannelPoolListener NOOP_LISTENER = new ChannelPoolListener() {
+    };
 
-    private final ConcurrentHashMap<Object, ConcurrentLinkedDeque<IdleChannel>> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<ChannelId, ChannelCreation> channelId2Creation;
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
     private final Timer nettyTimer;
@@ -50,12 +68,24 @@ public final class DefaultChannelPool implements ChannelPool {
     private final boolean maxIdleTimeEnabled;
     private final long cleanerPeriod;
     private final PoolLeaseStrategy poolLeaseStrategy;
+    private final boolean eventLoopAffinity;
+    private final ChannelPoolListener listener;
+    private final IdleChannelDetector idleChannelDetector;
+    private volatile Runnable idleChannelsReplenisher;
+    private final AtomicBoolean replenisherScheduled = new AtomicBoolean();
 
     public DefaultChannelPool(AsyncHttpClientConfig config, Timer hashedWheelTimer) {
+        this(config, hashedWheelTimer, config.getChannelPoolListener());
+    }
+
+    public DefaultChannelPool(AsyncHttpClientConfig config, Timer hashedWheelTimer, ChannelPoolListener listener) {
         this(config.getPooledConnectionIdleTimeout(),//
                 config.getConnectionTtl(),//
+                PoolLeaseStrategy.LIFO,//
+                config.isUseEventLoopAffinePool(),//
                 hashedWheelTimer,//
-                config.getConnectionPoolCleanerPeriod());
+                config.getConnectionPoolCleanerPeriod(),//
+                listener);
     }
 
     private ChannelId channelId(Channel channel) {
@@ -78,6 +108,22 @@ public final class DefaultChannelPool implements ChannelPool {
             PoolLeaseStrategy poolLeaseStrategy,//
             Timer nettyTimer,//
             int cleanerPeriod) {
+        this(maxIdleTime,//
+                connectionTtl,//
+                poolLeaseStrategy,//
+                false,//
+                nettyTimer,//
+                cleanerPeriod,//
+                null);
+    }
+
+    public DefaultChannelPool(int maxIdleTime,//
+            int connectionTtl,//
+            PoolLeaseStrategy poolLeaseStrategy,//
+            boolean eventLoopAffinity,//
+            Timer nettyTimer,//
+            int cleanerPeriod,//
+            ChannelPoolListener listener) {
         this.maxIdleTime = maxIdleTime;
         this.connectionTtl = connectionTtl;
         connectionTtlEnabled = connectionTtl > 0;
@@ -85,11 +131,41 @@ public final class DefaultChannelPool implements ChannelPool {
         this.nettyTimer = nettyTimer;
         maxIdleTimeEnabled = maxIdleTime > 0;
         this.poolLeaseStrategy = poolLeaseStrategy;
+        this.eventLoopAffinity = eventLoopAffinity;
+        this.listener = listener != null ? listener : NOOP_LISTENER;
 
         this.cleanerPeriod = Math.min(cleanerPeriod, Math.min(connectionTtlEnabled ? connectionTtl : Integer.MAX_VALUE, maxIdleTimeEnabled ? maxIdleTime : Integer.MAX_VALUE));
 
-        if (connectionTtlEnabled || maxIdleTimeEnabled)
-            scheduleNewIdleChannelDetector(new IdleChannelDetector());
+        if (connectionTtlEnabled || maxIdleTimeEnabled) {
+            idleChannelDetector = new IdleChannelDetector(maxIdleTimeEnabled ? maxIdleTime : connectionTtl);
+            scheduleNewIdleChannelDetector(idleChannelDetector);
+        } else {
+            idleChannelDetector = null;
+        }
+    }
+
+    /**
+     * Set a task that the idle channel detector runs after each pass, typically to open connections so that partitions don't drain. If neither
+     * the pooled connection idle timeout nor the connection TTL are enabled, there's no detector and the task is scheduled on its own, every
+     * cleaner period.
+     *
+     * @param idleChannelsReplenisher the task, that mustn't block
+     */
+    public void setIdleChannelsReplenisher(Runnable idleChannelsReplenisher) {
+        this.idleChannelsReplenisher = idleChannelsReplenisher;
+        if (idleChannelDetector == null && idleChannelsReplenisher != null && replenisherScheduled.compareAndSet(false, true))
+            scheduleNewIdleChannelDetector(new IdleChannelsReplenisher());
+    }
+
+    private void replenishIdleChannels() {
+        Runnable replenisher = idleChannelsReplenisher;
+        if (replenisher != null) {
+            try {
+                replenisher.run();
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to replenish idle channels", t);
+            }
+        }
     }
 
     private void scheduleNewIdleChannelDetector(TimerTask task) {
@@ -106,29 +182,80 @@ public final class DefaultChannelPool implements ChannelPool {
         }
     }
 
+    private static final class Partition {
+        private static final SubPartition[] EMPTY = new SubPartition[0];
+
+        private final Object partitionKey;
+
+        // copy on write, a partition only gets a new sub partition the first time one of its channels is offered from a new event loop
+        private volatile SubPartition[] subPartitions = EMPTY;
+
+        Partition(Object partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+
+        SubPartition subPartition(EventLoop eventLoop) {
+            for (SubPartition subPartition : subPartitions)
+                if (subPartition.eventLoop == eventLoop)
+                    return subPartition;
+
+            synchronized (this) {
+                SubPartition[] current = subPartitions;
+                for (SubPartition subPartition : current)
+                    if (subPartition.eventLoop == eventLoop)
+                        return subPartition;
+
+                SubPartition subPartition = new SubPartition(partitionKey, eventLoop);
+                SubPartition[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = subPartition;
+                subPartitions = updated;
+                return subPartition;
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (SubPartition subPartition : subPartitions)
+                size += subPartition.channels.size();
+            return size;
+        }
+    }
+
+    /**
+     * The idle channels of a partition bound to a given event loop, or all of them when event loop affinity is disabled.
+     */
+    private static final class SubPartition {
+        final Object partitionKey;
+        final EventLoop eventLoop;
+        final ConcurrentLinkedDeque<IdleChannel> channels = new ConcurrentLinkedDeque<>();
+        // true while the sub partition is registered in the wheel, so it's registered at most once
+        final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        SubPartition(Object partitionKey, EventLoop eventLoop) {
+            this.partitionKey = partitionKey;
+            this.eventLoop = eventLoop;
+        }
+    }
+
+    // identity based equality on purpose, the same channel can be offered again while a stale entry is still being unlinked
     private static final class IdleChannel {
         final Channel channel;
-        final long start;
+        final SubPartition partition;
+        final long deadline;
         final AtomicBoolean owned = new AtomicBoolean(false);
 
-        IdleChannel(Channel channel, long start) {
+        IdleChannel(Channel channel, SubPartition partition, long deadline) {
             this.channel = assertNotNull(channel, "channel");
-            this.start = start;
+            this.partition = partition;
+            this.deadline = deadline;
         }
 
         public boolean takeOwnership() {
             return owned.compareAndSet(false, true);
         }
 
-        @Override
-        // only depends on channel
-        public boolean equals(Object o) {
-            return this == o || (o instanceof IdleChannel && channel.equals(IdleChannel.class.cast(o).channel));
-        }
-
-        @Override
-        public int hashCode() {
-            return channel.hashCode();
+        public boolean isOwned() {
+            return owned.get();
         }
     }
 
@@ -144,52 +271,85 @@ public final class DefaultChannelPool implements ChannelPool {
         return !channel.isActive();
     }
 
+    private long deadline(Channel channel, long now) {
+        long deadline = maxIdleTimeEnabled ? now + maxIdleTime : Long.MAX_VALUE;
+        if (connectionTtlEnabled) {
+            ChannelCreation creation = channelId2Creation.get(channelId(channel));
+            if (creation != null)
+                deadline = Math.min(deadline, creation.creationTime + connectionTtl);
+        }
+        return deadline;
+    }
+
+    /**
+     * A timing wheel whose buckets each span one cleaner period. A (sub) partition is registered in the bucket of its tail's deadline, or in the
+     * farthest one when that deadline is beyond the wheel's horizon, in which case it's simply rescheduled when visited too early.
+     *
+     * Channels whose TTL deadline comes before the one of the partition's tail are only closed when they reach the tail, but they're never leased
+     * as {@link DefaultChannelPool#poll(Object)} checks the TTL.
+     */
     private final class IdleChannelDetector implements TimerTask {
 
-        private boolean isIdleTimeoutExpired(IdleChannel idleChannel, long now) {
-            return maxIdleTimeEnabled && now - idleChannel.start >= maxIdleTime;
+        private final AtomicReferenceArray<ConcurrentLinkedQueue<SubPartition>> buckets;
+        private final int mask;
+        // last tick whose bucket was visited, a tick being a cleaner period since the epoch
+        private volatile long lastTick;
+
+        IdleChannelDetector(int horizon) {
+            int ticks = (int) Math.min(MAX_WHEEL_SIZE, horizon / cleanerPeriod + 1);
+            int size = 1;
+            while (size < ticks)
+                size <<= 1;
+
+            buckets = new AtomicReferenceArray<>(size);
+            for (int i = 0; i < size; i++)
+                buckets.set(i, new ConcurrentLinkedQueue<>());
+            mask = size - 1;
+            lastTick = unpreciseMillisTime() / cleanerPeriod;
         }
 
-        private List<IdleChannel> expiredChannels(ConcurrentLinkedDeque<IdleChannel> partition, long now) {
-            // lazy create
-            List<IdleChannel> idleTimeoutChannels = null;
-            for (IdleChannel idleChannel : partition) {
-                if (isIdleTimeoutExpired(idleChannel, now) || isRemotelyClosed(idleChannel.channel) || isTtlExpired(idleChannel.channel, now)) {
-                    LOGGER.debug("Adding Candidate expired Channel {}", idleChannel.channel);
-                    if (idleTimeoutChannels == null)
-                        idleTimeoutChannels = new ArrayList<>(1);
-                    idleTimeoutChannels.add(idleChannel);
-                }
-            }
+        void scheduleIfNeeded(SubPartition partition) {
+            IdleChannel tail = partition.channels.peekLast();
+            if (tail != null && partition.scheduled.compareAndSet(false, true))
+                schedule(partition, tail.deadline);
+        }
 
-            return idleTimeoutChannels != null ? idleTimeoutChannels : Collections.<IdleChannel> emptyList();
+        private void schedule(SubPartition partition, long deadline) {
+            long lastTick = this.lastTick;
+            // ceil so that partitions are never visited before their deadline
+            long tick = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : (deadline + cleanerPeriod - 1) / cleanerPeriod;
+            tick = Math.min(Math.max(tick, lastTick + 1), lastTick + buckets.length());
+            // if the cleaner visits this bucket concurrently, the partition will only be expired on the next revolution
+            buckets.get((int) (tick & mask)).offer(partition);
         }
 
-        private List<IdleChannel> closeChannels(List<IdleChannel> candidates) {
-
-            // lazy create, only if we hit a non-closeable channel
-            List<IdleChannel> closedChannels = null;
-            for (int i = 0; i < candidates.size(); i++) {
-                // We call takeOwnership here to avoid closing a channel that has just been taken out
-                // of the pool, otherwise we risk closing an active connection.
-                IdleChannel idleChannel = candidates.get(i);
-                if (idleChannel.takeOwnership()) {
-                    LOGGER.debug("Closing Idle Channel {}", idleChannel.channel);
-                    close(idleChannel.channel);
-                    if (closedChannels != null) {
-                        closedChannels.add(idleChannel);
+        private int expire(SubPartition partition, long now) {
+            int closedCount = 0;
+            IdleChannel tail;
+            while ((tail = partition.channels.peekLast()) != null) {
+                // owned entries were polled or removed and are about to be unlinked
+                if (!tail.isOwned()) {
+                    if (now < tail.deadline && !isRemotelyClosed(tail.channel))
+                        break;
+
+                    // We call takeOwnership here to avoid closing a channel that has just been taken out
+                    // of the pool, otherwise we risk closing an active connection.
+                    if (tail.takeOwnership()) {
+                        LOGGER.debug("Closing Idle Channel {}", tail.channel);
+                        ExpirationReason reason = isRemotelyClosed(tail.channel) ? ExpirationReason.REMOTELY_CLOSED
+                                : isTtlExpired(tail.channel, now) ? ExpirationReason.TTL : ExpirationReason.IDLE;
+                        close(tail.channel);
+                        listener.onChannelExpired(partition.partitionKey, reason);
+                        closedCount++;
                     }
-
-                } else if (closedChannels == null) {
-                    // first non closeable to be skipped, copy all
-                    // previously skipped closeable channels
-                    closedChannels = new ArrayList<>(candidates.size());
-                    for (int j = 0; j < i; j++)
-                        closedChannels.add(candidates.get(j));
                 }
+                partition.channels.removeLastOccurrence(tail);
             }
 
-            return closedChannels != null ? closedChannels : candidates;
+            partition.scheduled.set(false);
+            // offers racing with the above might have seen the partition as still scheduled
+            scheduleIfNeeded(partition);
+            return closedCount;
         }
 
         public void run(Timeout timeout) throws Exception {
@@ -203,34 +363,42 @@ public final class DefaultChannelPool implements ChannelPool {
                 }
 
             long start = unpreciseMillisTime();
+            long currentTick = start / cleanerPeriod;
             int closedCount = 0;
-            int totalCount = 0;
-
-            for (ConcurrentLinkedDeque<IdleChannel> partition : partitions.values()) {
-
-                // store in intermediate unsynchronized lists to minimize
-                // the impact on the ConcurrentLinkedDeque
-                if (LOGGER.isDebugEnabled())
-                    totalCount += partition.size();
-
-                List<IdleChannel> closedChannels = closeChannels(expiredChannels(partition, start));
-
-                if (!closedChannels.isEmpty()) {
-                    if (connectionTtlEnabled) {
-                        for (IdleChannel closedChannel : closedChannels)
-                            channelId2Creation.remove(channelId(closedChannel.channel));
-                    }
 
-                    partition.removeAll(closedChannels);
-                    closedCount += closedChannels.size();
-                }
+            // never visit a bucket twice, even if the timer lagged more than a revolution
+            long ticks = Math.min(currentTick - lastTick, buckets.length());
+            for (long i = 0; i < ticks; i++) {
+                long tick = lastTick + 1;
+                // move on before draining so that concurrent offers and reschedules land in later buckets
+                lastTick = tick;
+                ConcurrentLinkedQueue<SubPartition> bucket = buckets.getAndSet((int) (tick & mask), new ConcurrentLinkedQueue<>());
+                for (SubPartition partition : bucket)
+                    closedCount += expire(partition, start);
             }
+            if (lastTick < currentTick)
+                lastTick = currentTick;
 
             if (LOGGER.isDebugEnabled()) {
                 long duration = unpreciseMillisTime() - start;
-                LOGGER.debug("Closed {} connections out of {} in {} ms", closedCount, totalCount, duration);
+                LOGGER.debug("Closed {} connections in {} ms", closedCount, duration);
             }
 
+            replenishIdleChannels();
+            scheduleNewIdleChannelDetector(timeout.task());
+        }
+    }
+
+    /**
+     * Runs the replenisher when there's no idle channel detector to do it.
+     */
+    private final class IdleChannelsReplenisher implements TimerTask {
+
+        public void run(Timeout timeout) throws Exception {
+            if (isClosed.get())
+                return;
+
+            replenishIdleChannels();
             scheduleNewIdleChannelDetector(timeout.task());
         }
     }
@@ -247,20 +415,24 @@ public final class DefaultChannelPool implements ChannelPool {
         if (isTtlExpired(channel, now))
             return false;
 
-        boolean offered = offer0(channel, partitionKey, now);
-        if (connectionTtlEnabled && offered) {
+        if (connectionTtlEnabled)
             registerChannelCreation(channel, partitionKey, now);
-        }
 
-        return offered;
+        return offer0(channel, partitionKey, now);
     }
 
     private boolean offer0(Channel channel, Object partitionKey, long now) {
-        ConcurrentLinkedDeque<IdleChannel> partition = partitions.get(partitionKey);
+        Partition partition = partitions.get(partitionKey);
         if (partition == null) {
-            partition = partitions.computeIfAbsent(partitionKey, pk -> new ConcurrentLinkedDeque<>());
+            partition = partitions.computeIfAbsent(partitionKey, Partition::new);
         }
-        return partition.offerFirst(new IdleChannel(channel, now));
+        SubPartition subPartition = partition.subPartition(eventLoopAffinity ? channel.eventLoop() : null);
+        IdleChannel idleChannel = new IdleChannel(channel, subPartition, deadline(channel, now));
+        channel.attr(IDLE_CHANNEL_ATTRIBUTE).set(idleChannel);
+        subPartition.channels.offerFirst(idleChannel);
+        if (idleChannelDetector != null && !subPartition.scheduled.get())
+            idleChannelDetector.scheduleIfNeeded(subPartition);
+        return true;
     }
 
     private void registerChannelCreation(Channel channel, Object partitionKey, long now) {
@@ -275,22 +447,57 @@ public final class DefaultChannelPool implements ChannelPool {
      */
     public Channel poll(Object partitionKey) {
 
+        Partition partition = partitions.get(partitionKey);
+        if (partition == null)
+            return null;
+
+        SubPartition[] subPartitions = partition.subPartitions;
+        if (!eventLoopAffinity || subPartitions.length == 1)
+            return subPartitions.length == 0 ? null : poll(subPartitions[0]);
+
+        SubPartition local = null;
+        for (SubPartition subPartition : subPartitions) {
+            if (subPartition.eventLoop.inEventLoop()) {
+                local = subPartition;
+                break;
+            }
+        }
+
+        Channel channel = local != null ? poll(local) : null;
+        if (channel == null) {
+            // steal, starting from a random event loop so that the first ones don't get drained
+            int start = ThreadLocalRandom.current().nextInt(subPartitions.length);
+            for (int i = 0; i < subPartitions.length && channel == null; i++) {
+                SubPartition subPartition = subPartitions[(start + i) % subPartitions.length];
+                if (subPartition != local)
+                    channel = poll(subPartition);
+            }
+        }
+        return channel;
+    }
+
+    private Channel poll(SubPartition partition) {
+
         IdleChannel idleChannel = null;
-        ConcurrentLinkedDeque<IdleChannel> partition = partitions.get(partitionKey);
-        if (partition != null) {
-            while (idleChannel == null) {
-                idleChannel = poolLeaseStrategy.lease(partition);
-
-                if (idleChannel == null)
-                    // pool is empty
-                    break;
-                else if (isRemotelyClosed(idleChannel.channel)) {
-                    idleChannel = null;
-                    LOGGER.trace("Channel not connected or not opened, probably remotely closed!");
-                } else if (!idleChannel.takeOwnership()) {
-                    idleChannel = null;
-                    LOGGER.trace("Couldn't take ownership of channel, probably in the process of being expired!");
-                }
+        while (idleChannel == null) {
+            idleChannel = poolLeaseStrategy.lease(partition.channels);
+
+            if (idleChannel == null)
+                // pool is empty
+                break;
+            else if (isRemotelyClosed(idleChannel.channel)) {
+                if (idleChannel.takeOwnership())
+                    listener.onChannelExpired(partition.partitionKey, ExpirationReason.REMOTELY_CLOSED);
+                idleChannel = null;
+                LOGGER.trace("Channel not connected or not opened, probably remotely closed!");
+            } else if (!idleChannel.takeOwnership()) {
+                idleChannel = null;
+                LOGGER.trace("Couldn't take ownership of channel, probably in the process of being expired!");
+            } else if (connectionTtlEnabled && isTtlExpired(idleChannel.channel, unpreciseMillisTime())) {
+                LOGGER.debug("Closing Channel {} that reached its TTL", idleChannel.channel);
+                close(idleChannel.channel);
+                listener.onChannelExpired(partition.partitionKey, ExpirationReason.TTL);
+                idleChannel = null;
             }
         }
         return idleChannel != null ? idleChannel.channel : null;
@@ -300,8 +507,18 @@ public final class DefaultChannelPool implements ChannelPool {
      * {@inheritDoc}
      */
     public boolean removeAll(Channel channel) {
-        ChannelCreation creation = connectionTtlEnabled ? channelId2Creation.remove(channelId(channel)) : null;
-        return !isClosed.get() && creation != null && partitions.get(creation.partitionKey).remove(channel);
+        if (connectionTtlEnabled)
+            channelId2Creation.remove(channelId(channel));
+
+        IdleChannel idleChannel = channel.attr(IDLE_CHANNEL_ATTRIBUTE).getAndSet(null);
+        if (isClosed.get() || idleChannel == null || !idleChannel.takeOwnership())
+            return false;
+
+        // oldest channels, the ones that usually get closed by the remote peer, sit at the tail
+        idleChannel.partition.channels.removeLastOccurrence(idleChannel);
+        if (isRemotelyClosed(channel))
+            listener.onChannelExpired(idleChannel.partition.partitionKey, ExpirationReason.REMOTELY_CLOSED);
+        return true;
     }
 
     /**
@@ -333,11 +550,16 @@ public final class DefaultChannelPool implements ChannelPool {
         Channels.silentlyCloseChannel(channel);
     }
 
-    private void flushPartition(Object partitionKey, ConcurrentLinkedDeque<IdleChannel> partition) {
+    private void flushPartition(Object partitionKey, Partition partition) {
         if (partition != null) {
             partitions.remove(partitionKey);
-            for (IdleChannel idleChannel : partition)
-                close(idleChannel.channel);
+            for (SubPartition subPartition : partition.subPartitions) {
+                IdleChannel idleChannel;
+                while ((idleChannel = subPartition.channels.pollFirst()) != null)
+                    if (idleChannel.takeOwnership())
+                        close(idleChannel.channel);
+            }
+            listener.onPartitionFlushed(partitionKey);
         }
     }
 
@@ -349,13 +571,19 @@ public final class DefaultChannelPool implements ChannelPool {
     @Override
     public void flushPartitions(ChannelPoolPartitionSelector selector) {
 
-        for (Map.Entry<Object, ConcurrentLinkedDeque<IdleChannel>> partitionsEntry : partitions.entrySet()) {
+        for (Map.Entry<Object, Partition> partitionsEntry : partitions.entrySet()) {
             Object partitionKey = partitionsEntry.getKey();
             if (selector.select(partitionKey))
                 flushPartition(partitionKey, partitionsEntry.getValue());
         }
     }
 
+    @Override
+    public int getIdleChannelCount(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.size() : 0;
+    }
+
     public enum PoolLeaseStrategy {
         LIFO {
             public <E> E lease(Deque<E> d) {
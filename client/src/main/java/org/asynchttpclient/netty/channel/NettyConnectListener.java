@@ -27,8 +27,8 @@ import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.SimpleFutureListener;
 import org.asynchttpclient.netty.future.StackTraceInspector;
+import org.asynchttpclient.netty.request.NettyChannelConnector;
 import org.asynchttpclient.netty.request.NettyRequestSender;
-import org.asynchttpclient.netty.timeout.TimeoutsHolder;
 import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +36,7 @@ import org.slf4j.LoggerFactory;
 /**
  * Non Blocking connect.
  */
-public final class NettyConnectListener<T> {
+public final class NettyConnectListener<T> implements NettyChannelConnector.ConnectListener {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(NettyConnectListener.class);
 
@@ -45,6 +45,8 @@ public final class NettyConnectListener<T> {
     private final ChannelManager channelManager;
     private final boolean channelPreempted;
     private final Object partitionKey;
+    private final long connectStartNanos;
+    private volatile boolean connected;
 
     public NettyConnectListener(NettyResponseFuture<T> future,//
             NettyRequestSender requestSender,//
@@ -56,6 +58,7 @@ public final class NettyConnectListener<T> {
         this.channelManager = channelManager;
         this.channelPreempted = channelPreempted;
         this.partitionKey = partitionKey;
+        connectStartNanos = System.nanoTime();
     }
 
     public void abortChannelPreemption(Channel channel) {
@@ -93,9 +96,11 @@ public final class NettyConnectListener<T> {
         requestSender.writeRequest(future, channel);
     }
 
+    @Override
     public void onSuccess(Channel channel, InetSocketAddress remoteAddress) {
 
-        TimeoutsHolder timeoutsHolder = future.getTimeoutsHolder();
+        connected = true;
+        channelManager.onChannelConnected(channel, partitionKey, System.nanoTime() - connectStartNanos);
 
         if (futureIsAlreadyCancelled(channel)) {
             return;
@@ -104,10 +109,11 @@ public final class NettyConnectListener<T> {
         Request request = future.getTargetRequest();
         Uri uri = request.getUri();
 
-        timeoutsHolder.initRemoteAddress(remoteAddress);
+        future.setRemoteAddress(remoteAddress);
 
         // in case of proxy tunneling, we'll add the SslHandler later, after the CONNECT request
         if (future.getProxyServer() == null && uri.isSecured()) {
+            long handshakeStartMillis = System.currentTimeMillis();
             SslHandler sslHandler = channelManager.addSslHandler(channel.pipeline(), uri, request.getVirtualHost());
 
             final AsyncHandlerExtensions asyncHandlerExtensions = toAsyncHandlerExtensions(future.getAsyncHandler());
@@ -119,8 +125,9 @@ public final class NettyConnectListener<T> {
 
                 @Override
                 protected void onSuccess(Channel value) throws Exception {
+                    boolean resumed = channelManager.onTlsHandshakeSuccess(sslHandler, partitionKey, handshakeStartMillis);
                     if (asyncHandlerExtensions != null)
-                        asyncHandlerExtensions.onTlsHandshakeSuccess();
+                        asyncHandlerExtensions.onTlsHandshakeSuccess(sslHandler.engine().getSession(), resumed);
                     writeRequest(channel);
                 }
 
@@ -137,19 +144,31 @@ public final class NettyConnectListener<T> {
         }
     }
 
+    @Override
     public void onFailure(Channel channel, Throwable cause) {
 
         // beware, channel can be null
         abortChannelPreemption(channel);
 
-        boolean canRetry = future.incrementRetryAndCheck();
-        LOGGER.debug("Trying to recover from failing to connect channel {} with a retry value of {} ", channel, canRetry);
-        if (canRetry//
-                && cause != null // FIXME when can we have a null cause?
-                && (future.getChannelState() != ChannelState.NEW || StackTraceInspector.recoverOnNettyDisconnectException(cause))) {
+        // also invoked when the TLS handshake fails
+        if (!connected)
+            channelManager.getChannelPoolMetrics().onChannelConnectFailed(partitionKey, System.nanoTime() - connectStartNanos);
 
-            if (requestSender.retry(future)) {
+        if (requestSender.hasRetryPolicy()) {
+            // the policy decides which connect failures are worth retrying
+            if (cause != null && requestSender.retry(future, cause))
                 return;
+
+        } else {
+            boolean canRetry = future.incrementRetryAndCheck();
+            LOGGER.debug("Trying to recover from failing to connect channel {} with a retry value of {} ", channel, canRetry);
+            if (canRetry//
+                    && cause != null // FIXME when can we have a null cause?
+                    && (future.getChannelState() != ChannelState.NEW || StackTraceInspector.recoverOnNettyDisconnectException(cause))) {
+
+                if (requestSender.retry(future)) {
+                    return;
+                }
             }
         }
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.channel.Channel;
+import io.netty.util.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.asynchttpclient.netty.NettyResponseFuture;
+
+/**
+ * A request waiting for a connection because its partition reached the connection limits.
+ *
+ * It's completed exactly once: with a channel handed over when another request releases it, with connection permits freed by a closed channel, or aborted.
+ */
+public abstract class PendingAcquire {
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final Object partitionKey;
+    private final NettyResponseFuture<?> future;
+    private final IOException cause;
+    private volatile Timeout timeout;
+
+    /**
+     * @param partitionKey the partition the request is waiting on
+     * @param future the waiting request
+     * @param cause the exception to abort with if no connection becomes available in time
+     */
+    public PendingAcquire(Object partitionKey, NettyResponseFuture<?> future, IOException cause) {
+        this.partitionKey = partitionKey;
+        this.future = future;
+        this.cause = cause;
+    }
+
+    public Object getPartitionKey() {
+        return partitionKey;
+    }
+
+    public NettyResponseFuture<?> getFuture() {
+        return future;
+    }
+
+    public IOException getCause() {
+        return cause;
+    }
+
+    void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return true if the caller won the right to complete this pending acquire
+     */
+    boolean claim() {
+        if (claimed.getAndSet(true))
+            return false;
+
+        Timeout t = timeout;
+        if (t != null)
+            t.cancel();
+        return true;
+    }
+
+    /**
+     * Invoked on the channel's event loop with an open channel of the same partition, that's not pooled and ready for the next request.
+     *
+     * @param channel the channel handed over
+     */
+    protected abstract void onChannel(Channel channel);
+
+    /**
+     * Invoked once connection permits were acquired on behalf of this request, meaning a new channel can be opened.
+     */
+    protected abstract void onPermitsAcquired();
+
+    /**
+     * Invoked when no connection became available in time, or when the client is closed.
+     *
+     * @param t the cause
+     */
+    protected abstract void abort(Throwable t);
+}
@@ -123,6 +123,8 @@ public final class HttpHandler extends AsyncHttpClientHandler {
         logger.debug("\n\nRequest {}\n\nResponse {}\n", httpRequest, response);
 
         future.setKeepAlive(config.getKeepAliveStrategy().keepAlive(future.getTargetRequest(), httpRequest, response));
+        if (response.getStatus().code() >= 200)
+            future.onResponseStatus(response.getStatus().code());
 
         NettyResponseStatus status = new NettyResponseStatus(future.getUri(), config, response, channel);
         HttpResponseHeaders responseHeaders = new HttpResponseHeaders(response.headers());
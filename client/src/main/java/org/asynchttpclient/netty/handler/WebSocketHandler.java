@@ -17,11 +17,13 @@ import static io.netty.handler.codec.http.HttpResponseStatus.SWITCHING_PROTOCOLS
 import static org.asynchttpclient.ws.WebSocketUtils.getAcceptKey;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
@@ -41,6 +43,8 @@ import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.netty.ws.NettyWebSocket;
+import org.asynchttpclient.netty.ws.PerMessageDeflate;
+import org.asynchttpclient.ws.WebSocket;
 import org.asynchttpclient.ws.WebSocketUpgradeHandler;
 
 @Sharable
@@ -75,7 +79,10 @@ public final class WebSocketHandler extends AsyncHttpClientHandler {
         private void invokeOnSucces(Channel channel, WebSocketUpgradeHandler h) {
             if (!h.touchSuccess()) {
                 try {
-                    h.onSuccess(new NettyWebSocket(channel, responseHeaders.getHeaders()));
+                    NettyWebSocket webSocket = new NettyWebSocket(channel, responseHeaders.getHeaders(), h.isCoalesceWrites(), h.getFlushThreshold());
+                    if (h.getPingInterval() > 0)
+                        webSocket.startKeepAlive(channelManager.getNettyTimer(), h.getPingInterval(), h.getPongTimeout());
+                    h.onSuccess(webSocket);
                 } catch (Exception ex) {
                     logger.warn("onSuccess unexpected exception", ex);
                 }
@@ -114,18 +121,38 @@ public final class WebSocketHandler extends AsyncHttpClientHandler {
                 requestSender.abort(channel, future, new IOException(String.format("Invalid challenge. Actual: %s. Expected: %s", accept, key)));
             }
 
+            PerMessageDeflate perMessageDeflate;
+            try {
+                perMessageDeflate = PerMessageDeflate.accept(handler, response.headers().get(PerMessageDeflate.SEC_WEBSOCKET_EXTENSIONS));
+            } catch (IOException e) {
+                requestSender.abort(channel, future, e);
+                return;
+            }
+
             // set back the future so the protocol gets notified of frames
             // removing the HttpClientCodec from the pipeline might trigger a read with a WebSocket message
             // if it comes in the same frame as the HTTP Upgrade response
             Channels.setAttribute(channel, future);
 
-            channelManager.upgradePipelineForWebSockets(channel.pipeline());
+            channelManager.upgradePipelineForWebSockets(channel.pipeline(), perMessageDeflate, handler.isStreamBinaryFragments());
 
             invokeOnSucces(channel, handler);
             future.done();
         }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        Object attribute = Channels.getAttribute(ctx.channel());
+        if (attribute instanceof NettyResponseFuture) {
+            // null until the upgrade succeeded
+            WebSocket webSocket = WebSocketUpgradeHandler.class.cast(NettyResponseFuture.class.cast(attribute).getAsyncHandler()).getWebSocket();
+            if (webSocket instanceof NettyWebSocket)
+                NettyWebSocket.class.cast(webSocket).onWritabilityChanged();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void handleRead(Channel channel, NettyResponseFuture<?> future, Object e) throws Exception {
 
@@ -176,12 +203,17 @@ public final class WebSocketHandler extends AsyncHttpClientHandler {
     }
 
     private void handleFrame(Channel channel, WebSocketFrame frame, WebSocketUpgradeHandler handler, NettyWebSocket webSocket) throws Exception {
+        webSocket.touch();
         if (frame instanceof TextWebSocketFrame) {
             webSocket.onTextFrame((TextWebSocketFrame) frame);
 
         } else if (frame instanceof BinaryWebSocketFrame) {
             webSocket.onBinaryFrame((BinaryWebSocketFrame) frame);
 
+        } else if (frame instanceof ContinuationWebSocketFrame) {
+            // only binary messages are streamed, text ones are aggregated
+            webSocket.onBinaryFragment(frame.content(), frame.isFinalFragment());
+
         } else if (frame instanceof CloseWebSocketFrame) {
             Channels.setDiscard(channel);
             CloseWebSocketFrame closeFrame = (CloseWebSocketFrame) frame;
@@ -29,6 +29,7 @@ import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.retry.RetryPolicy;
 
 public class Interceptors {
 
@@ -39,6 +40,7 @@ public class Interceptors {
     private final Redirect30xInterceptor redirect30xInterceptor;
     private final ConnectSuccessInterceptor connectSuccessInterceptor;
     private final ResponseFiltersInterceptor responseFiltersInterceptor;
+    private final RetryInterceptor retryInterceptor;
     private final boolean hasResponseFilters;
 
     public Interceptors(//
@@ -52,6 +54,8 @@ public class Interceptors {
         redirect30xInterceptor = new Redirect30xInterceptor(channelManager, config, requestSender);
         connectSuccessInterceptor = new ConnectSuccessInterceptor(channelManager, requestSender);
         responseFiltersInterceptor = new ResponseFiltersInterceptor(config, requestSender);
+        RetryPolicy retryPolicy = config.getRetryPolicy();
+        retryInterceptor = retryPolicy != null ? new RetryInterceptor(retryPolicy, channelManager, requestSender) : null;
         hasResponseFilters = !config.getResponseFilters().isEmpty();
     }
 
@@ -73,6 +77,12 @@ public class Interceptors {
             return true;
         }
 
+        // a failed CONNECT can't be replayed as is: retrying would send the current request without establishing the tunnel first
+        if (retryInterceptor != null && statusCode != CONTINUE_100 && httpRequest.getMethod() != HttpMethod.CONNECT
+                && retryInterceptor.exitAfterHandlingRetry(channel, future, response, status, responseHeaders)) {
+            return true;
+        }
+
         if (statusCode == UNAUTHORIZED_401) {
             return unauthorized401Interceptor.exitAfterHandling401(channel, future, response, request, statusCode, realm, proxyServer, httpRequest);
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.handler.intercept;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.netty.request.NettyRequestSender;
+import org.asynchttpclient.retry.RetryPolicy;
+
+public class RetryInterceptor {
+
+    private final RetryPolicy retryPolicy;
+    private final ChannelManager channelManager;
+    private final NettyRequestSender requestSender;
+
+    public RetryInterceptor(RetryPolicy retryPolicy, ChannelManager channelManager, NettyRequestSender requestSender) {
+        this.retryPolicy = retryPolicy;
+        this.channelManager = channelManager;
+        this.requestSender = requestSender;
+    }
+
+    public boolean exitAfterHandlingRetry(//
+            Channel channel,//
+            NettyResponseFuture<?> future,//
+            HttpResponse response,//
+            HttpResponseStatus status,//
+            HttpResponseHeaders responseHeaders) {
+
+        long delay = retryPolicy.getRetryDelay(future.getCurrentRequest(), future.getCurrentRetry() + 1, status, responseHeaders);
+        if (delay < 0)
+            return false;
+
+        future.incrementAndGetRetry();
+        if (future.isKeepAlive() && !HttpHeaders.isTransferEncodingChunked(response))
+            channelManager.drainChannelAndOffer(channel, future);
+        else
+            channelManager.closeChannel(channel);
+
+        requestSender.retryAfterResponse(future, delay);
+        return true;
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
+import static org.asynchttpclient.util.MiscUtils.trimStackTrace;
+import static org.asynchttpclient.util.ProxyUtils.getProxyServer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.resolver.NameResolver;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.AsyncHttpClientState;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilderBase;
+import org.asynchttpclient.channel.CircuitBreaker;
+import org.asynchttpclient.exception.CircuitBreakerOpenException;
+import org.asynchttpclient.netty.SimpleFutureListener;
+import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.netty.channel.ChannelPoolMetrics;
+import org.asynchttpclient.netty.channel.Channels;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.resolver.RequestHostnameResolver;
+import org.asynchttpclient.uri.Uri;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens connections ahead of the requests that will use them, and hands them over to the pool once connected and, for secured partitions,
+ * handshaken.
+ *
+ * Pre-warmed partitions are registered so that, when {@link AsyncHttpClientConfig#getMinIdleConnectionsPerHost()} is set, the pool's idle
+ * channel detector tops them up after each of its runs. A partition whose pre-warming fails is only retried after an exponential backoff, and
+ * one that didn't lease any connection for {@link AsyncHttpClientConfig#getMinIdleConnectionsTimeout()} is unregistered. Connections are only
+ * opened if the {@link CircuitBreaker}, if any, admits a request to the partition.
+ */
+public class ChannelPrewarmer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChannelPrewarmer.class);
+
+    private static final long MIN_BACKOFF = 1000;
+    private static final long MAX_BACKOFF = 60000;
+
+    private final AsyncHttpClientConfig config;
+    private final ChannelManager channelManager;
+    private final AsyncHttpClientState clientState;
+    private final CircuitBreaker circuitBreaker;
+    private final int minIdleConnectionsPerHost;
+    private final int minIdleConnectionsTimeout;
+    private final ConcurrentHashMap<Object, Registration> registrations = new ConcurrentHashMap<>();
+
+    public ChannelPrewarmer(AsyncHttpClientConfig config, ChannelManager channelManager, AsyncHttpClientState clientState) {
+        this.config = config;
+        this.channelManager = channelManager;
+        this.clientState = clientState;
+        circuitBreaker = config.getCircuitBreaker();
+        minIdleConnectionsPerHost = config.getMinIdleConnectionsPerHost();
+        minIdleConnectionsTimeout = config.getMinIdleConnectionsTimeout();
+        if (minIdleConnectionsPerHost > 0)
+            channelManager.setIdleChannelsReplenisher(this::replenish);
+    }
+
+    /**
+     * @param request a request to the partition to pre-warm, only its uri, virtual host, proxy, address, local address, name resolver and
+     *            partitioning are used
+     * @param connections the number of connections to open
+     * @return a future that completes with the number of connections that were pooled, or exceptionally if none could be opened
+     */
+    public CompletableFuture<Integer> prewarm(Request request, int connections) {
+        Uri uri = request.getUri();
+        ProxyServer proxy = getProxyServer(config, request);
+        if (uri.isWebSocket())
+            throw new IllegalArgumentException("WebSocket connections aren't pooled");
+        if (proxy != null && uri.isSecured())
+            throw new IllegalArgumentException("Tunneled proxy connections can't be pre-warmed");
+
+        Object partitionKey = request.getChannelPoolPartitioning().getPartitionKey(uri, request.getVirtualHost(), proxy);
+        Registration registration = registrations.get(partitionKey);
+        if (registration == null)
+            registration = registrations.computeIfAbsent(partitionKey, pk -> new Registration(request, proxy, partitionKey));
+        registration.lastUsedMillis = unpreciseMillisTime();
+        return prewarm(registration, connections);
+    }
+
+    private void replenish() {
+        long now = unpreciseMillisTime();
+        for (Registration registration : registrations.values()) {
+            Object partitionKey = registration.partitionKey;
+            if (isStale(registration, now)) {
+                LOGGER.debug("No connection was leased for {} in {} ms, not replenishing it anymore", partitionKey, minIdleConnectionsTimeout);
+                registrations.remove(partitionKey, registration);
+                continue;
+            }
+            if (now < registration.nextAttemptMillis)
+                // backing off after a failure
+                continue;
+
+            int idle = channelManager.getChannelPool().getIdleChannelCount(partitionKey);
+            if (idle < 0)
+                // the pool doesn't count its idle channels
+                return;
+
+            int missing = minIdleConnectionsPerHost - idle - registration.connecting.get();
+            if (missing > 0) {
+                LOGGER.debug("Replenishing {} idle connections for {}", missing, partitionKey);
+                prewarm(registration, missing).exceptionally(t -> {
+                    LOGGER.debug("Failed to replenish idle connections for " + partitionKey, t);
+                    return 0;
+                });
+            }
+        }
+    }
+
+    private boolean isStale(Registration registration, long now) {
+        if (minIdleConnectionsTimeout < 0)
+            return false;
+
+        // only touched from the timer, while lastUsedMillis is also refreshed by explicit pre-warming
+        ChannelPoolMetrics.Stats stats = channelManager.getChannelPoolMetrics().getPartitionStats(registration.partitionKey);
+        long leased = stats != null ? stats.getLeasedCount() : 0L;
+        if (leased != registration.leasedCount) {
+            registration.leasedCount = leased;
+            registration.lastUsedMillis = now;
+            return false;
+        }
+        return now - registration.lastUsedMillis > minIdleConnectionsTimeout;
+    }
+
+    private CompletableFuture<Integer> prewarm(Registration registration, int connections) {
+        Request request = registration.request;
+        ProxyServer proxy = registration.proxy;
+        Object partitionKey = registration.partitionKey;
+
+        CircuitBreaker.Permit circuitBreakerPermit = null;
+        if (circuitBreaker != null) {
+            circuitBreakerPermit = circuitBreaker.tryAcquire(partitionKey);
+            if (circuitBreakerPermit == null) {
+                CompletableFuture<Integer> failed = new CompletableFuture<>();
+                failed.completeExceptionally(trimStackTrace(new CircuitBreakerOpenException(partitionKey)));
+                return failed;
+            }
+        }
+
+        Bootstrap bootstrap = channelManager.getBootstrap(request.getUri(), proxy);
+        PrewarmFuture future = new PrewarmFuture(registration, circuitBreakerPermit);
+
+        // acquire the permits upfront, there's no point in resolving the host if no connection can be opened
+        int acquired = 0;
+        for (; acquired < connections; acquired++) {
+            try {
+                channelManager.preemptChannel(partitionKey);
+            } catch (Exception e) {
+                future.setFailure(e);
+                break;
+            }
+        }
+        if (acquired == 0) {
+            // no connection was attempted, which says nothing about the remote peer's health
+            if (circuitBreakerPermit != null)
+                circuitBreakerPermit.onIgnore();
+            future.completeExceptionally(future.failure.get());
+            return future;
+        }
+
+        int permits = acquired;
+        future.expect(permits);
+
+        RequestHostnameResolver.INSTANCE.resolve(nameResolver(request), request, proxy, null)//
+                .addListener(new SimpleFutureListener<List<InetSocketAddress>>() {
+
+                    @Override
+                    protected void onSuccess(List<InetSocketAddress> addresses) {
+                        for (int i = 0; i < permits; i++) {
+                            if (clientState.isClosed()) {
+                                channelManager.abortChannelPreemption(partitionKey);
+                                future.onConnectionFailed(new IllegalStateException("Closed"));
+                            } else {
+                                new NettyChannelConnector(request.getLocalAddress(), addresses, null, clientState, config)//
+                                        .connect(bootstrap, new PrewarmConnectListener(request, proxy, partitionKey, future));
+                            }
+                        }
+                    }
+
+                    @Override
+                    protected void onFailure(Throwable cause) {
+                        for (int i = 0; i < permits; i++) {
+                            channelManager.abortChannelPreemption(partitionKey);
+                            future.onConnectionFailed(cause);
+                        }
+                    }
+                });
+        return future;
+    }
+
+    private NameResolver<InetAddress> nameResolver(Request request) {
+        NameResolver<InetAddress> nameResolver = request.getNameResolver();
+        // the connections opened from a single resolution are spread over the event loops, so any of them will do
+        return nameResolver == RequestBuilderBase.DEFAULT_NAME_RESOLVER ? channelManager.getDefaultNameResolver(channelManager.getEventLoopGroup().next()) : nameResolver;
+    }
+
+    private static final class Registration {
+        private final Request request;
+        private final ProxyServer proxy;
+        private final Object partitionKey;
+        // connections being opened, so that they're not opened twice when the detector runs again before they're pooled
+        private final AtomicInteger connecting = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long nextAttemptMillis;
+        private volatile long lastUsedMillis = unpreciseMillisTime();
+        private long leasedCount;
+
+        Registration(Request request, ProxyServer proxy, Object partitionKey) {
+            this.request = request;
+            this.proxy = proxy;
+            this.partitionKey = partitionKey;
+        }
+
+        void onPrewarmDone(boolean success) {
+            if (success) {
+                consecutiveFailures.set(0);
+                nextAttemptMillis = 0L;
+            } else {
+                int failures = consecutiveFailures.incrementAndGet();
+                long backoff = Math.min(MIN_BACKOFF << Math.min(failures - 1, 16), MAX_BACKOFF);
+                nextAttemptMillis = unpreciseMillisTime() + backoff;
+            }
+        }
+    }
+
+    private static final class PrewarmFuture extends CompletableFuture<Integer> {
+
+        private final Registration registration;
+        private final CircuitBreaker.Permit circuitBreakerPermit;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger pooled = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        PrewarmFuture(Registration registration, CircuitBreaker.Permit circuitBreakerPermit) {
+            this.registration = registration;
+            this.circuitBreakerPermit = circuitBreakerPermit;
+        }
+
+        void setFailure(Throwable cause) {
+            failure.compareAndSet(null, cause);
+        }
+
+        void expect(int connections) {
+            pending.set(connections);
+            registration.connecting.addAndGet(connections);
+        }
+
+        void onConnectionPooled() {
+            pooled.incrementAndGet();
+            onConnectionDone();
+        }
+
+        void onConnectionFailed(Throwable cause) {
+            setFailure(cause);
+            onConnectionDone();
+        }
+
+        private void onConnectionDone() {
+            registration.connecting.decrementAndGet();
+            if (pending.decrementAndGet() == 0) {
+                int count = pooled.get();
+                registration.onPrewarmDone(count > 0);
+                if (circuitBreakerPermit != null) {
+                    // connecting isn't a response, so it can't close a circuit, but failing to connect is a failure
+                    if (count == 0)
+                        circuitBreakerPermit.onFailure();
+                    else
+                        circuitBreakerPermit.onIgnore();
+                }
+                if (count == 0)
+                    completeExceptionally(failure.get());
+                else
+                    complete(count);
+            }
+        }
+    }
+
+    private final class PrewarmConnectListener implements NettyChannelConnector.ConnectListener {
+
+        private final Request request;
+        private final ProxyServer proxy;
+        private final Object partitionKey;
+        private final PrewarmFuture future;
+        private final long connectStartNanos = System.nanoTime();
+
+        PrewarmConnectListener(Request request, ProxyServer proxy, Object partitionKey, PrewarmFuture future) {
+            this.request = request;
+            this.proxy = proxy;
+            this.partitionKey = partitionKey;
+            this.future = future;
+        }
+
+        @Override
+        public void onSuccess(Channel channel, InetSocketAddress remoteAddress) {
+            channelManager.onChannelConnected(channel, partitionKey, System.nanoTime() - connectStartNanos);
+
+            Uri uri = request.getUri();
+            if (proxy == null && uri.isSecured()) {
+                long handshakeStartMillis = System.currentTimeMillis();
+                SslHandler sslHandler = channelManager.addSslHandler(channel.pipeline(), uri, request.getVirtualHost());
+                sslHandler.handshakeFuture().addListener(new SimpleFutureListener<Channel>() {
+
+                    @Override
+                    protected void onSuccess(Channel value) {
+                        channelManager.onTlsHandshakeSuccess(sslHandler, partitionKey, handshakeStartMillis);
+                        offer(channel);
+                    }
+
+                    @Override
+                    protected void onFailure(Throwable cause) {
+                        abort(channel, cause);
+                    }
+                });
+            } else {
+                offer(channel);
+            }
+        }
+
+        @Override
+        public void onFailure(Channel channel, Throwable cause) {
+            channelManager.getChannelPoolMetrics().onChannelConnectFailed(partitionKey, System.nanoTime() - connectStartNanos);
+            abort(channel, cause);
+        }
+
+        private void offer(Channel channel) {
+            LOGGER.debug("Pre-warmed channel {} for {}", channel, partitionKey);
+            // from now on, closing the channel releases its permits
+            channelManager.registerOpenChannel(channel, partitionKey);
+            channelManager.tryToOfferChannelToPool(channel, null, true, partitionKey);
+            future.onConnectionPooled();
+        }
+
+        private void abort(Channel channel, Throwable cause) {
+            channelManager.abortChannelPreemption(partitionKey);
+            Channels.silentlyCloseChannel(channel);
+            future.onConnectionFailed(cause);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.handler.AsyncHandlerExtensions;
+import org.asynchttpclient.handler.ProgressAsyncHandler;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.asynchttpclient.ws.UpgradeHandler;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The future of a hedged request, see {@link HedgingPolicy}.
+ *
+ * Each copy of the request is sent with its own handler, that forwards the callbacks to the user's handler once it has won the race by
+ * receiving its response status first. The other copy is then cancelled, which closes its channel, as it can't be reused before its response
+ * is fully read. If a copy fails before either receives its status, the other one is awaited, and the user's handler is only notified of a
+ * failure once both failed.
+ */
+final class HedgedResponseFuture<T> implements ListenableFuture<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgedResponseFuture.class);
+
+    private final NettyRequestSender requestSender;
+    private final Request request;
+    private final AsyncHandler<T> asyncHandler;
+    private final HedgingPolicy hedgingPolicy;
+    private final long startNanos = System.nanoTime();
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final AtomicReference<Attempt> winner = new AtomicReference<>();
+    // copies that were sent and didn't fail yet
+    private final AtomicInteger pendingAttempts = new AtomicInteger(1);
+    private final Attempt original;
+    private volatile Attempt hedge;
+    private volatile Timeout hedgeTimeout;
+    private volatile boolean terminated;
+
+    HedgedResponseFuture(NettyRequestSender requestSender, Request request, AsyncHandler<T> asyncHandler, HedgingPolicy hedgingPolicy) {
+        this.requestSender = requestSender;
+        this.request = request;
+        this.asyncHandler = asyncHandler;
+        this.hedgingPolicy = hedgingPolicy;
+        original = newAttempt(true);
+    }
+
+    /**
+     * @param asyncHandler the user's handler
+     * @return false if the handler relies on being notified of the connection events or on the handler's type, that hedging would hide
+     */
+    static boolean isHedgeable(AsyncHandler<?> asyncHandler) {
+        return !(asyncHandler instanceof AsyncHandlerExtensions //
+                || asyncHandler instanceof TransferCompletionHandler //
+                || asyncHandler instanceof UpgradeHandler);
+    }
+
+    ListenableFuture<T> send(long hedgeDelay, Timer nettyTimer) {
+        original.send();
+        if (!isDone()) {
+            Timeout timeout = nettyTimer.newTimeout(t -> sendHedge(), hedgeDelay, TimeUnit.MILLISECONDS);
+            hedgeTimeout = timeout;
+            if (winner.get() != null || terminated)
+                // raced with completion
+                timeout.cancel();
+        }
+        return this;
+    }
+
+    private void sendHedge() {
+        if (winner.get() != null || terminated || requestSender.isClosed())
+            return;
+
+        if (pendingAttempts.getAndIncrement() == 0) {
+            // the original request just failed, and is notifying the handler
+            pendingAttempts.decrementAndGet();
+            return;
+        }
+
+        LOGGER.debug("No response status after hedge delay, sending a copy of {}", request);
+        Attempt hedge = newAttempt(false);
+        this.hedge = hedge;
+        hedge.send();
+    }
+
+    private Attempt newAttempt(boolean isOriginal) {
+        return asyncHandler instanceof StreamedAsyncHandler ? new StreamedAttempt(isOriginal) : new Attempt(isOriginal);
+    }
+
+    private void cancelHedgeTimeout() {
+        Timeout timeout = hedgeTimeout;
+        if (timeout != null)
+            timeout.cancel();
+    }
+
+    private void terminate(Consumer<ListenableFuture<T>> action) {
+        terminated = true;
+        cancelHedgeTimeout();
+        original.terminate(action);
+        Attempt hedge = this.hedge;
+        if (hedge != null)
+            hedge.terminate(action);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (isDone())
+            return false;
+        // the losing attempt, or the last failing one, notifies the handler and completes this future
+        terminate(future -> future.cancel(mayInterruptIfRunning));
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+        Attempt winner = this.winner.get();
+        if (winner != null && winner.future != null)
+            winner.future.done();
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        terminate(future -> future.abort(t));
+    }
+
+    @Override
+    public void touch() {
+        original.touch();
+        Attempt hedge = this.hedge;
+        if (hedge != null)
+            hedge.touch();
+    }
+
+    @Override
+    public ListenableFuture<T> addListener(Runnable listener, Executor exec) {
+        result.whenComplete((value, t) -> {
+            if (exec != null)
+                exec.execute(listener);
+            else
+                listener.run();
+        });
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        return result;
+    }
+
+    private class Attempt implements ProgressAsyncHandler<T> {
+
+        private final boolean isOriginal;
+        private volatile ListenableFuture<T> future;
+
+        Attempt(boolean isOriginal) {
+            this.isOriginal = isOriginal;
+        }
+
+        void send() {
+            ListenableFuture<T> future;
+            try {
+                future = requestSender.sendRequestWithPermits(request, this, null, false);
+            } catch (RuntimeException e) {
+                onThrowable(e);
+                return;
+            }
+            this.future = future;
+
+            Attempt winner = HedgedResponseFuture.this.winner.get();
+            if (terminated || (winner != null && winner != this))
+                // raced with the other copy winning, or with cancel
+                future.cancel(true);
+        }
+
+        void terminate(Consumer<ListenableFuture<T>> action) {
+            ListenableFuture<T> future = this.future;
+            if (future != null)
+                action.accept(future);
+        }
+
+        void touch() {
+            ListenableFuture<T> future = this.future;
+            if (future != null)
+                future.touch();
+        }
+
+        /**
+         * @return true if this copy received its response first
+         */
+        boolean claim() {
+            Attempt winner = HedgedResponseFuture.this.winner.get();
+            if (winner == this)
+                return true;
+            if (winner != null || !HedgedResponseFuture.this.winner.compareAndSet(null, this))
+                return false;
+
+            cancelHedgeTimeout();
+            hedgingPolicy.onStatusReceived(request, System.nanoTime() - startNanos);
+            Attempt loser = this == original ? hedge : original;
+            if (loser != null)
+                loser.terminate(future -> future.cancel(true));
+            return true;
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+            return claim() ? asyncHandler.onStatusReceived(responseStatus) : State.ABORT;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpResponseHeaders headers) throws Exception {
+            return claim() ? asyncHandler.onHeadersReceived(headers) : State.ABORT;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            return claim() ? asyncHandler.onBodyPartReceived(bodyPart) : State.ABORT;
+        }
+
+        @Override
+        public T onCompleted() throws Exception {
+            if (!claim())
+                return null;
+            T value = asyncHandler.onCompleted();
+            result.complete(value);
+            return value;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            Attempt winner = HedgedResponseFuture.this.winner.get();
+            if (winner == null) {
+                if (pendingAttempts.decrementAndGet() > 0 || !HedgedResponseFuture.this.winner.compareAndSet(null, this))
+                    // the other copy might still succeed
+                    return;
+                cancelHedgeTimeout();
+            } else if (winner != this) {
+                // cancelled loser
+                return;
+            }
+
+            try {
+                asyncHandler.onThrowable(t);
+            } finally {
+                result.completeExceptionally(t);
+            }
+        }
+
+        // only the original request reports its progress, a hedge being sent can't be told apart from a retry
+
+        @Override
+        public State onHeadersWritten() {
+            return isOriginal && asyncHandler instanceof ProgressAsyncHandler ? ProgressAsyncHandler.class.cast(asyncHandler).onHeadersWritten() : State.CONTINUE;
+        }
+
+        @Override
+        public State onContentWritten() {
+            return isOriginal && asyncHandler instanceof ProgressAsyncHandler ? ProgressAsyncHandler.class.cast(asyncHandler).onContentWritten() : State.CONTINUE;
+        }
+
+        @Override
+        public State onContentWriteProgress(long amount, long current, long total) {
+            return isOriginal && asyncHandler instanceof ProgressAsyncHandler ? ProgressAsyncHandler.class.cast(asyncHandler).onContentWriteProgress(amount, current,
+                    total) : State.CONTINUE;
+        }
+    }
+
+    private final class StreamedAttempt extends Attempt implements StreamedAsyncHandler<T> {
+
+        StreamedAttempt(boolean isOriginal) {
+            super(isOriginal);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public State onStream(Publisher<HttpResponseBodyPart> publisher) {
+            return claim() ? ((StreamedAsyncHandler<T>) asyncHandler).onStream(publisher) : State.ABORT;
+        }
+    }
+}
@@ -15,11 +15,18 @@ package org.asynchttpclient.netty.request;
 import static org.asynchttpclient.handler.AsyncHandlerExtensionsUtils.toAsyncHandlerExtensions;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 
+import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
@@ -27,20 +34,40 @@ import org.asynchttpclient.AsyncHttpClientState;
 import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.netty.SimpleChannelFutureListener;
 import org.asynchttpclient.netty.channel.Channels;
-import org.asynchttpclient.netty.channel.NettyConnectListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Connects to the first remote address that answers.
+ *
+ * When there are several remote addresses, attempts are staggered as in RFC 8305 (Happy Eyeballs): addresses are interleaved by family, and the next
+ * attempt starts as soon as the previous one fails or after the connection attempt delay, whichever comes first. The first attempt to succeed wins and
+ * the other ones are closed.
+ */
 public class NettyChannelConnector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyChannelConnector.class);
 
+    /**
+     * Notified once, with the winning channel or the failure of the last attempt.
+     */
+    public interface ConnectListener {
+
+        void onSuccess(Channel channel, InetSocketAddress remoteAddress);
+
+        void onFailure(Channel channel, Throwable cause);
+    }
+
     private final AsyncHandlerExtensions asyncHandlerExtensions;
     private final InetSocketAddress localAddress;
     private final List<InetSocketAddress> remoteAddresses;
     private final AsyncHttpClientState clientState;
     private final boolean connectionTtlEnabled;
-    private volatile int i = 0;
+    private final int connectionAttemptDelay;
+    private final AtomicInteger nextAttempt = new AtomicInteger();
+    private final AtomicInteger failedAttempts = new AtomicInteger();
+    private final AtomicReferenceArray<Channel> attemptChannels;
+    private final AtomicReference<Channel> winner = new AtomicReference<>();
 
     public NettyChannelConnector(InetAddress localAddress,//
             List<InetSocketAddress> remoteAddresses,//
@@ -48,25 +75,72 @@ public class NettyChannelConnector {
             AsyncHttpClientState clientState,//
             AsyncHttpClientConfig config) {
         this.localAddress = localAddress != null ? new InetSocketAddress(localAddress, 0) : null;
-        this.remoteAddresses = remoteAddresses;
+        this.connectionAttemptDelay = config.getConnectionAttemptDelay();
+        this.remoteAddresses = connectionAttemptDelay > 0 ? interleaveAddressFamilies(remoteAddresses) : remoteAddresses;
         this.asyncHandlerExtensions = toAsyncHandlerExtensions(asyncHandler);
         this.clientState = clientState;
         this.connectionTtlEnabled = config.getConnectionTtl() > 0;
+        this.attemptChannels = new AtomicReferenceArray<>(remoteAddresses.size());
+    }
+
+    // alternate address families, starting with the family of the first address, see RFC 8305 section 4
+    static List<InetSocketAddress> interleaveAddressFamilies(List<InetSocketAddress> addresses) {
+        List<InetSocketAddress> first = new ArrayList<>(addresses.size());
+        List<InetSocketAddress> second = new ArrayList<>(addresses.size());
+        boolean firstIsIpV6 = isIpV6(addresses.get(0));
+        for (InetSocketAddress address : addresses) {
+            if (isIpV6(address) == firstIsIpV6)
+                first.add(address);
+            else
+                second.add(address);
+        }
+
+        if (second.isEmpty())
+            return addresses;
+
+        List<InetSocketAddress> interleaved = new ArrayList<>(addresses.size());
+        for (int i = 0; i < first.size() || i < second.size(); i++) {
+            if (i < first.size())
+                interleaved.add(first.get(i));
+            if (i < second.size())
+                interleaved.add(second.get(i));
+        }
+        return interleaved;
     }
 
-    private boolean pickNextRemoteAddress() {
-        i++;
-        return i < remoteAddresses.size();
+    private static boolean isIpV6(InetSocketAddress address) {
+        return address.getAddress() instanceof Inet6Address;
     }
 
-    public void connect(final Bootstrap bootstrap, final NettyConnectListener<?> connectListener) {
-        final InetSocketAddress remoteAddress = remoteAddresses.get(i);
+    public void connect(final Bootstrap bootstrap, final ConnectListener connectListener) {
+        int attempt = nextAttempt.getAndIncrement();
+        if (attempt >= remoteAddresses.size() || winner.get() != null)
+            // all the addresses are being tried, or one of them already won
+            return;
+
+        final InetSocketAddress remoteAddress = remoteAddresses.get(attempt);
 
         if (asyncHandlerExtensions != null)
             asyncHandlerExtensions.onTcpConnectAttempt(remoteAddress);
 
         try {
-            connect0(bootstrap, connectListener, remoteAddress);
+            ChannelFuture connectFuture = connect0(bootstrap, connectListener, remoteAddress);
+            Channel channel = connectFuture.channel();
+            attemptChannels.set(attempt, channel);
+
+            Channel winnerChannel = winner.get();
+            if (winnerChannel != null && winnerChannel != channel) {
+                // another attempt won before this channel could be registered
+                Channels.silentlyCloseChannel(channel);
+
+            } else if (connectionAttemptDelay > 0 && attempt + 1 < remoteAddresses.size()) {
+                channel.eventLoop().schedule(() -> {
+                    if (!connectFuture.isDone() && winner.get() == null) {
+                        LOGGER.debug("Connecting to {} is taking more than {} ms, trying next address", remoteAddress, connectionAttemptDelay);
+                        connect(bootstrap, connectListener);
+                    }
+                }, connectionAttemptDelay, TimeUnit.MILLISECONDS);
+            }
         } catch (RejectedExecutionException e) {
             if (clientState.isClosed()) {
                 connectListener.onFailure(null, e);
@@ -76,13 +150,28 @@ public class NettyChannelConnector {
         }
     }
 
-    private void connect0(Bootstrap bootstrap, final NettyConnectListener<?> connectListener, InetSocketAddress remoteAddress) {
+    private void closeLosers(Channel winnerChannel) {
+        for (int i = 0; i < attemptChannels.length(); i++) {
+            Channel channel = attemptChannels.get(i);
+            if (channel != null && channel != winnerChannel)
+                Channels.silentlyCloseChannel(channel);
+        }
+    }
+
+    private ChannelFuture connect0(Bootstrap bootstrap, final ConnectListener connectListener, InetSocketAddress remoteAddress) {
 
-        bootstrap.connect(remoteAddress, localAddress)//
+        return bootstrap.connect(remoteAddress, localAddress)//
                 .addListener(new SimpleChannelFutureListener() {
 
                     @Override
                     public void onSuccess(Channel channel) {
+                        if (!winner.compareAndSet(null, channel)) {
+                            LOGGER.debug("Closing channel {} to {} as another connection attempt won", channel, remoteAddress);
+                            Channels.silentlyCloseChannel(channel);
+                            return;
+                        }
+                        closeLosers(channel);
+
                         if (asyncHandlerExtensions != null) {
                             asyncHandlerExtensions.onTcpConnectSuccess(remoteAddress, channel);
                         }
@@ -94,13 +183,17 @@ public class NettyChannelConnector {
 
                     @Override
                     public void onFailure(Channel channel, Throwable t) {
+                        if (winner.get() != null)
+                            // loser closed on purpose
+                            return;
+
                         if (asyncHandlerExtensions != null)
                             asyncHandlerExtensions.onTcpConnectFailure(remoteAddress, t);
-                        boolean retry = pickNextRemoteAddress();
-                        if (retry)
-                            NettyChannelConnector.this.connect(bootstrap, connectListener);
-                        else
+                        if (failedAttempts.incrementAndGet() == remoteAddresses.size())
                             connectListener.onFailure(channel, t);
+                        else
+                            // start the next attempt right away, no-op if all of them are already in flight
+                            NettyChannelConnector.this.connect(bootstrap, connectListener);
                     }
                 });
     }
@@ -17,21 +17,27 @@ import static org.asynchttpclient.util.Assertions.assertNotNull;
 import static org.asynchttpclient.util.AuthenticatorUtils.*;
 import static org.asynchttpclient.util.HttpConstants.Methods.*;
 import static org.asynchttpclient.util.MiscUtils.getCause;
+import static org.asynchttpclient.util.MiscUtils.trimStackTrace;
 import static org.asynchttpclient.util.ProxyUtils.getProxyServer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelProgressivePromise;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.resolver.NameResolver;
 import io.netty.util.Timer;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
@@ -40,12 +46,20 @@ import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Realm.AuthScheme;
 import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilderBase;
+import org.asynchttpclient.channel.CircuitBreaker;
+import org.asynchttpclient.channel.ConcurrencyLimiter;
+import org.asynchttpclient.exception.CircuitBreakerOpenException;
 import org.asynchttpclient.exception.RemotelyClosedException;
+import org.asynchttpclient.exception.TooManyConcurrentRequestsException;
+import org.asynchttpclient.exception.TooManyConnectionsException;
+import org.asynchttpclient.exception.TooManyConnectionsPerHostException;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.FilterException;
 import org.asynchttpclient.filter.IOExceptionFilter;
 import org.asynchttpclient.handler.AsyncHandlerExtensions;
 import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.netty.Callback;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.SimpleFutureListener;
@@ -53,9 +67,12 @@ import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.channel.ChannelState;
 import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.channel.NettyConnectListener;
-import org.asynchttpclient.netty.timeout.TimeoutsHolder;
+import org.asynchttpclient.netty.channel.PendingAcquire;
+import org.asynchttpclient.netty.timeout.TimeoutScheduler;
+import org.asynchttpclient.netty.ws.PerMessageDeflate;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.resolver.RequestHostnameResolver;
+import org.asynchttpclient.retry.RetryPolicy;
 import org.asynchttpclient.uri.Uri;
 import org.asynchttpclient.ws.WebSocketUpgradeHandler;
 import org.slf4j.Logger;
@@ -67,9 +84,15 @@ public final class NettyRequestSender {
 
     private final AsyncHttpClientConfig config;
     private final ChannelManager channelManager;
-    private final Timer nettyTimer;
     private final AsyncHttpClientState clientState;
     private final NettyRequestFactory requestFactory;
+    private final TimeoutScheduler timeoutScheduler;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgingPolicy hedgingPolicy;
+    private final RetryPolicy retryPolicy;
+    private final Timer nettyTimer;
+    private final ChannelPrewarmer channelPrewarmer;
 
     public NettyRequestSender(AsyncHttpClientConfig config,//
             ChannelManager channelManager,//
@@ -77,9 +100,15 @@ public final class NettyRequestSender {
             AsyncHttpClientState clientState) {
         this.config = config;
         this.channelManager = channelManager;
-        this.nettyTimer = nettyTimer;
         this.clientState = clientState;
         requestFactory = new NettyRequestFactory(config);
+        timeoutScheduler = new TimeoutScheduler(config, this, channelManager.getEventLoopGroup(), nettyTimer);
+        concurrencyLimiter = config.getConcurrencyLimiter();
+        circuitBreaker = config.getCircuitBreaker();
+        hedgingPolicy = config.getHedgingPolicy();
+        retryPolicy = config.getRetryPolicy();
+        this.nettyTimer = nettyTimer;
+        channelPrewarmer = new ChannelPrewarmer(config, channelManager, clientState);
     }
 
     public <T> ListenableFuture<T> sendRequest(final Request request,//
@@ -92,8 +121,76 @@ public final class NettyRequestSender {
 
         validateWebSocketRequest(request, asyncHandler);
 
+        if (future == null && hedgingPolicy != null && HedgedResponseFuture.isHedgeable(asyncHandler)) {
+            long hedgeDelay = hedgingPolicy.getHedgeDelay(request);
+            if (hedgeDelay >= 0)
+                return new HedgedResponseFuture<>(this, request, asyncHandler, hedgingPolicy).send(hedgeDelay, nettyTimer);
+        }
+
+        return sendRequestWithPermits(request, asyncHandler, future, reclaimCache);
+    }
+
+    <T> ListenableFuture<T> sendRequestWithPermits(Request request,//
+            AsyncHandler<T> asyncHandler,//
+            NettyResponseFuture<T> future,//
+            boolean reclaimCache) {
+
         ProxyServer proxyServer = getProxyServer(config, request);
 
+        // redirects and retries reuse the original future, and so its permits
+        if (future != null || (concurrencyLimiter == null && circuitBreaker == null))
+            return sendRequestWithProxyServer(request, asyncHandler, future, reclaimCache, proxyServer);
+
+        Object partitionKey = request.getChannelPoolPartitioning().getPartitionKey(request.getUri(), request.getVirtualHost(), proxyServer);
+
+        CircuitBreaker.Permit circuitBreakerPermit = null;
+        if (circuitBreaker != null) {
+            circuitBreakerPermit = circuitBreaker.tryAcquire(partitionKey);
+            if (circuitBreakerPermit == null)
+                return completedFailure(asyncHandler, trimStackTrace(new CircuitBreakerOpenException(partitionKey)));
+        }
+
+        ConcurrencyLimiter.Permit concurrencyPermit = null;
+        if (concurrencyLimiter != null) {
+            concurrencyPermit = concurrencyLimiter.tryAcquire(partitionKey);
+            if (concurrencyPermit == null) {
+                if (circuitBreakerPermit != null)
+                    circuitBreakerPermit.onIgnore();
+                return completedFailure(asyncHandler, trimStackTrace(new TooManyConcurrentRequestsException(partitionKey)));
+            }
+        }
+
+        ListenableFuture<T> newFuture;
+        try {
+            newFuture = sendRequestWithProxyServer(request, asyncHandler, future, reclaimCache, proxyServer);
+        } catch (RuntimeException e) {
+            if (circuitBreakerPermit != null)
+                circuitBreakerPermit.onIgnore();
+            if (concurrencyPermit != null)
+                concurrencyPermit.onIgnore();
+            throw e;
+        }
+
+        NettyResponseFuture<?> nettyFuture = NettyResponseFuture.class.cast(newFuture);
+        if (circuitBreakerPermit != null)
+            nettyFuture.setCircuitBreakerPermit(circuitBreakerPermit);
+        if (concurrencyPermit != null)
+            nettyFuture.setConcurrencyPermit(concurrencyPermit);
+        return newFuture;
+    }
+
+    private <T> ListenableFuture<T> completedFailure(AsyncHandler<T> asyncHandler, Throwable t) {
+        asyncHandler.onThrowable(t);
+        return new ListenableFuture.CompletedFailure<>(t);
+    }
+
+    private <T> ListenableFuture<T> sendRequestWithProxyServer(//
+            Request request,//
+            AsyncHandler<T> asyncHandler,//
+            NettyResponseFuture<T> future,//
+            boolean reclaimCache,//
+            ProxyServer proxyServer) {
+
         // websockets use connect tunnelling to work with proxies
         if (proxyServer != null && (request.getUri().isSecured() || request.getUri().isWebSocket()) && !isConnectDone(request, future))
             if (future != null && future.isConnectAllowed())
@@ -188,6 +285,8 @@ public final class NettyRequestSender {
         }
 
         NettyRequest nettyRequest = requestFactory.newNettyRequest(request, forceConnect, proxy, realm, proxyRealm);
+        if (asyncHandler instanceof WebSocketUpgradeHandler)
+            offerWebSocketExtensions(nettyRequest.getHttpRequest().headers(), WebSocketUpgradeHandler.class.cast(asyncHandler));
 
         if (originalFuture == null) {
             NettyResponseFuture<T> future = newNettyResponseFuture(request, asyncHandler, nettyRequest, proxy);
@@ -201,6 +300,15 @@ public final class NettyRequestSender {
         }
     }
 
+    private void offerWebSocketExtensions(HttpHeaders headers, WebSocketUpgradeHandler handler) {
+        // not on CONNECT requests, and explicit request headers take precedence
+        if (headers.contains(HttpHeaders.Names.SEC_WEBSOCKET_KEY) && !headers.contains(PerMessageDeflate.SEC_WEBSOCKET_EXTENSIONS)) {
+            String offer = PerMessageDeflate.offer(handler);
+            if (offer != null)
+                headers.set(PerMessageDeflate.SEC_WEBSOCKET_EXTENSIONS, offer);
+        }
+    }
+
     private Channel getOpenChannel(NettyResponseFuture<?> future, Request request, ProxyServer proxyServer, AsyncHandler<?> asyncHandler) {
 
         if (future != null && future.reuseChannel() && Channels.isChannelValid(future.channel()))
@@ -214,7 +322,7 @@ public final class NettyRequestSender {
         if (asyncHandler instanceof AsyncHandlerExtensions)
             AsyncHandlerExtensions.class.cast(asyncHandler).onConnectionPooled(channel);
 
-        scheduleRequestTimeout(future);
+        timeoutScheduler.scheduleRequestTimeout(future, channel);
         future.setChannelState(ChannelState.POOLED);
         future.attachChannel(channel, false);
 
@@ -271,15 +379,78 @@ public final class NettyRequestSender {
                 // if there's an exception here, channel wasn't preempted and resolve won't happen
                 channelManager.preemptChannel(partitionKey);
             }
+        } catch (TooManyConnectionsException | TooManyConnectionsPerHostException e) {
+            // wait for a channel to be released if there's room in the partition's queue, fail fast otherwise
+            // websockets can't reuse pooled channels, so they can't be handed over one
+            if (request.getUri().isWebSocket()
+                    || !channelManager.offerPendingAcquire(newPendingAcquire(request, proxy, future, asyncHandler, bootstrap, partitionKey, e)))
+                abort(null, future, e);
+            return future;
         } catch (Throwable t) {
             abort(null, future, getCause(t));
             // exit and don't try to resolve address
             return future;
         }
 
-        scheduleRequestTimeout(future);
+        connect(request, proxy, future, asyncHandler, bootstrap, partitionKey, channelPreempted);
+        return future;
+    }
+
+    private <T> PendingAcquire newPendingAcquire(//
+            Request request,//
+            ProxyServer proxy,//
+            NettyResponseFuture<T> future,//
+            AsyncHandler<T> asyncHandler,//
+            Bootstrap bootstrap,//
+            Object partitionKey,//
+            IOException cause) {
+
+        return new PendingAcquire(partitionKey, future, cause) {
+
+            @Override
+            protected void onChannel(Channel channel) {
+                if (future.isDone()) {
+                    channelManager.tryToOfferChannelToPool(channel, asyncHandler, true, partitionKey);
+                } else {
+                    // the request was built for a new connection, eg with CONNECT or per connection auth headers
+                    newNettyRequestAndResponseFuture(request, asyncHandler, future, proxy, false);
+                    sendRequestWithOpenChannel(request, proxy, future, asyncHandler, channel);
+                }
+            }
+
+            @Override
+            protected void onPermitsAcquired() {
+                connect(request, proxy, future, asyncHandler, bootstrap, partitionKey, true);
+            }
+
+            @Override
+            protected void abort(Throwable t) {
+                NettyRequestSender.this.abort(null, future, t);
+            }
+        };
+    }
+
+    private <T> void connect(//
+            Request request,//
+            ProxyServer proxy,//
+            NettyResponseFuture<T> future,//
+            AsyncHandler<T> asyncHandler,//
+            Bootstrap bootstrap,//
+            Object partitionKey,//
+            boolean channelPreempted) {
+
+        timeoutScheduler.scheduleRequestTimeout(future, null);
+
+        NameResolver<InetAddress> nameResolver = request.getNameResolver();
+        EventLoop eventLoop = null;
+        if (nameResolver == RequestBuilderBase.DEFAULT_NAME_RESOLVER && config.isUseDnsNameResolver()) {
+            // resolve on the event loop the channel will be registered on, so that connecting once resolved doesn't hop threads
+            eventLoop = channelManager.getEventLoopGroup().next();
+            nameResolver = channelManager.getDefaultNameResolver(eventLoop);
+        }
+        Bootstrap connectBootstrap = eventLoop != null ? bootstrap.clone(eventLoop) : bootstrap;
 
-        RequestHostnameResolver.INSTANCE.resolve(request, proxy, asyncHandler)//
+        RequestHostnameResolver.INSTANCE.resolve(nameResolver, request, proxy, asyncHandler)//
                 .addListener(new SimpleFutureListener<List<InetSocketAddress>>() {
 
                     @Override
@@ -287,7 +458,7 @@ public final class NettyRequestSender {
                         NettyConnectListener<T> connectListener = new NettyConnectListener<>(future, NettyRequestSender.this, channelManager, channelPreempted, partitionKey);
                         NettyChannelConnector connector = new NettyChannelConnector(request.getLocalAddress(), addresses, asyncHandler, clientState, config);
                         if (!future.isDone()) {
-                            connector.connect(bootstrap, connectListener);
+                            connector.connect(connectBootstrap, connectListener);
                         } else if (channelPreempted) {
                             channelManager.abortChannelPreemption(partitionKey);
                         }
@@ -301,8 +472,6 @@ public final class NettyRequestSender {
                         abort(null, future, getCause(cause));
                     }
                 });
-
-        return future;
     }
 
     private <T> NettyResponseFuture<T> newNettyResponseFuture(Request request, AsyncHandler<T> asyncHandler, NettyRequest nettyRequest, ProxyServer proxyServer) {
@@ -362,7 +531,7 @@ public final class NettyRequestSender {
 
             // don't bother scheduling read timeout if channel became invalid
             if (Channels.isChannelValid(channel))
-                scheduleReadTimeout(future);
+                timeoutScheduler.scheduleReadTimeout(future, channel);
 
         } catch (Exception e) {
             LOGGER.error("Can't write request", e);
@@ -375,22 +544,6 @@ public final class NettyRequestSender {
         TransferCompletionHandler.class.cast(handler).headers(h);
     }
 
-    private void scheduleRequestTimeout(NettyResponseFuture<?> nettyResponseFuture) {
-        nettyResponseFuture.touch();
-        TimeoutsHolder timeoutsHolder = new TimeoutsHolder(nettyTimer, nettyResponseFuture, this, config);
-        nettyResponseFuture.setTimeoutsHolder(timeoutsHolder);
-    }
-
-    private void scheduleReadTimeout(NettyResponseFuture<?> nettyResponseFuture) {
-        TimeoutsHolder timeoutsHolder = nettyResponseFuture.getTimeoutsHolder();
-        if (timeoutsHolder != null) {
-            // on very fast requests, it's entirely possible that the response has already been completed
-            // by the time we try to schedule the read timeout
-            nettyResponseFuture.touch();
-            timeoutsHolder.startReadTimeout();
-        }
-    }
-
     public void abort(Channel channel, NettyResponseFuture<?> future, Throwable t) {
 
         if (channel != null)
@@ -407,13 +560,91 @@ public final class NettyRequestSender {
     public void handleUnexpectedClosedChannel(Channel channel, NettyResponseFuture<?> future) {
         if (future.isDone()) {
             channelManager.closeChannel(channel);
-        } else if (future.incrementRetryAndCheck() && retry(future)) {
+        } else if (retry(future, future.pendingException != null ? future.pendingException : RemotelyClosedException.INSTANCE)) {
             future.pendingException = null;
         } else {
             abort(channel, future, future.pendingException != null ? future.pendingException : RemotelyClosedException.INSTANCE);
         }
     }
 
+    /**
+     * @param request a request to the partition to pre-warm
+     * @param connections the number of connections to open
+     * @return a future that completes with the number of connections that were pooled
+     * @see ChannelPrewarmer#prewarm(Request, int)
+     */
+    public CompletableFuture<Integer> prewarm(Request request, int connections) {
+        if (isClosed())
+            throw new IllegalStateException("Closed");
+        return channelPrewarmer.prewarm(request, connections);
+    }
+
+    public boolean hasRetryPolicy() {
+        return retryPolicy != null;
+    }
+
+    /**
+     * Retry a request that failed before receiving its response, if the {@link RetryPolicy} allows it, or if the max number of retries isn't
+     * reached when there's none.
+     *
+     * @param future the future
+     * @param cause the failure, that the future is aborted with if it can't be replayed once the retry delay is over
+     * @return true if the request was retried, or scheduled to be
+     */
+    public boolean retry(NettyResponseFuture<?> future, Throwable cause) {
+        if (retryPolicy == null)
+            return future.incrementRetryAndCheck() && retry(future);
+
+        if (isClosed() || !future.canBeReplayed())
+            return false;
+
+        long delay = retryPolicy.getRetryDelay(future.getCurrentRequest(), future.incrementAndGetRetry(), cause);
+        if (delay < 0)
+            return false;
+        else if (delay == 0)
+            return retry(future);
+
+        LOGGER.debug("Retrying {} in {} ms after {}", future, delay, cause);
+        nettyTimer.newTimeout(timeout -> {
+            // retry aborts the future itself when sending fails
+            if (!future.isDone() && !retry(future) && !future.isDone())
+                abort(null, future, cause);
+        }, delay, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Send the request again, once the {@link RetryPolicy} decided that its response should be retried.
+     *
+     * @param future the future, whose channel was already drained or closed
+     * @param delay the delay in ms
+     */
+    public void retryAfterResponse(NettyResponseFuture<?> future, long delay) {
+        // the channel might be pooled by the time the retry is sent, and mustn't be touched anymore
+        future.attachChannel(null, false);
+        future.setChannelState(ChannelState.NEW);
+        future.getAndSetStatusReceived(false);
+        future.touch();
+
+        LOGGER.debug("Retrying {} in {} ms", future, delay);
+        if (future.getAsyncHandler() instanceof AsyncHandlerExtensions)
+            AsyncHandlerExtensions.class.cast(future.getAsyncHandler()).onRetry();
+
+        if (delay == 0) {
+            sendNextRequest(future.getCurrentRequest(), future);
+        } else {
+            nettyTimer.newTimeout(timeout -> {
+                if (!future.isDone()) {
+                    try {
+                        sendNextRequest(future.getCurrentRequest(), future);
+                    } catch (Exception e) {
+                        abort(null, future, e);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     public boolean retry(NettyResponseFuture<?> future) {
 
         if (isClosed())
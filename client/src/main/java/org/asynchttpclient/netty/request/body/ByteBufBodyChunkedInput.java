@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2014 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import static org.asynchttpclient.util.Assertions.assertNotNull;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+import org.asynchttpclient.request.body.generator.ByteBufFeedableBodyGenerator.ByteBufBody;
+
+/**
+ * Adapts a {@link ByteBufBody} to Netty's {@link ChunkedInput}, writing the fed buffers without copying them.
+ */
+public class ByteBufBodyChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final ByteBufBody body;
+
+    public ByteBufBodyChunkedInput(ByteBufBody body) {
+        this.body = assertNotNull(body, "body");
+    }
+
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        // null suspends the stream in ChunkedWriteHandler until the next feed
+        return body.readChunk();
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return body.isEndOfInput();
+    }
+
+    @Override
+    public void close() throws Exception {
+        body.close();
+    }
+}
@@ -28,6 +28,7 @@ import org.asynchttpclient.netty.request.WriteProgressListener;
 import org.asynchttpclient.request.body.Body;
 import org.asynchttpclient.request.body.RandomAccessBody;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
+import org.asynchttpclient.request.body.generator.ByteBufFeedableBodyGenerator.ByteBufBody;
 import org.asynchttpclient.request.body.generator.FeedListener;
 import org.asynchttpclient.request.body.generator.FeedableBodyGenerator;
 import org.asynchttpclient.request.body.generator.ReactiveStreamsBodyGenerator;
@@ -64,7 +65,7 @@ public class NettyBodyBody implements NettyBody {
             msg = new BodyFileRegion((RandomAccessBody) body);
 
         } else {
-            msg = new BodyChunkedInput(body);
+            msg = body instanceof ByteBufBody ? new ByteBufBodyChunkedInput((ByteBufBody) body) : new BodyChunkedInput(body);
 
             BodyGenerator bg = future.getTargetRequest().getBodyGenerator();
             if (bg instanceof FeedableBodyGenerator && !(bg instanceof ReactiveStreamsBodyGenerator)) {
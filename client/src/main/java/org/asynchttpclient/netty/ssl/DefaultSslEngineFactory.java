@@ -45,8 +45,13 @@ public class DefaultSslEngineFactory extends SslEngineFactoryBase {
 
     @Override
     public SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort) {
-        // FIXME should be using ctx allocator
-        SSLEngine sslEngine = sslContext.newEngine(ByteBufAllocator.DEFAULT, peerHost, peerPort);
+        return newSslEngine(config, peerHost, peerPort, ByteBufAllocator.DEFAULT);
+    }
+
+    @Override
+    public SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort, ByteBufAllocator allocator) {
+        // the peer host and port are the key of the context's session cache
+        SSLEngine sslEngine = sslContext.newEngine(allocator, peerHost, peerPort);
         configureSslEngine(sslEngine, config);
         return sslEngine;
     }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.timeout;
+
+import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ThreadPerChannelEventLoopGroup;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.request.NettyRequestSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enforces the request and read timeouts.
+ *
+ * The deadlines are stored on the {@link NettyResponseFuture} itself, and each event loop periodically sweeps the futures that were registered
+ * on it, so that arming, touching or cancelling a timeout doesn't allocate nor involve a timer thread. A future is registered at most once for
+ * as long as it has armed timeouts, and is unlinked lazily by the sweep once they're cancelled.
+ *
+ * Thread-per-channel event loops don't outlive their channel, so with such transports all the futures are swept from the {@link Timer}.
+ */
+public class TimeoutScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeoutScheduler.class);
+
+    /**
+     * Sweep period, in ms. Timeouts fire at most that late, same as with the default {@link io.netty.util.HashedWheelTimer} tick.
+     */
+    public static final long SWEEP_PERIOD = 100;
+
+    private final AsyncHttpClientConfig config;
+    private final NettyRequestSender requestSender;
+    private final EventLoopGroup eventLoopGroup;
+    private final Timer nettyTimer;
+    private final boolean eventLoopAffine;
+    private final ConcurrentHashMap<EventLoop, Sweeper> sweepers = new ConcurrentHashMap<>();
+    private volatile Sweeper timerSweeper;
+
+    public TimeoutScheduler(AsyncHttpClientConfig config, NettyRequestSender requestSender, EventLoopGroup eventLoopGroup, Timer nettyTimer) {
+        this.config = config;
+        this.requestSender = requestSender;
+        this.eventLoopGroup = eventLoopGroup;
+        this.nettyTimer = nettyTimer;
+        eventLoopAffine = !(eventLoopGroup instanceof ThreadPerChannelEventLoopGroup);
+    }
+
+    /**
+     * Arm the request timeout, and reset the read timeout
+     *
+     * @param future the future
+     * @param channel the channel the request will be sent on, null if it's not connected yet
+     */
+    public void scheduleRequestTimeout(NettyResponseFuture<?> future, Channel channel) {
+        future.touch();
+
+        int requestTimeout = future.getTargetRequest().getRequestTimeout();
+        if (requestTimeout == 0)
+            requestTimeout = config.getRequestTimeout();
+
+        future.armTimeouts(requestTimeout);
+        if (requestTimeout != -1)
+            schedule(future, channel);
+    }
+
+    /**
+     * Start the read timeout, unless the timeouts were already cancelled because the response is complete
+     *
+     * @param future the future
+     * @param channel the channel the request was sent on
+     */
+    public void scheduleReadTimeout(NettyResponseFuture<?> future, Channel channel) {
+        if (future.isTimeoutsArmed()) {
+            // on very fast requests, it's entirely possible that the response has already been completed
+            // by the time we try to schedule the read timeout
+            future.touch();
+            int readTimeout = config.getReadTimeout();
+            if (readTimeout != -1) {
+                future.startReadTimeout(readTimeout);
+                schedule(future, channel);
+            }
+        }
+    }
+
+    private void schedule(NettyResponseFuture<?> future, Channel channel) {
+        if (future.markTimeoutsScheduled() && !requestSender.isClosed())
+            sweeper(channel).push(future);
+    }
+
+    private Sweeper sweeper(Channel channel) {
+        if (!eventLoopAffine) {
+            Sweeper sweeper = timerSweeper;
+            if (sweeper == null) {
+                synchronized (this) {
+                    sweeper = timerSweeper;
+                    if (sweeper == null)
+                        timerSweeper = sweeper = new Sweeper(null);
+                }
+            }
+            return sweeper;
+        }
+
+        EventLoop eventLoop = channel != null ? channel.eventLoop() : eventLoopGroup.next();
+        Sweeper sweeper = sweepers.get(eventLoop);
+        if (sweeper == null)
+            sweeper = sweepers.computeIfAbsent(eventLoop, Sweeper::new);
+        return sweeper;
+    }
+
+    /**
+     * @param future the future
+     * @param now the current time
+     * @return true if the future has to be swept again
+     */
+    private boolean checkTimeouts(NettyResponseFuture<?> future, long now) {
+        if (future.isTimeoutsArmed() && !future.isDone()) {
+            long requestTimeoutDeadline = future.getRequestTimeoutDeadline();
+            int readTimeout = future.getReadTimeout();
+
+            if (requestTimeoutDeadline != -1L && now >= requestTimeoutDeadline) {
+                future.cancelTimeouts();
+                expire(future, "Request timeout to " + remoteAddress(future) + " after " + future.getRequestTimeout() + " ms", now - future.getStart());
+
+            } else if (readTimeout != -1 && now - future.getLastTouch() >= readTimeout) {
+                future.cancelTimeouts();
+                expire(future, "Read timeout to " + remoteAddress(future) + " after " + readTimeout + " ms", now - future.getLastTouch());
+
+            } else {
+                return true;
+            }
+        }
+
+        // timeouts might have been re-armed concurrently
+        return !future.unmarkTimeoutsScheduled();
+    }
+
+    private static String remoteAddress(NettyResponseFuture<?> future) {
+        InetSocketAddress remoteAddress = future.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.toString() : "not-connected";
+    }
+
+    private void expire(NettyResponseFuture<?> future, String message, long time) {
+        LOGGER.debug("{} for {} after {} ms", message, future, time);
+        requestSender.abort(future.channel(), future, new TimeoutException(message));
+    }
+
+    private final class Sweeper implements Runnable, TimerTask {
+
+        // futures registered from any thread, as an intrusive stack linked with NettyResponseFuture.nextScheduled
+        private final AtomicReference<NettyResponseFuture<?>> pending = new AtomicReference<>();
+        private volatile ScheduledFuture<?> sweepFuture;
+
+        // only accessed from the sweep
+        private NettyResponseFuture<?>[] futures = new NettyResponseFuture<?>[16];
+        private int size;
+
+        Sweeper(EventLoop eventLoop) {
+            if (eventLoop != null)
+                sweepFuture = eventLoop.scheduleAtFixedRate(this, SWEEP_PERIOD, SWEEP_PERIOD, TimeUnit.MILLISECONDS);
+            else
+                nettyTimer.newTimeout(this, SWEEP_PERIOD, TimeUnit.MILLISECONDS);
+        }
+
+        void push(NettyResponseFuture<?> future) {
+            NettyResponseFuture<?> head;
+            do {
+                head = pending.get();
+                future.setNextScheduled(head);
+            } while (!pending.compareAndSet(head, future));
+        }
+
+        private void drainPending() {
+            NettyResponseFuture<?> future = pending.getAndSet(null);
+            while (future != null) {
+                if (size == futures.length)
+                    futures = Arrays.copyOf(futures, size * 2);
+                futures[size++] = future;
+                NettyResponseFuture<?> next = future.getNextScheduled();
+                future.setNextScheduled(null);
+                future = next;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!requestSender.isClosed())
+                sweep();
+            else if (sweepFuture != null)
+                // the event loop group might be shared with other clients
+                sweepFuture.cancel(false);
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (!requestSender.isClosed()) {
+                sweep();
+                nettyTimer.newTimeout(this, SWEEP_PERIOD, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void sweep() {
+            drainPending();
+
+            long now = unpreciseMillisTime();
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                NettyResponseFuture<?> future = futures[i];
+                futures[i] = null;
+                try {
+                    if (checkTimeouts(future, now))
+                        futures[kept++] = future;
+                } catch (Throwable t) {
+                    LOGGER.warn("Failed to expire " + future, t);
+                    future.unmarkTimeoutsScheduled();
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+
+import java.util.List;
+
+/**
+ * Aggregates the fragmented text messages, but passes the frames of the binary messages as is, so that they can be consumed as they arrive
+ * instead of being buffered whole.
+ */
+public class BinaryStreamingFrameAggregator extends WebSocketFrameAggregator {
+
+    private boolean binaryMessage;
+
+    public BinaryStreamingFrameAggregator(int maxFrameSize) {
+        super(maxFrameSize);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) throws Exception {
+        if (frame instanceof BinaryWebSocketFrame || (binaryMessage && frame instanceof ContinuationWebSocketFrame)) {
+            binaryMessage = !frame.isFinalFragment();
+            out.add(frame.retain());
+        } else {
+            super.decode(ctx, frame, out);
+        }
+    }
+}
@@ -16,27 +16,45 @@ package org.asynchttpclient.netty.ws;
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.asynchttpclient.netty.util.ByteBufUtils.byteBuf2Bytes;
+import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
 
 import java.net.SocketAddress;
 import java.nio.charset.CharacterCodingException;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.asynchttpclient.netty.util.ByteBufUtils;
 import org.asynchttpclient.ws.WebSocket;
+import org.asynchttpclient.ws.WebSocketBinaryFragmentListener;
+import org.asynchttpclient.ws.Utf8Text;
+import org.asynchttpclient.ws.WebSocketByteBufListener;
 import org.asynchttpclient.ws.WebSocketByteListener;
 import org.asynchttpclient.ws.WebSocketCloseCodeReasonListener;
 import org.asynchttpclient.ws.WebSocketListener;
 import org.asynchttpclient.ws.WebSocketPingListener;
 import org.asynchttpclient.ws.WebSocketPongListener;
 import org.asynchttpclient.ws.WebSocketTextListener;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+import org.asynchttpclient.ws.WebSocketUtf8TextListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,20 +62,65 @@ public class NettyWebSocket implements WebSocket {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NettyWebSocket.class);
 
+    private static final CompletableFuture<Void> WRITABLE = CompletableFuture.completedFuture(null);
+    private static final byte[] EMPTY_PAYLOAD = new byte[0];
+
     protected final Channel channel;
     protected final HttpHeaders upgradeHeaders;
     protected final Collection<WebSocketListener> listeners;
+    private final WebSocketFrameWriter frameWriter;
+    private final AtomicReference<CompletableFuture<Void>> writableFuture = new AtomicReference<>();
     private volatile boolean interestedInByteMessages;
     private volatile boolean interestedInTextMessages;
+    private volatile boolean interestedInBinaryFragments;
+    private volatile boolean interestedInByteBufMessages;
+    private volatile boolean interestedInUtf8TextMessages;
+    // true while the fragments of a message are being sent, the next ones have to be continuation frames
+    private volatile boolean fragmentedMessageInProgress;
+    private volatile long lastReceived = unpreciseMillisTime();
 
     public NettyWebSocket(Channel channel, HttpHeaders upgradeHeaders) {
-        this(channel, upgradeHeaders, new ConcurrentLinkedQueue<>());
+        this(channel, upgradeHeaders, false, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    /**
+     * @param channel the upgraded channel
+     * @param upgradeHeaders the headers of the upgrade response
+     * @param coalesceWrites true to write the frames in batches, with one flush per batch
+     * @param flushThreshold the number of bytes written in a batch after which the channel is flushed
+     */
+    public NettyWebSocket(Channel channel, HttpHeaders upgradeHeaders, boolean coalesceWrites, int flushThreshold) {
+        this(channel, upgradeHeaders, new ConcurrentLinkedQueue<>(), coalesceWrites, flushThreshold);
     }
 
     public NettyWebSocket(Channel channel, HttpHeaders upgradeHeaders, Collection<WebSocketListener> listeners) {
+        this(channel, upgradeHeaders, listeners, false, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    public NettyWebSocket(Channel channel, HttpHeaders upgradeHeaders, Collection<WebSocketListener> listeners, boolean coalesceWrites, int flushThreshold) {
         this.channel = channel;
         this.upgradeHeaders = upgradeHeaders;
         this.listeners = listeners;
+        frameWriter = new WebSocketFrameWriter(channel, coalesceWrites, flushThreshold);
+    }
+
+    /**
+     * Ping the server whenever nothing has been received for pingInterval, and close the connection if nothing is received within pongTimeout
+     * after a ping
+     *
+     * @param timer the timer the checks are scheduled on
+     * @param pingInterval the idle time after which a ping is sent, in ms
+     * @param pongTimeout the time to wait for a frame after a ping, in ms, 0 to never close the connection
+     */
+    public void startKeepAlive(Timer timer, int pingInterval, int pongTimeout) {
+        timer.newTimeout(new KeepAlive(timer, pingInterval, pongTimeout), pingInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record that a frame was received, which proves that the connection is alive
+     */
+    public void touch() {
+        lastReceived = unpreciseMillisTime();
     }
 
     @Override
@@ -77,46 +140,155 @@ public class NettyWebSocket implements WebSocket {
 
     @Override
     public WebSocket sendMessage(byte[] message) {
-        channel.writeAndFlush(new BinaryWebSocketFrame(wrappedBuffer(message)), channel.voidPromise());
+        frameWriter.write(new BinaryWebSocketFrame(wrappedBuffer(message)), channel.voidPromise());
+        return this;
+    }
+
+    @Override
+    public WebSocket sendMessage(ByteBuf message) {
+        frameWriter.write(new BinaryWebSocketFrame(message), channel.voidPromise());
+        return this;
+    }
+
+    @Override
+    public WebSocket sendTextMessage(ByteBuf message) {
+        frameWriter.write(new TextWebSocketFrame(message), channel.voidPromise());
         return this;
     }
 
     @Override
     public WebSocket stream(byte[] fragment, boolean last) {
-        channel.writeAndFlush(new BinaryWebSocketFrame(last, 0, wrappedBuffer(fragment)), channel.voidPromise());
+        frameWriter.write(binaryFragment(wrappedBuffer(fragment), last), channel.voidPromise());
         return this;
     }
 
     @Override
     public WebSocket stream(byte[] fragment, int offset, int len, boolean last) {
-        channel.writeAndFlush(new BinaryWebSocketFrame(last, 0, wrappedBuffer(fragment, offset, len)), channel.voidPromise());
+        frameWriter.write(binaryFragment(wrappedBuffer(fragment, offset, len), last), channel.voidPromise());
         return this;
     }
 
     @Override
     public WebSocket sendMessage(String message) {
-        channel.writeAndFlush(new TextWebSocketFrame(message), channel.voidPromise());
+        frameWriter.write(new TextWebSocketFrame(message), channel.voidPromise());
         return this;
     }
 
     @Override
     public WebSocket stream(String fragment, boolean last) {
-        channel.writeAndFlush(new TextWebSocketFrame(last, 0, fragment), channel.voidPromise());
+        frameWriter.write(textFragment(fragment, last), channel.voidPromise());
         return this;
     }
 
+    private WebSocketFrame binaryFragment(ByteBuf payload, boolean last) {
+        WebSocketFrame frame = fragmentedMessageInProgress ? new ContinuationWebSocketFrame(last, 0, payload) : new BinaryWebSocketFrame(last, 0, payload);
+        fragmentedMessageInProgress = !last;
+        return frame;
+    }
+
+    private WebSocketFrame textFragment(String payload, boolean last) {
+        WebSocketFrame frame = fragmentedMessageInProgress ? new ContinuationWebSocketFrame(last, 0, payload) : new TextWebSocketFrame(last, 0, payload);
+        fragmentedMessageInProgress = !last;
+        return frame;
+    }
+
     @Override
     public WebSocket sendPing(byte[] payload) {
-        channel.writeAndFlush(new PingWebSocketFrame(wrappedBuffer(payload)), channel.voidPromise());
+        frameWriter.write(new PingWebSocketFrame(wrappedBuffer(payload)), channel.voidPromise());
         return this;
     }
 
     @Override
     public WebSocket sendPong(byte[] payload) {
-        channel.writeAndFlush(new PongWebSocketFrame(wrappedBuffer(payload)), channel.voidPromise());
+        frameWriter.write(new PongWebSocketFrame(wrappedBuffer(payload)), channel.voidPromise());
         return this;
     }
 
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(byte[] message) {
+        return send(new BinaryWebSocketFrame(wrappedBuffer(message)));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(ByteBuf message) {
+        return send(new BinaryWebSocketFrame(message));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTextMessageAsync(ByteBuf message) {
+        return send(new TextWebSocketFrame(message));
+    }
+
+    @Override
+    public CompletableFuture<Void> streamAsync(byte[] fragment, int offset, int len, boolean last) {
+        return send(binaryFragment(wrappedBuffer(fragment, offset, len), last));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String message) {
+        return send(new TextWebSocketFrame(message));
+    }
+
+    @Override
+    public CompletableFuture<Void> streamAsync(String fragment, boolean last) {
+        return send(textFragment(fragment, last));
+    }
+
+    private CompletableFuture<Void> send(WebSocketFrame frame) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ChannelPromise promise = channel.newPromise();
+        promise.addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess())
+                future.complete(null);
+            else
+                future.completeExceptionally(f.cause());
+        });
+        frameWriter.write(frame, promise);
+        return future;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return channel.isWritable();
+    }
+
+    @Override
+    public CompletableFuture<Void> whenWritable() {
+        if (channel.isWritable())
+            return WRITABLE;
+
+        CompletableFuture<Void> future;
+        for (;;) {
+            future = writableFuture.get();
+            if (future != null)
+                break;
+            CompletableFuture<Void> newFuture = new CompletableFuture<>();
+            if (writableFuture.compareAndSet(null, newFuture)) {
+                future = newFuture;
+                break;
+            }
+        }
+
+        // the channel might have become writable, or have been closed, before the future was published
+        if (channel.isWritable() || !channel.isOpen())
+            signalWritable();
+        return future;
+    }
+
+    /**
+     * Notify the {@link #whenWritable()} waiters once the outbound buffer has been drained below the channel's low water mark
+     */
+    public void onWritabilityChanged() {
+        if (channel.isWritable())
+            signalWritable();
+    }
+
+    private void signalWritable() {
+        CompletableFuture<Void> future = writableFuture.getAndSet(null);
+        if (future != null)
+            future.complete(null);
+    }
+
     @Override
     public boolean isOpen() {
         return channel.isOpen();
@@ -125,13 +297,16 @@ public class NettyWebSocket implements WebSocket {
     @Override
     public void close() {
         if (channel.isOpen()) {
-            channel.writeAndFlush(new CloseWebSocketFrame(1000, "normal closure"));
+            // through the writer, so that the frames still being coalesced are sent before
+            frameWriter.write(new CloseWebSocketFrame(1000, "normal closure"), channel.voidPromise());
         }
     }
 
     public void close(int statusCode, String reason) {
         onClose(statusCode, reason);
         listeners.clear();
+        // let waiting producers find out that the WebSocket is closed
+        signalWritable();
     }
 
     public void onError(Throwable t) {
@@ -162,6 +337,52 @@ public class NettyWebSocket implements WebSocket {
         return "NettyWebSocket{channel=" + channel + '}';
     }
 
+    private final class KeepAlive implements TimerTask {
+
+        private final Timer timer;
+        private final int pingInterval;
+        private final int pongTimeout;
+        // only accessed from the timer
+        private long pingSent;
+
+        KeepAlive(Timer timer, int pingInterval, int pongTimeout) {
+            this.timer = timer;
+            this.pingInterval = pingInterval;
+            this.pongTimeout = pongTimeout;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            if (!channel.isOpen())
+                return;
+
+            long now = unpreciseMillisTime();
+            long delay;
+            if (pongTimeout > 0 && pingSent != 0L && lastReceived < pingSent) {
+                long waited = now - pingSent;
+                if (waited >= pongTimeout) {
+                    LOGGER.debug("No frame received within {} ms after a ping on {}, closing", pongTimeout, channel);
+                    onError(new TimeoutException("Pong timeout to " + channel.remoteAddress() + " after " + pongTimeout + " ms"));
+                    channel.close();
+                    return;
+                }
+                delay = pongTimeout - waited;
+
+            } else {
+                pingSent = 0L;
+                long idle = now - lastReceived;
+                if (idle >= pingInterval) {
+                    sendPing(EMPTY_PAYLOAD);
+                    pingSent = now;
+                    delay = pongTimeout > 0 ? pongTimeout : pingInterval;
+                } else {
+                    delay = pingInterval - idle;
+                }
+            }
+            timer.newTimeout(this, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
     private boolean hasWebSocketByteListener() {
         for (WebSocketListener listener : listeners) {
             if (listener instanceof WebSocketByteListener)
@@ -178,11 +399,38 @@ public class NettyWebSocket implements WebSocket {
         return false;
     }
 
+    private boolean hasWebSocketBinaryFragmentListener() {
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketBinaryFragmentListener)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean hasWebSocketByteBufListener() {
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketByteBufListener)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean hasWebSocketUtf8TextListener() {
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketUtf8TextListener)
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public WebSocket addWebSocketListener(WebSocketListener l) {
         listeners.add(l);
         interestedInByteMessages = interestedInByteMessages || l instanceof WebSocketByteListener;
         interestedInTextMessages = interestedInTextMessages || l instanceof WebSocketTextListener;
+        interestedInBinaryFragments = interestedInBinaryFragments || l instanceof WebSocketBinaryFragmentListener;
+        interestedInByteBufMessages = interestedInByteBufMessages || l instanceof WebSocketByteBufListener;
+        interestedInUtf8TextMessages = interestedInUtf8TextMessages || l instanceof WebSocketUtf8TextListener;
         return this;
     }
 
@@ -194,6 +442,12 @@ public class NettyWebSocket implements WebSocket {
             interestedInByteMessages = hasWebSocketByteListener();
         if (l instanceof WebSocketTextListener)
             interestedInTextMessages = hasWebSocketTextListener();
+        if (l instanceof WebSocketBinaryFragmentListener)
+            interestedInBinaryFragments = hasWebSocketBinaryFragmentListener();
+        if (l instanceof WebSocketByteBufListener)
+            interestedInByteBufMessages = hasWebSocketByteBufListener();
+        if (l instanceof WebSocketUtf8TextListener)
+            interestedInUtf8TextMessages = hasWebSocketUtf8TextListener();
 
         return this;
     }
@@ -205,6 +459,27 @@ public class NettyWebSocket implements WebSocket {
         }
     }
 
+    private void notifyByteBufListeners(ByteBuf message) {
+        int readerIndex = message.readerIndex();
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketByteBufListener) {
+                WebSocketByteBufListener.class.cast(listener).onMessage(message);
+                // the listener might have consumed the buffer
+                message.readerIndex(readerIndex);
+            }
+        }
+    }
+
+    private void notifyUtf8TextListeners(Utf8Text message) {
+        int readerIndex = message.content().readerIndex();
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketUtf8TextListener) {
+                WebSocketUtf8TextListener.class.cast(listener).onMessage(message);
+                message.content().readerIndex(readerIndex);
+            }
+        }
+    }
+
     private void notifyTextListeners(String message) {
         for (WebSocketListener listener : listeners) {
             if (listener instanceof WebSocketTextListener)
@@ -213,9 +488,23 @@ public class NettyWebSocket implements WebSocket {
     }
 
     public void onBinaryFrame(BinaryWebSocketFrame frame) {
-        if (interestedInByteMessages) {
+        // a non final frame is the first fragment of a streamed message
+        if (interestedInByteMessages && frame.isFinalFragment()) {
             notifyByteListeners(byteBuf2Bytes(frame.content()));
         }
+        if (interestedInByteBufMessages && frame.isFinalFragment()) {
+            notifyByteBufListeners(frame.content());
+        }
+        onBinaryFragment(frame.content(), frame.isFinalFragment());
+    }
+
+    public void onBinaryFragment(ByteBuf fragment, boolean last) {
+        if (interestedInBinaryFragments) {
+            for (WebSocketListener listener : listeners) {
+                if (listener instanceof WebSocketBinaryFragmentListener)
+                    WebSocketBinaryFragmentListener.class.cast(listener).onBinaryFragment(fragment, last);
+            }
+        }
     }
 
     public void onTextFrame(TextWebSocketFrame frame) {
@@ -226,6 +515,9 @@ public class NettyWebSocket implements WebSocket {
                 throw new IllegalStateException(e);
             }
         }
+        if (interestedInUtf8TextMessages) {
+            notifyUtf8TextListeners(new Utf8Text(frame.content()));
+        }
     }
 
     public void onPing(PingWebSocketFrame frame) {
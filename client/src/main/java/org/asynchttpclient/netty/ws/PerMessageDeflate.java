@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+
+/**
+ * Negotiation of the permessage-deflate WebSocket extension, see RFC 7692.
+ *
+ * The JDK's {@link java.util.zip.Deflater} always compresses with a 32K window, so the client never offers client_max_window_bits and rejects a
+ * server that would require a smaller one. Decompression works with any window the server picks.
+ */
+public final class PerMessageDeflate {
+
+    public static final String SEC_WEBSOCKET_EXTENSIONS = "Sec-WebSocket-Extensions";
+    public static final String EXTENSION_NAME = "permessage-deflate";
+
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+    private static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    private static final int MAX_WINDOW_BITS = 15;
+
+    /**
+     * The RSV bit flagging the first frame of a compressed message
+     */
+    public static final int RSV1 = 0x04;
+
+    /**
+     * The empty stored block that ends a sync flush, stripped from each compressed message
+     */
+    static final byte[] TAIL = { 0x00, 0x00, (byte) 0xff, (byte) 0xff };
+
+    private final boolean clientNoContextTakeover;
+    private final boolean serverNoContextTakeover;
+
+    private PerMessageDeflate(boolean clientNoContextTakeover, boolean serverNoContextTakeover) {
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+    }
+
+    public boolean isClientNoContextTakeover() {
+        return clientNoContextTakeover;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    public PerMessageDeflateEncoder newEncoder() {
+        return new PerMessageDeflateEncoder(clientNoContextTakeover);
+    }
+
+    public PerMessageDeflateDecoder newDecoder(int maxMessageSize) {
+        return newDecoder(maxMessageSize, false);
+    }
+
+    /**
+     * @param maxMessageSize the maximum decompressed size of a message
+     * @param streamBinaryFragments true if the binary messages are consumed frame by frame, in which case the bound applies to each frame
+     * @return a new decoder
+     */
+    public PerMessageDeflateDecoder newDecoder(int maxMessageSize, boolean streamBinaryFragments) {
+        return new PerMessageDeflateDecoder(serverNoContextTakeover, maxMessageSize, streamBinaryFragments);
+    }
+
+    /**
+     * @param handler the upgrade handler
+     * @return the Sec-WebSocket-Extensions request header value, null if the handler doesn't enable permessage-deflate
+     */
+    public static String offer(WebSocketUpgradeHandler handler) {
+        if (!handler.isPerMessageDeflate())
+            return null;
+
+        StringBuilder sb = new StringBuilder(EXTENSION_NAME);
+        if (handler.isClientNoContextTakeover())
+            sb.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        if (handler.isServerNoContextTakeover())
+            sb.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        if (handler.getServerMaxWindowBits() != 0)
+            sb.append("; ").append(SERVER_MAX_WINDOW_BITS).append('=').append(handler.getServerMaxWindowBits());
+        return sb.toString();
+    }
+
+    /**
+     * Validate the extensions accepted by the server
+     *
+     * @param handler the upgrade handler
+     * @param extensions the Sec-WebSocket-Extensions response header value, might be null
+     * @return the negotiated parameters, null if the server declined the offer, or if nothing was offered
+     * @throws IOException if the server accepted something that wasn't offered
+     */
+    public static PerMessageDeflate accept(WebSocketUpgradeHandler handler, String extensions) throws IOException {
+        if (!handler.isPerMessageDeflate() || extensions == null || extensions.trim().isEmpty())
+            return null;
+
+        String[] accepted = extensions.split(",");
+        if (accepted.length != 1)
+            throw new IOException("Invalid handshake response: more extensions than offered: " + extensions);
+
+        String[] tokens = accepted[0].split(";");
+        if (!EXTENSION_NAME.equalsIgnoreCase(tokens[0].trim()))
+            throw new IOException("Invalid handshake response: extension wasn't offered: " + extensions);
+
+        boolean clientNoContextTakeover = false;
+        boolean serverNoContextTakeover = false;
+        boolean serverMaxWindowBits = false;
+        boolean clientMaxWindowBits = false;
+        for (int i = 1; i < tokens.length; i++) {
+            String token = tokens[i].trim();
+            int eq = token.indexOf('=');
+            String name = (eq == -1 ? token : token.substring(0, eq).trim()).toLowerCase(Locale.ENGLISH);
+            String value = eq == -1 ? null : unquote(token.substring(eq + 1).trim());
+
+            switch (name) {
+            case CLIENT_NO_CONTEXT_TAKEOVER:
+                if (clientNoContextTakeover || value != null)
+                    throw invalidParameter(token);
+                clientNoContextTakeover = true;
+                break;
+            case SERVER_NO_CONTEXT_TAKEOVER:
+                if (serverNoContextTakeover || value != null)
+                    throw invalidParameter(token);
+                serverNoContextTakeover = true;
+                break;
+            case SERVER_MAX_WINDOW_BITS:
+                int bits = windowBits(token, value);
+                if (serverMaxWindowBits || (handler.getServerMaxWindowBits() != 0 && bits > handler.getServerMaxWindowBits()))
+                    throw invalidParameter(token);
+                serverMaxWindowBits = true;
+                break;
+            case CLIENT_MAX_WINDOW_BITS:
+                // not offered, only tolerated when it doesn't constrain us
+                if (clientMaxWindowBits || windowBits(token, value) != MAX_WINDOW_BITS)
+                    throw invalidParameter(token);
+                clientMaxWindowBits = true;
+                break;
+            default:
+                throw invalidParameter(token);
+            }
+        }
+
+        // the server might impose client_no_context_takeover even if it wasn't offered
+        return new PerMessageDeflate(clientNoContextTakeover || handler.isClientNoContextTakeover(), serverNoContextTakeover);
+    }
+
+    /**
+     * @param frame a data frame
+     * @param rsv the new RSV bits
+     * @param content the new content
+     * @return a frame of the same type as the original one
+     */
+    static WebSocketFrame replace(WebSocketFrame frame, int rsv, ByteBuf content) {
+        if (frame instanceof TextWebSocketFrame)
+            return new TextWebSocketFrame(frame.isFinalFragment(), rsv, content);
+        else if (frame instanceof BinaryWebSocketFrame)
+            return new BinaryWebSocketFrame(frame.isFinalFragment(), rsv, content);
+        else
+            return new ContinuationWebSocketFrame(frame.isFinalFragment(), rsv, content);
+    }
+
+    private static String unquote(String value) {
+        return value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"' ? value.substring(1, value.length() - 1) : value;
+    }
+
+    private static int windowBits(String token, String value) throws IOException {
+        try {
+            int bits = Integer.parseInt(value);
+            if (bits >= 8 && bits <= MAX_WINDOW_BITS)
+                return bits;
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw invalidParameter(token);
+    }
+
+    private static IOException invalidParameter(String token) {
+        return new IOException("Invalid handshake response: invalid " + EXTENSION_NAME + " parameter: " + token);
+    }
+}
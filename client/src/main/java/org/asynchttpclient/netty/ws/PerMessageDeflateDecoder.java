@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import static org.asynchttpclient.netty.ws.PerMessageDeflate.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses the data frames of the messages whose first frame has the RSV1 bit set, control frames and uncompressed messages are passed as
+ * is.
+ *
+ * The decompressed size of a message is bounded, so that a small compressed payload can't exhaust the memory. When binary messages are
+ * streamed instead of being aggregated, the bound applies to each of their frames.
+ */
+public class PerMessageDeflateDecoder extends MessageToMessageDecoder<WebSocketFrame> {
+
+    private final boolean noContextTakeover;
+    private final int maxMessageSize;
+    private final boolean streamBinaryFragments;
+    private Inflater inflater;
+    private boolean compressedMessage;
+    private boolean binaryMessage;
+    private long messageSize;
+
+    public PerMessageDeflateDecoder(boolean noContextTakeover, int maxMessageSize) {
+        this(noContextTakeover, maxMessageSize, false);
+    }
+
+    public PerMessageDeflateDecoder(boolean noContextTakeover, int maxMessageSize, boolean streamBinaryFragments) {
+        this.noContextTakeover = noContextTakeover;
+        this.maxMessageSize = maxMessageSize;
+        this.streamBinaryFragments = streamBinaryFragments;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) throws Exception {
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame) {
+            compressedMessage = (frame.rsv() & RSV1) != 0;
+            binaryMessage = frame instanceof BinaryWebSocketFrame;
+            messageSize = 0;
+        } else if (frame instanceof ContinuationWebSocketFrame) {
+            if (streamBinaryFragments && binaryMessage)
+                messageSize = 0;
+        } else {
+            out.add(frame.retain());
+            return;
+        }
+
+        if (!compressedMessage) {
+            out.add(frame.retain());
+            return;
+        }
+
+        if (inflater == null)
+            inflater = new Inflater(true);
+
+        ByteBuf content = frame.content();
+        ByteBuf inflated = ctx.alloc().heapBuffer(Math.max(content.readableBytes() * 2, 64));
+        try {
+            if (content.hasArray()) {
+                inflate(content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes(), inflated);
+            } else {
+                byte[] bytes = new byte[content.readableBytes()];
+                content.getBytes(content.readerIndex(), bytes);
+                inflate(bytes, 0, bytes.length, inflated);
+            }
+
+            if (frame.isFinalFragment()) {
+                inflate(TAIL, 0, TAIL.length, inflated);
+                compressedMessage = false;
+                // the server might also have ended the stream with a final block
+                if (noContextTakeover || inflater.finished())
+                    inflater.reset();
+            }
+        } catch (DataFormatException e) {
+            inflated.release();
+            throw new CorruptedFrameException("Invalid compressed payload: " + e.getMessage());
+        } catch (Throwable t) {
+            inflated.release();
+            throw t;
+        }
+
+        out.add(replace(frame, frame.rsv() & ~RSV1, inflated));
+    }
+
+    private void inflate(byte[] input, int offset, int length, ByteBuf inflated) throws DataFormatException {
+        inflater.setInput(input, offset, length);
+        for (;;) {
+            int writable = inflated.writableBytes();
+            int read = inflater.inflate(inflated.array(), inflated.arrayOffset() + inflated.writerIndex(), writable);
+            inflated.writerIndex(inflated.writerIndex() + read);
+            messageSize += read;
+            if (messageSize > maxMessageSize)
+                throw new TooLongFrameException("Decompressed message exceeds " + maxMessageSize + " bytes");
+
+            // otherwise, there might be more output pending
+            if (read < writable)
+                break;
+            inflated.ensureWritable(Math.max(inflated.capacity(), 64));
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (inflater != null) {
+            // release the native memory right away
+            inflater.end();
+            inflater = null;
+        }
+        super.handlerRemoved(ctx);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import static org.asynchttpclient.netty.ws.PerMessageDeflate.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the outgoing data frames, control frames are passed as is.
+ *
+ * Each frame is sync flushed, so that it can be decompressed on its own, and the trailing empty block is stripped from the final frame of each
+ * message, as specified in RFC 7692.
+ */
+public class PerMessageDeflateEncoder extends MessageToMessageEncoder<WebSocketFrame> {
+
+    private final boolean noContextTakeover;
+    private Deflater deflater;
+
+    public PerMessageDeflateEncoder(boolean noContextTakeover) {
+        this.noContextTakeover = noContextTakeover;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) throws Exception {
+        int rsv;
+        if (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame) {
+            rsv = frame.rsv() | RSV1;
+        } else if (frame instanceof ContinuationWebSocketFrame) {
+            rsv = frame.rsv();
+        } else {
+            out.add(frame.retain());
+            return;
+        }
+
+        if (deflater == null)
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        ByteBuf content = frame.content();
+        int length = content.readableBytes();
+        if (content.hasArray()) {
+            deflater.setInput(content.array(), content.arrayOffset() + content.readerIndex(), length);
+        } else {
+            byte[] bytes = new byte[length];
+            content.getBytes(content.readerIndex(), bytes);
+            deflater.setInput(bytes);
+        }
+
+        ByteBuf compressed = ctx.alloc().heapBuffer(Math.max(length / 2, 64));
+        try {
+            for (;;) {
+                int writable = compressed.writableBytes();
+                int written = deflater.deflate(compressed.array(), compressed.arrayOffset() + compressed.writerIndex(), writable, Deflater.SYNC_FLUSH);
+                compressed.writerIndex(compressed.writerIndex() + written);
+                if (written < writable)
+                    break;
+                compressed.ensureWritable(Math.max(writable, 64));
+            }
+
+            if (frame.isFinalFragment()) {
+                if (endsWithTail(compressed))
+                    compressed.writerIndex(compressed.writerIndex() - TAIL.length);
+                if (noContextTakeover)
+                    deflater.reset();
+            }
+        } catch (Throwable t) {
+            compressed.release();
+            throw t;
+        }
+
+        out.add(replace(frame, rsv, compressed));
+    }
+
+    private static boolean endsWithTail(ByteBuf buf) {
+        int end = buf.writerIndex();
+        if (end - buf.readerIndex() < TAIL.length)
+            return false;
+        for (int i = 0; i < TAIL.length; i++) {
+            if (buf.getByte(end - TAIL.length + i) != TAIL[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (deflater != null) {
+            // release the native memory right away
+            deflater.end();
+            deflater = null;
+        }
+        super.handlerRemoved(ctx);
+    }
+}
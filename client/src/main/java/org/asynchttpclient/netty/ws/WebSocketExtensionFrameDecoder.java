@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+
+import java.util.List;
+
+/**
+ * Decodes the frames sent by the server when an extension that uses the RSV bits was negotiated.
+ *
+ * Netty's {@link io.netty.handler.codec.http.websocketx.WebSocket08FrameDecoder} validates the UTF-8 encoding of the raw text payloads, which
+ * fails as soon as they're compressed, so this decoder leaves the validation to the text decoding, once the extensions have been applied.
+ */
+public class WebSocketExtensionFrameDecoder extends ByteToMessageDecoder implements WebSocketFrameDecoder {
+
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+
+    private static final int STATUS_PROTOCOL_ERROR = 1002;
+    private static final int STATUS_MESSAGE_TOO_BIG = 1009;
+
+    private final long maxFramePayloadLength;
+    private final int extensionsRsv;
+    private boolean fragmented;
+    private boolean receivedClosingHandshake;
+
+    /**
+     * @param maxFramePayloadLength the maximum length of a frame's payload
+     * @param extensionsRsv the RSV bits used by the negotiated extensions, only allowed on the first frame of data messages
+     */
+    public WebSocketExtensionFrameDecoder(int maxFramePayloadLength, int extensionsRsv) {
+        this.maxFramePayloadLength = maxFramePayloadLength;
+        this.extensionsRsv = extensionsRsv;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (receivedClosingHandshake) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+
+        int start = in.readerIndex();
+        if (in.readableBytes() < 2)
+            return;
+
+        int b0 = in.getUnsignedByte(start);
+        int b1 = in.getUnsignedByte(start + 1);
+        boolean finalFragment = (b0 & 0x80) != 0;
+        int rsv = (b0 & 0x70) >> 4;
+        int opcode = b0 & 0x0F;
+        boolean masked = (b1 & 0x80) != 0;
+        int length7 = b1 & 0x7F;
+
+        int headerLength = length7 == 126 ? 4 : length7 == 127 ? 10 : 2;
+        if (in.readableBytes() < headerLength)
+            return;
+        long payloadLength = length7 == 126 ? in.getUnsignedShort(start + 2) : length7 == 127 ? in.getLong(start + 2) : length7;
+
+        String violation = null;
+        if (masked)
+            violation = "Received a masked frame from the server";
+        else if (opcode >= OPCODE_CLOSE) {
+            if (opcode != OPCODE_CLOSE && opcode != OPCODE_PING && opcode != OPCODE_PONG)
+                violation = "Unknown control frame opcode " + opcode;
+            else if (!finalFragment)
+                violation = "Fragmented control frame";
+            else if (payloadLength > 125)
+                violation = "Control frame payload longer than 125 bytes";
+            else if (rsv != 0)
+                violation = "RSV bits set on a control frame: " + rsv;
+            else if (opcode == OPCODE_CLOSE && payloadLength == 1)
+                violation = "Invalid close frame payload";
+        } else if (opcode != OPCODE_CONTINUATION && opcode != OPCODE_TEXT && opcode != OPCODE_BINARY)
+            violation = "Unknown data frame opcode " + opcode;
+        else if (opcode == OPCODE_CONTINUATION && !fragmented)
+            violation = "Continuation frame without a message to continue";
+        else if (opcode != OPCODE_CONTINUATION && fragmented)
+            violation = "Data frame received before the end of the fragmented message";
+        else if ((rsv & ~(opcode == OPCODE_CONTINUATION ? 0 : extensionsRsv)) != 0)
+            violation = "RSV bits not used by the negotiated extensions: " + rsv;
+
+        if (violation != null)
+            throw protocolViolation(ctx, in, STATUS_PROTOCOL_ERROR, violation);
+        if (payloadLength < 0 || payloadLength > maxFramePayloadLength)
+            throw protocolViolation(ctx, in, STATUS_MESSAGE_TOO_BIG, "Max frame length of " + maxFramePayloadLength + " has been exceeded");
+
+        if (in.readableBytes() < headerLength + payloadLength)
+            // wait for the whole frame
+            return;
+
+        in.skipBytes(headerLength);
+        ByteBuf payload = in.readSlice((int) payloadLength).retain();
+
+        switch (opcode) {
+        case OPCODE_TEXT:
+            out.add(new TextWebSocketFrame(finalFragment, rsv, payload));
+            break;
+        case OPCODE_BINARY:
+            out.add(new BinaryWebSocketFrame(finalFragment, rsv, payload));
+            break;
+        case OPCODE_CONTINUATION:
+            out.add(new ContinuationWebSocketFrame(finalFragment, rsv, payload));
+            break;
+        case OPCODE_PING:
+            out.add(new PingWebSocketFrame(finalFragment, rsv, payload));
+            return;
+        case OPCODE_PONG:
+            out.add(new PongWebSocketFrame(finalFragment, rsv, payload));
+            return;
+        default:
+            receivedClosingHandshake = true;
+            out.add(new CloseWebSocketFrame(finalFragment, rsv, payload));
+            return;
+        }
+        fragmented = !finalFragment;
+    }
+
+    private CorruptedFrameException protocolViolation(ChannelHandlerContext ctx, ByteBuf in, int statusCode, String reason) {
+        receivedClosingHandshake = true;
+        in.skipBytes(in.readableBytes());
+        if (ctx.channel().isActive())
+            ctx.writeAndFlush(new CloseWebSocketFrame(statusCode, reason)).addListener(ChannelFutureListener.CLOSE);
+        return new CorruptedFrameException(reason);
+    }
+}
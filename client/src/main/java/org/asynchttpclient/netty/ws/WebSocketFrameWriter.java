@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ws;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the frames of a WebSocket.
+ *
+ * Unless writes are coalesced, each frame is written and flushed on its own. Otherwise, frames are queued and written in batches from the
+ * event loop, with a single flush per batch, or each time the written bytes reach the flush threshold, so that a burst of small frames results
+ * in a few large socket writes instead of one per frame.
+ */
+final class WebSocketFrameWriter implements Runnable {
+
+    private final Channel channel;
+    private final boolean coalesce;
+    private final int flushThreshold;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    WebSocketFrameWriter(Channel channel, boolean coalesce, int flushThreshold) {
+        this.channel = channel;
+        this.coalesce = coalesce;
+        this.flushThreshold = flushThreshold;
+    }
+
+    void write(WebSocketFrame frame, ChannelPromise promise) {
+        if (!coalesce) {
+            channel.writeAndFlush(frame, promise);
+            return;
+        }
+
+        pendingWrites.offer(new PendingWrite(frame, promise));
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                channel.eventLoop().execute(this);
+            } catch (RejectedExecutionException e) {
+                // event loop shut down, the channel is closed
+                drainScheduled.set(false);
+                failPendingWrites(e);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        // before polling, so that frames offered from now on schedule another drain
+        drainScheduled.set(false);
+
+        boolean written = false;
+        int unflushedBytes = 0;
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            unflushedBytes += pendingWrite.frame.content().readableBytes();
+            channel.write(pendingWrite.frame, pendingWrite.promise);
+            written = true;
+            if (unflushedBytes >= flushThreshold) {
+                channel.flush();
+                unflushedBytes = 0;
+                written = false;
+            }
+        }
+        if (written)
+            channel.flush();
+    }
+
+    private void failPendingWrites(Throwable cause) {
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            pendingWrite.frame.release();
+            pendingWrite.promise.tryFailure(cause);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final WebSocketFrame frame;
+        private final ChannelPromise promise;
+
+        PendingWrite(WebSocketFrame frame, ChannelPromise promise) {
+            this.frame = frame;
+            this.promise = promise;
+        }
+    }
+}
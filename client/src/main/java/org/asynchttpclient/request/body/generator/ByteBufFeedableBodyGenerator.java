@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.request.body.Body;
+
+/**
+ * A {@link FeedableBodyGenerator} that takes ownership of the fed {@link ByteBuf}s and hands them over to the channel as is, without copying.
+ * <br>
+ * Feeding never blocks: producers are expected to stop once {@link #isReady()} turns false, and to resume when {@link #whenReady()} completes.
+ * The pending buffers are only drained while the channel is writable (see {@link io.netty.channel.Channel#isWritable()}), so that the whole
+ * pipeline stays bounded by the high water mark plus the channel's own write buffer.
+ * <pre>
+ *     void push() {
+ *         while (generator.isReady() &amp;&amp; source.hasMore())
+ *             generator.feed(source.next(), !source.hasMore());
+ *         if (source.hasMore())
+ *             generator.whenReady().thenRun(this::push);
+ *     }
+ * </pre>
+ * The readiness callbacks are notified from the channel's event loop, and mustn't block.
+ */
+public final class ByteBufFeedableBodyGenerator implements FeedableBodyGenerator {
+
+    public static final int DEFAULT_HIGH_WATER_MARK = 64 * 1024;
+    public static final int DEFAULT_LOW_WATER_MARK = 32 * 1024;
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    private final long highWaterMark;
+    private final long lowWaterMark;
+    private final Queue<ByteBuf> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    // true once the consumer ran out of buffers and has to be resumed
+    private final AtomicBoolean suspended = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<Void>> readyFuture = new AtomicReference<>();
+    private volatile boolean lastFed;
+    private volatile boolean closed;
+    private volatile FeedListener listener;
+
+    public ByteBufFeedableBodyGenerator() {
+        this(DEFAULT_HIGH_WATER_MARK, DEFAULT_LOW_WATER_MARK);
+    }
+
+    /**
+     * @param highWaterMark the number of pending bytes above which the generator stops being ready
+     * @param lowWaterMark the number of pending bytes below which the generator becomes ready again
+     */
+    public ByteBufFeedableBodyGenerator(int highWaterMark, int lowWaterMark) {
+        if (lowWaterMark < 0 || highWaterMark < lowWaterMark)
+            throw new IllegalArgumentException("Water marks must satisfy 0 <= lowWaterMark <= highWaterMark");
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+    }
+
+    @Override
+    public Body createBody() {
+        return new ByteBufBody();
+    }
+
+    /**
+     * Wraps the buffer without copying it, it mustn't be modified afterwards
+     */
+    @Override
+    public boolean feed(ByteBuffer buffer, boolean isLast) {
+        return feed(Unpooled.wrappedBuffer(buffer), isLast);
+    }
+
+    /**
+     * Queue a buffer, regardless of the generator being ready
+     *
+     * @param buf the buffer, that will be released once written
+     * @param isLast if this is the last buffer of the body
+     * @return false if the body was already closed, typically because the request failed, in which case the buffer was released
+     */
+    public boolean feed(ByteBuf buf, boolean isLast) {
+        if (closed) {
+            buf.release();
+            return false;
+        }
+
+        if (buf.isReadable()) {
+            pendingBytes.addAndGet(buf.readableBytes());
+            queue.offer(buf);
+        } else {
+            buf.release();
+        }
+        if (isLast)
+            lastFed = true;
+
+        if (closed)
+            // raced with close
+            releasePending();
+        else if (suspended.compareAndSet(true, false)) {
+            FeedListener listener = this.listener;
+            if (listener != null)
+                listener.onContentAdded();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the pending bytes are below the high water mark, or if the body was closed so that feeding fails fast
+     */
+    public boolean isReady() {
+        return closed || pendingBytes.get() < highWaterMark;
+    }
+
+    /**
+     * @return a future that completes once the pending bytes fall below the low water mark, already completed if the generator is ready
+     */
+    public CompletableFuture<Void> whenReady() {
+        if (isReady())
+            return READY;
+
+        CompletableFuture<Void> future;
+        for (;;) {
+            future = readyFuture.get();
+            if (future != null)
+                break;
+            CompletableFuture<Void> newFuture = new CompletableFuture<>();
+            if (readyFuture.compareAndSet(null, newFuture)) {
+                future = newFuture;
+                break;
+            }
+        }
+
+        // the buffers might have been drained before the future was published
+        if (closed || pendingBytes.get() <= lowWaterMark)
+            signalReady();
+        return future;
+    }
+
+    @Override
+    public void setListener(FeedListener listener) {
+        this.listener = listener;
+    }
+
+    private void signalReady() {
+        CompletableFuture<Void> future = readyFuture.getAndSet(null);
+        if (future != null)
+            future.complete(null);
+    }
+
+    private void releasePending() {
+        ByteBuf buf;
+        while ((buf = queue.poll()) != null) {
+            pendingBytes.addAndGet(-buf.readableBytes());
+            buf.release();
+        }
+    }
+
+    /**
+     * Drains the fed buffers. {@link org.asynchttpclient.netty.request.body.ByteBufBodyChunkedInput} writes them as is, while
+     * {@link #transferTo(ByteBuf)} is a copying fallback.
+     */
+    public final class ByteBufBody implements Body {
+
+        private boolean endOfInput;
+        // only used by transferTo
+        private ByteBuf current;
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        /**
+         * @return the next fed buffer, or null if there's none for now or if all of them were read
+         */
+        public ByteBuf readChunk() {
+            while (!endOfInput) {
+                // lastFed has to be read before polling, as it's set after offering
+                boolean last = lastFed;
+                ByteBuf buf = queue.poll();
+                if (buf != null) {
+                    long pending = pendingBytes.addAndGet(-buf.readableBytes());
+                    if (pending <= lowWaterMark && readyFuture.get() != null)
+                        signalReady();
+                    return buf;
+                }
+
+                if (last) {
+                    endOfInput = true;
+                    break;
+                }
+
+                suspended.set(true);
+                if (queue.isEmpty() && !lastFed)
+                    // the next feed will resume us
+                    return null;
+                // raced with a feed, at worst we'll be resumed for nothing
+                suspended.set(false);
+            }
+            return null;
+        }
+
+        public boolean isEndOfInput() {
+            return endOfInput;
+        }
+
+        @Override
+        public BodyState transferTo(ByteBuf target) {
+            boolean transferred = false;
+            while (target.isWritable()) {
+                if (current == null) {
+                    current = readChunk();
+                    if (current == null)
+                        return endOfInput ? BodyState.STOP : transferred ? BodyState.CONTINUE : BodyState.SUSPEND;
+                }
+
+                target.writeBytes(current, Math.min(current.readableBytes(), target.writableBytes()));
+                transferred = true;
+                if (!current.isReadable()) {
+                    current.release();
+                    current = null;
+                }
+            }
+            return BodyState.CONTINUE;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+            releasePending();
+            // let waiting producers find out that the body is closed
+            signalReady();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.resolver;
+
+import io.netty.bootstrap.ChannelFactory;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.resolver.NameResolver;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsCache;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.InflightNameResolver;
+import io.netty.util.concurrent.Promise;
+
+import java.io.Closeable;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.asynchttpclient.AsyncHttpClientConfig;
+
+/**
+ * Lazily creates one non-blocking {@link io.netty.resolver.dns.DnsNameResolver} per event loop.
+ *
+ * The resolvers share a single cache, and concurrent resolutions of the same hostname are coalesced into a single query, whichever event loop
+ * they're issued from.
+ */
+public class DnsNameResolverGroup implements Closeable {
+
+    private final AsyncHttpClientConfig config;
+    private final EventLoopGroup eventLoopGroup;
+    private final ChannelFactory<? extends DatagramChannel> channelFactory;
+    private final DnsCache resolveCache = new DefaultDnsCache();
+    private final ConcurrentHashMap<String, Promise<InetAddress>> resolvesInProgress = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Promise<List<InetAddress>>> resolveAllsInProgress = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<EventLoop, NameResolver<InetAddress>> resolvers = new ConcurrentHashMap<>();
+
+    public DnsNameResolverGroup(AsyncHttpClientConfig config, EventLoopGroup eventLoopGroup, ChannelFactory<? extends DatagramChannel> channelFactory) {
+        this.config = config;
+        this.eventLoopGroup = eventLoopGroup;
+        this.channelFactory = channelFactory;
+    }
+
+    /**
+     * @return the resolver of the next event loop of the group
+     */
+    public NameResolver<InetAddress> next() {
+        return get(eventLoopGroup.next());
+    }
+
+    /**
+     * @param eventLoop the event loop
+     * @return the resolver that runs on this event loop
+     */
+    public NameResolver<InetAddress> get(EventLoop eventLoop) {
+        NameResolver<InetAddress> resolver = resolvers.get(eventLoop);
+        if (resolver == null)
+            resolver = resolvers.computeIfAbsent(eventLoop, this::newResolver);
+        return resolver;
+    }
+
+    private NameResolver<InetAddress> newResolver(EventLoop eventLoop) {
+        NameResolver<InetAddress> dnsNameResolver = new DnsNameResolverBuilder(eventLoop)//
+                .channelFactory(channelFactory)//
+                .resolveCache(resolveCache)//
+                .queryTimeoutMillis(config.getDnsQueryTimeout())//
+                .build();
+        return new InflightNameResolver<>(eventLoop, dnsNameResolver, resolvesInProgress, resolveAllsInProgress);
+    }
+
+    /**
+     * @return the cache shared by all the resolvers
+     */
+    public DnsCache getResolveCache() {
+        return resolveCache;
+    }
+
+    @Override
+    public void close() {
+        for (NameResolver<InetAddress> resolver : resolvers.values())
+            resolver.close();
+        resolvers.clear();
+        resolveCache.clear();
+    }
+}
@@ -14,6 +14,7 @@
 package org.asynchttpclient.resolver;
 
 import static org.asynchttpclient.handler.AsyncHandlerExtensionsUtils.toAsyncHandlerExtensions;
+import io.netty.resolver.NameResolver;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 import io.netty.util.concurrent.Promise;
@@ -35,7 +36,7 @@ public enum RequestHostnameResolver {
 
     INSTANCE;
 
-    public Future<List<InetSocketAddress>> resolve(Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler) {
+    public Future<List<InetSocketAddress>> resolve(NameResolver<InetAddress> nameResolver, Request request, ProxyServer proxy, AsyncHandler<?> asyncHandler) {
 
         Uri uri = request.getUri();
         final Promise<List<InetSocketAddress>> promise = ImmediateEventExecutor.INSTANCE.newPromise();
@@ -61,7 +62,7 @@ public enum RequestHostnameResolver {
         if (asyncHandlerExtensions != null)
             asyncHandlerExtensions.onHostnameResolutionAttempt(name);
 
-        final Future<List<InetAddress>> whenResolved = request.getNameResolver().resolveAll(name);
+        final Future<List<InetAddress>> whenResolved = nameResolver.resolveAll(name);
 
         whenResolved.addListener(new SimpleFutureListener<List<InetAddress>>() {
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import static org.asynchttpclient.util.HttpConstants.Methods.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+
+/**
+ * A {@link RetryPolicy} with jittered exponential backoff.
+ * <ul>
+ * <li>{@link IOException}s, such as a failure to connect or a connection closed before the response is received, are retried for any method,
+ * just like without a retry policy.</li>
+ * <li>Responses with one of the retryable statuses are only retried for idempotent methods. A <code>Retry-After</code> header in seconds is
+ * honored, unless it exceeds the max delay in which case the response isn't retried.</li>
+ * </ul>
+ * The delay before the n-th retry is drawn uniformly between 0 and <code>min(maxDelay, baseDelay * 2^(n-1))</code> ("full jitter"), so that
+ * clients that failed together don't retry together.
+ * <br>
+ * If a {@link RetryBudget} is set, it's credited with each response that isn't retried, and charged for each retry.
+ */
+public class DefaultRetryPolicy implements RetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_BASE_DELAY = 50;
+    public static final long DEFAULT_MAX_DELAY = 2000;
+    public static final Set<Integer> DEFAULT_RETRYABLE_STATUSES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(502, 503, 504)));
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(GET, HEAD, OPTIONS, PUT, DELETE, TRACE));
+
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Set<Integer> retryableStatuses;
+    private final RetryBudget retryBudget;
+
+    public DefaultRetryPolicy() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_RETRYABLE_STATUSES, new RetryBudget());
+    }
+
+    /**
+     * @param maxRetries the max number of retries per request
+     * @param baseDelay the cap of the first retry's delay in ms, doubled for each subsequent retry
+     * @param maxDelay the max delay in ms
+     * @param retryableStatuses the response statuses to retry
+     * @param retryBudget the client-wide budget, or null for unbounded retries
+     */
+    public DefaultRetryPolicy(int maxRetries, long baseDelay, long maxDelay, Set<Integer> retryableStatuses, RetryBudget retryBudget) {
+        if (maxRetries < 0 || baseDelay < 0 || maxDelay < baseDelay)
+            throw new IllegalArgumentException("Must satisfy 0 <= maxRetries, and 0 <= baseDelay <= maxDelay");
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.retryableStatuses = retryableStatuses;
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public long getRetryDelay(Request request, int retry, Throwable cause) {
+        if (retry > maxRetries || !(cause instanceof IOException))
+            return -1L;
+        return withdraw(backoff(retry));
+    }
+
+    @Override
+    public long getRetryDelay(Request request, int retry, HttpResponseStatus status, HttpResponseHeaders headers) {
+        if (!retryableStatuses.contains(status.getStatusCode())) {
+            if (retryBudget != null)
+                retryBudget.deposit();
+            return -1L;
+        }
+
+        if (retry > maxRetries || !IDEMPOTENT_METHODS.contains(request.getMethod()))
+            return -1L;
+
+        long delay = backoff(retry);
+        String retryAfter = headers.getHeaders().get("Retry-After");
+        if (retryAfter != null) {
+            try {
+                long retryAfterDelay = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+                if (retryAfterDelay > maxDelay)
+                    return -1L;
+                delay = Math.max(delay, retryAfterDelay);
+            } catch (NumberFormatException e) {
+                // HTTP-date, ignore
+            }
+        }
+        return withdraw(delay);
+    }
+
+    private long backoff(int retry) {
+        long cap = Math.min(maxDelay, baseDelay << Math.min(retry - 1, 30));
+        return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0L;
+    }
+
+    private long withdraw(long delay) {
+        return retryBudget == null || retryBudget.tryWithdraw() ? delay : -1L;
+    }
+}
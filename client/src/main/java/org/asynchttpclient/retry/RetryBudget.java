@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client-wide token bucket that bounds retries to a ratio of the successful traffic, so that a failing dependency can't trigger a retry
+ * storm that multiplies the load.
+ * <br>
+ * Each successful response deposits <code>retryRatio</code> tokens, and each retry withdraws one. A floor of <code>minRetriesPerSecond</code>
+ * tokens is also refilled over time, so that low traffic clients can still retry. The balance is capped to <code>maxBalance</code> tokens.
+ */
+public class RetryBudget {
+
+    public static final double DEFAULT_RETRY_RATIO = 0.1;
+    public static final int DEFAULT_MIN_RETRIES_PER_SECOND = 10;
+    public static final int DEFAULT_MAX_BALANCE = 100;
+
+    // tokens are stored in thousandths, so that fractional deposits don't get lost
+    private static final long UNIT = 1000;
+
+    private final long deposit;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+
+    public RetryBudget() {
+        this(DEFAULT_RETRY_RATIO, DEFAULT_MIN_RETRIES_PER_SECOND, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * @param retryRatio the number of retries allowed per successful response, e.g. 0.1 for 10%
+     * @param minRetriesPerSecond the number of retries allowed per second regardless of the traffic
+     * @param maxBalance the max number of retries that can be saved up
+     */
+    public RetryBudget(double retryRatio, int minRetriesPerSecond, int maxBalance) {
+        if (retryRatio < 0.0 || minRetriesPerSecond < 0 || maxBalance <= 0)
+            throw new IllegalArgumentException("retryRatio and minRetriesPerSecond must be positive or zero, and maxBalance positive");
+        deposit = (long) (retryRatio * UNIT);
+        refillPerSecond = minRetriesPerSecond * UNIT;
+        this.maxBalance = maxBalance * UNIT;
+        balance = new AtomicLong(Math.min(refillPerSecond, this.maxBalance));
+    }
+
+    /**
+     * Notify a successful response.
+     */
+    public void deposit() {
+        add(deposit);
+    }
+
+    /**
+     * @return true if a retry is allowed, in which case the budget was charged for it
+     */
+    public boolean tryWithdraw() {
+        refill();
+        for (;;) {
+            long current = balance.get();
+            if (current < UNIT)
+                return false;
+            if (balance.compareAndSet(current, current - UNIT))
+                return true;
+        }
+    }
+
+    /**
+     * @return the number of retries currently allowed
+     */
+    public int getBalance() {
+        refill();
+        return (int) (balance.get() / UNIT);
+    }
+
+    private void refill() {
+        if (refillPerSecond == 0)
+            return;
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long tokens = (long) Math.min(maxBalance, (double) (now - last) * refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+        // only advance the clock when at least a thousandth of token was earned, and only once for concurrent callers
+        if (tokens > 0 && lastRefillNanos.compareAndSet(last, now))
+            add(tokens);
+    }
+
+    private void add(long tokens) {
+        for (;;) {
+            long current = balance.get();
+            long next = Math.min(maxBalance, current + tokens);
+            if (next == current || balance.compareAndSet(current, next))
+                return;
+        }
+    }
+}
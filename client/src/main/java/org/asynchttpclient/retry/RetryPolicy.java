@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+
+/**
+ * Decides which failed requests get retried, and when.
+ * <br>
+ * When configured, it replaces {@link org.asynchttpclient.AsyncHttpClientConfig#getMaxRequestRetry()} for the requests that fail to connect or
+ * whose connection gets closed before the response is received, and it can also retry requests depending on their response status. Retries
+ * are scheduled on the client's {@link io.netty.util.Timer}, and remain bounded by the request timeout.
+ * <br>
+ * Methods are invoked on I/O threads, so implementations must be thread safe, fast and non blocking.
+ */
+public interface RetryPolicy {
+
+    /**
+     * @param request the request that failed
+     * @param retry the number of the retry that would be performed, starting at 1
+     * @param cause the failure
+     * @return the delay in ms before retrying, or a negative value not to retry
+     */
+    long getRetryDelay(Request request, int retry, Throwable cause);
+
+    /**
+     * Invoked with the status of each response before it's notified to the handler, including the responses that aren't retried, so that
+     * implementations can track the successful traffic.
+     *
+     * @param request the request
+     * @param retry the number of the retry that would be performed, starting at 1
+     * @param status the response status
+     * @param headers the response headers
+     * @return the delay in ms before retrying, or a negative value to let the handler process the response
+     */
+    long getRetryDelay(Request request, int retry, HttpResponseStatus status, HttpResponseHeaders headers);
+}
@@ -12,6 +12,7 @@
  */
 package org.asynchttpclient.webdav;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.InputStream;
@@ -55,6 +56,14 @@ public class WebDavResponse implements Response {
         return response.getResponseBodyAsByteBuffer();
     }
 
+    public ByteBuf getResponseBodyAsByteBuf() {
+        return response.getResponseBodyAsByteBuf();
+    }
+
+    public void release() {
+        response.release();
+    }
+
     public InputStream getResponseBodyAsStream() {
         return response.getResponseBodyAsStream();
     }
@@ -0,0 +1,556 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link WebSocket} that reconnects whenever the connection is lost, until it's closed.
+ *
+ * Each connection is upgraded with a handler that has the options of the prototype {@link WebSocketUpgradeHandler}, so that keep-alive pings
+ * (see {@link WebSocketUpgradeHandler.Builder#setPingInterval(int)}) detect dead connections. Reconnections are scheduled on the client's timer
+ * with an exponential backoff, of which only the upper half is used and the rest is randomized, so that the clients of a restarting server don't
+ * reconnect in lockstep. The resume handler is notified on each reconnection, typically to replay the subscriptions.
+ * <pre>
+ *     ManagedWebSocket websocket = client.prepareManagedWebSocket(request, upgradeHandler)//
+ *             .setResumeHandler(connection -&gt; connection.sendMessage(subscription))//
+ *             .build();
+ *     websocket.connect().get();
+ *     websocket.sendMessage(subscription);
+ * </pre>
+ * The listeners are notified for each connection, and messages sent while disconnected are dropped, the asynchronous sends fail.
+ */
+public class ManagedWebSocket implements WebSocket {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ManagedWebSocket.class);
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    public static final int DEFAULT_INITIAL_RECONNECT_DELAY = 500;
+    public static final int DEFAULT_MAX_RECONNECT_DELAY = 30000;
+
+    private final AsyncHttpClient client;
+    private final Timer nettyTimer;
+    private final Request request;
+    private final WebSocketUpgradeHandler prototype;
+    private final int initialReconnectDelay;
+    private final int maxReconnectDelay;
+    private final int maxReconnectAttempts;
+    private final Consumer<WebSocket> resumeHandler;
+    private final List<WebSocketListener> listeners;
+    private final CompletableFuture<WebSocket> connectFuture = new CompletableFuture<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<WebSocket> current = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Void>> connectedFuture = new AtomicReference<>();
+    private volatile boolean closed;
+    private volatile Timeout reconnectTimeout;
+    // only modified from the connect callbacks, that never overlap
+    private volatile int attempts;
+    private volatile boolean connectedOnce;
+
+    private ManagedWebSocket(AsyncHttpClient client,//
+            Timer nettyTimer,//
+            Request request,//
+            WebSocketUpgradeHandler prototype,//
+            int initialReconnectDelay,//
+            int maxReconnectDelay,//
+            int maxReconnectAttempts,//
+            Consumer<WebSocket> resumeHandler) {
+        this.client = client;
+        this.nettyTimer = nettyTimer;
+        this.request = request;
+        this.prototype = prototype;
+        this.initialReconnectDelay = initialReconnectDelay;
+        this.maxReconnectDelay = maxReconnectDelay;
+        this.maxReconnectAttempts = maxReconnectAttempts;
+        this.resumeHandler = resumeHandler;
+        listeners = new CopyOnWriteArrayList<>(prototype.getListeners());
+        listeners.add(new ConnectionListener());
+    }
+
+    /**
+     * Open the first connection, retrying with the reconnection policy if it fails
+     *
+     * @return a future that completes once connected, or exceptionally if the reconnection attempts are exhausted or if the WebSocket is closed
+     */
+    public CompletableFuture<WebSocket> connect() {
+        if (started.compareAndSet(false, true))
+            attempt();
+        return connectFuture;
+    }
+
+    private void attempt() {
+        if (closed)
+            return;
+        if (client.isClosed()) {
+            giveUp(new IOException("Client closed"));
+            return;
+        }
+
+        CompletableFuture<WebSocket> future;
+        try {
+            future = client.executeRequest(request, prototype.withListeners(listeners)).toCompletableFuture();
+        } catch (Exception e) {
+            // eg the client was closed concurrently, or a request filter crashed
+            scheduleReconnect(e);
+            return;
+        }
+
+        future.whenComplete((webSocket, t) -> {
+            if (t == null && webSocket != null)
+                onConnected(webSocket);
+            else
+                scheduleReconnect(t != null ? t : new IOException("WebSocket upgrade failed"));
+        });
+    }
+
+    private void onConnected(WebSocket webSocket) {
+        if (closed) {
+            closeQuietly(webSocket);
+            return;
+        }
+
+        attempts = 0;
+        if (connectedOnce && resumeHandler != null) {
+            // before publishing the connection, so that the replayed messages go first
+            try {
+                resumeHandler.accept(webSocket);
+            } catch (Exception e) {
+                LOGGER.warn("Resume handler crash", e);
+            }
+        }
+        connectedOnce = true;
+
+        current.set(webSocket);
+        if (!webSocket.isOpen()) {
+            // lost before we got to publish it
+            onDisconnected(webSocket);
+            return;
+        }
+        connectFuture.complete(this);
+        signalConnected();
+    }
+
+    private void onDisconnected(WebSocket webSocket) {
+        if (current.compareAndSet(webSocket, null) && !closed)
+            scheduleReconnect(new IOException("Connection lost"));
+    }
+
+    private void scheduleReconnect(Throwable cause) {
+        if (closed)
+            return;
+
+        int attempt = ++attempts;
+        if (maxReconnectAttempts >= 0 && attempt > maxReconnectAttempts) {
+            giveUp(cause);
+            return;
+        }
+
+        long delay = reconnectDelay(attempt);
+        LOGGER.debug("Reconnecting to {} in {} ms, attempt {}", request.getUri(), delay, attempt);
+        try {
+            reconnectTimeout = nettyTimer.newTimeout(timeout -> attempt(), delay, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // the timer was stopped, the client is closed
+            giveUp(cause);
+        }
+    }
+
+    private long reconnectDelay(int attempt) {
+        long backoff = Math.min((long) initialReconnectDelay << Math.min(attempt - 1, 30), maxReconnectDelay);
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private void giveUp(Throwable cause) {
+        closed = true;
+        LOGGER.debug("Giving up on reconnecting to {}", request.getUri(), cause);
+        connectFuture.completeExceptionally(cause);
+        signalConnected();
+    }
+
+    private void signalConnected() {
+        CompletableFuture<Void> future = connectedFuture.getAndSet(null);
+        if (future != null)
+            future.complete(null);
+    }
+
+    /**
+     * @return the current connection, null while reconnecting
+     */
+    public WebSocket getConnection() {
+        return current.get();
+    }
+
+    /**
+     * @return the number of failed connection attempts since the last successful one
+     */
+    public int getReconnectAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public HttpHeaders getUpgradeHeaders() {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.getUpgradeHeaders() : null;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.getRemoteAddress() : null;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.getLocalAddress() : null;
+    }
+
+    @Override
+    public WebSocket sendMessage(byte[] message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendMessage(message);
+        return this;
+    }
+
+    @Override
+    public WebSocket stream(byte[] fragment, boolean last) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.stream(fragment, last);
+        return this;
+    }
+
+    @Override
+    public WebSocket stream(byte[] fragment, int offset, int len, boolean last) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.stream(fragment, offset, len, last);
+        return this;
+    }
+
+    @Override
+    public WebSocket sendMessage(String message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendMessage(message);
+        return this;
+    }
+
+    @Override
+    public WebSocket stream(String fragment, boolean last) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.stream(fragment, last);
+        return this;
+    }
+
+    @Override
+    public WebSocket sendPing(byte[] payload) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendPing(payload);
+        return this;
+    }
+
+    @Override
+    public WebSocket sendPong(byte[] payload) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendPong(payload);
+        return this;
+    }
+
+    @Override
+    public WebSocket sendMessage(ByteBuf message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendMessage(message);
+        else
+            message.release();
+        return this;
+    }
+
+    @Override
+    public WebSocket sendTextMessage(ByteBuf message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.sendTextMessage(message);
+        else
+            message.release();
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(byte[] message) {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.sendMessageAsync(message) : disconnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> streamAsync(byte[] fragment, int offset, int len, boolean last) {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.streamAsync(fragment, offset, len, last) : disconnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(String message) {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.sendMessageAsync(message) : disconnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> streamAsync(String fragment, boolean last) {
+        WebSocket webSocket = current.get();
+        return webSocket != null ? webSocket.streamAsync(fragment, last) : disconnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(ByteBuf message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            return webSocket.sendMessageAsync(message);
+        message.release();
+        return disconnected();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendTextMessageAsync(ByteBuf message) {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            return webSocket.sendTextMessageAsync(message);
+        message.release();
+        return disconnected();
+    }
+
+    private CompletableFuture<Void> disconnected() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(new IOException(closed ? "WebSocket closed" : "WebSocket disconnected, reconnecting"));
+        return future;
+    }
+
+    @Override
+    public boolean isWritable() {
+        WebSocket webSocket = current.get();
+        return webSocket != null && webSocket.isWritable();
+    }
+
+    /**
+     * @return a future that completes once the current connection is writable, once reconnected if disconnected, or once closed
+     */
+    @Override
+    public CompletableFuture<Void> whenWritable() {
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            return webSocket.whenWritable();
+        if (closed)
+            return READY;
+
+        CompletableFuture<Void> future;
+        for (;;) {
+            future = connectedFuture.get();
+            if (future != null)
+                break;
+            CompletableFuture<Void> newFuture = new CompletableFuture<>();
+            if (connectedFuture.compareAndSet(null, newFuture)) {
+                future = newFuture;
+                break;
+            }
+        }
+
+        // might have reconnected, or have been closed, before the future was published
+        if (current.get() != null || closed)
+            signalConnected();
+        return future.thenCompose(v -> {
+            WebSocket connection = current.get();
+            return connection != null ? connection.whenWritable() : READY;
+        });
+    }
+
+    @Override
+    public WebSocket addWebSocketListener(WebSocketListener l) {
+        listeners.add(l);
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.addWebSocketListener(l);
+        return this;
+    }
+
+    @Override
+    public WebSocket removeWebSocketListener(WebSocketListener l) {
+        listeners.remove(l);
+        WebSocket webSocket = current.get();
+        if (webSocket != null)
+            webSocket.removeWebSocketListener(l);
+        return this;
+    }
+
+    /**
+     * @return true if currently connected, false while reconnecting
+     */
+    @Override
+    public boolean isOpen() {
+        WebSocket webSocket = current.get();
+        return webSocket != null && webSocket.isOpen();
+    }
+
+    /**
+     * @return true once closed, or once the reconnection attempts are exhausted
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Close the current connection, and stop reconnecting
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Timeout reconnectTimeout = this.reconnectTimeout;
+        if (reconnectTimeout != null)
+            reconnectTimeout.cancel();
+        WebSocket webSocket = current.getAndSet(null);
+        if (webSocket != null)
+            closeQuietly(webSocket);
+        connectFuture.completeExceptionally(new IOException("WebSocket closed"));
+        signalConnected();
+    }
+
+    private static void closeQuietly(WebSocket webSocket) {
+        try {
+            webSocket.close();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close {}", webSocket, e);
+        }
+    }
+
+    private final class ConnectionListener implements WebSocketListener {
+
+        @Override
+        public void onOpen(WebSocket websocket) {
+        }
+
+        @Override
+        public void onClose(WebSocket websocket) {
+            onDisconnected(websocket);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+    }
+
+    /**
+     * Build a {@link ManagedWebSocket}
+     */
+    public static final class Builder {
+
+        private final AsyncHttpClient client;
+        private final Timer nettyTimer;
+        private final Request request;
+        private final WebSocketUpgradeHandler prototype;
+        private int initialReconnectDelay = DEFAULT_INITIAL_RECONNECT_DELAY;
+        private int maxReconnectDelay = DEFAULT_MAX_RECONNECT_DELAY;
+        private int maxReconnectAttempts = -1;
+        private Consumer<WebSocket> resumeHandler;
+
+        /**
+         * @param client the client the connections are opened with
+         * @param nettyTimer the timer the reconnections are scheduled on
+         * @param request the upgrade request
+         * @param prototype the handler whose listeners and options are used for each connection, it's never executed itself
+         */
+        public Builder(AsyncHttpClient client, Timer nettyTimer, Request request, WebSocketUpgradeHandler prototype) {
+            this.client = client;
+            this.nettyTimer = nettyTimer;
+            this.request = request;
+            this.prototype = prototype;
+        }
+
+        /**
+         * @param initialReconnectDelay the upper bound of the delay before the first reconnection attempt, in ms, doubled on each attempt
+         * @return this
+         */
+        public Builder setInitialReconnectDelay(int initialReconnectDelay) {
+            if (initialReconnectDelay <= 0)
+                throw new IllegalArgumentException("initialReconnectDelay must be positive");
+            this.initialReconnectDelay = initialReconnectDelay;
+            return this;
+        }
+
+        /**
+         * @param maxReconnectDelay the upper bound of the delay between reconnection attempts, in ms
+         * @return this
+         */
+        public Builder setMaxReconnectDelay(int maxReconnectDelay) {
+            if (maxReconnectDelay <= 0)
+                throw new IllegalArgumentException("maxReconnectDelay must be positive");
+            this.maxReconnectDelay = maxReconnectDelay;
+            return this;
+        }
+
+        /**
+         * @param maxReconnectAttempts the number of consecutive failed attempts after which the WebSocket gets closed, -1 to retry forever
+         * @return this
+         */
+        public Builder setMaxReconnectAttempts(int maxReconnectAttempts) {
+            this.maxReconnectAttempts = maxReconnectAttempts;
+            return this;
+        }
+
+        /**
+         * @param resumeHandler notified with the new connection once reconnected, before it's used for the other sends, typically to replay
+         *            the subscriptions
+         * @return this
+         */
+        public Builder setResumeHandler(Consumer<WebSocket> resumeHandler) {
+            this.resumeHandler = resumeHandler;
+            return this;
+        }
+
+        /**
+         * Build a {@link ManagedWebSocket}, that's only connected by {@link ManagedWebSocket#connect()}
+         *
+         * @return a {@link ManagedWebSocket}
+         */
+        public ManagedWebSocket build() {
+            if (maxReconnectDelay < initialReconnectDelay)
+                throw new IllegalArgumentException("maxReconnectDelay can't be lower than initialReconnectDelay");
+            return new ManagedWebSocket(client, nettyTimer, request, prototype, initialReconnectDelay, maxReconnectDelay, maxReconnectAttempts,
+                    resumeHandler);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.CharacterCodingException;
+
+import org.asynchttpclient.netty.util.Utf8ByteBufCharsetDecoder;
+
+/**
+ * A text message backed by its UTF-8 encoded network buffer. It's only decoded, once, when it's first accessed as characters, so that messages
+ * that are routed or parsed from their bytes never get turned into Strings.
+ * <br>
+ * The content is only valid during the {@link WebSocketUtf8TextListener#onMessage(Utf8Text)} callback, it has to be decoded or retained to be
+ * used afterwards.
+ */
+public final class Utf8Text implements CharSequence {
+
+    private final ByteBuf content;
+    private String text;
+
+    public Utf8Text(ByteBuf content) {
+        this.content = content;
+    }
+
+    /**
+     * @return the UTF-8 encoded message
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * @return the decoded message
+     * @throws IllegalStateException if the content isn't valid UTF-8
+     */
+    @Override
+    public String toString() {
+        if (text == null) {
+            try {
+                text = Utf8ByteBufCharsetDecoder.decodeUtf8(content);
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return text;
+    }
+}
@@ -12,10 +12,12 @@
  */
 package org.asynchttpclient.ws;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 
 import java.io.Closeable;
 import java.net.SocketAddress;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A WebSocket client
@@ -103,6 +105,89 @@ public interface WebSocket extends Closeable {
      */
     WebSocket sendPong(byte[] payload);
 
+    /**
+     * Send a binary message without copying it.
+     * 
+     * @param message the payload, that will be released once written, and mustn't be modified afterwards
+     * @return this
+     */
+    WebSocket sendMessage(ByteBuf message);
+
+    /**
+     * Send a text message that's already UTF-8 encoded, without copying it.
+     * 
+     * @param message the UTF-8 encoded payload, that will be released once written, and mustn't be modified afterwards
+     * @return this
+     */
+    WebSocket sendTextMessage(ByteBuf message);
+
+    /**
+     * Send a byte message, and get notified once it's been written to the socket.
+     * 
+     * @param message a byte message
+     * @return a future that completes once the message has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> sendMessageAsync(byte[] message);
+
+    /**
+     * Send a binary fragment, and get notified once it's been written to the socket.
+     * 
+     * @param fragment binary fragment.
+     * @param offset starting offset.
+     * @param len length.
+     * @param last flag indicating whether or not this is the last fragment.
+     * @return a future that completes once the fragment has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> streamAsync(byte[] fragment, int offset, int len, boolean last);
+
+    /**
+     * Send a text message, and get notified once it's been written to the socket.
+     * 
+     * @param message a text message
+     * @return a future that completes once the message has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> sendMessageAsync(String message);
+
+    /**
+     * Send a text fragment, and get notified once it's been written to the socket.
+     * 
+     * @param fragment text fragment.
+     * @param last flag indicating whether or not this is the last fragment.
+     * @return a future that completes once the fragment has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> streamAsync(String fragment, boolean last);
+
+    /**
+     * Send a binary message without copying it, and get notified once it's been written to the socket.
+     * 
+     * @param message the payload, that will be released once written, and mustn't be modified afterwards
+     * @return a future that completes once the message has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> sendMessageAsync(ByteBuf message);
+
+    /**
+     * Send a text message that's already UTF-8 encoded without copying it, and get notified once it's been written to the socket.
+     * 
+     * @param message the UTF-8 encoded payload, that will be released once written, and mustn't be modified afterwards
+     * @return a future that completes once the message has been written, or completes exceptionally if the write failed
+     */
+    CompletableFuture<Void> sendTextMessageAsync(ByteBuf message);
+
+    /**
+     * Producers should stop sending once this turns false, and resume when {@link #whenWritable()} completes, so that the pending messages
+     * stay bounded by the channel's write buffer high water mark.
+     * 
+     * @return <code>true</code> if the pending outbound bytes are below the channel's write buffer high water mark
+     */
+    boolean isWritable();
+
+    /**
+     * The callbacks are notified from the channel's event loop, and mustn't block.
+     * 
+     * @return a future that completes once the WebSocket becomes writable again, or is closed, already completed if it's writable
+     */
+    CompletableFuture<Void> whenWritable();
+
     /**
      * Add a {@link WebSocketListener}
      * 
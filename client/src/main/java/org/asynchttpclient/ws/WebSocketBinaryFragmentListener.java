@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A {@link WebSocketListener} that receives binary messages frame by frame, as they arrive, so that arbitrarily large messages can be piped
+ * somewhere else with a constant memory footprint.
+ *
+ * It has to be registered on the {@link WebSocketUpgradeHandler}: binary messages are then no longer aggregated, so that
+ * {@link WebSocketByteListener}s only get the ones that were sent in a single frame.
+ */
+public interface WebSocketBinaryFragmentListener extends WebSocketListener {
+
+    /**
+     * Invoked for each frame of a binary message.
+     *
+     * @param fragment the payload of the frame, only valid during the callback unless it's retained, in which case it has to be released
+     * @param last true if this is the last frame of the message
+     */
+    void onBinaryFragment(ByteBuf fragment, boolean last);
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A {@link WebSocketListener} for binary messages, that gets the network buffers as is instead of copying them into byte arrays
+ */
+public interface WebSocketByteBufListener extends WebSocketListener {
+
+    /**
+     * Invoked when a binary message is received.
+     * 
+     * @param message the payload, only valid during the callback unless it's retained, in which case it has to be released
+     */
+    void onMessage(ByteBuf message);
+}
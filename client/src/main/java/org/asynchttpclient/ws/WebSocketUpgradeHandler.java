@@ -30,15 +30,126 @@ public class WebSocketUpgradeHandler implements UpgradeHandler<WebSocket>, Async
 
     private static final int SWITCHING_PROTOCOLS = io.netty.handler.codec.http.HttpResponseStatus.SWITCHING_PROTOCOLS.code();
 
+    public static final int DEFAULT_FLUSH_THRESHOLD = 32 * 1024;
+
     private WebSocket webSocket;
     private final List<WebSocketListener> listeners;
+    private final boolean perMessageDeflate;
+    private final boolean clientNoContextTakeover;
+    private final boolean serverNoContextTakeover;
+    private final int serverMaxWindowBits;
+    private final boolean coalesceWrites;
+    private final int flushThreshold;
+    private final int pingInterval;
+    private final int pongTimeout;
     private final AtomicBoolean ok = new AtomicBoolean(false);
     private boolean onSuccessCalled;
     private int status;
     private List<Runnable> bufferedFrames;
 
     public WebSocketUpgradeHandler(List<WebSocketListener> listeners) {
+        this(listeners, false, false, false, 0, false, DEFAULT_FLUSH_THRESHOLD, 0, 0);
+    }
+
+    public WebSocketUpgradeHandler(List<WebSocketListener> listeners,//
+            boolean perMessageDeflate,//
+            boolean clientNoContextTakeover,//
+            boolean serverNoContextTakeover,//
+            int serverMaxWindowBits,//
+            boolean coalesceWrites,//
+            int flushThreshold,//
+            int pingInterval,//
+            int pongTimeout) {
         this.listeners = listeners;
+        this.perMessageDeflate = perMessageDeflate;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.serverMaxWindowBits = serverMaxWindowBits;
+        this.coalesceWrites = coalesceWrites;
+        this.flushThreshold = flushThreshold;
+        this.pingInterval = pingInterval;
+        this.pongTimeout = pongTimeout;
+    }
+
+    /**
+     * @param listeners the listeners
+     * @return a new handler with the same options, to upgrade another connection
+     */
+    WebSocketUpgradeHandler withListeners(List<WebSocketListener> listeners) {
+        return new WebSocketUpgradeHandler(listeners, perMessageDeflate, clientNoContextTakeover, serverNoContextTakeover, serverMaxWindowBits, coalesceWrites,
+                flushThreshold, pingInterval, pongTimeout);
+    }
+
+    List<WebSocketListener> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * @return true if the permessage-deflate extension (RFC 7692) is offered to the server
+     */
+    public boolean isPerMessageDeflate() {
+        return perMessageDeflate;
+    }
+
+    public boolean isClientNoContextTakeover() {
+        return clientNoContextTakeover;
+    }
+
+    public boolean isServerNoContextTakeover() {
+        return serverNoContextTakeover;
+    }
+
+    /**
+     * @return the LZ77 window size, as a base-2 logarithm, that the server is asked not to exceed when compressing, 0 if unspecified
+     */
+    public int getServerMaxWindowBits() {
+        return serverMaxWindowBits;
+    }
+
+    /**
+     * @return true if the frames sent on the WebSocket are written in batches, with one flush per batch
+     */
+    public boolean isCoalesceWrites() {
+        return coalesceWrites;
+    }
+
+    /**
+     * @return the number of bytes written in a batch after which the channel gets flushed without waiting for the end of the batch
+     */
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    /**
+     * @return the period after which an idle WebSocket gets pinged, in ms, 0 if keep-alive is disabled
+     */
+    public int getPingInterval() {
+        return pingInterval;
+    }
+
+    /**
+     * @return the time to wait for a frame after a ping before closing the connection, in ms, 0 to never close it
+     */
+    public int getPongTimeout() {
+        return pongTimeout;
+    }
+
+    /**
+     * @return true if a {@link WebSocketBinaryFragmentListener} was registered, in which case binary messages aren't aggregated
+     */
+    public boolean isStreamBinaryFragments() {
+        for (WebSocketListener listener : listeners) {
+            if (listener instanceof WebSocketBinaryFragmentListener)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the WebSocket, null until the upgrade succeeded
+     */
+    public WebSocket getWebSocket() {
+        return webSocket;
     }
 
     public void bufferFrame(Runnable bufferedFrame) {
@@ -120,6 +231,14 @@ public class WebSocketUpgradeHandler implements UpgradeHandler<WebSocket>, Async
     public final static class Builder {
 
         private List<WebSocketListener> listeners = new ArrayList<>(1);
+        private boolean perMessageDeflate;
+        private boolean clientNoContextTakeover;
+        private boolean serverNoContextTakeover;
+        private int serverMaxWindowBits;
+        private boolean coalesceWrites;
+        private int flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+        private int pingInterval;
+        private int pongTimeout;
 
         /**
          * Add a {@link WebSocketListener} that will be added to the {@link WebSocket}
@@ -143,13 +262,115 @@ public class WebSocketUpgradeHandler implements UpgradeHandler<WebSocket>, Async
             return this;
         }
 
+        /**
+         * Offer the permessage-deflate extension (RFC 7692), so that the messages get compressed in both directions if the server accepts it.
+         * Mostly useful for text-heavy streams.
+         *
+         * @param perMessageDeflate true to offer the extension
+         * @return this
+         */
+        public Builder setPerMessageDeflate(boolean perMessageDeflate) {
+            this.perMessageDeflate = perMessageDeflate;
+            return this;
+        }
+
+        /**
+         * Reset the compression context after each message sent, which saves the memory of the LZ77 window between messages at the expense of
+         * the compression ratio. Only used with permessage-deflate.
+         *
+         * @param clientNoContextTakeover true to declare client_no_context_takeover
+         * @return this
+         */
+        public Builder setClientNoContextTakeover(boolean clientNoContextTakeover) {
+            this.clientNoContextTakeover = clientNoContextTakeover;
+            return this;
+        }
+
+        /**
+         * Ask the server to reset its compression context after each message. Only used with permessage-deflate.
+         *
+         * @param serverNoContextTakeover true to request server_no_context_takeover
+         * @return this
+         */
+        public Builder setServerNoContextTakeover(boolean serverNoContextTakeover) {
+            this.serverNoContextTakeover = serverNoContextTakeover;
+            return this;
+        }
+
+        /**
+         * Ask the server to compress with a smaller LZ77 window, which lowers its memory usage. Only used with permessage-deflate.
+         *
+         * @param serverMaxWindowBits the base-2 logarithm of the window size, between 8 and 15, or 0 to let the server pick
+         * @return this
+         */
+        public Builder setServerMaxWindowBits(int serverMaxWindowBits) {
+            if (serverMaxWindowBits != 0 && (serverMaxWindowBits < 8 || serverMaxWindowBits > 15))
+                throw new IllegalArgumentException("serverMaxWindowBits must be between 8 and 15");
+            this.serverMaxWindowBits = serverMaxWindowBits;
+            return this;
+        }
+
+        /**
+         * Coalesce the frames sent on the WebSocket: instead of flushing each of them, they're written in batches from the event loop, with a
+         * single flush per batch. Bursts of small messages then result in a few large socket writes, at the expense of a small latency.
+         *
+         * @param coalesceWrites true to coalesce writes
+         * @return this
+         */
+        public Builder setCoalesceWrites(boolean coalesceWrites) {
+            this.coalesceWrites = coalesceWrites;
+            return this;
+        }
+
+        /**
+         * Flush a batch of coalesced frames as soon as that many bytes have been written, so that large batches don't pile up in the outbound
+         * buffer. Only used when coalescing writes.
+         *
+         * @param flushThreshold the number of bytes, positive
+         * @return this
+         */
+        public Builder setFlushThreshold(int flushThreshold) {
+            if (flushThreshold <= 0)
+                throw new IllegalArgumentException("flushThreshold must be positive");
+            this.flushThreshold = flushThreshold;
+            return this;
+        }
+
+        /**
+         * Ping the server once nothing has been received for that long, so that idle connections aren't dropped by intermediaries and dead
+         * ones get detected. The pings are scheduled on the client's timer.
+         *
+         * @param pingInterval the idle time in ms, 0 to disable keep-alive
+         * @return this
+         */
+        public Builder setPingInterval(int pingInterval) {
+            if (pingInterval < 0)
+                throw new IllegalArgumentException("pingInterval can't be negative");
+            this.pingInterval = pingInterval;
+            return this;
+        }
+
+        /**
+         * Close the connection if nothing, typically the pong, is received within that time after a ping. Only used with keep-alive.
+         *
+         * @param pongTimeout the timeout in ms, 0 to never close the connection
+         * @return this
+         */
+        public Builder setPongTimeout(int pongTimeout) {
+            if (pongTimeout < 0)
+                throw new IllegalArgumentException("pongTimeout can't be negative");
+            this.pongTimeout = pongTimeout;
+            return this;
+        }
+
         /**
          * Build a {@link WebSocketUpgradeHandler}
          *
          * @return a {@link WebSocketUpgradeHandler}
          */
         public WebSocketUpgradeHandler build() {
-            return new WebSocketUpgradeHandler(listeners);
+            return new WebSocketUpgradeHandler(listeners, perMessageDeflate, clientNoContextTakeover, serverNoContextTakeover, serverMaxWindowBits, coalesceWrites,
+                    flushThreshold, pingInterval, pongTimeout);
         }
     }
 }
@@ -20,6 +20,8 @@ import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
 import static org.testng.Assert.*;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -155,6 +157,25 @@ public class PerRequestTimeoutTest extends AbstractBasicTest {
         }
     }
 
+    @Test(groups = "standalone")
+    public void testConcurrentRequestTimeouts() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRequestTimeout(100))) {
+            List<Future<Response>> responseFutures = new ArrayList<>();
+            for (int i = 0; i < 20; i++)
+                responseFutures.add(client.prepareGet(getTargetUrl()).execute());
+
+            for (Future<Response> responseFuture : responseFutures) {
+                try {
+                    responseFuture.get(2000, TimeUnit.MILLISECONDS);
+                    fail("Request should have timed out");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof TimeoutException);
+                    checkTimeoutMessage(e.getCause().getMessage(), true);
+                }
+            }
+        }
+    }
+
     @Test(groups = "standalone")
     public void testGlobalIdleTimeout() throws IOException {
         final long times[] = new long[] { -1, -1 };
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.testng.Assert.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.channel.ConcurrencyLimiter.Permit;
+import org.asynchttpclient.exception.TooManyConcurrentRequestsException;
+import org.testng.annotations.Test;
+
+public class AdaptiveConcurrencyLimiterTest extends AbstractBasicTest {
+
+    private static final Object KEY = "http://localhost:80";
+
+    @Test
+    public void rejectsAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        Permit first = limiter.tryAcquire(KEY);
+        assertNotNull(limiter.tryAcquire(KEY));
+        assertNull(limiter.tryAcquire(KEY));
+        assertNotNull(limiter.tryAcquire("http://otherhost:80"), "Partitions must be limited independently");
+
+        first.onIgnore();
+        assertEquals(limiter.getInFlight(KEY), 1);
+        assertNotNull(limiter.tryAcquire(KEY));
+        assertEquals(limiter.getLimit(KEY), 2, "Ignored requests mustn't change the limit");
+    }
+
+    @Test
+    public void growsWhileHealthyAndUsed() {
+        // latencies are a matter of nanoseconds here, don't let jitter look like congestion
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1_000_000.0, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            Permit first = limiter.tryAcquire(KEY);
+            Permit second = limiter.tryAcquire(KEY);
+            first.onSuccess();
+            second.onSuccess();
+        }
+        // 2 requests in flight use up to half a limit of 4
+        assertEquals(limiter.getLimit(KEY), 4);
+
+        AdaptiveConcurrencyLimiter unused = new AdaptiveConcurrencyLimiter(4, 1, 10, 1_000_000.0, 0.5);
+        for (int i = 0; i < 100; i++)
+            unused.tryAcquire(KEY).onSuccess();
+        assertEquals(unused.getLimit(KEY), 4, "Limit mustn't grow when it's not being used");
+    }
+
+    @Test
+    public void shrinksOncePerRoundTripOnDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 10, 2.0, 0.5);
+
+        Permit[] permits = new Permit[10];
+        for (int i = 0; i < permits.length; i++)
+            permits[i] = limiter.tryAcquire(KEY);
+        for (Permit permit : permits)
+            permit.onDropped();
+        assertEquals(limiter.getLimit(KEY), 5, "Requests in flight at the time of the decrease mustn't decrease the limit again");
+
+        limiter.tryAcquire(KEY).onDropped();
+        assertEquals(limiter.getLimit(KEY), 5, "Limit mustn't shrink below the min limit");
+    }
+
+    @Test
+    public void shrinksWhenLatencyRises() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 10, 2.0, 0.5);
+
+        limiter.tryAcquire(KEY).onSuccess();
+        assertEquals(limiter.getLimit(KEY), 10);
+
+        Permit slow = limiter.tryAcquire(KEY);
+        Thread.sleep(50);
+        slow.onSuccess();
+        assertEquals(limiter.getLimit(KEY), 5);
+    }
+
+    @Test(groups = "standalone")
+    public void rejectedRequestFailsFast() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setConcurrencyLimiter(partitionKey -> null))) {
+            client.prepareGet(getTargetUrl()).execute().get();
+            fail("Request should have been rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TooManyConcurrentRequestsException, "Unexpected exception " + e.getCause());
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void permitIsReleasedOnceResponseIsReceived() throws Exception {
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        ConcurrencyLimiter limiter = partitionKey -> {
+            acquired.incrementAndGet();
+            return new Permit() {
+                @Override
+                public void onSuccess() {
+                    succeeded.incrementAndGet();
+                }
+
+                @Override
+                public void onDropped() {
+                    other.incrementAndGet();
+                }
+
+                @Override
+                public void onIgnore() {
+                    other.incrementAndGet();
+                }
+            };
+        };
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setConcurrencyLimiter(limiter))) {
+            for (int i = 0; i < 3; i++) {
+                Response response = client.prepareGet(getTargetUrl()).execute().get();
+                assertEquals(response.getStatusCode(), 200);
+            }
+        }
+        assertEquals(acquired.get(), 3);
+        assertEquals(succeeded.get(), 3);
+        assertEquals(other.get(), 0);
+    }
+}
@@ -28,16 +28,19 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.asynchttpclient.AbstractBasicTest;
 import org.asynchttpclient.AsyncCompletionHandler;
 import org.asynchttpclient.AsyncCompletionHandlerBase;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.RequestBuilder;
 import org.asynchttpclient.Response;
 import org.asynchttpclient.exception.TooManyConnectionsException;
+import org.asynchttpclient.netty.channel.ChannelPoolMetrics;
 import org.asynchttpclient.test.EventCollectingHandler;
 import org.eclipse.jetty.server.ServerConnector;
 import org.testng.annotations.Test;
@@ -89,6 +92,77 @@ public class ConnectionPoolTest extends AbstractBasicTest {
         }
     }
 
+    @Test(groups = "standalone")
+    public void testMaxTotalConnectionsWithPendingAcquireQueue() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(true).setMaxConnections(1).setPendingAcquireQueueSize(10))) {
+            String url = getTargetUrl();
+
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(client.prepareGet(url).execute());
+            }
+
+            // all requests wait for the single connection instead of failing
+            for (ListenableFuture<Response> future : futures) {
+                assertEquals(future.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            }
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testPendingAcquireQueueFull() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(true).setMaxConnections(1).setPendingAcquireQueueSize(1))) {
+            String url = getTargetUrl();
+
+            // keep the only connection busy until the request times out and closes it
+            ListenableFuture<Response> slow = client.prepareGet(url).addHeader("LockThread", "true").setRequestTimeout(1000).execute();
+            ListenableFuture<Response> pending = client.prepareGet(url).execute();
+            ListenableFuture<Response> rejected = client.prepareGet(url).execute();
+
+            try {
+                rejected.get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Third request should have been rejected as the queue is full");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TooManyConnectionsException, "Unexpected exception " + e.getCause());
+            }
+
+            // pending request gets the permits released by the timed out one
+            assertEquals(pending.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+            assertTrue(slow.isDone());
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testPendingAcquireTimeout() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(true).setMaxConnections(1).setPendingAcquireQueueSize(1).setPendingAcquireTimeout(100))) {
+            // keep the only connection busy longer than the acquire timeout
+            client.prepareGet(getTargetUrl()).addHeader("LockThread", "true").setRequestTimeout(1000).execute();
+            ListenableFuture<Response> pending = client.prepareGet(getTargetUrl()).execute();
+            try {
+                pending.get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Pending request should have timed out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TooManyConnectionsException, "Unexpected exception " + e.getCause());
+            }
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testRequestTimeoutWhilePendingAcquire() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(true).setMaxConnections(1).setPendingAcquireQueueSize(1))) {
+            // keep the only connection busy longer than the pending request's timeout, no acquire timeout is configured
+            ListenableFuture<Response> slow = client.prepareGet(getTargetUrl()).addHeader("LockThread", "true").setRequestTimeout(3000).execute();
+            ListenableFuture<Response> pending = client.prepareGet(getTargetUrl()).setRequestTimeout(200).execute();
+            try {
+                pending.get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Pending request should have timed out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException, "Unexpected exception " + e.getCause());
+            }
+            assertFalse(slow.isDone(), "Pending request should have timed out while still queued");
+        }
+    }
+
     @Test(groups = "standalone", invocationCount = 100)
     public void asyncDoGetKeepAliveHandlerTest_channelClosedDoesNotFail() throws Exception {
 
@@ -292,4 +366,41 @@ public class ConnectionPoolTest extends AbstractBasicTest {
             assertEquals(secondHandler.firedEvents.toArray(), expectedEvents, "Got " + Arrays.toString(secondHandler.firedEvents.toArray()));
         }
     }
+
+    @Test(groups = "standalone")
+    public void testChannelPoolMetrics() throws Exception {
+        AtomicInteger leased = new AtomicInteger();
+        ChannelPoolListener listener = new ChannelPoolListener() {
+            @Override
+            public void onChannelLeased(Object partitionKey) {
+                leased.incrementAndGet();
+            }
+        };
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(true).setMaxConnectionsPerHost(5).setChannelPoolListener(listener))) {
+            for (int i = 0; i < 3; i++)
+                client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+
+            ChannelPoolMetrics metrics = DefaultAsyncHttpClient.class.cast(client).getChannelPoolMetrics();
+            ChannelPoolMetrics.Stats stats = metrics.getTotalStats();
+            assertEquals(stats.getConnectedCount(), 1);
+            assertEquals(stats.getConnectFailedCount(), 0);
+            assertEquals(stats.getActiveCount(), 1);
+            assertEquals(stats.getOfferedCount(), 3);
+            assertEquals(stats.getLeasedCount(), 2);
+            assertEquals(leased.get(), 2);
+
+            long connectTimeCount = 0;
+            for (int i = 0; i < ChannelPoolMetrics.CONNECT_TIME_HISTOGRAM_SIZE; i++)
+                connectTimeCount += stats.getConnectTimeCount(i);
+            assertEquals(connectTimeCount, 1);
+
+            assertEquals(metrics.getPartitionKeys().size(), 1);
+            Object partitionKey = metrics.getPartitionKeys().iterator().next();
+            assertEquals(metrics.getPartitionStats(partitionKey).getLeasedCount(), 2);
+            assertEquals(metrics.getIdleChannelCount(partitionKey), 1);
+            assertEquals(metrics.getAvailablePermits(partitionKey), 4);
+            assertEquals(metrics.getAvailablePermits(), -1);
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.*;
+import static org.testng.Assert.*;
+
+import java.net.ConnectException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.exception.CircuitBreakerOpenException;
+import org.asynchttpclient.netty.channel.ChannelPoolMetrics;
+import org.asynchttpclient.test.EchoHandler;
+import org.asynchttpclient.uri.Uri;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class ConnectionPrewarmTest extends AbstractBasicTest {
+
+    @BeforeClass(alwaysRun = true)
+    @Override
+    public void setUpGlobal() throws Exception {
+        server = new Server();
+        ServerConnector connector1 = addHttpConnector(server);
+        ServerConnector connector2 = addHttpsConnector(server);
+        server.setHandler(new EchoHandler());
+        server.start();
+        port1 = connector1.getLocalPort();
+        port2 = connector2.getLocalPort();
+    }
+
+    private static Object partitionKey(String url) {
+        return ChannelPoolPartitioning.PerHostChannelPoolPartitioning.INSTANCE.getPartitionKey(Uri.create(url), null, null);
+    }
+
+    @Test(groups = "standalone")
+    public void prewarmedConnectionsArePooled() throws Exception {
+        String url = getTargetUrl();
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            assertEquals(client.prewarm(url, 3).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 3);
+            ChannelPoolMetrics metrics = client.getChannelPoolMetrics();
+            assertEquals(metrics.getIdleChannelCount(partitionKey(url)), 3);
+
+            Response response = client.prepareGet(url).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(metrics.getPartitionStats(partitionKey(url)).getConnectedCount(), 3, "The request should have reused a pre-warmed connection");
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void prewarmedConnectionsAreHandshaken() throws Exception {
+        String url = "https://localhost:" + port2 + "/foo/test";
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config().setSslEngineFactory(createSslEngineFactory()))) {
+            assertEquals(client.prewarm(url, 2).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 2);
+
+            Response response = client.prepareGet(url).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(client.getChannelPoolMetrics().getPartitionStats(partitionKey(url)).getConnectedCount(), 2);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void prewarmIsBoundedByMaxConnectionsPerHost() throws Exception {
+        String url = getTargetUrl();
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config().setMaxConnectionsPerHost(2))) {
+            assertEquals(client.prewarm(url, 5).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 2);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void prewarmFailsWhenHostIsDown() throws Exception {
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            client.prewarm("http://localhost:" + findFreePort() + "/", 2).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Pre-warming shouldn't have succeeded");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConnectException, "Expected a ConnectException but got " + e.getCause());
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void minIdleConnectionsAreReplenished() throws Exception {
+        String url = getTargetUrl();
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config()//
+                .setMinIdleConnectionsPerHost(2)//
+                .setPooledConnectionIdleTimeout(200))) {
+            assertEquals(client.prewarm(url, 2).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 2);
+
+            ChannelPoolMetrics metrics = client.getChannelPoolMetrics();
+            Object partitionKey = partitionKey(url);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (metrics.getPartitionStats(partitionKey).getExpiredCount(ChannelPoolListener.ExpirationReason.IDLE) < 2
+                    || metrics.getIdleChannelCount(partitionKey) < 2) {
+                assertTrue(System.currentTimeMillis() < deadline, "Expired connections weren't replenished");
+                Thread.sleep(50);
+            }
+            assertTrue(metrics.getPartitionStats(partitionKey).getConnectedCount() >= 4);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void minIdleConnectionsAreReplenishedWithoutIdleTimeout() throws Exception {
+        String url = getTargetUrl();
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config()//
+                .setMinIdleConnectionsPerHost(2)//
+                .setPooledConnectionIdleTimeout(-1))) {
+            assertEquals(client.prewarm(url, 2).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 2);
+
+            // the leased connection isn't offered back to the pool
+            Response response = client.prepareGet(url).setHeader("Connection", "close").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+
+            ChannelPoolMetrics metrics = client.getChannelPoolMetrics();
+            Object partitionKey = partitionKey(url);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (metrics.getPartitionStats(partitionKey).getConnectedCount() < 3 || metrics.getIdleChannelCount(partitionKey) < 2) {
+                assertTrue(System.currentTimeMillis() < deadline, "Leased connection wasn't replenished");
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void unusedPartitionIsNotReplenishedForever() throws Exception {
+        String url = getTargetUrl();
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config()//
+                .setMinIdleConnectionsPerHost(2)//
+                .setMinIdleConnectionsTimeout(300)//
+                // longer than the registration's timeout, so that it's dropped by the time the first connections expire
+                .setPooledConnectionIdleTimeout(600))) {
+            assertEquals(client.prewarm(url, 2).get(TIMEOUT, TimeUnit.SECONDS).intValue(), 2);
+
+            ChannelPoolMetrics metrics = client.getChannelPoolMetrics();
+            Object partitionKey = partitionKey(url);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (metrics.getIdleChannelCount(partitionKey) > 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "Pre-warmed connections didn't expire");
+                Thread.sleep(50);
+            }
+            assertEquals(metrics.getTotalStats().getConnectedCount(), 2L, "Unused partition was replenished");
+            Thread.sleep(1500);
+            assertEquals(metrics.getTotalStats().getConnectedCount(), 2L, "Unused partition was replenished");
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void failedReplenishmentBacksOff() throws Exception {
+        String url = "http://localhost:" + findFreePort() + "/";
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config()//
+                .setMinIdleConnectionsPerHost(2)//
+                .setPooledConnectionIdleTimeout(100))) {
+            try {
+                client.prewarm(url, 2).get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Pre-warming shouldn't have succeeded");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConnectException, "Expected a ConnectException but got " + e.getCause());
+            }
+
+            // the detector runs every 100 ms, but the first retry is only allowed after a second
+            Thread.sleep(700);
+            assertEquals(client.getChannelPoolMetrics().getTotalStats().getConnectFailedCount(), 2);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void prewarmIsRejectedWhenCircuitIsOpen() throws Exception {
+        String url = "http://localhost:" + findFreePort() + "/";
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config().setCircuitBreaker(new DefaultCircuitBreaker(1, 60000, 1)))) {
+            try {
+                client.prewarm(url, 1).get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Pre-warming shouldn't have succeeded");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConnectException, "Expected a ConnectException but got " + e.getCause());
+            }
+            try {
+                client.prewarm(url, 1).get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Pre-warming shouldn't have succeeded");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof CircuitBreakerOpenException, "Expected a CircuitBreakerOpenException but got " + e.getCause());
+            }
+            assertEquals(client.getChannelPoolMetrics().getTotalStats().getConnectFailedCount(), 1);
+        }
+    }
+}
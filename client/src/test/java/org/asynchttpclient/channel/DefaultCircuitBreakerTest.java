@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.channel;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.channel.CircuitBreaker.Permit;
+import org.asynchttpclient.channel.DefaultCircuitBreaker.State;
+import org.asynchttpclient.exception.CircuitBreakerOpenException;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class DefaultCircuitBreakerTest extends AbstractBasicTest {
+
+    private static final Object KEY = "http://localhost:80";
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException, ServletException {
+                String status = request.getHeader("X-Status");
+                response.setStatus(status != null ? Integer.parseInt(status) : 200);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        DefaultCircuitBreaker circuitBreaker = new DefaultCircuitBreaker(2, 10000, 1);
+
+        circuitBreaker.tryAcquire(KEY).onFailure();
+        circuitBreaker.tryAcquire(KEY).onSuccess();
+        circuitBreaker.tryAcquire(KEY).onFailure();
+        assertEquals(circuitBreaker.getState(KEY), State.CLOSED, "A success must reset the consecutive failures");
+
+        circuitBreaker.tryAcquire(KEY).onFailure();
+        assertEquals(circuitBreaker.getState(KEY), State.OPEN);
+        assertNull(circuitBreaker.tryAcquire(KEY));
+        assertNotNull(circuitBreaker.tryAcquire("http://otherhost:80"), "Partitions must be broken independently");
+    }
+
+    @Test
+    public void halfOpenAdmitsProbes() throws InterruptedException {
+        DefaultCircuitBreaker circuitBreaker = new DefaultCircuitBreaker(1, 50, 1);
+        circuitBreaker.tryAcquire(KEY).onFailure();
+        assertNull(circuitBreaker.tryAcquire(KEY));
+
+        Thread.sleep(100);
+        Permit probe = circuitBreaker.tryAcquire(KEY);
+        assertNotNull(probe);
+        assertEquals(circuitBreaker.getState(KEY), State.HALF_OPEN);
+        assertNull(circuitBreaker.tryAcquire(KEY), "Only one probe at a time");
+
+        probe.onIgnore();
+        probe = circuitBreaker.tryAcquire(KEY);
+        assertNotNull(probe, "An ignored probe must free its slot");
+
+        probe.onFailure();
+        assertEquals(circuitBreaker.getState(KEY), State.OPEN);
+        assertNull(circuitBreaker.tryAcquire(KEY));
+
+        Thread.sleep(100);
+        circuitBreaker.tryAcquire(KEY).onSuccess();
+        assertEquals(circuitBreaker.getState(KEY), State.CLOSED);
+    }
+
+    @Test
+    public void staleOutcomesAreIgnored() {
+        DefaultCircuitBreaker circuitBreaker = new DefaultCircuitBreaker(1, 10000, 1);
+        Permit inFlight = circuitBreaker.tryAcquire(KEY);
+        circuitBreaker.tryAcquire(KEY).onFailure();
+        assertEquals(circuitBreaker.getState(KEY), State.OPEN);
+
+        inFlight.onSuccess();
+        assertEquals(circuitBreaker.getState(KEY), State.OPEN, "A request admitted before the circuit opened mustn't close it");
+    }
+
+    @Test(groups = "standalone")
+    public void serverErrorsOpenTheCircuit() throws Exception {
+        DefaultCircuitBreaker circuitBreaker = new DefaultCircuitBreaker(2, 10000, 1);
+        try (AsyncHttpClient client = asyncHttpClient(config().setCircuitBreaker(circuitBreaker))) {
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Status", "404").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 404);
+
+            for (int i = 0; i < 2; i++) {
+                response = client.prepareGet(getTargetUrl()).setHeader("X-Status", "500").execute().get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 500);
+            }
+
+            try {
+                client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Request should have been rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof CircuitBreakerOpenException, "Expected a CircuitBreakerOpenException but got " + e.getCause());
+            }
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void connectFailuresOpenTheCircuit() throws Exception {
+        String url = "http://localhost:" + findFreePort() + "/";
+        try (AsyncHttpClient client = asyncHttpClient(config().setCircuitBreaker(new DefaultCircuitBreaker(1, 10000, 1)))) {
+            try {
+                client.prepareGet(url).execute().get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Request shouldn't have succeeded");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ConnectException, "Expected a ConnectException but got " + e.getCause());
+            }
+
+            try {
+                client.prepareGet(url).execute().get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Request should have been rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof CircuitBreakerOpenException, "Expected a CircuitBreakerOpenException but got " + e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.filter;
+
+import static org.asynchttpclient.Dsl.get;
+import static org.testng.Assert.*;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncCompletionHandlerBase;
+import org.asynchttpclient.Response;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class AsyncThrottleRequestFilterTest {
+
+    private Timer timer;
+
+    @BeforeClass
+    public void setUp() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private static FilterContext<Response> newContext() {
+        return new FilterContext.FilterContextBuilder<Response>().asyncHandler(new AsyncCompletionHandlerBase()).request(get("http://localhost").build())
+                .build();
+    }
+
+    @Test(groups = "standalone")
+    public void testRequestIsAdmittedOnceAPermitIsReleased() throws Exception {
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(1);
+
+        CompletableFuture<FilterContext<Response>> first = filter.filter(newContext(), timer);
+        assertTrue(first.isDone());
+        CompletableFuture<FilterContext<Response>> second = filter.filter(newContext(), timer);
+        assertFalse(second.isDone());
+
+        first.get().getAsyncHandler().onCompleted();
+        assertTrue(second.isDone());
+        assertEquals(filter.availablePermits(), 0);
+
+        second.get().getAsyncHandler().onThrowable(new RuntimeException());
+        assertEquals(filter.availablePermits(), 1);
+    }
+
+    @Test(groups = "standalone")
+    public void testQueuedRequestTimesOut() throws Exception {
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(1, 50);
+
+        filter.filter(newContext(), timer);
+        CompletableFuture<FilterContext<Response>> second = filter.filter(newContext(), timer);
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail("Should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof FilterException);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testCancelledRequestDoesNotHoldAPermit() throws Exception {
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(1);
+
+        CompletableFuture<FilterContext<Response>> first = filter.filter(newContext(), timer);
+        CompletableFuture<FilterContext<Response>> second = filter.filter(newContext(), timer);
+        second.cancel(false);
+
+        first.get().getAsyncHandler().onCompleted();
+        assertEquals(filter.availablePermits(), 1);
+        assertTrue(filter.filter(newContext(), timer).isDone());
+    }
+
+    @Test(groups = "standalone")
+    public void testRateIsLimited() throws Exception {
+        // 20 per second, no burst
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(Integer.MAX_VALUE, Integer.MAX_VALUE, 20, 1);
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[5];
+        for (int i = 0; i < futures.length; i++)
+            futures[i] = filter.filter(newContext(), timer);
+        assertTrue(futures[0].isDone());
+        assertFalse(futures[1].isDone());
+
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190), "4 requests should have waited for 50ms each");
+    }
+
+    @Test(groups = "standalone")
+    public void testCancelledRequestDoesNotConsumeAToken() throws Exception {
+        // 5 per second, no burst
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(Integer.MAX_VALUE, Integer.MAX_VALUE, 5, 1);
+
+        long start = System.nanoTime();
+        assertTrue(filter.filter(newContext(), timer).isDone());
+        filter.filter(newContext(), timer).cancel(false);
+        CompletableFuture<FilterContext<Response>> third = filter.filter(newContext(), timer);
+
+        third.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(350), "The cancelled request shouldn't have taken the next token");
+    }
+
+    @Test(groups = "standalone")
+    public void testRequestsFailingRightAwayDoNotRecurse() throws Exception {
+        AsyncThrottleRequestFilter filter = new AsyncThrottleRequestFilter(1);
+
+        CompletableFuture<FilterContext<Response>> first = filter.filter(newContext(), timer);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[100000];
+        for (int i = 0; i < futures.length; i++)
+            // like a request whose execution fails synchronously once admitted
+            futures[i] = filter.filter(newContext(), timer).thenAccept(ctx -> ctx.getAsyncHandler().onThrowable(new RuntimeException()));
+
+        first.get().getAsyncHandler().onCompleted();
+        CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        assertEquals(filter.availablePermits(), 1);
+    }
+}
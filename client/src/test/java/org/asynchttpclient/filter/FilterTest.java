@@ -14,20 +14,25 @@ package org.asynchttpclient.filter;
 
 import static org.asynchttpclient.Dsl.*;
 import static org.testng.Assert.*;
+import io.netty.util.Timer;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncCompletionHandlerBase;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.RequestBuilder;
@@ -98,6 +103,53 @@ public class FilterTest extends AbstractBasicTest {
         }
     }
 
+    @Test(groups = "standalone")
+    public void loadAsyncThrottleTest() throws Exception {
+        AsyncThrottleRequestFilter throttle = new AsyncThrottleRequestFilter(10);
+        try (AsyncHttpClient c = asyncHttpClient(config().addAsyncRequestFilter(throttle))) {
+            List<Future<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(c.preparePost(getTargetUrl()).execute());
+            }
+
+            for (Future<Response> f : futures) {
+                Response r = f.get();
+                assertNotNull(r);
+                assertEquals(r.getStatusCode(), 200);
+            }
+            assertEquals(throttle.availablePermits(), 10);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void cancelDeferredRequestTest() throws Exception {
+        final AtomicReference<CompletableFuture<?>> pending = new AtomicReference<>();
+        AsyncRequestFilter neverAdmit = new AsyncRequestFilter() {
+            @Override
+            public <T> CompletableFuture<FilterContext<T>> filter(FilterContext<T> ctx, Timer timer) {
+                CompletableFuture<FilterContext<T>> stage = new CompletableFuture<>();
+                pending.set(stage);
+                return stage;
+            }
+        };
+
+        final AtomicReference<Throwable> throwable = new AtomicReference<>();
+        try (AsyncHttpClient c = asyncHttpClient(config().addAsyncRequestFilter(neverAdmit))) {
+            Future<Response> future = c.preparePost(getTargetUrl()).execute(new AsyncCompletionHandlerBase() {
+                @Override
+                public void onThrowable(Throwable t) {
+                    throwable.set(t);
+                }
+            });
+            assertFalse(future.isDone());
+
+            assertTrue(future.cancel(true));
+            assertTrue(future.isCancelled());
+            assertTrue(pending.get().isCancelled());
+            assertTrue(throwable.get() instanceof CancellationException);
+        }
+    }
+
     @Test(groups = "standalone")
     public void basicResponseFilterTest() throws Exception {
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.handler;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.handler.BodyDeferringAsyncHandlerTest.HALF_GIG;
+import static org.testng.Assert.*;
+
+import java.io.InputStream;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.handler.BodyDeferringAsyncHandlerTest.SlowAndBigHandler;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.Test;
+
+public class StreamingBodyAsyncHandlerTest extends AbstractBasicTest {
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new SlowAndBigHandler();
+    }
+
+    private void streamBody(ResponseBodyPartFactory responseBodyPartFactory) throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setResponseBodyPartFactory(responseBodyPartFactory))) {
+            StreamingBodyAsyncHandler handler = new StreamingBodyAsyncHandler(2);
+            Future<Response> f = client.prepareGet(getTargetUrl()).execute(handler);
+
+            Response response = handler.getResponse();
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getHeader("Content-Length"), String.valueOf(HALF_GIG));
+
+            int count = 0;
+            try (InputStream is = handler.getInputStream()) {
+                int b;
+                while ((b = is.read()) != -1) {
+                    assertEquals(b, count % 255);
+                    count++;
+                }
+            }
+            assertEquals(count, HALF_GIG);
+            assertEquals(f.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testStreamEagerBody() throws Exception {
+        streamBody(ResponseBodyPartFactory.EAGER);
+    }
+
+    @Test(groups = "standalone")
+    public void testStreamRetainedBody() throws Exception {
+        streamBody(ResponseBodyPartFactory.RETAINED);
+    }
+
+    @Test(groups = "standalone")
+    public void testCloseStreamEarly() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            StreamingBodyAsyncHandler handler = new StreamingBodyAsyncHandler(1);
+            Future<Response> f = client.prepareGet(getTargetUrl()).execute(handler);
+
+            InputStream is = handler.getInputStream();
+            byte[] bytes = new byte[10];
+            assertTrue(is.read(bytes) > 0);
+            is.close();
+
+            // rest of the body is discarded
+            assertEquals(f.get(TIMEOUT, TimeUnit.SECONDS).getStatusCode(), 200);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.hedging;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncCompletionHandlerBase;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HedgingTest extends AbstractBasicTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeMethod
+    public void resetRequests() {
+        requests.set(0);
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException, ServletException {
+                int index = requests.incrementAndGet();
+                String slowFirst = request.getHeader("X-Slow-First");
+                if (slowFirst != null && index == 1) {
+                    try {
+                        Thread.sleep(Long.parseLong(slowFirst));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                response.setStatus(200);
+                response.getOutputStream().print("request " + index);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @Test(groups = "standalone")
+    public void hedgeWinsOverSlowRequest() throws Exception {
+        AtomicInteger statuses = new AtomicInteger();
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(request -> 100))) {
+            long start = System.nanoTime();
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Slow-First", "3000").execute(new AsyncCompletionHandlerBase() {
+                @Override
+                public State onStatusReceived(org.asynchttpclient.HttpResponseStatus status) throws Exception {
+                    statuses.incrementAndGet();
+                    return super.onStatusReceived(status);
+                }
+            }).get(TIMEOUT, TimeUnit.SECONDS);
+
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000), "Hedge should have responded before the slow request");
+            assertEquals(response.getResponseBody(), "request 2");
+            assertEquals(statuses.get(), 1, "Handler should only be notified of the winning response");
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void fastRequestIsntHedged() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(request -> 2000))) {
+            for (int i = 1; i <= 3; i++) {
+                Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getResponseBody(), "request " + i);
+            }
+            assertEquals(requests.get(), 3);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void failureIsNotifiedOnce() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        String url = "http://localhost:" + findFreePort() + "/foo/test";
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(request -> 0))) {
+            client.prepareGet(url).execute(new AsyncCompletionHandlerBase() {
+                @Override
+                public void onThrowable(Throwable t) {
+                    failures.incrementAndGet();
+                }
+            }).get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Request should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConnectException, "Unexpected exception " + e.getCause());
+        }
+        assertEquals(failures.get(), 1);
+    }
+
+    @Test(groups = "standalone")
+    public void cancelAbortsAllCopies() throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(request -> 50))) {
+            Future<Response> future = client.prepareGet(getTargetUrl()).setHeader("X-Slow-First", "3000").execute(new AsyncCompletionHandlerBase() {
+                @Override
+                public void onThrowable(Throwable t) {
+                    assertTrue(t instanceof CancellationException);
+                    failures.incrementAndGet();
+                }
+            });
+            assertTrue(future.cancel(true));
+            assertTrue(future.isCancelled());
+            try {
+                future.get(TIMEOUT, TimeUnit.SECONDS);
+                fail("Future should have been cancelled");
+            } catch (CancellationException expected) {
+            }
+            Thread.sleep(200);
+            assertEquals(failures.get(), 1);
+            assertTrue(requests.get() <= 1, "No copy should be sent once cancelled");
+        }
+    }
+
+    @Test
+    public void percentilePolicyLearnsFromLatencies() {
+        LatencyPercentileHedgingPolicy policy = new LatencyPercentileHedgingPolicy(0.9, 5, 1000);
+        Request get = get("http://localhost:8080/foo").build();
+
+        assertEquals(policy.getHedgeDelay(post("http://localhost:8080/foo").build()), -1L, "Non idempotent requests mustn't be hedged");
+        assertEquals(policy.getHedgeDelay(get), 1000L, "Should use max delay until enough latencies are known");
+
+        for (int i = 0; i < 90; i++)
+            policy.onStatusReceived(get, TimeUnit.MILLISECONDS.toNanos(20));
+        for (int i = 0; i < 6; i++)
+            policy.onStatusReceived(get, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(policy.getHedgeDelay(get), 20L);
+
+        for (int i = 0; i < 256; i++)
+            policy.onStatusReceived(get, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(policy.getHedgeDelay(get), 5L, "Delay mustn't fall below min delay");
+        assertEquals(policy.getHedgeDelay(get("http://otherhost:8080/foo").build()), 1000L, "Base urls must be tracked independently");
+    }
+}
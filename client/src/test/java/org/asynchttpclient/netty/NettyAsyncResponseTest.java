@@ -13,17 +13,24 @@
 
 package org.asynchttpclient.netty;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 
+import java.io.InputStream;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.asynchttpclient.HttpResponseBodyPart;
 import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.Response;
 import org.asynchttpclient.cookie.Cookie;
 import org.testng.annotations.Test;
 
@@ -73,4 +80,69 @@ public class NettyAsyncResponseTest {
         Cookie cookie = cookies.get(0);
         assertEquals(cookie.getMaxAge(), Long.MIN_VALUE);
     }
+
+    @Test(groups = "standalone")
+    public void testRetainedBodyParts() throws Exception {
+        ByteBuf first = Unpooled.directBuffer().writeBytes("{\"foo\":".getBytes(UTF_8));
+        ByteBuf second = Unpooled.directBuffer().writeBytes("\"bar\"}".getBytes(UTF_8));
+        List<HttpResponseBodyPart> bodyParts = Arrays.asList(new RetainedResponseBodyPart(first, false), new RetainedResponseBodyPart(second, true));
+        // the channel handler releases the content once the part has been handed over
+        first.release();
+        second.release();
+
+        NettyResponse response = new NettyResponse(new NettyResponseStatus(null, null, null, null), null, bodyParts);
+        assertEquals(response.getResponseBodyAsByteBuf().toString(UTF_8), "{\"foo\":\"bar\"}");
+        assertEquals(response.getResponseBody(UTF_8), "{\"foo\":\"bar\"}");
+        assertEquals(response.getResponseBodyAsBytes(), "{\"foo\":\"bar\"}".getBytes(UTF_8));
+        try (InputStream is = response.getResponseBodyAsStream()) {
+            assertEquals(is.available(), 13);
+            assertEquals(is.read(), '{');
+        }
+        assertEquals(first.refCnt(), 1);
+
+        response.release();
+        assertEquals(first.refCnt(), 0);
+        assertEquals(second.refCnt(), 0);
+    }
+
+    @Test(groups = "standalone")
+    public void testRetainedBodyPartsAreReleasedOnReset() {
+        ByteBuf buf = Unpooled.buffer().writeBytes("foo".getBytes(UTF_8));
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new RetainedResponseBodyPart(buf, false));
+        builder.accumulate(new RetainedResponseBodyPart(Unpooled.EMPTY_BUFFER, true));
+        buf.release();
+
+        builder.reset();
+        assertEquals(buf.refCnt(), 0);
+    }
+
+    @Test(groups = "standalone")
+    public void testBuildingTwiceKeepsEagerBodyParts() {
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new NettyResponseStatus(null, null, null, null));
+        builder.accumulate(new EagerResponseBodyPart(Unpooled.wrappedBuffer("foo".getBytes(UTF_8)), true));
+
+        assertEquals(builder.build().getResponseBody(UTF_8), "foo");
+        assertEquals(builder.build().getResponseBody(UTF_8), "foo");
+    }
+
+    @Test(groups = "standalone")
+    public void testBuildingHandsRetainedBodyPartsOver() {
+        ByteBuf buf = Unpooled.buffer().writeBytes("foo".getBytes(UTF_8));
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new NettyResponseStatus(null, null, null, null));
+        builder.accumulate(new RetainedResponseBodyPart(buf, true));
+        buf.release();
+
+        Response response = builder.build();
+        assertEquals(response.getResponseBody(UTF_8), "foo");
+        assertFalse(builder.build().hasResponseBody());
+
+        // the buffer is only owned by the first response
+        builder.reset();
+        assertEquals(buf.refCnt(), 1);
+        response.release();
+        assertEquals(buf.refCnt(), 0);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ChannelPoolMetricsTest {
+
+    private static final String KEY = "http://localhost:80";
+
+    private HashedWheelTimer timer;
+
+    @BeforeMethod
+    public void startTimer() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        timer.start();
+    }
+
+    @AfterMethod
+    public void stopTimer() {
+        timer.stop();
+    }
+
+    @Test
+    public void testStatsAreDroppedWhenPartitionIsFlushed() {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics(null, null, timer, 60000);
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, DefaultChannelPool.PoolLeaseStrategy.LIFO, false, timer, 1000, metrics);
+        Channel channel = new EmbeddedChannel();
+
+        metrics.onChannelConnected(KEY, 1000);
+        pool.offer(channel, KEY);
+        metrics.onChannelClosed(KEY);
+        assertEquals(metrics.getPartitionStats(KEY).getConnectedCount(), 1);
+
+        pool.flushPartition(KEY);
+        assertNull(metrics.getPartitionStats(KEY));
+        assertTrue(metrics.getPartitionKeys().isEmpty());
+        assertEquals(metrics.getTotalStats().getConnectedCount(), 1);
+    }
+
+    @Test
+    public void testStatsAreKeptWhenPartitionIsFlushedWithALeasedChannel() throws InterruptedException {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics(null, null, timer, 100);
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, DefaultChannelPool.PoolLeaseStrategy.LIFO, false, timer, 1000, metrics);
+
+        // one idle channel, and one in flight
+        metrics.onChannelConnected(KEY, 1000);
+        metrics.onChannelConnected(KEY, 1000);
+        pool.offer(new EmbeddedChannel(), KEY);
+
+        pool.flushPartition(KEY);
+        metrics.onChannelClosed(KEY);
+        ChannelPoolMetrics.Stats stats = metrics.getPartitionStats(KEY);
+        assertEquals(stats.getConnectedCount(), 2);
+        assertEquals(stats.getActiveCount(), 1);
+
+        // the channel in flight completes
+        metrics.onChannelClosed(KEY);
+        assertEquals(stats.getActiveCount(), 0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getPartitionStats(KEY) != null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Stats of the flushed partition didn't expire");
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    public void testStatsExpireOnceThePartitionHasNoOpenChannel() throws InterruptedException {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics(null, null, timer, 100);
+
+        metrics.onChannelConnected(KEY, 1000);
+        metrics.onChannelConnected(KEY, 1000);
+        metrics.onChannelClosed(KEY);
+        Thread.sleep(300);
+        assertEquals(metrics.getPartitionStats(KEY).getActiveCount(), 1, "Stats of a partition with an open channel shouldn't expire");
+
+        metrics.onChannelClosed(KEY);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getPartitionStats(KEY) != null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Stats of an empty partition didn't expire");
+            Thread.sleep(20);
+        }
+        assertEquals(metrics.getTotalStats().getClosedCount(), 2);
+    }
+
+    @Test
+    public void testStatsOfFailingPartitionExpire() throws InterruptedException {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics(null, null, timer, 100);
+
+        metrics.onChannelConnectFailed(KEY, 1000);
+        assertEquals(metrics.getPartitionStats(KEY).getConnectFailedCount(), 1);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metrics.getPartitionStats(KEY) != null) {
+            assertTrue(System.currentTimeMillis() < deadline, "Stats of a failing partition didn't expire");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.channel;
+
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.channel.ChannelPoolListener;
+import org.asynchttpclient.channel.ChannelPoolListener.ExpirationReason;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DefaultChannelPoolTest {
+
+    private static final String KEY = "http://localhost:80";
+
+    private HashedWheelTimer timer;
+
+    @BeforeMethod
+    public void startTimer() {
+        timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        timer.start();
+    }
+
+    @AfterMethod
+    public void stopTimer() {
+        timer.stop();
+    }
+
+    @Test
+    public void testLifoLease() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, timer, 1000);
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+
+        assertTrue(pool.offer(first, KEY));
+        assertTrue(pool.offer(second, KEY));
+
+        assertSame(pool.poll(KEY), second);
+        assertSame(pool.poll(KEY), first);
+        assertNull(pool.poll(KEY));
+        assertNull(pool.poll("other"));
+    }
+
+    @Test
+    public void testFifoLease() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, DefaultChannelPool.PoolLeaseStrategy.FIFO, timer, 1000);
+        Channel first = new EmbeddedChannel();
+        Channel second = new EmbeddedChannel();
+
+        pool.offer(first, KEY);
+        pool.offer(second, KEY);
+
+        assertSame(pool.poll(KEY), first);
+        assertSame(pool.poll(KEY), second);
+    }
+
+    @Test
+    public void testRemoveAll() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, timer, 1000);
+        Channel channel = new EmbeddedChannel();
+
+        pool.offer(channel, KEY);
+        assertTrue(pool.removeAll(channel));
+        assertFalse(pool.removeAll(channel));
+        assertNull(pool.poll(KEY));
+    }
+
+    @Test
+    public void testRemoveAllAfterPollIsNoop() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, timer, 1000);
+        Channel channel = new EmbeddedChannel();
+
+        pool.offer(channel, KEY);
+        assertSame(pool.poll(KEY), channel);
+        assertFalse(pool.removeAll(channel));
+    }
+
+    @Test
+    public void testIdleChannelsAreExpired() throws InterruptedException {
+        DefaultChannelPool pool = new DefaultChannelPool(100, -1, timer, 50);
+        Channel expired = new EmbeddedChannel();
+        Channel leased = new EmbeddedChannel();
+
+        pool.offer(expired, KEY);
+        pool.offer(leased, KEY);
+        assertSame(pool.poll(KEY), leased);
+
+        Thread.sleep(500);
+
+        assertFalse(expired.isOpen(), "Idle channel should have been closed");
+        assertTrue(leased.isOpen(), "Leased channel shouldn't be expired");
+        assertNull(pool.poll(KEY));
+    }
+
+    @Test
+    public void testExpirationsAreReported() throws InterruptedException {
+        Map<ExpirationReason, AtomicInteger> expirations = new ConcurrentHashMap<>();
+        ChannelPoolListener listener = new ChannelPoolListener() {
+            @Override
+            public void onChannelExpired(Object partitionKey, ExpirationReason reason) {
+                assertEquals(partitionKey, KEY);
+                expirations.computeIfAbsent(reason, r -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+        DefaultChannelPool pool = new DefaultChannelPool(100, -1, DefaultChannelPool.PoolLeaseStrategy.LIFO, false, timer, 50, listener);
+        Channel idle = new EmbeddedChannel();
+        Channel remotelyClosed = new EmbeddedChannel();
+
+        pool.offer(idle, KEY);
+        pool.offer(remotelyClosed, KEY);
+        remotelyClosed.close();
+        assertTrue(pool.removeAll(remotelyClosed));
+        assertEquals(pool.getIdleChannelCount(KEY), 1);
+
+        Thread.sleep(500);
+
+        assertEquals(expirations.get(ExpirationReason.IDLE).get(), 1);
+        assertEquals(expirations.get(ExpirationReason.REMOTELY_CLOSED).get(), 1);
+        assertEquals(pool.getIdleChannelCount(KEY), 0);
+    }
+
+    @Test
+    public void testReofferedChannelIsNotExpiredEarly() throws InterruptedException {
+        DefaultChannelPool pool = new DefaultChannelPool(300, -1, timer, 50);
+        Channel channel = new EmbeddedChannel();
+
+        pool.offer(channel, KEY);
+        Thread.sleep(200);
+        assertSame(pool.poll(KEY), channel);
+        pool.offer(channel, KEY);
+        // the first offer's deadline is now past, but the entry was leased in between
+        Thread.sleep(200);
+
+        assertTrue(channel.isOpen());
+        assertSame(pool.poll(KEY), channel);
+    }
+
+    @Test
+    public void testTtlExpiredChannelIsNotLeased() throws InterruptedException {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, 100, timer, 1000);
+        Channel channel = new EmbeddedChannel();
+        Channels.initChannelId(channel);
+
+        pool.offer(channel, KEY);
+        Thread.sleep(200);
+
+        assertNull(pool.poll(KEY));
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testEventLoopAffinityPrefersLocalChannel() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, DefaultChannelPool.PoolLeaseStrategy.LIFO, true, timer, 1000, null);
+        Channel local = channelOn(true);
+        Channel remote = channelOn(false);
+
+        pool.offer(local, KEY);
+        pool.offer(remote, KEY);
+
+        assertSame(pool.poll(KEY), local);
+        // no local channel left, steal
+        assertSame(pool.poll(KEY), remote);
+        assertNull(pool.poll(KEY));
+    }
+
+    @Test
+    public void testEventLoopAffinityRemoveAll() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, DefaultChannelPool.PoolLeaseStrategy.LIFO, true, timer, 1000, null);
+        Channel local = channelOn(true);
+        Channel remote = channelOn(false);
+
+        pool.offer(local, KEY);
+        pool.offer(remote, KEY);
+
+        assertTrue(pool.removeAll(local));
+        assertSame(pool.poll(KEY), remote);
+        assertNull(pool.poll(KEY));
+    }
+
+    private static Channel channelOn(boolean inEventLoop) {
+        EventLoop eventLoop = mock(EventLoop.class);
+        // EmbeddedChannel's constructor registers the channel inline only if it's on its event loop
+        when(eventLoop.inEventLoop()).thenReturn(true);
+        Channel channel = new EmbeddedChannel() {
+            @Override
+            public EventLoop eventLoop() {
+                return eventLoop;
+            }
+        };
+        when(eventLoop.inEventLoop()).thenReturn(inEventLoop);
+        return channel;
+    }
+
+    @Test
+    public void testPoolClosed() {
+        DefaultChannelPool pool = new DefaultChannelPool(60000, -1, timer, 1000);
+        pool.destroy();
+        assertFalse(pool.isOpen());
+        assertFalse(pool.offer(new EmbeddedChannel(), KEY));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.request;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.testng.Assert.*;
+import io.netty.resolver.InetNameResolver;
+import io.netty.resolver.NameResolver;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.test.EchoHandler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class NettyChannelConnectorTest extends AbstractBasicTest {
+
+    private InetAddress blackholeAddress;
+    private InetAddress serverAddress;
+    private ServerSocket blackhole;
+    private final List<SocketChannel> backlog = new ArrayList<>();
+
+    @BeforeClass(alwaysRun = true)
+    public void setUpGlobal() throws Exception {
+        blackholeAddress = InetAddress.getByName("127.0.0.1");
+        serverAddress = InetAddress.getByName("127.0.0.2");
+        port1 = findFreePort();
+
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost(serverAddress.getHostAddress());
+        connector.setPort(port1);
+        server.addConnector(connector);
+        server.setHandler(new EchoHandler());
+        server.start();
+
+        // a listening socket that never accepts: once its backlog is full, SYNs are dropped and connects hang
+        blackhole = new ServerSocket(port1, 1, blackholeAddress);
+        for (int i = 0; i < 5; i++) {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(new InetSocketAddress(blackholeAddress, port1));
+            backlog.add(channel);
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDownGlobal() throws Exception {
+        for (SocketChannel channel : backlog)
+            channel.close();
+        blackhole.close();
+        super.tearDownGlobal();
+    }
+
+    private static NameResolver<InetAddress> resolver(InetAddress... addresses) {
+        return new InetNameResolver(ImmediateEventExecutor.INSTANCE) {
+
+            @Override
+            protected void doResolve(String inetHost, Promise<InetAddress> promise) throws Exception {
+                promise.setSuccess(addresses[0]);
+            }
+
+            @Override
+            protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) throws Exception {
+                promise.setSuccess(Arrays.asList(addresses));
+            }
+        };
+    }
+
+    @Test(groups = "standalone")
+    public void testUnresponsiveAddressDoesNotDelayConnect() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setConnectTimeout(20000).setConnectionAttemptDelay(100))) {
+            long start = System.currentTimeMillis();
+            Response response = client.prepareGet("http://localhost:" + port1 + "/foo/test")//
+                    .setNameResolver(resolver(blackholeAddress, serverAddress))//
+                    .execute().get(TIMEOUT, TimeUnit.SECONDS);
+
+            assertEquals(response.getStatusCode(), 200);
+            assertTrue(System.currentTimeMillis() - start < 10000, "Connect should have fallen back to the next address long before the connect timeout");
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testInterleaveAddressFamilies() throws Exception {
+        InetSocketAddress v4a = new InetSocketAddress(InetAddress.getByName("10.0.0.1"), 80);
+        InetSocketAddress v4b = new InetSocketAddress(InetAddress.getByName("10.0.0.2"), 80);
+        InetSocketAddress v6a = new InetSocketAddress(InetAddress.getByName("::1"), 80);
+        InetSocketAddress v6b = new InetSocketAddress(InetAddress.getByName("::2"), 80);
+
+        assertEquals(NettyChannelConnector.interleaveAddressFamilies(Arrays.asList(v6a, v6b, v4a, v4b)), Arrays.asList(v6a, v4a, v6b, v4b));
+        assertEquals(NettyChannelConnector.interleaveAddressFamilies(Arrays.asList(v4a, v4b, v6a)), Arrays.asList(v4a, v6a, v4b));
+        assertEquals(NettyChannelConnector.interleaveAddressFamilies(Arrays.asList(v4a, v4b)), Arrays.asList(v4a, v4b));
+    }
+}
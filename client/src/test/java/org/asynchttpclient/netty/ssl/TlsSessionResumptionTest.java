@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.netty.ssl;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.*;
+import static org.testng.Assert.*;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSession;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.netty.channel.ChannelPoolMetrics;
+import org.asynchttpclient.test.EchoHandler;
+import org.asynchttpclient.test.EventCollectingHandler;
+import org.asynchttpclient.uri.Uri;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TlsSessionResumptionTest extends AbstractBasicTest {
+
+    @BeforeClass(alwaysRun = true)
+    @Override
+    public void setUpGlobal() throws Exception {
+        server = new Server();
+        ServerConnector connector = addHttpsConnector(server);
+        server.setHandler(new EchoHandler());
+        server.start();
+        port1 = connector.getLocalPort();
+    }
+
+    @Override
+    protected String getTargetUrl() {
+        return String.format("https://localhost:%d/foo/test", port1);
+    }
+
+    private Response get(DefaultAsyncHttpClient client, HandshakeCollectingHandler handler) throws Exception {
+        return client.prepareGet(getTargetUrl()).execute(handler).get(TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    @Test(groups = "standalone")
+    public void newConnectionsResumeSession() throws Exception {
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config().setAcceptAnyCertificate(true).setKeepAlive(false))) {
+            HandshakeCollectingHandler first = new HandshakeCollectingHandler();
+            assertEquals(get(client, first).getStatusCode(), 200);
+            HandshakeCollectingHandler second = new HandshakeCollectingHandler();
+            assertEquals(get(client, second).getStatusCode(), 200);
+
+            assertEquals(first.resumed.poll(), Boolean.FALSE);
+            assertEquals(second.resumed.poll(), Boolean.TRUE, "The second connection should have resumed the first one's session");
+            assertEquals(first.sessionIds.poll(), second.sessionIds.poll());
+            assertTrue(second.firedEvents.contains(EventCollectingHandler.TLS_HANDSHAKE_SUCCESS_EVENT));
+
+            Object partitionKey = ChannelPoolPartitioning.PerHostChannelPoolPartitioning.INSTANCE.getPartitionKey(Uri.create(getTargetUrl()), null, null);
+            ChannelPoolMetrics.Stats stats = client.getChannelPoolMetrics().getPartitionStats(partitionKey);
+            assertEquals(stats.getFullTlsHandshakeCount(), 1);
+            assertEquals(stats.getResumedTlsHandshakeCount(), 1);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void jsseEngineFactoryResumesSession() throws Exception {
+        try (DefaultAsyncHttpClient client = (DefaultAsyncHttpClient) asyncHttpClient(config().setSslEngineFactory(createSslEngineFactory()).setKeepAlive(false))) {
+            for (int i = 0; i < 3; i++)
+                assertEquals(get(client, new HandshakeCollectingHandler()).getStatusCode(), 200);
+
+            ChannelPoolMetrics.Stats stats = client.getChannelPoolMetrics().getTotalStats();
+            assertEquals(stats.getFullTlsHandshakeCount(), 1);
+            assertEquals(stats.getResumedTlsHandshakeCount(), 2);
+        }
+    }
+
+    private static class HandshakeCollectingHandler extends EventCollectingHandler {
+
+        private final Queue<Boolean> resumed = new ConcurrentLinkedQueue<>();
+        private final Queue<String> sessionIds = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void onTlsHandshakeSuccess(SSLSession session, boolean resumed) {
+            this.resumed.add(resumed);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : session.getId())
+                sb.append(b);
+            sessionIds.add(sb.toString());
+            super.onTlsHandshakeSuccess(session, resumed);
+        }
+    }
+}
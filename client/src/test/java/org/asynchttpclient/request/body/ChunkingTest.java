@@ -17,6 +17,8 @@ import static org.asynchttpclient.test.TestUtils.*;
 import static org.testng.Assert.*;
 import static org.testng.FileAssert.fail;
 
+import io.netty.buffer.Unpooled;
+
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -30,6 +32,7 @@ import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.RequestBuilder;
 import org.asynchttpclient.Response;
+import org.asynchttpclient.request.body.generator.ByteBufFeedableBodyGenerator;
 import org.asynchttpclient.request.body.generator.FeedableBodyGenerator;
 import org.asynchttpclient.request.body.generator.InputStreamBodyGenerator;
 import org.asynchttpclient.request.body.generator.UnboundedQueueFeedableBodyGenerator;
@@ -59,6 +62,34 @@ public class ChunkingTest extends AbstractBasicTest {
         doTestWithFeedableBodyGenerator(new FileInputStream(LARGE_IMAGE_FILE));
     }
 
+    @Test(groups = "standalone")
+    public void testByteBufFeedableBodyGenerator() throws Throwable {
+        try (AsyncHttpClient c = asyncHttpClient(httpClientBuilder())) {
+
+            // small water marks, so that the producer has to wait for the channel
+            ByteBufFeedableBodyGenerator generator = new ByteBufFeedableBodyGenerator(4096, 2048);
+            Request r = post(getTargetUrl()).setBody(generator).build();
+
+            ListenableFuture<Response> responseFuture = c.executeRequest(r);
+
+            feed(generator, 0);
+
+            waitForAndAssertResponse(responseFuture);
+        }
+    }
+
+    private void feed(ByteBufFeedableBodyGenerator generator, int offset) {
+        while (generator.isReady() && offset < LARGE_IMAGE_BYTES.length) {
+            int length = Math.min(1024, LARGE_IMAGE_BYTES.length - offset);
+            generator.feed(Unpooled.wrappedBuffer(LARGE_IMAGE_BYTES, offset, length), offset + length == LARGE_IMAGE_BYTES.length);
+            offset += length;
+        }
+        if (offset < LARGE_IMAGE_BYTES.length) {
+            int resumeOffset = offset;
+            generator.whenReady().thenRun(() -> feed(generator, resumeOffset));
+        }
+    }
+
     public void doTestWithInputStreamBodyGenerator(InputStream is) throws Throwable {
         try (AsyncHttpClient c = asyncHttpClient(httpClientBuilder())) {
 
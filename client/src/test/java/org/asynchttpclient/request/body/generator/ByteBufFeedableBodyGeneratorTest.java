@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.request.body.Body.BodyState;
+import org.asynchttpclient.request.body.generator.ByteBufFeedableBodyGenerator.ByteBufBody;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ByteBufFeedableBodyGeneratorTest {
+
+    private ByteBufFeedableBodyGenerator generator;
+    private AtomicInteger resumes;
+
+    @BeforeMethod
+    public void setUp() {
+        generator = new ByteBufFeedableBodyGenerator(10, 5);
+        resumes = new AtomicInteger();
+        generator.setListener(new FeedListener() {
+            @Override
+            public void onContentAdded() {
+                resumes.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        });
+    }
+
+    @Test(groups = "standalone")
+    public void readChunkReturnsFedBuffersWithoutCopying() {
+        ByteBuf buf = Unpooled.copiedBuffer("Test123", StandardCharsets.US_ASCII);
+        generator.feed(buf, true);
+
+        ByteBufBody body = (ByteBufBody) generator.createBody();
+        assertSame(body.readChunk(), buf);
+        assertNull(body.readChunk());
+        assertTrue(body.isEndOfInput());
+        buf.release();
+    }
+
+    @Test(groups = "standalone")
+    public void consumerIsOnlyResumedWhenSuspended() {
+        ByteBufBody body = (ByteBufBody) generator.createBody();
+        generator.feed(Unpooled.wrappedBuffer(new byte[2]), false);
+        assertEquals(resumes.get(), 0);
+
+        body.readChunk().release();
+        assertNull(body.readChunk());
+        assertFalse(body.isEndOfInput());
+
+        generator.feed(Unpooled.wrappedBuffer(new byte[2]), false);
+        generator.feed(Unpooled.wrappedBuffer(new byte[2]), true);
+        assertEquals(resumes.get(), 1);
+    }
+
+    @Test(groups = "standalone")
+    public void readinessFollowsWaterMarks() {
+        ByteBufBody body = (ByteBufBody) generator.createBody();
+        assertTrue(generator.isReady());
+        assertTrue(generator.whenReady().isDone());
+
+        for (int i = 0; i < 4; i++)
+            generator.feed(Unpooled.wrappedBuffer(new byte[3]), false);
+        assertFalse(generator.isReady());
+        CompletableFuture<Void> ready = generator.whenReady();
+        assertFalse(ready.isDone());
+
+        // 9 then 6 pending bytes, below the high water mark but still above the low one
+        body.readChunk().release();
+        assertTrue(generator.isReady());
+        body.readChunk().release();
+        assertFalse(ready.isDone());
+
+        body.readChunk().release();
+        assertTrue(ready.isDone());
+        body.close();
+    }
+
+    @Test(groups = "standalone")
+    public void closeReleasesPendingBuffersAndRejectsFeeds() {
+        ByteBufBody body = (ByteBufBody) generator.createBody();
+        ByteBuf pending = Unpooled.wrappedBuffer(new byte[20]);
+        generator.feed(pending, false);
+        CompletableFuture<Void> ready = generator.whenReady();
+
+        body.close();
+        assertEquals(pending.refCnt(), 0);
+        assertTrue(ready.isDone());
+
+        ByteBuf rejected = Unpooled.wrappedBuffer(new byte[1]);
+        assertFalse(generator.feed(rejected, true));
+        assertEquals(rejected.refCnt(), 0);
+    }
+
+    @Test(groups = "standalone")
+    public void transferToCopiesAcrossBuffers() {
+        generator.feed(Unpooled.copiedBuffer("Test", StandardCharsets.US_ASCII), false);
+        generator.feed(Unpooled.copiedBuffer("123", StandardCharsets.US_ASCII), true);
+
+        ByteBufBody body = (ByteBufBody) generator.createBody();
+        ByteBuf target = Unpooled.buffer(5);
+        assertEquals(body.transferTo(target), BodyState.CONTINUE);
+        assertEquals(target.toString(StandardCharsets.US_ASCII), "Test1");
+        target.clear();
+        assertEquals(body.transferTo(target), BodyState.STOP);
+        assertEquals(target.toString(StandardCharsets.US_ASCII), "23");
+    }
+}
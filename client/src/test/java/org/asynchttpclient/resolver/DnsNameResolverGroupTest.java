@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.resolver;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.testng.Assert.*;
+import io.netty.bootstrap.ChannelFactory;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.resolver.NameResolver;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.test.EventCollectingHandler;
+import org.testng.annotations.Test;
+
+public class DnsNameResolverGroupTest extends AbstractBasicTest {
+
+    private static final ChannelFactory<DatagramChannel> NIO_DATAGRAM_CHANNEL_FACTORY = NioDatagramChannel::new;
+
+    @Test(groups = "standalone")
+    public void testOneResolverPerEventLoop() throws Exception {
+        NioEventLoopGroup eventLoopGroup = new NioEventLoopGroup(2);
+        try (DnsNameResolverGroup group = new DnsNameResolverGroup(config().build(), eventLoopGroup, NIO_DATAGRAM_CHANNEL_FACTORY)) {
+            EventLoop first = eventLoopGroup.next();
+            EventLoop second = eventLoopGroup.next();
+
+            assertSame(group.get(first), group.get(first));
+            assertNotSame(group.get(first), group.get(second));
+
+            NameResolver<InetAddress> resolver = group.get(first);
+            List<InetAddress> addresses = resolver.resolveAll("localhost").get(TIMEOUT, TimeUnit.SECONDS);
+            assertTrue(addresses.get(0).isLoopbackAddress());
+        } finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testRequestsResolveWithDnsNameResolver() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setUseDnsNameResolver(true))) {
+            for (int i = 0; i < 3; i++) {
+                Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+            }
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void testRequestsConnectOnTheEventLoopTheyResolvedOn() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setUseDnsNameResolver(true))) {
+            for (int i = 0; i < 3; i++) {
+                AtomicReference<Thread> resolutionThread = new AtomicReference<>();
+                AtomicReference<EventLoop> connectionEventLoop = new AtomicReference<>();
+                EventCollectingHandler handler = new EventCollectingHandler() {
+                    @Override
+                    public void onHostnameResolutionSuccess(String name, List<InetSocketAddress> addresses) {
+                        resolutionThread.set(Thread.currentThread());
+                        super.onHostnameResolutionSuccess(name, addresses);
+                    }
+
+                    @Override
+                    public void onTcpConnectSuccess(InetSocketAddress address, Channel connection) {
+                        connectionEventLoop.set(connection.eventLoop());
+                        super.onTcpConnectSuccess(address, connection);
+                    }
+                };
+
+                // don't keep the connection alive so that each request opens a new one
+                Response response = client.prepareGet(getTargetUrl()).setHeader("Connection", "close").execute(handler).get(TIMEOUT, TimeUnit.SECONDS);
+                assertEquals(response.getStatusCode(), 200);
+                assertTrue(connectionEventLoop.get().inEventLoop(resolutionThread.get()), "Connected on another event loop than the one that resolved");
+            }
+        }
+    }
+}
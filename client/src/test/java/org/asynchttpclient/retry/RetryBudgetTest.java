@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import static org.testng.Assert.*;
+
+import org.testng.annotations.Test;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void depositsAreCappedByMaxBalance() {
+        RetryBudget retryBudget = new RetryBudget(1.0, 0, 2);
+        assertEquals(retryBudget.getBalance(), 0);
+        assertFalse(retryBudget.tryWithdraw());
+
+        for (int i = 0; i < 5; i++)
+            retryBudget.deposit();
+        assertEquals(retryBudget.getBalance(), 2);
+
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    public void fractionalDepositsAddUp() {
+        RetryBudget retryBudget = new RetryBudget(0.1, 0, 10);
+        for (int i = 0; i < 9; i++)
+            retryBudget.deposit();
+        assertFalse(retryBudget.tryWithdraw());
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    public void balanceRefillsOverTime() throws InterruptedException {
+        RetryBudget retryBudget = new RetryBudget(0.0, 100, 1);
+        while (retryBudget.tryWithdraw())
+            ;
+        Thread.sleep(50);
+        assertTrue(retryBudget.tryWithdraw());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.retry;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.HttpResponseHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RetryPolicyTest extends AbstractBasicTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger connectRequests = new AtomicInteger();
+
+    @BeforeMethod
+    public void resetRequests() {
+        requests.set(0);
+        connectRequests.set(0);
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException, ServletException {
+                if ("CONNECT".equals(request.getMethod())) {
+                    // acting as an HTTPS proxy that can't reach the origin
+                    connectRequests.incrementAndGet();
+                    response.setStatus(502);
+                    baseRequest.setHandled(true);
+                    return;
+                }
+                int index = requests.incrementAndGet();
+                String failures = request.getHeader("X-Failures");
+                if (failures != null && index <= Integer.parseInt(failures)) {
+                    response.setStatus(503);
+                    String retryAfter = request.getHeader("X-Retry-After");
+                    if (retryAfter != null)
+                        response.setHeader("Retry-After", retryAfter);
+                } else {
+                    response.setStatus(200);
+                }
+                response.getOutputStream().print("request " + index);
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    private static RetryPolicy retryPolicy(int maxRetries, RetryBudget retryBudget) {
+        return new DefaultRetryPolicy(maxRetries, 10, 100, DefaultRetryPolicy.DEFAULT_RETRYABLE_STATUSES, retryBudget);
+    }
+
+    @Test(groups = "standalone")
+    public void retryUntilSuccess() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(3, null)))) {
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "2").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(response.getResponseBody(), "request 3");
+            assertEquals(requests.get(), 3);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void giveUpAfterMaxRetries() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(2, null)))) {
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "10").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 3);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void nonIdempotentRequestIsNotRetried() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(3, null)))) {
+            Response response = client.preparePost(getTargetUrl()).setHeader("X-Failures", "1").setBody("foo").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 1);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void retryAfterIsHonored() throws Exception {
+        RetryPolicy retryPolicy = new DefaultRetryPolicy(3, 10, 2000, DefaultRetryPolicy.DEFAULT_RETRYABLE_STATUSES, null);
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy))) {
+            long start = System.nanoTime();
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "1").setHeader("X-Retry-After", "1").execute()
+                    .get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 200);
+            assertEquals(requests.get(), 2);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void retryAfterAboveMaxDelayIsNotRetried() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(3, null)))) {
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "1").setHeader("X-Retry-After", "10").execute()
+                    .get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 1);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void retryBudgetIsEarnedBySuccessfulResponses() throws Exception {
+        // no time based refill, each success earns half a retry
+        RetryBudget retryBudget = new RetryBudget(0.5, 0, 10);
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(3, retryBudget)))) {
+            Response response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "1").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 1);
+
+            client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(retryBudget.getBalance(), 1);
+
+            // only the first 4 requests fail, the budget allows for a single retry
+            response = client.prepareGet(getTargetUrl()).setHeader("X-Failures", "5").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 503);
+            assertEquals(requests.get(), 5);
+            assertEquals(retryBudget.getBalance(), 0);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void connectFailureIsRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryPolicy retryPolicy = new RetryPolicy() {
+            @Override
+            public long getRetryDelay(Request request, int retry, Throwable cause) {
+                attempts.incrementAndGet();
+                return retry <= 2 ? 10 : -1;
+            }
+
+            @Override
+            public long getRetryDelay(Request request, int retry, HttpResponseStatus status, HttpResponseHeaders headers) {
+                return -1;
+            }
+        };
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy))) {
+            client.prepareGet("http://localhost:" + findFreePort() + "/").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            fail("Request shouldn't have succeeded");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConnectException, "Expected a ConnectException but got " + e.getCause());
+            assertEquals(attempts.get(), 3);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void failedConnectThroughHttpsProxyIsNotRetried() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setRetryPolicy(retryPolicy(3, null)).setProxyServer(proxyServer("localhost", port1)))) {
+            Response response = client.prepareGet("https://localhost:" + findFreePort() + "/").execute().get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(response.getStatusCode(), 502);
+            assertEquals(connectRequests.get(), 1);
+            assertEquals(requests.get(), 0, "The request shouldn't have been sent to the proxy without a tunnel");
+        }
+    }
+}
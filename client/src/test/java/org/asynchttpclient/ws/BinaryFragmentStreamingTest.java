@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.testng.annotations.Test;
+
+public class BinaryFragmentStreamingTest extends AbstractBasicTest {
+
+    private static final int FRAGMENT_SIZE = 8 * 1024;
+
+    /**
+     * Echoes like {@link EchoSocket}, and answers "SEND n" with a binary message of n bytes sent in fragments
+     */
+    public static class FragmentingSocket extends EchoSocket {
+
+        @Override
+        public void onWebSocketText(String message) {
+            if (!message.startsWith("SEND ")) {
+                super.onWebSocketText(message);
+                return;
+            }
+
+            int size = Integer.parseInt(message.substring(5));
+            try {
+                for (int sent = 0; sent < size; sent += FRAGMENT_SIZE) {
+                    int len = Math.min(FRAGMENT_SIZE, size - sent);
+                    byte[] fragment = new byte[len];
+                    for (int i = 0; i < len; i++)
+                        fragment[i] = (byte) (sent + i);
+                    getRemote().sendPartialBytes(ByteBuffer.wrap(fragment), sent + len >= size);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public WebSocketHandler getWebSocketHandler() {
+        return new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.register(FragmentingSocket.class);
+            }
+        };
+    }
+
+    private static class FragmentCollector extends DefaultWebSocketListener implements WebSocketBinaryFragmentListener {
+
+        private final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+        private final List<ByteBuf> retained = new ArrayList<>();
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicBoolean corrupted = new AtomicBoolean();
+        private final CountDownLatch lastFragment = new CountDownLatch(1);
+        private final boolean retain;
+
+        FragmentCollector(boolean retain) {
+            this.retain = retain;
+        }
+
+        @Override
+        public void onBinaryFragment(ByteBuf fragment, boolean last) {
+            long offset = received.get();
+            for (int i = 0; i < fragment.readableBytes(); i++) {
+                if (fragment.getByte(fragment.readerIndex() + i) != (byte) (offset + i))
+                    corrupted.set(true);
+            }
+            received.addAndGet(fragment.readableBytes());
+            if (retain)
+                retained.add(fragment.retain());
+            if (last)
+                lastFragment.countDown();
+        }
+
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onMessage(byte[] message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            messages.add(t);
+        }
+
+        Object poll() throws InterruptedException {
+            return messages.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void largeMessageIsStreamedWithoutAggregation() throws Exception {
+        // much larger than what the aggregator would accept
+        try (AsyncHttpClient c = asyncHttpClient(config().setWebSocketMaxBufferSize(64 * 1024))) {
+            FragmentCollector collector = new FragmentCollector(false);
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().addWebSocketListener(collector).build()).get();
+
+            int size = 1024 * 1024 + 17;
+            websocket.sendMessage("SEND " + size);
+
+            assertTrue(collector.lastFragment.await(10, TimeUnit.SECONDS));
+            assertEquals(collector.received.get(), size);
+            assertFalse(collector.corrupted.get());
+            assertTrue(websocket.isOpen());
+            assertNull(collector.messages.poll());
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void retainedFragmentsOutliveTheCallback() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            FragmentCollector collector = new FragmentCollector(true);
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().addWebSocketListener(collector).build()).get();
+
+            int size = 5 * FRAGMENT_SIZE;
+            websocket.sendMessage("SEND " + size);
+            assertTrue(collector.lastFragment.await(10, TimeUnit.SECONDS));
+
+            int offset = 0;
+            for (ByteBuf fragment : collector.retained) {
+                while (fragment.isReadable()) {
+                    assertEquals(fragment.readByte(), (byte) offset++);
+                }
+                assertTrue(fragment.release());
+            }
+            assertEquals(offset, size);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void singleFrameMessagesStillReachByteAndTextListeners() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            FragmentCollector collector = new FragmentCollector(false);
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().addWebSocketListener(collector).build()).get();
+
+            byte[] payload = { 0, 1, 2, 3 };
+            websocket.sendMessage(payload);
+            assertEquals(collector.poll(), payload);
+            assertTrue(collector.lastFragment.await(10, TimeUnit.SECONDS));
+            assertEquals(collector.received.get(), payload.length);
+
+            websocket.sendMessage("ECHO");
+            assertEquals(collector.poll(), "ECHO");
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void streamedFragmentsAreSentAsContinuationFrames() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            FragmentCollector collector = new FragmentCollector(false);
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().addWebSocketListener(collector).build()).get();
+
+            websocket.stream("frag", false).stream("ment", true);
+            assertEquals(collector.poll(), "fragment");
+
+            websocket.stream(new byte[] { 0, 1 }, false).stream(new byte[] { 2, 3 }, true);
+            assertEquals(collector.poll(), new byte[] { 0, 1, 2, 3 });
+        }
+    }
+}
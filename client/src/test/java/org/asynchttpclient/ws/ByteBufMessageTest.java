@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.testng.Assert.*;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.testng.annotations.Test;
+
+public class ByteBufMessageTest extends AbstractBasicTest {
+
+    private static final String TEXT = "héllo wörld €";
+
+    @Override
+    public WebSocketHandler getWebSocketHandler() {
+        return new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.register(EchoSocket.class);
+            }
+        };
+    }
+
+    /**
+     * Copies what it gets, and consumes the buffers so that other listeners would notice if they weren't rewound
+     */
+    private static class ByteBufCollector extends DefaultWebSocketListener implements WebSocketByteBufListener, WebSocketUtf8TextListener {
+
+        private final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMessage(ByteBuf message) {
+            byte[] bytes = new byte[message.readableBytes()];
+            message.readBytes(bytes);
+            messages.add(bytes);
+        }
+
+        @Override
+        public void onMessage(Utf8Text message) {
+            String text = message.toString();
+            message.content().skipBytes(message.content().readableBytes());
+            messages.add(text);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            messages.add(t);
+        }
+
+        Object poll() throws InterruptedException {
+            return messages.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private WebSocket connect(AsyncHttpClient c, WebSocketListener... listeners) throws Exception {
+        WebSocketUpgradeHandler.Builder builder = new WebSocketUpgradeHandler.Builder();
+        for (WebSocketListener listener : listeners)
+            builder.addWebSocketListener(listener);
+        return c.prepareGet(getTargetUrl()).execute(builder.build()).get();
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void echoByteBuf() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            ByteBufCollector first = new ByteBufCollector();
+            ByteBufCollector second = new ByteBufCollector();
+            WebSocket websocket = connect(c, first, second);
+
+            byte[] payload = { 1, 2, 3, 4, 5 };
+            websocket.sendMessage(Unpooled.wrappedBuffer(payload));
+
+            assertEquals(first.poll(), payload);
+            assertEquals(second.poll(), payload);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void echoUtf8Text() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            ByteBufCollector first = new ByteBufCollector();
+            ByteBufCollector second = new ByteBufCollector();
+            WebSocket websocket = connect(c, first, second);
+
+            websocket.sendTextMessage(Unpooled.copiedBuffer(TEXT, UTF_8));
+
+            assertEquals(first.poll(), TEXT);
+            assertEquals(second.poll(), TEXT);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void utf8TextListenersCoexistWithStringListeners() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            ByteBufCollector collector = new ByteBufCollector();
+            BlockingQueue<String> strings = new LinkedBlockingQueue<>();
+            WebSocket websocket = connect(c, collector, new DefaultWebSocketListener() {
+                @Override
+                public void onMessage(String message) {
+                    strings.add(message);
+                }
+            });
+
+            websocket.sendMessage(TEXT);
+
+            assertEquals(collector.poll(), TEXT);
+            assertEquals(strings.poll(10, TimeUnit.SECONDS), TEXT);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void asyncByteBufSendsReleaseTheBuffers() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            ByteBufCollector collector = new ByteBufCollector();
+            WebSocket websocket = connect(c, collector);
+
+            ByteBuf binary = Unpooled.buffer().writeBytes(new byte[] { 6, 7, 8 });
+            ByteBuf text = Unpooled.copiedBuffer(TEXT, UTF_8);
+            websocket.sendMessageAsync(binary).get(10, TimeUnit.SECONDS);
+            websocket.sendTextMessageAsync(text).get(10, TimeUnit.SECONDS);
+
+            assertEquals(collector.poll(), new byte[] { 6, 7, 8 });
+            assertEquals(collector.poll(), TEXT);
+            assertEquals(binary.refCnt(), 0);
+            assertEquals(text.refCnt(), 0);
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void utf8TextIsDecodedOnDemand() {
+        ByteBuf content = Unpooled.copiedBuffer(TEXT, UTF_8);
+        try {
+            Utf8Text text = new Utf8Text(content);
+            assertSame(text.content(), content);
+            assertEquals(text.length(), TEXT.length());
+            assertEquals(text.charAt(1), 'é');
+            assertEquals(text.subSequence(0, 5), "héllo");
+            assertSame(text.toString(), text.toString());
+            assertEquals(content.readerIndex(), 0);
+        } finally {
+            content.release();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import static org.asynchttpclient.Dsl.*;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.Request;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.testng.annotations.Test;
+
+public class ManagedWebSocketTest extends AbstractBasicTest {
+
+    @Override
+    public WebSocketHandler getWebSocketHandler() {
+        return new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.register(EchoSocket.class);
+            }
+        };
+    }
+
+    private static class MessageCollector extends DefaultWebSocketListener {
+
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        String poll() throws InterruptedException {
+            return messages.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void keepAlivePingsIdleConnections() throws Exception {
+        try (DefaultAsyncHttpClient c = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            CountDownLatch pongs = new CountDownLatch(3);
+            WebSocketPongListener pongListener = new WebSocketPongListener() {
+                @Override
+                public void onPong(byte[] message) {
+                    pongs.countDown();
+                }
+
+                @Override
+                public void onOpen(WebSocket websocket) {
+                }
+
+                @Override
+                public void onClose(WebSocket websocket) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+            };
+
+            WebSocket websocket = c.prepareGet(getTargetUrl())
+                    .execute(new WebSocketUpgradeHandler.Builder().setPingInterval(100).setPongTimeout(2000).addWebSocketListener(pongListener).build()).get();
+
+            assertTrue(pongs.await(10, TimeUnit.SECONDS));
+            assertTrue(websocket.isOpen());
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void reconnectsAndResumesOnceTheServerClosesTheConnection() throws Exception {
+        try (DefaultAsyncHttpClient c = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            AtomicInteger resumes = new AtomicInteger();
+            ManagedWebSocket websocket = c.prepareManagedWebSocket(get(getTargetUrl()).build(), new WebSocketUpgradeHandler.Builder().addWebSocketListener(collector).build())//
+                    .setInitialReconnectDelay(50)//
+                    .setMaxReconnectDelay(200)//
+                    .setResumeHandler(connection -> connection.sendMessage("RESUMED " + resumes.incrementAndGet()))//
+                    .build();
+
+            websocket.connect().get(10, TimeUnit.SECONDS);
+            WebSocket firstConnection = websocket.getConnection();
+            websocket.sendMessage("ECHO");
+            assertEquals(collector.poll(), "ECHO");
+
+            websocket.sendMessage("CLOSE");
+            assertEquals(collector.poll(), "RESUMED 1");
+            assertNotSame(websocket.getConnection(), firstConnection);
+            assertFalse(firstConnection.isOpen());
+
+            websocket.whenWritable().get(10, TimeUnit.SECONDS);
+            websocket.sendMessage("ECHO");
+            assertEquals(collector.poll(), "ECHO");
+            assertEquals(resumes.get(), 1);
+            websocket.close();
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void givesUpOnceTheAttemptsAreExhausted() throws Exception {
+        try (DefaultAsyncHttpClient c = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            ManagedWebSocket websocket = c.prepareManagedWebSocket(get("ws://localhost:" + findFreePort() + "/").build(), new WebSocketUpgradeHandler.Builder().build())//
+                    .setInitialReconnectDelay(10)//
+                    .setMaxReconnectDelay(20)//
+                    .setMaxReconnectAttempts(2)//
+                    .build();
+
+            try {
+                websocket.connect().get(10, TimeUnit.SECONDS);
+                fail("Connect should have failed");
+            } catch (ExecutionException expected) {
+            }
+            assertTrue(websocket.isClosed());
+            assertEquals(websocket.getReconnectAttempts(), 3);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void givesUpWhenExecutingTheRequestThrows() throws Exception {
+        AsyncHttpClient client = mock(AsyncHttpClient.class);
+        when(client.executeRequest(any(Request.class), any(AsyncHandler.class))).thenThrow(new IllegalStateException("Closed"));
+        Timer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+        try {
+            ManagedWebSocket websocket = new ManagedWebSocket.Builder(client, timer, get(getTargetUrl()).build(), new WebSocketUpgradeHandler.Builder().build())//
+                    .setInitialReconnectDelay(10)//
+                    .setMaxReconnectDelay(20)//
+                    .setMaxReconnectAttempts(2)//
+                    .build();
+
+            try {
+                websocket.connect().get(10, TimeUnit.SECONDS);
+                fail("Connect should have failed");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException, "Unexpected cause " + e.getCause());
+            }
+            assertTrue(websocket.isClosed());
+            assertEquals(websocket.getReconnectAttempts(), 3);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void closeStopsReconnecting() throws Exception {
+        try (DefaultAsyncHttpClient c = (DefaultAsyncHttpClient) asyncHttpClient()) {
+            CountDownLatch opened = new CountDownLatch(2);
+            ManagedWebSocket websocket = c.prepareManagedWebSocket(get(getTargetUrl()).build(), new WebSocketUpgradeHandler.Builder().addWebSocketListener(new DefaultWebSocketListener() {
+                @Override
+                public void onOpen(WebSocket websocket) {
+                    opened.countDown();
+                }
+            }).build())//
+                    .setInitialReconnectDelay(10)//
+                    .setMaxReconnectDelay(20)//
+                    .build();
+
+            websocket.connect().get(10, TimeUnit.SECONDS);
+            websocket.close();
+
+            assertFalse(opened.await(500, TimeUnit.MILLISECONDS));
+            assertTrue(websocket.isClosed());
+            assertFalse(websocket.isOpen());
+            try {
+                websocket.sendMessageAsync("too late").get(10, TimeUnit.SECONDS);
+                fail("Send should have failed");
+            } catch (ExecutionException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.netty.ws.PerMessageDeflate;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.testng.annotations.Test;
+
+public class PerMessageDeflateTest extends AbstractBasicTest {
+
+    @Override
+    public WebSocketHandler getWebSocketHandler() {
+        return new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.register(EchoSocket.class);
+            }
+        };
+    }
+
+    private static String jsonMessage(int i) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int j = 0; j < 200; j++)
+            sb.append("{\"symbol\":\"AHC").append(j % 10).append("\",\"bid\":").append(i + j).append(",\"ask\":").append(i + j + 1).append("},");
+        return sb.append("{}]").toString();
+    }
+
+    private static class MessageCollector extends DefaultWebSocketListener {
+
+        private final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onMessage(byte[] message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            messages.add(t);
+        }
+
+        Object poll() throws InterruptedException {
+            return messages.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void compressedTextMessages() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = c.prepareGet(getTargetUrl())
+                    .execute(new WebSocketUpgradeHandler.Builder().setPerMessageDeflate(true).addWebSocketListener(collector).build()).get();
+
+            String extensions = websocket.getUpgradeHeaders().get(PerMessageDeflate.SEC_WEBSOCKET_EXTENSIONS);
+            assertNotNull(extensions);
+            assertTrue(extensions.startsWith(PerMessageDeflate.EXTENSION_NAME), extensions);
+
+            // several messages so that the compression context is carried over
+            for (int i = 0; i < 10; i++) {
+                String message = jsonMessage(i);
+                websocket.sendMessage(message);
+                assertEquals(collector.poll(), message);
+            }
+            websocket.sendMessage("");
+            assertEquals(collector.poll(), "");
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void compressedBinaryMessages() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = c.prepareGet(getTargetUrl())
+                    .execute(new WebSocketUpgradeHandler.Builder().setPerMessageDeflate(true).addWebSocketListener(collector).build()).get();
+
+            byte[] message = new byte[60 * 1024];
+            for (int i = 0; i < message.length; i++)
+                message[i] = (byte) (i % 64);
+            websocket.sendMessage(message);
+            Object echoed = collector.poll();
+            assertTrue(echoed instanceof byte[], String.valueOf(echoed));
+            assertTrue(Arrays.equals((byte[]) echoed, message));
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void noContextTakeover() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocketUpgradeHandler handler = new WebSocketUpgradeHandler.Builder()//
+                    .setPerMessageDeflate(true)//
+                    .setClientNoContextTakeover(true)//
+                    .setServerNoContextTakeover(true)//
+                    .addWebSocketListener(collector)//
+                    .build();
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(handler).get();
+
+            for (int i = 0; i < 5; i++) {
+                String message = jsonMessage(i);
+                websocket.sendMessage(message);
+                assertEquals(collector.poll(), message);
+            }
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void notOfferedByDefault() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            WebSocket websocket = c.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().build()).get();
+            assertNull(websocket.getUpgradeHeaders().get(PerMessageDeflate.SEC_WEBSOCKET_EXTENSIONS));
+        }
+    }
+
+    @Test(groups = "standalone")
+    public void offer() {
+        WebSocketUpgradeHandler handler = new WebSocketUpgradeHandler.Builder()//
+                .setPerMessageDeflate(true)//
+                .setClientNoContextTakeover(true)//
+                .setServerMaxWindowBits(10)//
+                .build();
+        assertEquals(PerMessageDeflate.offer(handler), "permessage-deflate; client_no_context_takeover; server_max_window_bits=10");
+        assertNull(PerMessageDeflate.offer(new WebSocketUpgradeHandler.Builder().build()));
+    }
+
+    @Test(groups = "standalone")
+    public void acceptNegotiatedParameters() throws IOException {
+        WebSocketUpgradeHandler handler = new WebSocketUpgradeHandler.Builder().setPerMessageDeflate(true).setServerMaxWindowBits(12).build();
+
+        PerMessageDeflate negotiated = PerMessageDeflate.accept(handler, "permessage-deflate; server_no_context_takeover; server_max_window_bits=\"10\"");
+        assertTrue(negotiated.isServerNoContextTakeover());
+        assertFalse(negotiated.isClientNoContextTakeover());
+
+        assertTrue(PerMessageDeflate.accept(handler, "permessage-deflate; client_no_context_takeover").isClientNoContextTakeover());
+        assertNull(PerMessageDeflate.accept(handler, null));
+    }
+
+    @Test(groups = "standalone")
+    public void rejectUnexpectedParameters() {
+        WebSocketUpgradeHandler handler = new WebSocketUpgradeHandler.Builder().setPerMessageDeflate(true).setServerMaxWindowBits(12).build();
+        for (String extensions : new String[] { "x-webkit-deflate-frame", //
+                "permessage-deflate, permessage-deflate", //
+                "permessage-deflate; server_max_window_bits=14", //
+                "permessage-deflate; client_max_window_bits=10", //
+                "permessage-deflate; server_no_context_takeover; server_no_context_takeover", //
+                "permessage-deflate; unknown" }) {
+            try {
+                PerMessageDeflate.accept(handler, extensions);
+                fail("Should have rejected " + extensions);
+            } catch (IOException expected) {
+            }
+        }
+    }
+}
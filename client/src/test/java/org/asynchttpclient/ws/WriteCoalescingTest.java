@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2016 AsyncHttpClient Project. All rights reserved.
+ *
+ * This program is licensed to you under the Apache License Version 2.0,
+ * and you may not use this file except in compliance with the Apache License Version 2.0.
+ * You may obtain a copy of the Apache License Version 2.0 at
+ *     http://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the Apache License Version 2.0 is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Apache License Version 2.0 for the specific language governing permissions and limitations there under.
+ */
+package org.asynchttpclient.ws;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.testng.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.testng.annotations.Test;
+
+public class WriteCoalescingTest extends AbstractBasicTest {
+
+    @Override
+    public WebSocketHandler getWebSocketHandler() {
+        return new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.register(EchoSocket.class);
+            }
+        };
+    }
+
+    private static class MessageCollector extends DefaultWebSocketListener {
+
+        private final BlockingQueue<Object> messages = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onMessage(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onMessage(byte[] message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            messages.add(t);
+        }
+
+        Object poll() throws InterruptedException {
+            return messages.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private WebSocket connect(AsyncHttpClient c, MessageCollector collector, int flushThreshold) throws Exception {
+        return c.prepareGet(getTargetUrl())
+                .execute(new WebSocketUpgradeHandler.Builder().setCoalesceWrites(true).setFlushThreshold(flushThreshold).addWebSocketListener(collector).build())
+                .get();
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void coalescedMessagesAreSentInOrder() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = connect(c, collector, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+
+            for (int i = 0; i < 1000; i++)
+                websocket.sendMessage("message-" + i);
+
+            for (int i = 0; i < 1000; i++)
+                assertEquals(collector.poll(), "message-" + i);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void closeFrameIsSentAfterCoalescedMessages() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector() {
+                @Override
+                public void onOpen(WebSocket websocket) {
+                    // from the event loop, where a close frame written directly would overtake the queued messages
+                    for (int i = 0; i < 100; i++)
+                        websocket.sendMessage("message-" + i);
+                    try {
+                        websocket.close();
+                    } catch (IOException e) {
+                        onError(e);
+                    }
+                }
+            };
+            connect(c, collector, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+
+            // the server only closes once it echoed everything it received before the close frame
+            for (int i = 0; i < 100; i++)
+                assertEquals(collector.poll(), "message-" + i);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void flushThresholdSplitsBatches() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = connect(c, collector, 64);
+
+            byte[] payload = new byte[100];
+            for (int i = 0; i < 100; i++) {
+                payload[0] = (byte) i;
+                websocket.sendMessage(payload.clone());
+            }
+
+            for (int i = 0; i < 100; i++) {
+                Object message = collector.poll();
+                assertTrue(message instanceof byte[], "Unexpected message " + message);
+                assertEquals(((byte[]) message)[0], (byte) i);
+            }
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void asyncSendsCompleteOnceWritten() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = connect(c, collector, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++)
+                futures.add(websocket.sendMessageAsync("message-" + i));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get(10, TimeUnit.SECONDS);
+
+            for (int i = 0; i < 100; i++)
+                assertEquals(collector.poll(), "message-" + i);
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void producerHonoringWritabilitySendsEverything() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = connect(c, collector, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+
+            byte[] payload = new byte[8 * 1024];
+            int messages = 2000;
+            for (int i = 0; i < messages; i++) {
+                if (!websocket.isWritable())
+                    websocket.whenWritable().get(10, TimeUnit.SECONDS);
+                websocket.sendMessage(payload);
+            }
+
+            for (int i = 0; i < messages; i++) {
+                Object message = collector.poll();
+                assertTrue(message instanceof byte[], "Unexpected message " + message);
+                assertEquals(((byte[]) message).length, payload.length);
+            }
+        }
+    }
+
+    @Test(groups = "standalone", timeOut = 60000)
+    public void asyncSendFailsAndWhenWritableCompletesOnceClosed() throws Exception {
+        try (AsyncHttpClient c = asyncHttpClient()) {
+            MessageCollector collector = new MessageCollector();
+            WebSocket websocket = connect(c, collector, WebSocketUpgradeHandler.DEFAULT_FLUSH_THRESHOLD);
+
+            websocket.close();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (websocket.isOpen() && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertFalse(websocket.isOpen());
+            assertFalse(websocket.isWritable());
+
+            websocket.whenWritable().get(10, TimeUnit.SECONDS);
+            CompletableFuture<Void> send = websocket.sendMessageAsync("too late");
+            try {
+                send.get(10, TimeUnit.SECONDS);
+                fail("Send should have failed");
+            } catch (ExecutionException expected) {
+            }
+        }
+    }
+}
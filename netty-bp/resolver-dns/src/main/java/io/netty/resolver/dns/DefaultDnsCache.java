@@ -22,22 +22,43 @@ import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil2.checkPositive;
 import static io.netty.util.internal.ObjectUtil2.checkPositiveOrZero;
 
 /**
  * Default implementation of {@link DnsCache}, backed by a {@link ConcurrentMap}.
+ * <p>
+ * The number of cached hostnames can be bounded, in which case the least recently used ones are evicted first, following the CLOCK
+ * approximation of LRU. All the addresses of a hostname expire together, with the shortest of their TTLs. Expired hostnames are never
+ * returned, and they're purged in batches by a single periodic task instead of each of them scheduling its own.
  */
 public class DefaultDnsCache implements DnsCache {
 
-    private final ConcurrentMap<String, List<DnsCacheEntry>> resolveCache = PlatformDependent.newConcurrentHashMap();
+    /**
+     * Period of the purge of the expired hostnames (in seconds).
+     */
+    static final int PURGE_INTERVAL = 5;
+
+    private final ConcurrentMap<String, HostEntries> resolveCache = PlatformDependent.newConcurrentHashMap();
+    // hostnames in insertion order, swept when evicting and purging, might contain hostnames that were already removed
+    private final Queue<HostEntries> clock = new ConcurrentLinkedQueue<HostEntries>();
+    private final AtomicBoolean purgeScheduled = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
     private final int minTtl;
     private final int maxTtl;
     private final int negativeTtl;
+    private final int maxEntries;
 
     /**
      * Create a cache that respects the TTL returned by the DNS server
@@ -48,12 +69,23 @@ public class DefaultDnsCache implements DnsCache {
     }
 
     /**
-     * Create a cache.
+     * Create an unbounded cache.
      * @param minTtl the minimum TTL
      * @param maxTtl the maximum TTL
      * @param negativeTtl the TTL for failed queries
      */
     public DefaultDnsCache(int minTtl, int maxTtl, int negativeTtl) {
+        this(minTtl, maxTtl, negativeTtl, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a cache.
+     * @param minTtl the minimum TTL
+     * @param maxTtl the maximum TTL
+     * @param negativeTtl the TTL for failed queries
+     * @param maxEntries the maximum number of cached hostnames
+     */
+    public DefaultDnsCache(int minTtl, int maxTtl, int negativeTtl, int maxEntries) {
         this.minTtl = checkPositiveOrZero(minTtl, "minTtl");
         this.maxTtl = checkPositiveOrZero(maxTtl, "maxTtl");
         if (minTtl > maxTtl) {
@@ -61,6 +93,7 @@ public class DefaultDnsCache implements DnsCache {
                     "minTtl: " + minTtl + ", maxTtl: " + maxTtl + " (expected: 0 <= minTtl <= maxTtl)");
         }
         this.negativeTtl = checkPositiveOrZero(negativeTtl, "negativeTtl");
+        this.maxEntries = checkPositive(maxEntries, "maxEntries");
     }
 
     /**
@@ -89,47 +122,87 @@ public class DefaultDnsCache implements DnsCache {
         return negativeTtl;
     }
 
+    /**
+     * Returns the maximum number of cached hostnames.
+     */
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the number of cached hostnames, including the expired ones that weren't purged yet.
+     */
+    public int size() {
+        return resolveCache.size();
+    }
+
+    /**
+     * Returns the number of lookups that found unexpired entries.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that didn't find unexpired entries.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of hostnames that were evicted to honor {@link #maxEntries()}.
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
     @Override
     public void clear() {
-        for (Iterator<Map.Entry<String, List<DnsCacheEntry>>> i = resolveCache.entrySet().iterator(); i.hasNext();) {
-            final Map.Entry<String, List<DnsCacheEntry>> e = i.next();
-            i.remove();
-            cancelExpiration(e.getValue());
-        }
+        resolveCache.clear();
+        clock.clear();
     }
 
     @Override
     public boolean clear(String hostname) {
         checkNotNull(hostname, "hostname");
-        boolean removed = false;
-        for (Iterator<Map.Entry<String, List<DnsCacheEntry>>> i = resolveCache.entrySet().iterator(); i.hasNext();) {
-            final Map.Entry<String, List<DnsCacheEntry>> e = i.next();
-            if (e.getKey().equals(hostname)) {
-                i.remove();
-                cancelExpiration(e.getValue());
-                removed = true;
-            }
-        }
-        return removed;
+        return resolveCache.remove(hostname) != null;
     }
 
     @Override
     public List<DnsCacheEntry> get(String hostname) {
         checkNotNull(hostname, "hostname");
-        return resolveCache.get(hostname);
-    }
-
-    private List<DnsCacheEntry> cachedEntries(String hostname) {
-        List<DnsCacheEntry> oldEntries = resolveCache.get(hostname);
-        final List<DnsCacheEntry> entries;
-        if (oldEntries == null) {
-            List<DnsCacheEntry> newEntries = new ArrayList<DnsCacheEntry>(8);
-            oldEntries = resolveCache.putIfAbsent(hostname, newEntries);
-            entries = oldEntries != null? oldEntries : newEntries;
-        } else {
-            entries = oldEntries;
+        HostEntries hostEntries = resolveCache.get(hostname);
+        if (hostEntries != null) {
+            if (!hostEntries.isExpired(System.nanoTime())) {
+                hostEntries.accessed = true;
+                hits.increment();
+                return hostEntries.entries;
+            }
+            resolveCache.remove(hostname, hostEntries);
         }
-        return entries;
+        misses.increment();
+        return null;
+    }
+
+    private HostEntries cachedEntries(String hostname, long expiration) {
+        HostEntries hostEntries = resolveCache.get(hostname);
+        if (hostEntries == null) {
+            HostEntries newEntries = new HostEntries(hostname, expiration);
+            hostEntries = resolveCache.putIfAbsent(hostname, newEntries);
+            if (hostEntries == null) {
+                hostEntries = newEntries;
+                clock.offer(newEntries);
+                if (resolveCache.size() > maxEntries) {
+                    evict();
+                }
+            }
+        }
+        return hostEntries;
+    }
+
+    private static long expiration(long now, int ttl) {
+        return now + TimeUnit.SECONDS.toNanos(ttl);
     }
 
     @Override
@@ -142,22 +215,23 @@ public class DefaultDnsCache implements DnsCache {
         checkNotNull(loop, "loop");
 
         final int ttl = Math.max(minTtl, (int) Math.min(maxTtl, originalTtl));
-        final List<DnsCacheEntry> entries = cachedEntries(hostname);
+        final long expiration = expiration(System.nanoTime(), ttl);
+        final HostEntries hostEntries = cachedEntries(hostname, expiration);
         final DnsCacheEntry e = new DnsCacheEntry(hostname, address);
 
+        final List<DnsCacheEntry> entries = hostEntries.entries;
         synchronized (entries) {
-            if (!entries.isEmpty()) {
-                final DnsCacheEntry firstEntry = entries.get(0);
-                if (firstEntry.cause() != null) {
-                    assert entries.size() == 1;
-                    firstEntry.cancelExpiration();
-                    entries.clear();
-                }
+            if (!entries.isEmpty() && entries.get(0).cause() != null) {
+                assert entries.size() == 1;
+                entries.clear();
+            }
+            if (entries.isEmpty() || expiration - hostEntries.expiration < 0) {
+                hostEntries.expiration = expiration;
             }
             entries.add(e);
         }
 
-        scheduleCacheExpiration(entries, e, ttl, loop);
+        schedulePurge(loop);
     }
 
     @Override
@@ -169,43 +243,69 @@ public class DefaultDnsCache implements DnsCache {
         checkNotNull(cause, "cause");
         checkNotNull(loop, "loop");
 
-        final List<DnsCacheEntry> entries = cachedEntries(hostname);
+        final long expiration = expiration(System.nanoTime(), negativeTtl);
+        final HostEntries hostEntries = cachedEntries(hostname, expiration);
         final DnsCacheEntry e = new DnsCacheEntry(hostname, cause);
 
+        final List<DnsCacheEntry> entries = hostEntries.entries;
         synchronized (entries) {
-            final int numEntries = entries.size();
-            for (int i = 0; i < numEntries; i ++) {
-                entries.get(i).cancelExpiration();
-            }
             entries.clear();
             entries.add(e);
+            hostEntries.expiration = expiration;
         }
 
-        scheduleCacheExpiration(entries, e, negativeTtl, loop);
+        schedulePurge(loop);
     }
 
-    private static void cancelExpiration(List<DnsCacheEntry> entries) {
-        final int numEntries = entries.size();
-        for (int i = 0; i < numEntries; i++) {
-            entries.get(i).cancelExpiration();
+    /**
+     * Evict the first hostname of the clock that's either expired or wasn't accessed since the clock's hand last went past it.
+     */
+    private void evict() {
+        final long now = System.nanoTime();
+        HostEntries hostEntries;
+        while ((hostEntries = clock.poll()) != null) {
+            if (resolveCache.get(hostEntries.hostname) != hostEntries) {
+                // already removed
+                continue;
+            }
+            if (hostEntries.accessed && !hostEntries.isExpired(now)) {
+                // second chance
+                hostEntries.accessed = false;
+                clock.offer(hostEntries);
+                continue;
+            }
+            if (resolveCache.remove(hostEntries.hostname, hostEntries)) {
+                evictions.increment();
+                return;
+            }
         }
     }
 
-    private void scheduleCacheExpiration(final List<DnsCacheEntry> entries,
-                                         final DnsCacheEntry e,
-                                         int ttl,
-                                         EventLoop loop) {
-        e.scheduleExpiration(loop, new Runnable() {
-                    @Override
-                    public void run() {
-                        synchronized (entries) {
-                            entries.remove(e);
-                            if (entries.isEmpty()) {
-                                resolveCache.remove(e.hostname());
-                            }
-                        }
-                    }
-                }, ttl, TimeUnit.SECONDS);
+    private void schedulePurge(EventLoop loop) {
+        if (purgeScheduled.compareAndSet(false, true)) {
+            try {
+                loop.schedule(new PurgeTask(loop), PURGE_INTERVAL, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException e) {
+                // the loop is shutting down, the next cached entry will try again
+                purgeScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Remove the expired hostnames
+     */
+    void purge() {
+        final long now = System.nanoTime();
+        for (Iterator<HostEntries> i = clock.iterator(); i.hasNext();) {
+            final HostEntries hostEntries = i.next();
+            if (resolveCache.get(hostEntries.hostname) != hostEntries) {
+                i.remove();
+            } else if (hostEntries.isExpired(now)) {
+                i.remove();
+                resolveCache.remove(hostEntries.hostname, hostEntries);
+            }
+        }
     }
 
     @Override
@@ -214,8 +314,48 @@ public class DefaultDnsCache implements DnsCache {
                 .append("DefaultDnsCache(minTtl=")
                 .append(minTtl).append(", maxTtl=")
                 .append(maxTtl).append(", negativeTtl=")
-                .append(negativeTtl).append(", cached resolved hostname=")
-                .append(resolveCache.size()).append(")")
+                .append(negativeTtl).append(", maxEntries=")
+                .append(maxEntries).append(", cached resolved hostname=")
+                .append(resolveCache.size()).append(", hits=")
+                .append(hits()).append(", misses=")
+                .append(misses()).append(", evictions=")
+                .append(evictions()).append(")")
                 .toString();
     }
+
+    private static final class HostEntries {
+
+        final String hostname;
+        final List<DnsCacheEntry> entries = new ArrayList<DnsCacheEntry>(8);
+        // System.nanoTime() based, written while holding the entries' lock
+        volatile long expiration;
+        volatile boolean accessed;
+
+        HostEntries(String hostname, long expiration) {
+            this.hostname = hostname;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiration >= 0;
+        }
+    }
+
+    private final class PurgeTask implements Runnable {
+
+        private final EventLoop loop;
+
+        PurgeTask(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public void run() {
+            purge();
+            purgeScheduled.set(false);
+            if (!resolveCache.isEmpty()) {
+                schedulePurge(loop);
+            }
+        }
+    }
 }
@@ -18,11 +18,7 @@ package io.netty.resolver.dns;
 
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
-import io.netty.channel.EventLoop;
-import io.netty.util.concurrent.ScheduledFuture;
-
 import java.net.InetAddress;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Entry in {@link DnsCache}.
@@ -32,7 +28,6 @@ public final class DnsCacheEntry {
     private final String hostname;
     private final InetAddress address;
     private final Throwable cause;
-    private volatile ScheduledFuture<?> expirationFuture;
 
     public DnsCacheEntry(String hostname, InetAddress address) {
         this.hostname = checkNotNull(hostname, "hostname");
@@ -58,18 +53,6 @@ public final class DnsCacheEntry {
         return cause;
     }
 
-    void scheduleExpiration(EventLoop loop, Runnable task, long delay, TimeUnit unit) {
-        assert expirationFuture == null: "expiration task scheduled already";
-        expirationFuture = loop.schedule(task, delay, unit);
-    }
-
-    void cancelExpiration() {
-        ScheduledFuture<?> expirationFuture = this.expirationFuture;
-        if (expirationFuture != null) {
-            expirationFuture.cancel(false);
-        }
-    }
-
     @Override
     public String toString() {
         if (cause != null) {
@@ -41,6 +41,7 @@ public final class DnsNameResolverBuilder {
     private Integer minTtl;
     private Integer maxTtl;
     private Integer negativeTtl;
+    private Integer maxCacheEntries;
     private long queryTimeoutMillis = 5000;
     private InternetProtocolFamily[] resolvedAddressTypes = DnsNameResolver.DEFAULT_RESOLVE_ADDRESS_TYPES;
     private boolean recursionDesired = true;
@@ -135,6 +136,18 @@ public final class DnsNameResolverBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of hostnames in the cache, the least recently used ones being evicted first.
+     * The default value is {@link Integer#MAX_VALUE}, which practically makes the cache unbounded.
+     *
+     * @param maxCacheEntries the maximum number of cached hostnames
+     * @return {@code this}
+     */
+    public DnsNameResolverBuilder maxCacheEntries(int maxCacheEntries) {
+        this.maxCacheEntries = maxCacheEntries;
+        return this;
+    }
+
     /**
      * Sets the timeout of each DNS query performed by this resolver (in milliseconds).
      *
@@ -336,12 +349,13 @@ public final class DnsNameResolverBuilder {
      */
     public DnsNameResolver build() {
 
-        if (resolveCache != null && (minTtl != null || maxTtl != null || negativeTtl != null)) {
-            throw new IllegalStateException("resolveCache and TTLs are mutually exclusive");
+        if (resolveCache != null && (minTtl != null || maxTtl != null || negativeTtl != null || maxCacheEntries != null)) {
+            throw new IllegalStateException("resolveCache and TTLs or maxCacheEntries are mutually exclusive");
         }
 
         DnsCache cache = resolveCache != null ? resolveCache :
-                new DefaultDnsCache(intValue(minTtl, 0), intValue(maxTtl, Integer.MAX_VALUE), intValue(negativeTtl, 0));
+                new DefaultDnsCache(intValue(minTtl, 0), intValue(maxTtl, Integer.MAX_VALUE), intValue(negativeTtl, 0),
+                        intValue(maxCacheEntries, Integer.MAX_VALUE));
 
         return new DnsNameResolver(
                 eventLoop,
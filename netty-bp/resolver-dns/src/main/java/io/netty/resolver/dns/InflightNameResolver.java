@@ -29,14 +29,18 @@ import java.util.concurrent.ConcurrentMap;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 
 // FIXME(trustin): Find a better name and move it to the 'resolver' module.
-final class InflightNameResolver<T> implements NameResolver<T> {
+/**
+ * A {@link NameResolver} that coalesces concurrent resolutions of the same hostname into a single query to its delegate.
+ * The in-progress maps can be shared between the resolvers of multiple event loops.
+ */
+public final class InflightNameResolver<T> implements NameResolver<T> {
 
     private final EventExecutor executor;
     private final NameResolver<T> delegate;
     private final ConcurrentMap<String, Promise<T>> resolvesInProgress;
     private final ConcurrentMap<String, Promise<List<T>>> resolveAllsInProgress;
 
-    InflightNameResolver(EventExecutor executor, NameResolver<T> delegate,
+    public InflightNameResolver(EventExecutor executor, NameResolver<T> delegate,
                          ConcurrentMap<String, Promise<T>> resolvesInProgress,
                          ConcurrentMap<String, Promise<List<T>>> resolveAllsInProgress) {
 
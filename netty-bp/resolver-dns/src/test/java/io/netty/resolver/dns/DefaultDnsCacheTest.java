@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.resolver.dns;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.net.UnknownHostException;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class DefaultDnsCacheTest {
+
+    private static final EventLoopGroup GROUP = new NioEventLoopGroup(1);
+
+    @AfterClass
+    public static void destroy() {
+        GROUP.shutdownGracefully();
+    }
+
+    private static EventLoop loop() {
+        return GROUP.next();
+    }
+
+    @Test
+    public void testClearHostname() {
+        DefaultDnsCache cache = new DefaultDnsCache();
+        cache.cache("netty.io", NetUtil.LOCALHOST4, 60, loop());
+        cache.cache("example.com", NetUtil.LOCALHOST4, 60, loop());
+
+        assertTrue(cache.clear("netty.io"));
+        assertFalse(cache.clear("netty.io"));
+        assertNull(cache.get("netty.io"));
+        assertThat(cache.get("example.com").size(), is(1));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        DefaultDnsCache cache = new DefaultDnsCache(0, Integer.MAX_VALUE, 0, 2);
+        cache.cache("a.com", NetUtil.LOCALHOST4, 60, loop());
+        cache.cache("b.com", NetUtil.LOCALHOST4, 60, loop());
+        assertNotNull(cache.get("a.com"));
+
+        cache.cache("c.com", NetUtil.LOCALHOST4, 60, loop());
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.evictions(), is(1L));
+        assertNull(cache.get("b.com"));
+        assertNotNull(cache.get("a.com"));
+        assertNotNull(cache.get("c.com"));
+    }
+
+    @Test
+    public void testCounters() {
+        DefaultDnsCache cache = new DefaultDnsCache();
+        cache.cache("netty.io", NetUtil.LOCALHOST4, 60, loop());
+
+        cache.get("netty.io");
+        cache.get("netty.io");
+        cache.get("example.com");
+
+        assertThat(cache.hits(), is(2L));
+        assertThat(cache.misses(), is(1L));
+    }
+
+    @Test
+    public void testExpiredEntriesAreNotReturnedAndPurged() {
+        DefaultDnsCache cache = new DefaultDnsCache(0, 1, 60);
+        cache.cache("netty.io", NetUtil.LOCALHOST4, 0, loop());
+        cache.cache("example.com", new UnknownHostException("example.com"), loop());
+        assertThat(cache.size(), is(2));
+
+        // zero TTL, already expired
+        assertNull(cache.get("netty.io"));
+        assertNotNull(cache.get("example.com"));
+
+        cache.cache("netty.io", NetUtil.LOCALHOST4, 0, loop());
+        cache.purge();
+        assertThat(cache.size(), is(1));
+        assertNotNull(cache.get("example.com"));
+    }
+
+    @Test
+    public void testShortestTtlWins() {
+        DefaultDnsCache cache = new DefaultDnsCache();
+        cache.cache("netty.io", NetUtil.LOCALHOST4, 60, loop());
+        cache.cache("netty.io", NetUtil.LOCALHOST6, 0, loop());
+        assertNull(cache.get("netty.io"));
+    }
+}